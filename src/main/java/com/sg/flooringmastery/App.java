@@ -13,11 +13,19 @@ import org.springframework.context.annotation.AnnotationConfigApplicationContext
 public class App {
     public static void main(String[] args) {
 
-        AnnotationConfigApplicationContext appContext = new AnnotationConfigApplicationContext();
-        appContext.scan("com.sg.flooringmastery");
-        appContext.refresh();
+        try (AnnotationConfigApplicationContext appContext = new AnnotationConfigApplicationContext()) {
+            appContext.scan("com.sg.flooringmastery");
+            appContext.refresh();
+            // closes the context, and with it the DAO, if the program is stopped before the controller returns
+            appContext.registerShutdownHook();
 
-        FlooringController controller = appContext.getBean("flooringController", FlooringController.class);
-        controller.run();
+            // -Dflooring.loadReport=true prints how long the order files took to load
+            if (Boolean.getBoolean("flooring.loadReport")) {
+                System.out.println(appContext.getBean(FlooringDaoImpl.class).getLoadReport());
+            }
+
+            FlooringController controller = appContext.getBean("flooringController", FlooringController.class);
+            controller.run();
+        }
     }
 }
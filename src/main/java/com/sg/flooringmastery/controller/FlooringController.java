@@ -2,14 +2,20 @@ package com.sg.flooringmastery.controller;
 
 import com.sg.flooringmastery.dao.FlooringPersistenceException;
 import com.sg.flooringmastery.dao.InvalidOrderException;
+import com.sg.flooringmastery.dao.StaleOrderException;
 import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.RepriceReport;
 import com.sg.flooringmastery.service.FlooringService;
 import com.sg.flooringmastery.view.FlooringView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
-import java.util.Set;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * The "Controller" component of the 3-tiered MVC flooring program architecture.
@@ -18,6 +24,8 @@ import java.util.Set;
 @Component
 public class FlooringController {
 
+    private final static int ORDER_PAGE_SIZE = 20;
+
     private FlooringView view;
     private FlooringService service;
 
@@ -60,6 +68,18 @@ public class FlooringController {
                         exportAllData();
                         break;
                     case 6:
+                        searchByCustomer();
+                        break;
+                    case 7:
+                        displaySalesSummary();
+                        break;
+                    case 8:
+                        importOrders();
+                        break;
+                    case 9:
+                        updatePrices();
+                        break;
+                    case 10:
                         keepGoing = false;
                         break;
                     default:
@@ -90,9 +110,44 @@ public class FlooringController {
      */
     private void displayOrdersForDate() {
         LocalDate date = view.askForDate();
-        // get orders from service
-        Set<Order> ordersToDisplay = service.getOrdersByDate(date);
-        view.displayOrders(ordersToDisplay);
+        pageThroughOrders((offset, pageSize) -> service.getOrdersByDate(date, offset, pageSize), view::displayOrderPage);
+    }
+
+    /**
+     * Asks for part of a customer's name and pages through the orders of the
+     * customers that match. Text ending in * matches the start of the name,
+     * anything else matches anywhere in it.
+     */
+    private void searchByCustomer() {
+        String text = view.askForCustomerSearch().strip();
+        if (text.endsWith("*")) {
+            String prefix = text.substring(0, text.length() - 1);
+            pageThroughOrders((offset, pageSize) -> service.findOrdersByCustomerPrefix(prefix, offset, pageSize),
+                    view::displayCustomerMatchPage);
+        } else {
+            pageThroughOrders((offset, pageSize) -> service.findOrdersByCustomerSubstring(text, offset, pageSize),
+                    view::displayCustomerMatchPage);
+        }
+    }
+
+    /**
+     * Shows orders a page at a time for as long as the user asks for more.
+     * @param fetch fetches a page given the offset and page size
+     * @param display shows a page given the orders and the offset
+     */
+    private void pageThroughOrders(BiFunction<Integer, Integer, Stream<Order>> fetch,
+                                   BiConsumer<List<Order>, Integer> display) {
+        int offset = 0;
+        while (true) {
+            // ask for one more than a page to find out if there is another page after it
+            List<Order> page = fetch.apply(offset, ORDER_PAGE_SIZE + 1).collect(Collectors.toList());
+            boolean hasNextPage = page.size() > ORDER_PAGE_SIZE;
+            display.accept(hasNextPage ? page.subList(0, ORDER_PAGE_SIZE) : page, offset);
+            if (!hasNextPage || !view.askForNextPage()) {
+                break;
+            }
+            offset += ORDER_PAGE_SIZE;
+        }
     }
 
     /**
@@ -103,11 +158,11 @@ public class FlooringController {
         try {
 
             Order newOrder = service.createNewOrder(
-                    view.askForCustomerName(),
+                    view.askForCustomerName(service::validateCustomerName),
                     view.askForStateAbbr(service.getAcceptableStates()),
                     view.askForProductType(service.getAvailableProducts()),
-                    view.askForArea(),
-                    view.askForFutureDate()
+                    view.askForArea(service::validateArea),
+                    view.askForFutureDate(service::validateOrderDate)
             );
 
             // If you would still like to place this order
@@ -133,16 +188,16 @@ public class FlooringController {
         while (true) {
 
             view.displayEditOrderBanner();
-            Integer orderNum = view.askForOrderNumber(service.getAllOrderNumbers());
+            Integer orderNum = view.askForOrderNumber(service.getOrderNumberRanges());
             Order oldOrder = service.getOrder(orderNum);
 
             try {
                 Order newOrder = service.editOrder(
                         orderNum,
-                        view.askForEditedCustomerName(oldOrder.getCustomerName()),
+                        view.askForEditedCustomerName(oldOrder.getCustomerName(), service::validateCustomerName),
                         view.askForEditedStateAbbr(service.getAcceptableStates(), oldOrder.getTaxInfo().getStateAbbr()),
                         view.askForEditedProductType(service.getAvailableProducts(), oldOrder.getProduct().getProductType()),
-                        view.askForEditedArea(oldOrder.getArea())
+                        view.askForEditedArea(oldOrder.getArea(), service::validateArea)
                 );
 
                 System.out.println(newOrder.getMaterialCost());
@@ -150,8 +205,13 @@ public class FlooringController {
 
                 // Ask if they'd like to confirm editing the order
                 if (view.editOrderConfirmation(newOrder)) {
-                    service.replaceOrder(newOrder);
-                    view.displaySuccessfulEdit(orderNum);
+                    try {
+                        // only replace the order the user was shown
+                        service.replaceOrder(newOrder, oldOrder.getVersion());
+                        view.displaySuccessfulEdit(orderNum);
+                    } catch (StaleOrderException e) {
+                        view.displayStaleEdit(orderNum);
+                    }
                 } else {
                     view.displayFailedEdit(orderNum);
                 }
@@ -171,7 +231,7 @@ public class FlooringController {
             view.displayRemoveOrderBanner();
 
             try {
-                Order removeMe = service.getOrder(view.askForOrderNumber(service.getAllOrderNumbers()));
+                Order removeMe = service.getOrder(view.askForOrderNumber(service.getOrderNumberRanges()));
                 Integer removedOrderNum = removeMe.getOrderNumber();
 
                 if (view.removeOrderConfirmation(removeMe)) {
@@ -204,6 +264,56 @@ public class FlooringController {
 
     }
 
+    /**
+     * Displays the sales totals, overall and by state and product. With no
+     * dates given these are the running totals over every order, otherwise
+     * the orders between the dates are added up.
+     */
+    private void displaySalesSummary() {
+        LocalDate from = view.askForSummaryDate("first");
+        LocalDate to = view.askForSummaryDate("last");
+        if (from == null && to == null) {
+            view.displaySalesSummary(service.getSalesSummary());
+        } else {
+            view.displaySalesSummary(service.getSalesSummary(from == null ? LocalDate.MIN : from,
+                    to == null ? LocalDate.MAX : to));
+        }
+    }
+
+    /**
+     * Imports orders from a file.
+     */
+    private void importOrders() {
+        try {
+            view.displayImportReport(service.importOrders(view.askForImportFile()));
+        } catch (FlooringPersistenceException e) {
+            view.displayErrorMessage(e.getMessage());
+        }
+    }
+
+    /**
+     * Changes a product's costs or a state's tax rate and reprices the
+     * future orders it affects.
+     */
+    private void updatePrices() {
+        try {
+            RepriceReport report;
+            if (view.askForPriceUpdateKind() == 1) {
+                report = service.repriceProduct(
+                        view.askForProductType(service.getAvailableProducts()),
+                        view.askForRate("What is the new material cost per square foot?"),
+                        view.askForRate("What is the new labor cost per square foot?"));
+            } else {
+                report = service.repriceTax(
+                        view.askForStateAbbr(service.getAcceptableStates()),
+                        view.askForRate("What is the new tax rate, in percent?"));
+            }
+            view.displayRepriceReport(report);
+        } catch (FlooringPersistenceException e) {
+            view.displayErrorMessage(e.getMessage());
+        }
+    }
+
     /**
      * Displays an unknown command acknowledgement.
      */
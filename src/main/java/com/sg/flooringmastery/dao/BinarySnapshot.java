@@ -0,0 +1,342 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.Tax;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+import static java.math.RoundingMode.UP;
+
+/**
+ * A binary copy of the whole order store and both catalogs, used to skip
+ * parsing the text files at startup. The text files stay the real data; the
+ * snapshot is only trusted while the sizes and modified times of the text
+ * files match the ones it was taken from.
+ *
+ * Layout, big endian:
+ * <pre>
+ * header:  magic int, version int, fingerprint long, payload length int, payload crc long
+ * payload: strings   count int, then per string: length int, UTF-8 bytes
+ *          taxes     count int, then per tax: abbr id int, name id int, rate long
+ *          products  count int, then per product: type id int, cost long, labor cost long
+ *          orders    count int, then per order: number int, epoch day long, customer id int,
+ *                    state id int, product id int, then area, cost per sq ft, labor cost
+ *                    per sq ft, material cost, labor cost, tax, total and tax rate as longs
+ * </pre>
+ * Money is stored in hundredths, the same two decimals the text files hold.
+ * Each order keeps the tax rate it was priced at, which is only different
+ * from its state's rate in the catalog if the catalog changed since.
+ * Strings are stored once in the dictionary and referred to by index. Every
+ * order record is the same size, so they are decoded in parallel.
+ */
+public class BinarySnapshot {
+
+    private final static int MAGIC = 0x464D534E; // "FMSN"
+    private final static int VERSION = 2;
+    private final static int HEADER_SIZE = 4 + 4 + 8 + 4 + 8;
+    private final static int SCALE = 2;
+    private final static long NULL_MONEY = Long.MIN_VALUE;
+    private final static int ORDER_RECORD_SIZE = 4 + 8 + 4 + 4 + 4 + 8 * 8;
+
+    private final Path path;
+
+    /**
+     * What a snapshot holds.
+     */
+    public static class Contents {
+        public final Map<String, Tax> taxMap = new HashMap<>();
+        public final Map<String, Product> productMap = new HashMap<>();
+        public final List<CompactOrder> orders = new ArrayList<>();
+
+        // <state abbr;rate, Tax>, shared by the orders priced at a rate the catalog no longer has
+        private final ConcurrentMap<String, Tax> pastTaxes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Constructor that takes in the snapshot file.
+     * @param path the snapshot file
+     */
+    public BinarySnapshot(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Summarizes the names, sizes and modified times of the text files a
+     * snapshot is taken from. Only the file metadata is read.
+     * @param files the text files
+     * @return the fingerprint
+     */
+    public static long fingerprint(List<File> files) {
+        List<File> sorted = new ArrayList<>(files);
+        sorted.sort(Comparator.comparing(File::getPath));
+
+        CRC32 crc = new CRC32();
+        ByteBuffer numbers = ByteBuffer.allocate(16);
+        for (File file : sorted) {
+            crc.update(file.getPath().getBytes(StandardCharsets.UTF_8));
+            numbers.clear();
+            numbers.putLong(file.length()).putLong(file.lastModified()).flip();
+            crc.update(numbers);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Reads the snapshot if it exists, is intact and was taken from text
+     * files with the given fingerprint.
+     * @param fingerprint the fingerprint of the current text files
+     * @return the contents, or null if the snapshot can't be used
+     */
+    public Contents read(long fingerprint) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != fingerprint) {
+                return null;
+            }
+            int payloadLength = buffer.getInt();
+            long payloadCrc = buffer.getLong();
+            if (payloadLength != buffer.remaining()) {
+                return null;
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != payloadCrc) {
+                return null;
+            }
+            return readPayload(buffer);
+        } catch (IOException | RuntimeException e) {
+            // a snapshot we can't read is just a slower start
+            return null;
+        }
+    }
+
+    /**
+     * Writes a new snapshot, replacing the old one in a single rename.
+     * @param fingerprint the fingerprint of the text files the contents match
+     * @param taxes the tax catalog
+     * @param products the product catalog
+     * @param orders every order
+     */
+    public void write(long fingerprint, Collection<Tax> taxes, Collection<Product> products,
+                      Collection<CompactOrder> orders) throws FlooringPersistenceException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            byte[] payload = writePayload(taxes, products, orders);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(fingerprint).putInt(payload.length).putLong(crc.getValue());
+            header.flip();
+
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer body = ByteBuffer.wrap(payload);
+                while (header.hasRemaining() || body.hasRemaining()) {
+                    channel.write(new ByteBuffer[]{header, body});
+                }
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not write the order snapshot.", e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                // the next write overwrites it anyway
+            }
+        }
+    }
+
+    private byte[] writePayload(Collection<Tax> taxes, Collection<Product> products,
+                                Collection<CompactOrder> orders) throws IOException {
+        // <string, index in the dictionary>
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(64 + orders.size() * ORDER_RECORD_SIZE);
+        DataOutputStream records = new DataOutputStream(recordBytes);
+
+        records.writeInt(taxes.size());
+        for (Tax tax : taxes) {
+            records.writeInt(stringId(dictionary, tax.getStateAbbr()));
+            records.writeInt(stringId(dictionary, tax.getStateName()));
+            records.writeLong(toHundredths(tax.getTaxRate()));
+        }
+
+        records.writeInt(products.size());
+        for (Product product : products) {
+            records.writeInt(stringId(dictionary, product.getProductType()));
+            records.writeLong(toHundredths(product.getCostPerSquareFoot()));
+            records.writeLong(toHundredths(product.getLaborCostPerSquareFoot()));
+        }
+
+        records.writeInt(orders.size());
+        for (CompactOrder order : orders) {
+            records.writeInt(order.getOrderNumber());
+            records.writeLong(order.getDate().toEpochDay());
+            records.writeInt(stringId(dictionary, order.getCustomerName()));
+            records.writeInt(order.getTaxInfo() == null ? -1 : stringId(dictionary, order.getTaxInfo().getStateAbbr()));
+            records.writeInt(order.getProduct() == null ? -1 : stringId(dictionary, order.getProduct().getProductType()));
+            // area to tax, in the order CompactOrder numbers them
+            for (int amount = CompactOrder.AREA; amount <= CompactOrder.TAX; amount++) {
+                records.writeLong(toHundredths(order, amount));
+            }
+            records.writeLong(order.hasAmount(CompactOrder.TOTAL_COST)
+                    ? toHundredths(order, CompactOrder.TOTAL_COST) : toHundredths(order.getTotalCost()));
+            records.writeLong(toHundredths(order.getTaxInfo() == null ? null : order.getTaxInfo().getTaxRate()));
+        }
+        records.flush();
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(recordBytes.size() + dictionary.size() * 16);
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeInt(dictionary.size());
+        for (String string : dictionary.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        recordBytes.writeTo(out);
+        out.flush();
+        return payload.toByteArray();
+    }
+
+    private Contents readPayload(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            // interned like the names read from the text files, so both share one copy
+            strings[i] = new String(bytes, StandardCharsets.UTF_8).intern();
+        }
+
+        Contents contents = new Contents();
+
+        int taxCount = buffer.getInt();
+        for (int i = 0; i < taxCount; i++) {
+            Tax tax = new Tax(strings[buffer.getInt()], strings[buffer.getInt()], fromHundredths(buffer.getLong()));
+            contents.taxMap.put(tax.getStateAbbr(), tax);
+        }
+
+        int productCount = buffer.getInt();
+        for (int i = 0; i < productCount; i++) {
+            Product product = new Product(strings[buffer.getInt()],
+                    fromHundredths(buffer.getLong()), fromHundredths(buffer.getLong()));
+            contents.productMap.put(product.getProductType(), product);
+        }
+
+        int orderCount = buffer.getInt();
+        int ordersStart = buffer.position();
+        if ((long) orderCount * ORDER_RECORD_SIZE != buffer.remaining()) {
+            throw new IllegalStateException("Order records do not fill the snapshot");
+        }
+
+        // order records are all the same size, so they can be decoded in any order
+        CompactOrder[] orders = new CompactOrder[orderCount];
+        IntStream.range(0, orderCount).parallel().forEach(i ->
+                orders[i] = readOrder(buffer, ordersStart + i * ORDER_RECORD_SIZE, strings, contents));
+        contents.orders.addAll(Arrays.asList(orders));
+        return contents;
+    }
+
+    private static CompactOrder readOrder(ByteBuffer buffer, int at, String[] strings, Contents contents) {
+        int stateId = buffer.getInt(at + 16);
+        int productId = buffer.getInt(at + 20);
+
+        // area, cost per sq ft, labor cost per sq ft, material cost, labor cost, tax and total from at + 24 on
+        CompactOrder.Amounts amounts = new CompactOrder.Amounts();
+        amounts.clear();
+        for (int amount = 0; amount < CompactOrder.AMOUNT_COUNT; amount++) {
+            long hundredths = buffer.getLong(at + 24 + amount * 8);
+            if (hundredths != NULL_MONEY) {
+                amounts.set(amount, hundredths, SCALE);
+            }
+        }
+        return new CompactOrder(
+                buffer.getInt(at), // order number
+                strings[buffer.getInt(at + 12)], // customer name
+                stateId < 0 ? null : taxOf(contents, strings[stateId], fromHundredths(buffer.getLong(at + 80))),
+                productId < 0 ? null : contents.productMap.get(strings[productId]),
+                LocalDate.ofEpochDay(buffer.getLong(at + 4)),
+                amounts,
+                0);
+    }
+
+    /**
+     * Returns the tax of an order: its state's from the catalog, or one of
+     * its own if it was priced at a rate the catalog no longer has.
+     */
+    private static Tax taxOf(Contents contents, String stateAbbr, BigDecimal rate) {
+        Tax tax = contents.taxMap.get(stateAbbr);
+        if (tax == null || rate == null || rate.compareTo(tax.getTaxRate()) == 0) {
+            return tax;
+        }
+        return contents.pastTaxes.computeIfAbsent(stateAbbr + ";" + rate,
+                key -> new Tax(stateAbbr, tax.getStateName(), rate));
+    }
+
+    private static int stringId(Map<String, Integer> dictionary, String string) {
+        Integer id = dictionary.get(string);
+        if (id == null) {
+            id = dictionary.size();
+            dictionary.put(string, id);
+        }
+        return id;
+    }
+
+    private static long toHundredths(BigDecimal value) {
+        // rounded the same way the text files are
+        return value == null ? NULL_MONEY : value.setScale(SCALE, UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Returns an amount of an order in hundredths, rounded the way the text
+     * files are, straight from its ten-thousandths when it has them.
+     */
+    private static long toHundredths(CompactOrder order, int amount) {
+        if (!order.hasUnits(amount)) {
+            return toHundredths(order.amount(amount));
+        }
+        long units = order.units(amount);
+        long hundredths = units / 100;
+        if (units % 100 != 0) {
+            hundredths += Long.signum(units);
+        }
+        return hundredths;
+    }
+
+    private static BigDecimal fromHundredths(long value) {
+        return value == NULL_MONEY ? null : BigDecimal.valueOf(value, SCALE);
+    }
+}
@@ -0,0 +1,62 @@
+package com.sg.flooringmastery.dao;
+
+import java.util.Arrays;
+
+/**
+ * Adds up a run of rows of an OrderColumns store: the rows whose day falls
+ * in a range are counted, their amounts summed and the smallest and largest
+ * order total kept. There is a plain loop and, when the JDK's incubating
+ * Vector API is there, one that does several rows per instruction.
+ */
+interface ColumnScan {
+
+    /**
+     * Adds up the rows from start to end whose day is within fromDay and
+     * toDay. The caller keeps runs short enough that no sum can overflow.
+     * @param days the day of each row, as an epoch day
+     * @param amounts the amount columns, OrderColumns.AMOUNT_COLUMNS of them
+     * @param start the first row, inclusive
+     * @param end the last row, exclusive
+     * @param fromDay the first day, inclusive
+     * @param toDay the last day, inclusive
+     * @param totals the totals to add to
+     */
+    void scan(int[] days, long[][] amounts, int start, int end, int fromDay, int toDay, Totals totals);
+
+    /**
+     * Returns the fastest scan this JVM can run. The vector scan is only
+     * compiled by the build's vector profile, and only loaded when it was
+     * and the jdk.incubator.vector module was added at startup, with
+     * --add-modules jdk.incubator.vector. The plain loop is used otherwise.
+     * @return the scan
+     */
+    static ColumnScan best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (ColumnScan) Class.forName(ColumnScan.class.getPackageName() + ".VectorColumnScan")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // fall through to the plain loop
+            }
+        }
+        return new ScalarColumnScan();
+    }
+
+    /**
+     * What a scan adds up, in the amounts' ten-thousandths. Mutable, so one
+     * can be reused from run to run.
+     */
+    final class Totals {
+        long orderCount;
+        final long[] sums = new long[OrderColumns.AMOUNT_COLUMNS];
+        long smallestTotal = Long.MAX_VALUE;
+        long largestTotal = Long.MIN_VALUE;
+
+        void clear() {
+            orderCount = 0;
+            Arrays.fill(sums, 0);
+            smallestTotal = Long.MAX_VALUE;
+            largestTotal = Long.MIN_VALUE;
+        }
+    }
+}
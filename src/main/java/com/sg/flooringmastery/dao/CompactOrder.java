@@ -0,0 +1,445 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.Tax;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.math.RoundingMode.UP;
+
+/**
+ * The form an order is kept in by the DAO, immutable and about a quarter
+ * the size of an Order. Each amount is a long counting ten-thousandths, the
+ * same fixed point the PricingEngine prices in, plus three bits of one int
+ * for the scale it came with, so turning it back into an Order gives the
+ * exact BigDecimals it was made from. The tax and product are the catalog's
+ * own instances, and the date and customer name are shared with every other
+ * order that has the same one.
+ *
+ * An amount with more than four decimals, or too big for a long, is kept as
+ * the BigDecimal it was in an array that is only there when one is needed.
+ * Orders are only turned into Orders and back where they leave or enter the
+ * DAO.
+ */
+public final class CompactOrder {
+
+    /**
+     * The number of decimals the amounts are kept in.
+     */
+    public static final int SCALE = 4;
+
+    /**
+     * The number of decimals the order files keep, each amount rounded away
+     * from zero to them.
+     */
+    public static final int FILE_SCALE = 2;
+
+    // which amount, for the package-private accessors
+    static final int AREA = 0;
+    static final int COST_PER_SQUARE_FOOT = 1;
+    static final int LABOR_COST_PER_SQUARE_FOOT = 2;
+    static final int MATERIAL_COST = 3;
+    static final int LABOR_COST = 4;
+    static final int TAX = 5;
+    static final int TOTAL_COST = 6;
+    static final int AMOUNT_COUNT = 7;
+
+    // what an amount that is null, or kept in wide, is stored as
+    private static final long NONE = Long.MIN_VALUE;
+    private static final int SCALE_BITS = 3;
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+
+    // one instance per date, there are only ever a few thousand of them
+    private static final ConcurrentMap<LocalDate, LocalDate> DATES = new ConcurrentHashMap<>();
+
+    private final int orderNumber;
+    // the scale of each amount, SCALE_BITS apiece
+    private final int scales;
+    private final String customerName;
+    private final Tax taxInfo;
+    private final Product product;
+    private final LocalDate date;
+    private final long area;
+    private final long costPerSquareFoot;
+    private final long laborCostPerSquareFoot;
+    private final long materialCost;
+    private final long laborCost;
+    private final long tax;
+    private final long totalCost;
+    // null unless an amount didn't fit in ten-thousandths
+    private final BigDecimal[] wide;
+    private final long version;
+
+    /**
+     * The amounts of an order on their way into a CompactOrder. Mutable, so a
+     * reader can reuse one from line to line instead of making BigDecimals.
+     */
+    static final class Amounts {
+        private final long[] units = new long[AMOUNT_COUNT];
+        private int scales;
+        private BigDecimal[] wide;
+
+        /**
+         * Sets an amount from its unscaled value and scale, as in
+         * BigDecimal.valueOf(unscaled, scale).
+         */
+        void set(int amount, long unscaled, int scale) {
+            if (scale >= 0 && scale <= SCALE && unscaled != NONE) {
+                long scaled = unscaled * POWERS_OF_TEN[SCALE - scale];
+                if (scaled / POWERS_OF_TEN[SCALE - scale] == unscaled && scaled != NONE) {
+                    units[amount] = scaled;
+                    scales = scales & ~(((1 << SCALE_BITS) - 1) << amount * SCALE_BITS) | scale << amount * SCALE_BITS;
+                    clearWide(amount);
+                    return;
+                }
+            }
+            setWide(amount, BigDecimal.valueOf(unscaled, scale));
+        }
+
+        /**
+         * Sets an amount, null included.
+         */
+        void set(int amount, BigDecimal value) {
+            if (value == null) {
+                units[amount] = NONE;
+                clearWide(amount);
+            } else if (value.unscaledValue().bitLength() < Long.SIZE) {
+                set(amount, value.unscaledValue().longValue(), value.scale());
+            } else {
+                setWide(amount, value);
+            }
+        }
+
+        private void setWide(int amount, BigDecimal value) {
+            if (wide == null) {
+                wide = new BigDecimal[AMOUNT_COUNT];
+            }
+            units[amount] = NONE;
+            wide[amount] = value;
+        }
+
+        private void clearWide(int amount) {
+            if (wide != null) {
+                wide[amount] = null;
+            }
+        }
+
+        /**
+         * Forgets every amount, so the next order starts from nothing.
+         */
+        void clear() {
+            Arrays.fill(units, NONE);
+            scales = 0;
+            wide = null;
+        }
+    }
+
+    /**
+     * Constructor that copies the amounts, used by the readers of the data
+     * files.
+     * @param orderNumber the order number
+     * @param customerName the customer name, shared as it is
+     * @param taxInfo the tax
+     * @param product the product
+     * @param date the date
+     * @param amounts the amounts
+     * @param version the version
+     */
+    CompactOrder(int orderNumber, String customerName, Tax taxInfo, Product product, LocalDate date,
+                 Amounts amounts, long version) {
+        this.orderNumber = orderNumber;
+        this.customerName = customerName;
+        this.taxInfo = taxInfo;
+        this.product = product;
+        this.date = date == null ? null : DATES.computeIfAbsent(date, d -> d);
+        this.area = amounts.units[AREA];
+        this.costPerSquareFoot = amounts.units[COST_PER_SQUARE_FOOT];
+        this.laborCostPerSquareFoot = amounts.units[LABOR_COST_PER_SQUARE_FOOT];
+        this.materialCost = amounts.units[MATERIAL_COST];
+        this.laborCost = amounts.units[LABOR_COST];
+        this.tax = amounts.units[TAX];
+        this.totalCost = amounts.units[TOTAL_COST];
+        this.scales = amounts.scales;
+        this.wide = amounts.wide == null ? null : amounts.wide.clone();
+        this.version = version;
+    }
+
+    private CompactOrder(CompactOrder order, long version) {
+        this.orderNumber = order.orderNumber;
+        this.customerName = order.customerName;
+        this.taxInfo = order.taxInfo;
+        this.product = order.product;
+        this.date = order.date;
+        this.area = order.area;
+        this.costPerSquareFoot = order.costPerSquareFoot;
+        this.laborCostPerSquareFoot = order.laborCostPerSquareFoot;
+        this.materialCost = order.materialCost;
+        this.laborCost = order.laborCost;
+        this.tax = order.tax;
+        this.totalCost = order.totalCost;
+        this.scales = order.scales;
+        this.wide = order.wide;
+        this.version = version;
+    }
+
+    /**
+     * Makes the compact form of an order, keeping its tax and product.
+     * @param order the order, which must have an order number
+     * @return the compact order
+     */
+    public static CompactOrder of(Order order) {
+        return of(order, order.getTaxInfo(), order.getProduct());
+    }
+
+    /**
+     * Makes the compact form of an order with the given tax and product,
+     * for a caller that has the catalog's instances equal to the order's.
+     * The customer name is interned.
+     * @param order the order, which must have an order number
+     * @param taxInfo the tax to keep
+     * @param product the product to keep
+     * @return the compact order
+     */
+    public static CompactOrder of(Order order, Tax taxInfo, Product product) {
+        Amounts amounts = new Amounts();
+        amounts.clear();
+        amounts.set(AREA, order.getArea());
+        amounts.set(COST_PER_SQUARE_FOOT, order.getCostPerSquareFoot());
+        amounts.set(LABOR_COST_PER_SQUARE_FOOT, order.getLaborCostPerSquareFoot());
+        amounts.set(MATERIAL_COST, order.getMaterialCost());
+        amounts.set(LABOR_COST, order.getLaborCost());
+        amounts.set(TAX, order.getTax());
+        amounts.set(TOTAL_COST, totalCostOf(order));
+        String customerName = order.getCustomerName() == null ? null : order.getCustomerName().intern();
+        return new CompactOrder(order.getOrderNumber(), customerName, taxInfo, product, order.getDate(),
+                amounts, order.getVersion());
+    }
+
+    /**
+     * Returns this order with every amount rounded to cents the way the order
+     * files round them, so it holds what it will once its file is read back.
+     * @return the rounded order, or this one if every amount is in cents
+     */
+    public CompactOrder inCents() {
+        boolean inCents = true;
+        for (int amount = 0; amount < AMOUNT_COUNT && inCents; amount++) {
+            BigDecimal value = amount(amount);
+            inCents = value == null || value.scale() == FILE_SCALE;
+        }
+        if (inCents) {
+            return this;
+        }
+
+        Amounts amounts = new Amounts();
+        amounts.clear();
+        for (int amount = 0; amount < AMOUNT_COUNT; amount++) {
+            BigDecimal value = amount(amount);
+            amounts.set(amount, value == null ? null : value.setScale(FILE_SCALE, UP));
+        }
+        return new CompactOrder(orderNumber, customerName, taxInfo, product, date, amounts, version);
+    }
+
+    /**
+     * Returns an order's total, or null for an order that was never priced,
+     * whose getTotalCost() would fail adding up missing costs.
+     */
+    private static BigDecimal totalCostOf(Order order) {
+        if (order.getMaterialCost() == null || order.getLaborCost() == null || order.getTax() == null) {
+            return null;
+        }
+        return order.getTotalCost();
+    }
+
+    /**
+     * Turns this back into an Order, with the same amounts it was made from.
+     * @return a new Order
+     */
+    public Order toOrder() {
+        Order order = new Order(orderNumber, customerName, taxInfo, product, getArea(), date);
+        order.setCostPerSquareFoot(getCostPerSquareFoot());
+        order.setLaborCostPerSquareFoot(getLaborCostPerSquareFoot());
+        order.setMaterialCost(getMaterialCost());
+        order.setLaborCost(getLaborCost());
+        order.setTax(getTax());
+        order.setTotalCost(amount(TOTAL_COST));
+        order.setVersion(version);
+        return order;
+    }
+
+    /**
+     * Returns a copy of this order at another version.
+     * @param version the version
+     * @return the copy
+     */
+    public CompactOrder withVersion(long version) {
+        return new CompactOrder(this, version);
+    }
+
+    /**
+     * Returns the order number.
+     * @return the order number
+     */
+    public int getOrderNumber() {
+        return orderNumber;
+    }
+
+    /**
+     * Returns the customer name.
+     * @return the customer name
+     */
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    /**
+     * Returns the tax.
+     * @return the tax
+     */
+    public Tax getTaxInfo() {
+        return taxInfo;
+    }
+
+    /**
+     * Returns the product.
+     * @return the product
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * Returns the date.
+     * @return the date
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Returns the version.
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the area.
+     * @return the area
+     */
+    public BigDecimal getArea() {
+        return amount(AREA);
+    }
+
+    /**
+     * Returns the material cost per square foot.
+     * @return the material cost per square foot
+     */
+    public BigDecimal getCostPerSquareFoot() {
+        return amount(COST_PER_SQUARE_FOOT);
+    }
+
+    /**
+     * Returns the labor cost per square foot.
+     * @return the labor cost per square foot
+     */
+    public BigDecimal getLaborCostPerSquareFoot() {
+        return amount(LABOR_COST_PER_SQUARE_FOOT);
+    }
+
+    /**
+     * Returns the material cost.
+     * @return the material cost
+     */
+    public BigDecimal getMaterialCost() {
+        return amount(MATERIAL_COST);
+    }
+
+    /**
+     * Returns the labor cost.
+     * @return the labor cost
+     */
+    public BigDecimal getLaborCost() {
+        return amount(LABOR_COST);
+    }
+
+    /**
+     * Returns the tax amount.
+     * @return the tax amount
+     */
+    public BigDecimal getTax() {
+        return amount(TAX);
+    }
+
+    /**
+     * Returns the total cost, or adds up the costs like Order does when no
+     * total was set.
+     * @return the total cost
+     */
+    public BigDecimal getTotalCost() {
+        BigDecimal total = amount(TOTAL_COST);
+        if (total != null) {
+            return total;
+        }
+        return getMaterialCost().add(getLaborCost()).add(getTax());
+    }
+
+    /**
+     * Returns whether an amount is there at all.
+     * @param amount which amount
+     * @return false if it is null
+     */
+    boolean hasAmount(int amount) {
+        return hasUnits(amount) || wide != null && wide[amount] != null;
+    }
+
+    /**
+     * Returns whether an amount is held in ten-thousandths, neither null
+     * nor too wide for them.
+     * @param amount which amount
+     * @return true if units() has it
+     */
+    boolean hasUnits(int amount) {
+        return units(amount) != NONE;
+    }
+
+    /**
+     * Returns an amount in ten-thousandths, only meaningful if hasUnits().
+     * @param amount which amount
+     * @return the amount, in ten-thousandths
+     */
+    long units(int amount) {
+        switch (amount) {
+            case AREA: return area;
+            case COST_PER_SQUARE_FOOT: return costPerSquareFoot;
+            case LABOR_COST_PER_SQUARE_FOOT: return laborCostPerSquareFoot;
+            case MATERIAL_COST: return materialCost;
+            case LABOR_COST: return laborCost;
+            case TAX: return tax;
+            case TOTAL_COST: return totalCost;
+            default: throw new IllegalArgumentException("No such amount: " + amount);
+        }
+    }
+
+    /**
+     * Returns an amount as the BigDecimal it was made from.
+     * @param amount which amount
+     * @return the amount, or null if it was null
+     */
+    BigDecimal amount(int amount) {
+        if (wide != null && wide[amount] != null) {
+            return wide[amount];
+        }
+        long units = units(amount);
+        if (units == NONE) {
+            return null;
+        }
+        int scale = scales >>> amount * SCALE_BITS & (1 << SCALE_BITS) - 1;
+        return BigDecimal.valueOf(units / POWERS_OF_TEN[SCALE - scale], scale);
+    }
+}
@@ -0,0 +1,229 @@
+package com.sg.flooringmastery.dao;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * The index of orders by customer name. Besides filing each order under its
+ * whole name, ignoring case and surrounding spaces, it files it under every
+ * run of three characters in the name. The orders whose name contains some
+ * text are then among those filed under all of the text's runs, found by
+ * intersecting their posting lists, and the few false matches left, whose
+ * runs are all there but not next to each other, are dropped by checking
+ * the name itself. The start of the name counts as a character too, so a
+ * prefix search looks up runs that only match there. The candidates come
+ * out by order number, so a page is done as soon as it is full however
+ * many orders match. Not thread safe, the DAO changes it under its write
+ * lock along with orderMap.
+ */
+public class CustomerNameIndex extends OrderIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    // marks the start of a name, so a prefix search can look up runs anchored there
+    private static final char NAME_START = '\u0002';
+
+    // <three characters, numbers of the orders whose name contains them>
+    private final IntObjectMap<PostingList> ordersByGram = new IntObjectMap<>();
+
+    // every order with a name, for text too short to have any runs
+    private final PostingList allOrders = new PostingList();
+
+    /**
+     * Constructor for an empty index.
+     */
+    public CustomerNameIndex() {
+        super(order -> keyOf(order.getCustomerName()));
+    }
+
+    /**
+     * Returns the key a customer name is filed under.
+     * @param customerName the customer name
+     * @return the name without surrounding spaces, in lower case
+     */
+    public static String keyOf(String customerName) {
+        return customerName == null ? null : customerName.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns whether a customer name starts with some text, ignoring case
+     * and leading spaces.
+     * @param customerName the customer name
+     * @param prefix the text
+     * @return true if the name starts with it
+     */
+    public static boolean startsWith(String customerName, String prefix) {
+        if (customerName == null) {
+            return false;
+        }
+        String start = prefix.stripLeading();
+        String name = customerName.strip();
+        return name.regionMatches(true, 0, start, 0, start.length());
+    }
+
+    /**
+     * Returns whether a customer name contains some text, ignoring case.
+     * @param customerName the customer name
+     * @param fragment the text
+     * @return true if the name contains it
+     */
+    public static boolean contains(String customerName, String fragment) {
+        if (customerName == null) {
+            return false;
+        }
+        String name = customerName.strip();
+        for (int i = 0; i + fragment.length() <= name.length(); i++) {
+            if (name.regionMatches(true, i, fragment, 0, fragment.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a page of the numbers of the orders whose customer name starts
+     * with some text, ignoring case and leading spaces.
+     * @param prefix the text
+     * @param nameOf looks up the customer name of an order number
+     * @param offset how many orders to skip
+     * @param limit the most orders to return
+     * @return the page of order numbers, ascending
+     */
+    public int[] startingWith(String prefix, IntFunction<String> nameOf, int offset, int limit) {
+        String start = prefix.stripLeading();
+        return page(NAME_START + start, orderNumber -> startsWith(nameOf.apply(orderNumber), start), offset, limit);
+    }
+
+    /**
+     * Returns a page of the numbers of the orders whose customer name
+     * contains some text, ignoring case.
+     * @param fragment the text
+     * @param nameOf looks up the customer name of an order number
+     * @param offset how many orders to skip
+     * @param limit the most orders to return
+     * @return the page of order numbers, ascending
+     */
+    public int[] containing(String fragment, IntFunction<String> nameOf, int offset, int limit) {
+        return page(fragment, orderNumber -> contains(nameOf.apply(orderNumber), fragment), offset, limit);
+    }
+
+    /**
+     * Walks the orders filed under every run of some text, by number, and
+     * keeps the ones that pass the check until the page is full. Text
+     * shorter than a run walks every order instead; it matches so many names
+     * that the page tends to fill early anyway.
+     */
+    private int[] page(String text, IntPredicate matches, int offset, int limit) {
+        String key = text.toLowerCase(Locale.ROOT);
+        int[] candidates;
+        if (key.length() < GRAM_LENGTH) {
+            candidates = null;
+        } else {
+            int[] grams = gramsOf(key);
+            PostingList[] lists = new PostingList[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = ordersByGram.get(grams[i]);
+                if (lists[i] == null) {
+                    return new int[0];
+                }
+            }
+            candidates = PostingList.intersect(Arrays.asList(lists));
+        }
+
+        int count = candidates != null ? candidates.length : allOrders.size();
+        int[] page = new int[Math.min(Math.max(limit, 0), 64)];
+        int found = 0;
+        int skipped = 0;
+        for (int i = 0; i < count && found < limit; i++) {
+            int orderNumber = candidates != null ? candidates[i] : allOrders.get(i);
+            if (!matches.test(orderNumber)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                if (found == page.length) {
+                    page = Arrays.copyOf(page, found * 2);
+                }
+                page[found++] = orderNumber;
+            }
+        }
+        return Arrays.copyOf(page, found);
+    }
+
+    /**
+     * Files an order under its name and under each run of three characters
+     * in it, counting the start of the name as a character of its own.
+     * @param order the order
+     */
+    @Override
+    public void add(CompactOrder order) {
+        super.add(order);
+        String key = keyOf(order.getCustomerName());
+        if (key == null) {
+            return;
+        }
+        int orderNumber = order.getOrderNumber();
+        allOrders.add(orderNumber);
+        for (int gram : gramsOf(NAME_START + key)) {
+            PostingList orderNumbers = ordersByGram.get(gram);
+            if (orderNumbers == null) {
+                orderNumbers = new PostingList();
+                ordersByGram.put(gram, orderNumbers);
+            }
+            orderNumbers.add(orderNumber);
+        }
+    }
+
+    /**
+     * Takes an order out from under its name and its runs.
+     * @param order the order, as it was when it was added
+     */
+    @Override
+    public void remove(CompactOrder order) {
+        super.remove(order);
+        String key = keyOf(order.getCustomerName());
+        if (key == null) {
+            return;
+        }
+        int orderNumber = order.getOrderNumber();
+        allOrders.remove(orderNumber);
+        for (int gram : gramsOf(NAME_START + key)) {
+            PostingList orderNumbers = ordersByGram.get(gram);
+            if (orderNumbers != null && orderNumbers.remove(orderNumber) && orderNumbers.size() == 0) {
+                ordersByGram.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Empties the index.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        ordersByGram.clear();
+        allOrders.clear();
+    }
+
+    /**
+     * Returns the runs of three characters in some lower case text, each
+     * packed into an int from the low ten bits of its characters. Characters
+     * past that range can share a code with others, which only lets through
+     * a candidate that the check on the name then turns down. The packed
+     * codes are multiplied by an odd constant, which keeps them distinct but
+     * scatters them, since IntObjectMap expects keys that differ in their
+     * low bits and runs of letters mostly differ in their high ones.
+     */
+    private static int[] gramsOf(String key) {
+        int count = Math.max(key.length() - GRAM_LENGTH + 1, 0);
+        int[] grams = new int[count];
+        for (int i = 0; i < count; i++) {
+            int packed = (key.charAt(i) & 0x3FF) << 20 | (key.charAt(i + 1) & 0x3FF) << 10 | (key.charAt(i + 2) & 0x3FF);
+            grams[i] = packed * 0x9E3779B9;
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,72 @@
+package com.sg.flooringmastery.dao;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The dates whose Orders_MMddyyyy.txt file no longer matches the orders in
+ * memory. Each mark gets a new change number, so a write that started
+ * before the mark can't clear it. Thread safe.
+ */
+public class DirtyDates {
+
+    // <date, number of its latest change>
+    private final ConcurrentMap<LocalDate, Long> dates = new ConcurrentHashMap<>();
+    private final AtomicLong changeCounter = new AtomicLong();
+
+    /**
+     * Records that a date's file needs rewriting.
+     * @param date the date
+     */
+    public void mark(LocalDate date) {
+        dates.put(date, changeCounter.incrementAndGet());
+    }
+
+    /**
+     * Returns the number of a date's latest change.
+     * @param date the date
+     * @return the change number, or null if the date's file is up to date
+     */
+    public Long changeOf(LocalDate date) {
+        return dates.get(date);
+    }
+
+    /**
+     * Records that a date's file was written, unless it changed again since
+     * the given change.
+     * @param date the date
+     * @param change the change the file was written up to
+     */
+    public void written(LocalDate date, long change) {
+        dates.remove(date, change);
+    }
+
+    /**
+     * Returns whether a date's file needs rewriting.
+     * @param date the date
+     * @return true if it does
+     */
+    public boolean contains(LocalDate date) {
+        return dates.containsKey(date);
+    }
+
+    /**
+     * Returns whether every date file is up to date.
+     * @return true if no date needs rewriting
+     */
+    public boolean isEmpty() {
+        return dates.isEmpty();
+    }
+
+    /**
+     * Returns the dates that need rewriting right now.
+     * @return a copy of the dates
+     */
+    public List<LocalDate> dates() {
+        return new ArrayList<>(dates.keySet());
+    }
+}
@@ -1,11 +1,18 @@
 package com.sg.flooringmastery.dao;
 
 import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.OrderQuery;
+import com.sg.flooringmastery.dto.OrderResult;
 import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.SalesSummary;
+import com.sg.flooringmastery.dto.SalesTotals;
 import com.sg.flooringmastery.dto.Tax;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * An interface for the flooring DAO.
@@ -26,6 +33,87 @@ public interface FlooringDao {
      */
     Set<Order> getOrdersForDate(LocalDate date);
 
+    /**
+     * Gets all the orders between two dates, ordered by date and order number.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @return all the orders in the range
+     */
+    Set<Order> getOrdersBetween(LocalDate from, LocalDate to);
+
+    /**
+     * Streams a page of the orders on the given date, ordered by order number.
+     * @param date the given date
+     * @param offset how many orders to skip
+     * @param limit the most orders to return
+     * @return the page of orders
+     */
+    Stream<Order> streamOrdersForDate(LocalDate date, int offset, int limit);
+
+    /**
+     * Streams a page of the orders between two dates, ordered by order number.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @param offset how many orders to skip
+     * @param limit the most orders to return
+     * @return the page of orders
+     */
+    Stream<Order> streamOrdersBetween(LocalDate from, LocalDate to, int offset, int limit);
+
+    /**
+     * Finds the orders matching every criterion set on a query, ordered by
+     * order number.
+     * @param query the criteria
+     * @param offset how many matching orders to skip
+     * @param limit the most orders to return
+     * @return the page of matching orders
+     */
+    Stream<Order> findOrders(OrderQuery query, int offset, int limit);
+
+    /**
+     * Finds the orders whose customer name starts with some text, ignoring
+     * case and leading spaces, ordered by order number.
+     * @param prefix the text
+     * @param offset how many matching orders to skip
+     * @param limit the most orders to return
+     * @return the page of matching orders
+     */
+    Stream<Order> findOrdersByCustomerPrefix(String prefix, int offset, int limit);
+
+    /**
+     * Finds the orders whose customer name contains some text, ignoring
+     * case, ordered by order number.
+     * @param fragment the text
+     * @param offset how many matching orders to skip
+     * @param limit the most orders to return
+     * @return the page of matching orders
+     */
+    Stream<Order> findOrdersByCustomerSubstring(String fragment, int offset, int limit);
+
+    /**
+     * Returns the sales totals over every order, broken down by state and by
+     * product type.
+     * @return the sales summary
+     */
+    SalesSummary getSalesSummary();
+
+    /**
+     * Returns the sales totals for the orders of a range of dates, broken
+     * down by state and by product type, each with its smallest and largest
+     * order total.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @return the sales summary
+     */
+    SalesSummary getSalesSummary(LocalDate from, LocalDate to);
+
+    /**
+     * Returns the sales totals for the orders of one date.
+     * @param date the date
+     * @return the totals, none if there are no orders that day
+     */
+    SalesTotals getSalesTotals(LocalDate date);
+
     /**
      * Returns the next eligible order number.
      * @return the next eligible order number
@@ -38,12 +126,74 @@ public interface FlooringDao {
      */
     void addOrder(Order order);
 
+    /**
+     * Adds an existing order, optionally returning before a queued write
+     * reaches the disk. Not waiting is for bulk callers that write many
+     * orders in a row, never for a change a user is waiting on.
+     * @param order the order
+     * @param awaitWrite true to wait until the order is written
+     */
+    void addOrder(Order order, boolean awaitWrite);
+
+    /**
+     * Replaces an order, but only if it is still at the version the caller
+     * read it at, and waits for the change to be written.
+     * @param order the new order, with the same order number
+     * @param expectedVersion the version of the order being replaced
+     * @throws StaleOrderException if the order changed or was removed since
+     */
+    void replaceOrder(Order order, long expectedVersion);
+
+    /**
+     * Replaces an order if it is still at the expected version, optionally
+     * returning before a queued write reaches the disk. Like addOrder, only
+     * bulk callers should skip the wait.
+     * @param order the new order, with the same order number
+     * @param expectedVersion the version of the order being replaced
+     * @param awaitWrite true to wait until the order is written
+     * @throws StaleOrderException if the order changed or was removed since
+     */
+    void replaceOrder(Order order, long expectedVersion, boolean awaitWrite);
+
     /**
      * Removes an order.
      * @param orderNumber the order number
      */
     void removeOrder(Integer orderNumber);
 
+    /**
+     * Removes an order, optionally returning before a queued write reaches
+     * the disk. Like addOrder, only bulk callers should skip the wait.
+     * @param orderNumber the order number
+     * @param awaitWrite true to wait until the removal is written
+     */
+    void removeOrder(Integer orderNumber, boolean awaitWrite);
+
+    /**
+     * Adds a batch of orders that already have their order numbers, and
+     * waits for them to be written. An order whose number is taken is
+     * turned down without stopping the rest.
+     * @param orders the orders
+     * @return one result per order, in the same order
+     */
+    List<OrderResult> addOrders(Collection<Order> orders);
+
+    /**
+     * Replaces a batch of orders, each only if it is still at the version
+     * it carries, and waits for them to be written. Stale orders are turned
+     * down without stopping the rest.
+     * @param orders the new orders, each with the version it was read at
+     * @return one result per order, in the same order
+     */
+    List<OrderResult> replaceOrders(Collection<Order> orders);
+
+    /**
+     * Removes a batch of orders and waits for the removals to be written.
+     * @param orderNumbers the order numbers
+     * @return one result per order number, in the same order
+     */
+    List<OrderResult> removeOrders(Collection<Integer> orderNumbers);
+
     Product getProductFromProductType(String productType);
 
     /**
@@ -65,19 +215,41 @@ public interface FlooringDao {
      */
     Set<Product> getAvailableProducts();
 
+    /**
+     * Puts a product in the catalog, replacing the one of the same type, and
+     * rewrites Products.txt. Existing orders keep the costs they were priced
+     * with.
+     * @param product the product
+     */
+    void updateProduct(Product product);
+
+    /**
+     * Puts a state's tax in the catalog, replacing the one of the same
+     * state, and rewrites Taxes.txt. Existing orders keep the rate they were
+     * priced with.
+     * @param tax the tax
+     */
+    void updateTax(Tax tax);
+
     /**
      * Gets all existing order numbers.
      * @return a set of all existing order numbers
      */
     Set<Integer> getAllOrderNumbers();
 
+    /**
+     * Gets every existing order number as runs of consecutive numbers.
+     * @return the runs written out, like "1-4" or "6", in ascending order
+     */
+    List<String> getOrderNumberRanges();
+
     /**
      * Reads and loads data from existing file
      */
     void loadData();
 
     /**
-     * Writes data to file
+     * Writes any pending order changes to file
      */
     void writeData();
 
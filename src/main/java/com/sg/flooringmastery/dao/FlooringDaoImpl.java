@@ -1,55 +1,178 @@
 package com.sg.flooringmastery.dao;
 
 import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.OrderQuery;
+import com.sg.flooringmastery.dto.OrderResult;
 import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.SalesSummary;
+import com.sg.flooringmastery.dto.SalesTotals;
 import com.sg.flooringmastery.dto.Tax;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Component;
 
-import java.io.*;
-import java.math.BigDecimal;
+import java.io.File;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Safe to share between threads. Changes to orders are applied in memory
+ * under the write side of a StampedLock, which is only held for the few
+ * map updates a change needs. Reads don't lock: order lookups are optimistic
+ * reads of the OrderTable, and each date's orders are an immutable
+ * OrderSnapshot that a change replaces rather than edits. Date files are
+ * written outside that lock, one date at a time under a lock of their own,
+ * so changes to different dates are written concurrently. Lazy loading gives
+ * up lock-free reads, since a read there can load or evict a date.
+ *
+ * The work is split between collaborators: the OrderTable keeps the orders
+ * and everything indexed or added up from them, OrderFiles reads and writes
+ * the text files, and an OrderPersistence for the configured mode decides
+ * when changed dates get written. This class ties them together with the
+ * lazy loading and the shared folder.
+ *
+ * When the data folder is shared with other processes, each date file is
+ * also locked across processes while it is written, and whatever another
+ * process wrote to it in the meantime is merged in rather than overwritten.
+ * A background thread picks up the dates the others changed.
+ */
 @Component
-public class FlooringDaoImpl implements FlooringDao{
+public class FlooringDaoImpl implements FlooringDao, InitializingBean, AutoCloseable {
 
-    // <OrderNumber, Order>
-    private Map<Integer, Order> orderMap;
+    // guards the table, the partition swaps in it and everything used only when lazy loading
+    private final StampedLock lock = new StampedLock();
 
-    // <product type (name), Product>
-    private Map<String, Product> productMap;
+    private final OrderTable table;
 
-    // <State abbreviation, Tax information>
-    private Map<String, Tax> taxMap;
-    private Integer orderNumberTracker = 0;
+    // <product type (name), Product>, replaced rather than changed
+    private volatile Map<String, Product> productMap;
+
+    // <State abbreviation, Tax information>, replaced rather than changed
+    private volatile Map<String, Tax> taxMap;
+
+    // leases order numbers from orders.seq, seeded from the files the first time
+    private final OrderNumberAllocator allocator;
+
+    // set by open() and cleared by close(), read by every call that uses the orders
+    private volatile boolean open;
+
+    // dates whose Orders_MMddyyyy.txt file no longer matches the table
+    private final DirtyDates dirtyDates = new DirtyDates();
+
+    private final OrderFiles files;
+    private final OrderPersistence persistence;
+    private final FlooringDaoOptions options;
+
+    private volatile LoadReport loadReport;
+
+    // only used when lazy loading: which dates are in the table, least recently used first
+    private OrderManifest manifest;
+    private final LinkedHashMap<LocalDate, Boolean> residentDates = new LinkedHashMap<>(16, 0.75f, true);
+
+    // only used when the snapshot is on, the fingerprint of the text files it was last in step with
+    private BinarySnapshot snapshot;
+    private long snapshotFingerprint;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    // only used when the folder is shared: what each date file looked like
+    // when this process last read or wrote it, and the orders it held then
+    private SharedFolder sharedFolder;
+    private final ConcurrentMap<LocalDate, SharedFolder.FileStamp> fileStamps = new ConcurrentHashMap<>();
+    private final ConcurrentMap<LocalDate, OrderSnapshot> writtenOrders = new ConcurrentHashMap<>();
+    private volatile long sharedGeneration;
+    private PeriodicTask refresher;
 
     private final String DATA_FOLDER;
-    private final static String ORDER_HEADER =
-            "OrderNumber;CustomerName;State;TaxRate;ProductType;Area;CostPerSquareFoot;LaborCostPerSquareFoot;MaterialCost;LaborCost;Tax;Total";
-    private final static String PRODUCT_HEADER = "ProductType;CostPerSquareFoot;LaborCostPerSquareFoot";
-    private final static String TAX_HEADER = "State;StateName;TaxRate";
-    private final static String DELIMITER = ";";
-    private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MMddyyyy");
 
     /**
-     * Default constructor.
+     * Default constructor. Spring calls open() once it is constructed.
      */
     public FlooringDaoImpl() {
-        DATA_FOLDER = "data"; // because we want to access many different files inside this folder
-        loadData();
+        // because we want to access many different files inside this folder
+        this("data", FlooringDaoOptions.fromSystemProperties());
     }
 
     /**
-     * Constructor that takes in the data source folder.
+     * Constructor that takes in the data source folder. Nothing is read until
+     * open() is called.
      * @param dataFolder the source folder
      */
     public FlooringDaoImpl(String dataFolder) {
+        this(dataFolder, new FlooringDaoOptions());
+    }
+
+    /**
+     * Constructor that takes in the data source folder and tuning options.
+     * Nothing is read until open() is called.
+     * @param dataFolder the source folder
+     * @param options the tuning options
+     */
+    public FlooringDaoImpl(String dataFolder, FlooringDaoOptions options) {
         DATA_FOLDER = dataFolder;
-        loadData();
+        this.options = options;
+        files = new OrderFiles(dataFolder);
+        allocator = new OrderNumberAllocator(files.resolve("orders.seq"), options.getOrderNumberBlockSize());
+
+        if (options.isSharedFolder() && options.getPersistenceMode() == PersistenceMode.JOURNALED) {
+            throw new FlooringPersistenceException("A journaled data folder can't be shared with other processes.");
+        }
+        if (options.getPersistenceMode() == PersistenceMode.JOURNALED) {
+            persistence = new JournaledPersistence(new OrderJournal(files.resolve("orders.journal")), dirtyDates,
+                    this::writeDates, files, options.getCompactionIntervalMillis());
+        } else if (options.getPersistenceMode() == PersistenceMode.WRITE_BEHIND) {
+            persistence = new WriteBehindPersistence(dirtyDates, this::writeDates,
+                    options.getFlushWindowMillis(), options.getFlushBatchSize());
+        } else {
+            persistence = new ImmediatePersistence(dirtyDates, this::writeDates);
+        }
+        table = new OrderTable(!options.isLazyLoad(), options.isColumnarStore());
+        if (options.isLazyLoad()) {
+            manifest = new OrderManifest(files.resolve("orders.manifest"));
+        } else if (options.isSnapshot() && !options.isSharedFolder()) {
+            snapshot = new BinarySnapshot(files.resolve("orders.snapshot"));
+        }
+    }
+
+    /**
+     * Opens the DAO once Spring has constructed it.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        open();
+    }
+
+    /**
+     * Loads the orders and starts whatever background threads the options
+     * call for. A DAO constructed outside Spring has to be opened before it
+     * is used, and closed after; anything else called before then throws an
+     * IllegalStateException. Does nothing if the DAO is already open.
+     */
+    public synchronized void open() {
+        if (open) {
+            return;
+        }
+        if (options.isSharedFolder()) {
+            sharedFolder = new SharedFolder(Path.of(DATA_FOLDER));
+        }
+
+        load();
+
+        persistence.start();
+        if (sharedFolder != null) {
+            // a failed refresh leaves the generation as it was, so the next run looks again
+            refresher = new PeriodicTask("order-folder-refresh", options.getRefreshIntervalMillis(),
+                    this::refreshChangedDates);
+        }
+        open = true;
     }
 
     /**
@@ -59,7 +182,39 @@ public class FlooringDaoImpl implements FlooringDao{
      */
     @Override
     public Order getOrder(Integer orderNumber) {
-        return orderMap.get(orderNumber);
+        checkOpen();
+        if (orderNumber == null) {
+            return null;
+        }
+        if (manifest != null) {
+            long stamp = lock.writeLock();
+            try {
+                CompactOrder order = findOrder(orderNumber);
+                evictColdDates();
+                return order == null ? null : order.toOrder();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        long stamp = lock.tryOptimisticRead();
+        CompactOrder order = null;
+        if (stamp != 0) {
+            try {
+                order = table.get(orderNumber);
+            } catch (RuntimeException e) {
+                // a torn read of a map being resized, validate() fails below
+            }
+        }
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                order = table.get(orderNumber);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return order == null ? null : order.toOrder();
     }
 
     /**
@@ -68,53 +223,523 @@ public class FlooringDaoImpl implements FlooringDao{
      * @return the set containing all orders from that date
      */
     public Set<Order> getOrdersForDate(LocalDate date) throws FlooringPersistenceException {
+        checkOpen();
+        return partitionOf(date);
+    }
+
+    /**
+     * Streams a page of a date's orders, by order number. The page is read
+     * straight out of the date's partition, which never changes once
+     * published, so nothing is copied and later changes don't show up in it.
+     * @param date the date
+     * @param offset how many orders to skip
+     * @param limit the most orders to return
+     * @return the page
+     */
+    @Override
+    public Stream<Order> streamOrdersForDate(LocalDate date, int offset, int limit) {
+        checkOpen();
+        return partitionOf(date).page(offset, limit);
+    }
+
+    /**
+     * Returns a date's partition, loading it first when lazy loading.
+     * @param date the date
+     * @return the date's orders, sorted by order number
+     */
+    private OrderSnapshot partitionOf(LocalDate date) throws FlooringPersistenceException {
         try {
-            return orderMap.values().stream().filter(order -> order.getDate().equals(date)).collect(Collectors.toSet());
+            if (manifest == null) {
+                // partitions are never changed once published, so no copy is needed
+                return table.partition(date);
+            }
+
+            long stamp = lock.writeLock();
+            try {
+                ensureLoaded(date);
+                OrderSnapshot orders = table.partition(date);
+                evictColdDates();
+                return orders;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
         } catch (NullPointerException e) {
             throw new FlooringPersistenceException("Unable to get orders for this date.", e);
         }
     }
 
     /**
-     * Adds one to the previous order number to ensure no duplicates.
+     * Returns a set containing all orders between two dates, ordered by date
+     * and then by order number.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @return the set containing all orders in the range
+     */
+    @Override
+    public Set<Order> getOrdersBetween(LocalDate from, LocalDate to) {
+        checkOpen();
+        List<CompactOrder> orders = new ArrayList<>();
+        for (OrderSnapshot partition : partitionsBetween(from, to)) {
+            orders.addAll(partition.compactOrders());
+        }
+        return new OrderSnapshot(orders);
+    }
+
+    /**
+     * Streams a page of the orders between two dates, by order number. The
+     * dates' partitions are merged as the stream is read rather than copied
+     * into one set first.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @param offset how many orders to skip
+     * @param limit the most orders to return
+     * @return the page
+     */
+    @Override
+    public Stream<Order> streamOrdersBetween(LocalDate from, LocalDate to, int offset, int limit) {
+        checkOpen();
+        return OrderSnapshot.mergeByNumber(partitionsBetween(from, to)).skip(Math.max(offset, 0)).limit(Math.max(limit, 0));
+    }
+
+    /**
+     * Finds the orders matching a query, by order number, from the table's
+     * secondary indexes when the query names a state, a product or a
+     * customer. A query with none of those, or any query while lazy loading,
+     * walks the dates in its range instead.
+     * @param query the criteria
+     * @param offset how many matching orders to skip
+     * @param limit the most orders to return
+     * @return the page of matching orders
+     */
+    @Override
+    public Stream<Order> findOrders(OrderQuery query, int offset, int limit) {
+        checkOpen();
+        if (!table.canFind(query)) {
+            LocalDate from = query.getFrom() != null ? query.getFrom() : LocalDate.MIN;
+            LocalDate to = query.getTo() != null ? query.getTo() : LocalDate.MAX;
+            return OrderSnapshot.mergeCompactByNumber(partitionsBetween(from, to))
+                    .filter(order -> OrderTable.matches(query, order))
+                    .skip(Math.max(offset, 0)).limit(Math.max(limit, 0)).map(CompactOrder::toOrder);
+        }
+
+        long stamp = lock.readLock();
+        try {
+            return table.find(query, offset, limit).stream();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the orders whose customer name starts with some text, ignoring
+     * case, by order number. The customer index finds them the same way as
+     * a substring search, then checks that the text is at the start of the
+     * name; while lazy loading every date is walked instead.
+     * @param prefix the text
+     * @param offset how many matching orders to skip
+     * @param limit the most orders to return
+     * @return the page of matching orders
+     */
+    @Override
+    public Stream<Order> findOrdersByCustomerPrefix(String prefix, int offset, int limit) {
+        checkOpen();
+        if (manifest != null) {
+            return OrderSnapshot.mergeCompactByNumber(partitionsBetween(LocalDate.MIN, LocalDate.MAX))
+                    .filter(order -> CustomerNameIndex.startsWith(order.getCustomerName(), prefix))
+                    .skip(Math.max(offset, 0)).limit(Math.max(limit, 0)).map(CompactOrder::toOrder);
+        }
+        long stamp = lock.readLock();
+        try {
+            return table.findByCustomerPrefix(prefix, offset, limit).stream();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the orders whose customer name contains some text, ignoring
+     * case, by order number. The customer index narrows the names down by
+     * the runs of three characters in the text; while lazy loading every
+     * date is walked instead.
+     * @param fragment the text
+     * @param offset how many matching orders to skip
+     * @param limit the most orders to return
+     * @return the page of matching orders
+     */
+    @Override
+    public Stream<Order> findOrdersByCustomerSubstring(String fragment, int offset, int limit) {
+        checkOpen();
+        if (manifest != null) {
+            return OrderSnapshot.mergeCompactByNumber(partitionsBetween(LocalDate.MIN, LocalDate.MAX))
+                    .filter(order -> CustomerNameIndex.contains(order.getCustomerName(), fragment))
+                    .skip(Math.max(offset, 0)).limit(Math.max(limit, 0)).map(CompactOrder::toOrder);
+        }
+        long stamp = lock.readLock();
+        try {
+            return table.findByCustomerSubstring(fragment, offset, limit).stream();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the sales totals over every order, by state and by product.
+     * They are kept up to date as orders change, so this only copies one
+     * total per state and product; while lazy loading every date is walked
+     * and added up instead.
+     * @return the sales summary
+     */
+    @Override
+    public SalesSummary getSalesSummary() {
+        checkOpen();
+        if (manifest != null) {
+            return salesOf(partitionsBetween(LocalDate.MIN, LocalDate.MAX)).summary();
+        }
+        long stamp = lock.readLock();
+        try {
+            return table.salesSummary();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the sales totals of the orders in a range of dates, by state
+     * and by product, with the smallest and largest order of each. Scans the
+     * columnar store when one is kept; otherwise the orders of the dates in
+     * range are laid out in columns of their own first and scanned the same
+     * way.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @return the sales summary
+     */
+    @Override
+    public SalesSummary getSalesSummary(LocalDate from, LocalDate to) {
+        checkOpen();
+        if (table.hasColumns()) {
+            long stamp = lock.readLock();
+            try {
+                return table.columnSummary(from, to);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return columnsOf(partitionsBetween(from, to)).summary(from, to);
+    }
+
+    /**
+     * Returns the sales totals for one date, a single lookup unless lazy
+     * loading, which adds up the date's orders.
+     * @param date the date
+     * @return the totals for that date
+     */
+    @Override
+    public SalesTotals getSalesTotals(LocalDate date) {
+        checkOpen();
+        if (manifest != null) {
+            return salesOf(List.of(partitionOf(date))).forDate(date);
+        }
+        long stamp = lock.readLock();
+        try {
+            return table.salesTotals(date);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Adds up the orders of some dates from scratch.
+     * @param partitions the dates' orders
+     * @return their totals
+     */
+    private static SalesAggregates salesOf(List<OrderSnapshot> partitions) {
+        SalesAggregates totals = new SalesAggregates();
+        for (OrderSnapshot partition : partitions) {
+            for (CompactOrder order : partition.compactOrders()) {
+                totals.add(order);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Lays out the orders of some dates in columns.
+     * @param partitions the dates' orders
+     * @return the columns
+     */
+    private static OrderColumns columnsOf(List<OrderSnapshot> partitions) {
+        OrderColumns columns = new OrderColumns();
+        for (OrderSnapshot partition : partitions) {
+            for (CompactOrder order : partition.compactOrders()) {
+                columns.add(order);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Returns the partitions of every date in a range, in date order. When
+     * lazy loading, dates are loaded one at a time and may be evicted again
+     * straight away; the partitions handed back stay whole either way.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @return the partitions
+     */
+    private List<OrderSnapshot> partitionsBetween(LocalDate from, LocalDate to) {
+        if (manifest == null) {
+            return table.partitionsBetween(from, to);
+        }
+        List<OrderSnapshot> partitions = new ArrayList<>();
+        long stamp = lock.writeLock();
+        try {
+            for (LocalDate date : manifest.getDates().subSet(from, true, to, true)) {
+                ensureLoaded(date);
+                partitions.add(table.partition(date));
+                evictColdDates();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return partitions;
+    }
+
+    /**
+     * Hands out an order number no other order has, from the block this DAO
+     * leased out of orders.seq.
      * @return the new order number
      */
     @Override
     public Integer getNextOrderNumber() {
-        // pre increment?
-        return ++orderNumberTracker;
+        checkOpen();
+        return allocator.nextOrderNumber();
     }
 
     /**
-     * Adds the order to the .
+     * Adds the order to the orderMap and waits for it to be written.
      * @param order the order
      */
     @Override
     public void addOrder(Order order) {
+        addOrder(order, true);
+    }
+
+    /**
+     * Adds the order to the orderMap.
+     * @param order the order
+     * @param awaitWrite whether to wait for a write-behind flush
+     */
+    @Override
+    public void addOrder(Order order, boolean awaitWrite) {
+        checkOpen();
         try {
-            // we already set it back in the service
-            Integer orderNum = order.getOrderNumber();
-            orderMap.put(orderNum, order);
-            writeData();
+            long stamp = lock.writeLock();
+            try {
+                applyAdd(order);
+                persistence.recordAdded(List.of(order));
+                evictColdDates();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            // files are written without the lock, so other dates can change meanwhile
+            awaitWrite(persistence.persist(), awaitWrite);
         } catch (FlooringPersistenceException e) {
             throw new FlooringPersistenceException("The order was unable to be added.", e);
         }
     }
 
     /**
-     * Removes the order.
+     * Replaces an order if it is still at the expected version, and waits
+     * for it to be written.
+     * @param order the new order
+     * @param expectedVersion the version of the order being replaced
+     */
+    @Override
+    public void replaceOrder(Order order, long expectedVersion) {
+        replaceOrder(order, expectedVersion, true);
+    }
+
+    /**
+     * Replaces an order if it is still at the expected version. The check and
+     * the replacement happen under one hold of the write lock, so of two
+     * edits made against the same version only the first gets in.
+     *
+     * Versions are only kept in memory. When lazy loading, a date that is
+     * dropped and read again starts its orders over at version 0, which makes
+     * an edit spanning that fail as stale rather than overwrite anything.
+     * @param order the new order
+     * @param expectedVersion the version of the order being replaced
+     * @param awaitWrite whether to wait for a write-behind flush
+     */
+    @Override
+    public void replaceOrder(Order order, long expectedVersion, boolean awaitWrite) {
+        checkOpen();
+        try {
+            long stamp = lock.writeLock();
+            try {
+                CompactOrder current = findOrder(order.getOrderNumber());
+                if (current == null || current.getVersion() != expectedVersion) {
+                    evictColdDates();
+                    throw new StaleOrderException("Order #" + order.getOrderNumber()
+                            + (current == null ? " was removed" : " was changed") + " by someone else since it was read.");
+                }
+                applyAdd(order);
+                persistence.recordAdded(List.of(order));
+                evictColdDates();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitWrite(persistence.persist(), awaitWrite);
+        } catch (FlooringPersistenceException e) {
+            throw new FlooringPersistenceException("The order was unable to be replaced.", e);
+        }
+    }
+
+    /**
+     * Removes the order and waits for the change to be written.
      * @param orderNumber the order number
      */
     @Override
     public void removeOrder(Integer orderNumber) {
+        removeOrder(orderNumber, true);
+    }
+
+    /**
+     * Removes the order.
+     * @param orderNumber the order number
+     * @param awaitWrite whether to wait for a write-behind flush
+     */
+    @Override
+    public void removeOrder(Integer orderNumber, boolean awaitWrite) {
+        checkOpen();
         try {
-            orderMap.remove(orderNumber);
-            writeData();
+            long stamp = lock.writeLock();
+            try {
+                applyRemove(orderNumber);
+                persistence.recordRemoved(List.of(orderNumber));
+                evictColdDates();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitWrite(persistence.persist(), awaitWrite);
         } catch (FlooringPersistenceException e) {
             throw new FlooringPersistenceException("The order was unable to be deleted.", e);
         }
     }
 
+    /**
+     * Adds a batch of orders under one hold of the write lock, records them
+     * together and writes each date they touch once.
+     * @param orders the orders, with their order numbers set
+     * @return one result per order
+     */
+    @Override
+    public List<OrderResult> addOrders(Collection<Order> orders) {
+        checkOpen();
+        List<OrderResult> results = new ArrayList<>(orders.size());
+        try {
+            long stamp = lock.writeLock();
+            try {
+                List<Order> added = new ArrayList<>(orders.size());
+                for (Order order : orders) {
+                    Integer orderNumber = order.getOrderNumber();
+                    if (orderNumber == null) {
+                        results.add(new OrderResult(null, "The order has no order number."));
+                    } else if (findOrder(orderNumber) != null) {
+                        // this also catches a number used twice within the batch
+                        results.add(new OrderResult(orderNumber, "Order #" + orderNumber + " already exists."));
+                    } else {
+                        applyAdd(order);
+                        added.add(order);
+                        results.add(new OrderResult(orderNumber, order));
+                    }
+                }
+                persistence.recordAdded(added);
+                evictColdDates();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitWrite(persistence.persist(), true);
+        } catch (FlooringPersistenceException e) {
+            throw new FlooringPersistenceException("The orders were unable to be added.", e);
+        }
+        return results;
+    }
+
+    /**
+     * Replaces a batch of orders under one hold of the write lock, each
+     * checked against the version it carries like replaceOrder() does.
+     * @param orders the new orders
+     * @return one result per order
+     */
+    @Override
+    public List<OrderResult> replaceOrders(Collection<Order> orders) {
+        checkOpen();
+        List<OrderResult> results = new ArrayList<>(orders.size());
+        try {
+            long stamp = lock.writeLock();
+            try {
+                List<Order> replaced = new ArrayList<>(orders.size());
+                for (Order order : orders) {
+                    Integer orderNumber = order.getOrderNumber();
+                    CompactOrder current = findOrder(orderNumber);
+                    if (current == null) {
+                        results.add(new OrderResult(orderNumber, "Order #" + orderNumber + " does not exist."));
+                    } else if (current.getVersion() != order.getVersion()) {
+                        results.add(new OrderResult(orderNumber,
+                                "Order #" + orderNumber + " was changed by someone else since it was read."));
+                    } else {
+                        applyAdd(order);
+                        replaced.add(order);
+                        results.add(new OrderResult(orderNumber, order));
+                    }
+                }
+                persistence.recordAdded(replaced);
+                evictColdDates();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitWrite(persistence.persist(), true);
+        } catch (FlooringPersistenceException e) {
+            throw new FlooringPersistenceException("The orders were unable to be replaced.", e);
+        }
+        return results;
+    }
+
+    /**
+     * Removes a batch of orders under one hold of the write lock.
+     * @param orderNumbers the order numbers
+     * @return one result per order number
+     */
+    @Override
+    public List<OrderResult> removeOrders(Collection<Integer> orderNumbers) {
+        checkOpen();
+        List<OrderResult> results = new ArrayList<>(orderNumbers.size());
+        try {
+            long stamp = lock.writeLock();
+            try {
+                List<Integer> removedNumbers = new ArrayList<>(orderNumbers.size());
+                for (Integer orderNumber : orderNumbers) {
+                    CompactOrder removed = findOrder(orderNumber);
+                    if (removed == null) {
+                        results.add(new OrderResult(orderNumber, "Order #" + orderNumber + " does not exist."));
+                    } else {
+                        applyRemove(orderNumber);
+                        removedNumbers.add(orderNumber);
+                        results.add(new OrderResult(orderNumber, removed.toOrder()));
+                    }
+                }
+                persistence.recordRemoved(removedNumbers);
+                evictColdDates();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitWrite(persistence.persist(), true);
+        } catch (FlooringPersistenceException e) {
+            throw new FlooringPersistenceException("The orders were unable to be deleted.", e);
+        }
+        return results;
+    }
+
     /**
      * Gets the tax object from the state abbreviation.
      * @param stateAbbr the state abbreviation
@@ -122,6 +747,7 @@ public class FlooringDaoImpl implements FlooringDao{
      */
     @Override
     public Tax getTaxInfoFromAbbr(String stateAbbr) {
+        checkOpen();
         return taxMap.get(stateAbbr);
     }
 
@@ -132,6 +758,7 @@ public class FlooringDaoImpl implements FlooringDao{
      */
     @Override
     public Product getProductFromProductType(String productType) {
+        checkOpen();
         return productMap.get(productType);
     }
 
@@ -141,6 +768,7 @@ public class FlooringDaoImpl implements FlooringDao{
      */
     @Override
     public Set<String> getAcceptableStates() {
+        checkOpen();
         return taxMap.values().stream().map(Tax::getStateAbbr).collect(Collectors.toSet());
     }
 
@@ -150,220 +778,839 @@ public class FlooringDaoImpl implements FlooringDao{
      */
     @Override
     public Set<Product> getAvailableProducts() {
+        checkOpen();
         Set<Product> productSet = new HashSet<>(productMap.values());
         return productSet;
     }
 
     /**
-     * Returns a set of all current order numbers.
+     * Puts a product in the catalog and rewrites its line of Products.txt.
+     * Orders are written with their own per square foot costs, so only the
+     * orders priced after this see the new ones. Other processes sharing
+     * the folder pick it up when they next start.
+     * @param product the product
+     */
+    @Override
+    public void updateProduct(Product product) {
+        checkOpen();
+        long stamp = lock.writeLock();
+        try {
+            files.writeProduct(product);
+            Map<String, Product> products = new HashMap<>(productMap);
+            products.put(product.getProductType(), product);
+            productMap = Map.copyOf(products);
+            files.useCatalogs(taxMap, productMap);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Puts a state's tax in the catalog and rewrites its line of Taxes.txt.
+     * Orders are written and read back with the rate they were priced at,
+     * so only the orders priced after this get the new one.
+     * @param tax the tax
+     */
+    @Override
+    public void updateTax(Tax tax) {
+        checkOpen();
+        long stamp = lock.writeLock();
+        try {
+            files.writeTax(tax);
+            Map<String, Tax> taxes = new HashMap<>(taxMap);
+            taxes.put(tax.getStateAbbr(), tax);
+            taxMap = Map.copyOf(taxes);
+            files.useCatalogs(taxMap, productMap);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns a set of all current order numbers. The set is a copy of
+     * the runs the DAO keeps, so it is cheap to take and safe to hold on to.
      * @return a set of all current order numbers
      */
     @Override
     public Set<Integer> getAllOrderNumbers() {
-        Set<Integer> orderNumberSet = new HashSet<>(orderMap.keySet());
-        return orderNumberSet;
+        checkOpen();
+        long stamp = lock.tryOptimisticRead();
+        OrderNumberSet copy = null;
+        if (stamp != 0) {
+            try {
+                copy = table.copyOrderNumbers();
+            } catch (RuntimeException e) {
+                // a torn read of a set being grown, validate() fails below
+            }
+        }
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                copy = table.copyOrderNumbers();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return copy;
     }
 
-    /****************** FILE I/O METHODS BELOW ******************/
-
     /**
-     * Reads the order data from the order_MMDDYYYY.txt files in order to
-     * populate the OrderMap.
+     * Returns every current order number as runs of consecutive numbers.
+     * @return the runs written out, in ascending order
      */
-    private void readOrderData() {
+    @Override
+    public List<String> getOrderNumberRanges() {
+        checkOpen();
+        long stamp = lock.readLock();
         try {
-            File dir = new File(DATA_FOLDER + "/orders");
+            return table.orderNumberRanges();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
 
-            Scanner sc;
-            orderMap = new HashMap<>();
+    /**
+     * Puts an order into the table, replacing any order with the same number,
+     * and marks the date files involved as dirty. A replacement gets the
+     * version after the order it replaces, set on the order passed in too.
+     * The caller holds the write lock.
+     * @param order the order
+     */
+    private void applyAdd(Order order) {
+        // we already set it back in the service
+        Integer orderNum = order.getOrderNumber();
 
-            // iterate through each file in /orders
-            for (File file : Objects.requireNonNull(dir.listFiles())) {
-                if (file.getName().toLowerCase().endsWith(".txt") && file.isFile()) {
-                    // initialize scanner
+        // both date files have to be complete in memory before either is rewritten
+        CompactOrder previous = findOrder(orderNum);
+        ensureLoaded(order.getDate());
+        order.setVersion(previous == null ? 0 : previous.getVersion() + 1);
+        if (previous != null) {
+            table.remove(previous);
+        }
+        table.put(compact(order));
 
-                    sc = new Scanner(new BufferedReader(new FileReader(file)));
+        // a replaced order may have lived in a different date file
+        if (previous != null) {
+            dirtyDates.mark(previous.getDate());
+            if (manifest != null) {
+                manifest.removeOrder(previous.getDate(), orderNum);
+            }
+        }
+        dirtyDates.mark(order.getDate());
+        if (manifest != null) {
+            manifest.addOrder(order.getDate(), orderNum);
+        }
+    }
 
-                    // extracts date
-                    String regex = ".*(\\d{8})";
-                    Pattern pattern = Pattern.compile(regex);
-                    Matcher matcher = pattern.matcher(file.getName());
+    /**
+     * Removes an order from the table and marks its date file as dirty. The
+     * caller holds the write lock.
+     * @param orderNumber the order number
+     */
+    private void applyRemove(Integer orderNumber) {
+        CompactOrder removed = findOrder(orderNumber);
+        if (removed != null) {
+            table.remove(removed);
+            dirtyDates.mark(removed.getDate());
+            if (manifest != null) {
+                manifest.removeOrder(removed.getDate(), orderNumber);
+            }
+        }
+    }
 
-                    // must set string to "" here to avoid error
-                    String dateExtractedString = "";
-                    if (matcher.find()) {
-                        dateExtractedString = matcher.group(1);
-                    } else {
-                        throw new FlooringPersistenceException("Date was not found in the filename: " + file.getName());
-                    }
-                    LocalDate dateExtracted = LocalDate.parse(dateExtractedString, dateFormatter);
-
-                    // skip header
-                    sc.nextLine();
-
-                    // UNMARSHALLING HERE
-
-                    // While we have more lines in the file
-                    while (sc.hasNextLine()) {
-                        String[] tokens = sc.nextLine().split(DELIMITER); // split on SEMICOLONS
-
-                        // 0OrderNumber,1CustomerName,2State,3TaxRate,4ProductType,5Area,6CostPerSquareFoot,7LaborCostPerSquareFoot,8MaterialCost,9LaborCost,10Tax,11Total
-                        Order extractedOrder = new Order(
-                                Integer.parseInt(tokens[0]), // order number
-                                tokens[1], // customer name
-                                taxMap.get(tokens[2]), // state abbr -> tax object
-                                productMap.get(tokens[4]), // product type -> product object
-                                new BigDecimal(tokens[5]), // area
-                                dateExtracted
-                        );
-                        extractedOrder.setTax(new BigDecimal(tokens[3]));
-                        extractedOrder.setCostPerSquareFoot(new BigDecimal(tokens[6]));
-                        extractedOrder.setLaborCostPerSquareFoot(new BigDecimal(tokens[7]));
-                        extractedOrder.setMaterialCost(new BigDecimal(tokens[8]));
-                        extractedOrder.setLaborCost(new BigDecimal(tokens[9]));
-                        extractedOrder.setTax(new BigDecimal(tokens[10]));
-                        extractedOrder.setTotalCost(new BigDecimal(tokens[11]));
-
-                        // keep track of largest order number
-                        if (extractedOrder.getOrderNumber() > orderNumberTracker) {
-                            orderNumberTracker = extractedOrder.getOrderNumber();
-                        }
-
-                        // finally put order in orderMap
-                        orderMap.put(extractedOrder.getOrderNumber(), extractedOrder);
+    /**
+     * Makes the compact form of an order coming into the DAO, sharing the
+     * catalog's tax and product when the order's are equal to them. Its
+     * amounts are rounded to cents here, as its date file will hold them, so
+     * the order and the sales totals come out the same before and after the
+     * file is read back, whether every date is loaded or not.
+     * @param order the order
+     * @return the compact order
+     */
+    private CompactOrder compact(Order order) {
+        Tax tax = order.getTaxInfo();
+        Product product = order.getProduct();
+        return CompactOrder.of(order,
+                tax == null ? null : catalogInstance(taxMap.get(tax.getStateAbbr()), tax),
+                product == null ? null : catalogInstance(productMap.get(product.getProductType()), product))
+                .inCents();
+    }
 
-                    }
-                    sc.close();
+    private static <T> T catalogInstance(T inCatalog, T value) {
+        return value.equals(inCatalog) ? inCatalog : value;
+    }
+
+    /**
+     * Looks up an order, loading its date file first when lazy loading.
+     * @param orderNumber the order number
+     * @return the order, or null if it does not exist
+     */
+    private CompactOrder findOrder(Integer orderNumber) {
+        if (orderNumber == null) {
+            return null;
+        }
+        CompactOrder order = table.get(orderNumber);
+        if (order == null && manifest != null) {
+            LocalDate date = manifest.dateOf(orderNumber);
+            if (date != null && !residentDates.containsKey(date)) {
+                ensureLoaded(date);
+                order = table.get(orderNumber);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Makes sure every order of a date is in the table when lazy loading.
+     * Nothing gets evicted here, so a caller can load several dates and
+     * change them before evictColdDates() runs.
+     * @param date the date
+     */
+    private void ensureLoaded(LocalDate date) {
+        if (manifest == null) {
+            return;
+        }
+        // get() rather than containsKey() so the date counts as recently used
+        if (residentDates.get(date) != null) {
+            return;
+        }
+        // a date emptied by a write still in progress loses its file before the manifest hears of it
+        File file = files.orderFile(date);
+        SharedFolder.FileStamp stamp = sharedFolder != null ? SharedFolder.FileStamp.of(file.toPath()) : null;
+        // another process may have added the date since the manifest was last refreshed
+        if ((manifest.containsDate(date) || sharedFolder != null) && file.exists()) {
+            table.putAll(files.readOrderFile(file));
+        }
+        residentDates.put(date, Boolean.TRUE);
+
+        if (sharedFolder != null) {
+            OrderSnapshot loaded = table.partition(date);
+            writtenOrders.put(date, loaded);
+            if (!stamp.equals(fileStamps.getOrDefault(date, SharedFolder.FileStamp.MISSING))) {
+                int[] orderNumbers = new int[loaded.size()];
+                int i = 0;
+                for (CompactOrder order : loaded.compactOrders()) {
+                    orderNumbers[i++] = order.getOrderNumber();
                 }
+                replaceManifestFile(date, file, orderNumbers);
+                fileStamps.put(date, stamp);
             }
+        }
+    }
 
-        } catch (NullPointerException | FileNotFoundException e) {
-            throw new FlooringPersistenceException("-_- Could not load order data into memory.", e);
+    /**
+     * Tells the manifest what another process left in a date file, and
+     * brings the set of all order numbers along. A number that left the date
+     * is only dropped if no other date holds it, it may have just moved.
+     * The caller holds the write lock.
+     * @param date the date
+     * @param file the date's order file
+     * @param orderNumbers the order numbers now in the file
+     */
+    private void replaceManifestFile(LocalDate date, File file, int[] orderNumbers) {
+        for (int orderNumber : manifest.replaceFile(date, file, orderNumbers)) {
+            if (!table.contains(orderNumber) && manifest.dateOf(orderNumber) == null) {
+                table.removeOrderNumber(orderNumber);
+            }
+        }
+        for (int orderNumber : orderNumbers) {
+            table.addOrderNumber(orderNumber);
         }
     }
 
     /**
-     * Reads tax data from Taxes.txt.
+     * Drops the least recently used dates from the table until no more than
+     * the configured number of dates are resident. Dates with unwritten
+     * changes are kept.
      */
-    private void readTaxData() {
+    private void evictColdDates() {
+        if (manifest == null || residentDates.size() <= options.getMaxResidentDates()) {
+            return;
+        }
+
+        Iterator<LocalDate> dates = residentDates.keySet().iterator();
+        while (residentDates.size() > options.getMaxResidentDates() && dates.hasNext()) {
+            LocalDate date = dates.next();
+            if (!dirtyDates.contains(date)) {
+                dates.remove();
+                dropPartition(date);
+            }
+        }
+    }
+
+    /**
+     * Drops a date's orders from the table when lazy loading. The caller has
+     * already taken the date out of residentDates.
+     * @param date the date
+     */
+    private void dropPartition(LocalDate date) {
+        table.dropPartition(date);
+        writtenOrders.remove(date);
+    }
+
+    /**
+     * Swaps in a date's orders as another process left them, keeping the
+     * manifest in step. Orders that moved here from a different date are
+     * taken out of that date. The caller holds the write lock.
+     * @param date the date
+     * @param orders the date's orders, sorted by number
+     */
+    private void replacePartition(LocalDate date, OrderSnapshot orders) {
+        if (manifest != null) {
+            for (CompactOrder order : table.partition(date).compactOrders()) {
+                if (orders.get(order.getOrderNumber()) == null) {
+                    manifest.removeOrder(date, order.getOrderNumber());
+                }
+            }
+        }
+        for (CompactOrder order : orders.compactOrders()) {
+            int orderNumber = order.getOrderNumber();
+            CompactOrder elsewhere = table.get(orderNumber);
+            if (elsewhere != null && !elsewhere.getDate().equals(date)) {
+                if (manifest != null) {
+                    manifest.removeOrder(elsewhere.getDate(), orderNumber);
+                }
+                forgetOrderFile(elsewhere.getDate(), orderNumber);
+            }
+            if (manifest != null) {
+                manifest.addOrder(date, orderNumber);
+            }
+        }
+        table.replacePartition(date, orders);
+    }
+
+    /**
+     * Forgets what a date's file looked like after one of its orders turned
+     * up in another date's file. While an order moves, the mover writes one
+     * file before the other, so for a moment both may hold it and either
+     * copy can be the newer one. Forgetting the stamp makes the next refresh
+     * read the file again and the next write merge with it, and dropping the
+     * order from what was written there makes a copy still in that file count
+     * as someone else's rather than as an order removed here.
+     * @param date the date the order was taken out of
+     * @param orderNumber the order number
+     */
+    private void forgetOrderFile(LocalDate date, int orderNumber) {
+        fileStamps.remove(date);
+        OrderSnapshot written = writtenOrders.get(date);
+        if (written != null) {
+            writtenOrders.put(date, written.without(orderNumber));
+        }
+    }
+
+    /**
+     * Fails a call made before open() or after close() up front, rather than
+     * part way through on whatever isn't there.
+     */
+    private void checkOpen() {
+        if (!open) {
+            throw new IllegalStateException("open() not called, or the DAO was closed.");
+        }
+    }
+
+    /**
+     * Waits for a queued write, if asked to.
+     * @param write the pending write
+     * @param awaitWrite whether to wait for it
+     */
+    private void awaitWrite(CompletableFuture<Void> write, boolean awaitWrite) {
+        if (!awaitWrite) {
+            return;
+        }
         try {
-            Scanner sc;
-            sc = new Scanner(new BufferedReader(new FileReader(DATA_FOLDER + "/Taxes.txt")));
+            write.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof FlooringPersistenceException) {
+                throw (FlooringPersistenceException) e.getCause();
+            }
+            throw new FlooringPersistenceException("Could not write order data.", e.getCause());
+        }
+    }
 
-            taxMap = new HashMap<>();
+    /****************** FILE I/O METHODS BELOW ******************/
+
+    /**
+     * Reads the order data from the order_MMDDYYYY.txt files in order to
+     * populate the table. Files are parsed in parallel on the common
+     * fork-join pool unless parallel loading is turned off.
+     */
+    private void readOrderData() {
+        long start = System.nanoTime();
+        try {
+            List<File> orderFiles = files.listOrderFiles();
 
-            // skip header
-            sc.nextLine();
+            if (manifest != null) {
+                readManifest(orderFiles);
+                loadReport = new LoadReport(orderFiles.size(), manifest.getOrderCount(),
+                        (System.nanoTime() - start) / 1_000_000, "manifest");
+                return;
+            }
 
-            while (sc.hasNextLine()) {
-                String[] tokens = sc.nextLine().split(DELIMITER);
-                // StateAbbr,StateName,TaxRate
-                Tax extractedTax = new Tax(tokens[0], // state abbr
-                        tokens[1], // state name
-                        new BigDecimal(tokens[2])); // tax rate
+            // each file is parsed on its own, only the merge below touches the table
+            List<List<CompactOrder>> ordersByFile = options.isParallelLoad()
+                    ? orderFiles.parallelStream().map(files::readOrderFile).collect(Collectors.toList())
+                    : orderFiles.stream().map(files::readOrderFile).collect(Collectors.toList());
 
-                taxMap.put(tokens[0], extractedTax);
+            table.reset(0, new OrderNumberSet());
+            for (List<CompactOrder> orders : ordersByFile) {
+                table.putAll(orders);
             }
-            sc.close();
+            table.reindex();
+
+            loadReport = new LoadReport(orderFiles.size(), table.size(),
+                    (System.nanoTime() - start) / 1_000_000, options.isParallelLoad() ? "parallel" : "sequential");
 
-        } catch (FileNotFoundException e) {
-            throw new FlooringPersistenceException("-_- Could not load tax data into memory.", e);
+        } catch (NullPointerException e) {
+            throw new FlooringPersistenceException("-_- Could not load order data into memory.", e);
+        }
+    }
+
+    /**
+     * Loads the catalogs and every order from the snapshot, if it is still
+     * in step with the text files.
+     * @return true if the snapshot was used, false if the text files need reading
+     */
+    private boolean readSnapshot() {
+        long start = System.nanoTime();
+        long fingerprint = files.fingerprintTextFiles();
+        BinarySnapshot.Contents contents = snapshot.read(fingerprint);
+        if (contents == null) {
+            return false;
         }
+
+        productMap = Map.copyOf(contents.productMap);
+        taxMap = Map.copyOf(contents.taxMap);
+        table.reset(contents.orders.size(), new OrderNumberSet());
+        table.putAll(contents.orders);
+        table.reindex();
+        snapshotFingerprint = fingerprint;
+
+        loadReport = new LoadReport(table.partitions().size(), table.size(),
+                (System.nanoTime() - start) / 1_000_000, "snapshot");
+        return true;
     }
 
     /**
-     * Reads product data from Products.txt
+     * Takes a new snapshot if the text files changed since the last one.
+     * Skipped while changes are still waiting to be written, the snapshot
+     * only ever copies what is already in the text files.
      */
-    private void readProductData() {
+    private void writeSnapshot() throws FlooringPersistenceException {
+        snapshotLock.lock();
         try {
-            Scanner sc;
-            sc = new Scanner(new BufferedReader(new FileReader(DATA_FOLDER + "/Products.txt")));
+            long fingerprint;
+            List<CompactOrder> orders;
+            // the read lock keeps the orders and the files they match still while both are captured
+            long stamp = lock.readLock();
+            try {
+                if (!dirtyDates.isEmpty()) {
+                    return;
+                }
+                fingerprint = files.fingerprintTextFiles();
+                if (fingerprint == snapshotFingerprint) {
+                    return;
+                }
+                orders = table.orders();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            snapshot.write(fingerprint, taxMap.values(), productMap.values(), orders);
+            snapshotFingerprint = fingerprint;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Lazy loading counterpart of readOrderData(). Brings the manifest up to
+     * date and leaves the table empty, date files are read on first use.
+     * @param orderFiles the order files
+     */
+    private void readManifest(List<File> orderFiles) {
+        Map<LocalDate, File> filesByDate = new HashMap<>();
+        for (File file : orderFiles) {
+            filesByDate.put(files.dateOfFile(file), file);
+        }
+
+        if (manifest.refresh(filesByDate, files::readOrderNumbers)) {
+            manifest.save();
+        }
+
+        table.reset(0, manifest.getAllOrderNumbers());
+        residentDates.clear();
+    }
+
+    /**
+     * Returns how long the last load of the order files took.
+     * @return the load report
+     */
+    public LoadReport getLoadReport() {
+        return loadReport;
+    }
+
+    /**
+     * Returns why the last run of the journal compactor or of the shared
+     * folder refresh failed. Both keep running after a failure, and the next
+     * run tries again what the failed one couldn't do.
+     * @return the failure, or null if their last runs went through
+     */
+    public RuntimeException getBackgroundFailure() {
+        RuntimeException failure = persistence.getBackgroundFailure();
+        if (failure == null && refresher != null) {
+            failure = refresher.getLastFailure();
+        }
+        return failure;
+    }
+
+    /**
+     * Records what every date file looks like before the orders are read,
+     * so a file another process rewrites during the read is seen as changed.
+     */
+    private void stampOrderFiles() {
+        sharedGeneration = sharedFolder.readGeneration();
+        fileStamps.clear();
+        writtenOrders.clear();
+        for (File file : files.listOrderFiles()) {
+            fileStamps.put(files.dateOfFile(file), SharedFolder.FileStamp.of(file.toPath()));
+        }
+    }
 
-            productMap = new HashMap<>();
+    /**
+     * Re-reads the date files other processes changed since the last look.
+     * Nothing is read unless the shared generation moved, and then only the
+     * files whose stamp changed.
+     */
+    private void refreshChangedDates() throws FlooringPersistenceException {
+        long generation = sharedFolder.readGeneration();
+        if (generation == sharedGeneration) {
+            return;
+        }
 
-            // skip header
-            sc.nextLine();
+        Set<LocalDate> dates = new HashSet<>(fileStamps.keySet());
+        for (File file : files.listOrderFiles()) {
+            dates.add(files.dateOfFile(file));
+        }
+        boolean changed = false;
+        for (LocalDate date : dates) {
+            ReentrantLock fileLock = files.lockOf(date);
+            fileLock.lock();
+            try {
+                changed |= refreshDate(date);
+            } finally {
+                fileLock.unlock();
+            }
+        }
 
-            while (sc.hasNextLine()) {
-                String[] tokens = sc.nextLine().split(DELIMITER);
+        if (changed && manifest != null) {
+            long stamp = lock.writeLock();
+            try {
+                manifest.save();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        // only once everything was read, a failed run has to look again
+        sharedGeneration = generation;
+    }
 
-                // ProductType,CostPerSquareFoot,LaborCostPerSquareFoot
-                Product extractedProduct = new Product(
-                        tokens[0], // productType
-                        new BigDecimal(tokens[1]), // cost sq ft
-                        new BigDecimal(tokens[2]) // labor cost sq ft
-                );
+    /**
+     * Re-reads a single date file if another process changed it. Dates with
+     * changes of their own are left alone, writing them merges the two. The
+     * caller holds the date's file lock.
+     * @param date the date
+     * @return true if the date was re-read
+     */
+    private boolean refreshDate(LocalDate date) throws FlooringPersistenceException {
+        File file = files.orderFile(date);
+        // stamped before reading, so a rewrite racing the read shows up next time
+        SharedFolder.FileStamp stamp = SharedFolder.FileStamp.of(file.toPath());
+        if (stamp.equals(fileStamps.getOrDefault(date, SharedFolder.FileStamp.MISSING))
+                || dirtyDates.contains(date)) {
+            return false;
+        }
+        boolean missing = stamp.equals(SharedFolder.FileStamp.MISSING);
+        List<CompactOrder> orders = missing || manifest != null ? List.of() : files.readOrderFile(file);
+        int[] orderNumbers = missing || manifest == null ? new int[0] : files.readOrderNumbers(file);
 
-                // insert each into productMap
-                productMap.put(tokens[0], extractedProduct);
+        long lockStamp = lock.writeLock();
+        try {
+            if (dirtyDates.contains(date)) {
+                return false;
+            }
+            if (manifest == null) {
+                OrderSnapshot partition = OrderSnapshot.sortedByNumber(adoptVersions(orders));
+                replacePartition(date, partition);
+                writtenOrders.put(date, partition);
+            } else {
+                // a loaded date is dropped and read again the next time it is needed
+                if (residentDates.remove(date) != null) {
+                    dropPartition(date);
+                }
+                replaceManifestFile(date, file, orderNumbers);
             }
-            sc.close();
+            fileStamps.put(date, stamp);
+            return true;
+        } finally {
+            lock.unlockWrite(lockStamp);
+        }
+    }
 
-        } catch (FileNotFoundException e) {
-            throw new FlooringPersistenceException("-_- Could not load product data into memory.", e);
+    /**
+     * Stops the background threads and writes out anything still pending,
+     * then brings the snapshot up to date and hands back the order numbers
+     * that were leased but not used. Spring calls it when the application
+     * context is closed. Does nothing if the DAO isn't open.
+     */
+    @Override
+    public synchronized void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        persistence.stop();
+        if (refresher != null) {
+            refresher.stop();
+        }
+        try {
+            persistence.writeData();
+            persistence.close();
+            if (snapshot != null) {
+                writeSnapshot();
+            }
+        } finally {
+            allocator.close();
+            if (sharedFolder != null) {
+                sharedFolder.close();
+            }
         }
     }
 
     /**
-     * Loads data from a file.
+     * Loads data from a file. open() already did, this reads the files again.
      */
     @Override
     public void loadData() {
+        checkOpen();
+        load();
+    }
+
+    /**
+     * Reads the catalogs and the orders, from the snapshot when it is in step
+     * with the text files, and folds in whatever the persistence mode has to
+     * recover.
+     */
+    private void load() {
         try {
-            readProductData();
-            readTaxData();
-            readOrderData();
+            long stamp = lock.writeLock();
+            try {
+                if (sharedFolder != null) {
+                    stampOrderFiles();
+                }
+                boolean fromSnapshot = snapshot != null && readSnapshot();
+                if (!fromSnapshot) {
+                    productMap = files.readProducts();
+                    taxMap = files.readTaxes();
+                }
+                files.useCatalogs(taxMap, productMap);
+                if (!fromSnapshot) {
+                    readOrderData();
+                }
+                if (sharedFolder != null && manifest == null) {
+                    writtenOrders.putAll(table.partitions());
+                }
+                persistence.recover(this::applyAdd, this::applyRemove);
+                // only a folder from before orders.seq existed needs its highest order number
+                allocator.seed(table::lastOrderNumber);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+
+            // folds in whatever was recovered
+            persistence.writeData();
+            stamp = lock.writeLock();
+            try {
+                evictColdDates();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            if (snapshot != null) {
+                writeSnapshot();
+            }
         } catch (FlooringPersistenceException e) {
-            throw new FlooringPersistenceException("Could not load data from files.", e);
+            throw new FlooringPersistenceException("Could not load data from files. " + e.getMessage(), e);
         }
 
     }
 
     /**
-     * Writes current data to respective files.
+     * Writes the date files touched since the last write, as the persistence
+     * mode does it. Dates left without any orders have their file removed.
+     * In JOURNALED mode this is also what compacts the journal.
      */
     @Override
     public void writeData() throws FlooringPersistenceException {
+        checkOpen();
+        persistence.writeData();
+    }
+
+    /**
+     * Writes the files of the given dates. Each file is written from the
+     * date's latest orders under the date's file lock, so when two threads
+     * write the same date the later write always holds the later orders.
+     * A date stays dirty if its write failed or it changed again meanwhile.
+     * @param dates the dates
+     */
+    private void writeDates(List<LocalDate> dates) throws FlooringPersistenceException {
+        List<LocalDate> written = new ArrayList<>();
         try {
-            File dir = new File(DATA_FOLDER + "/orders");
-
-            // because we're retaining similar files through iterations of the program
-            // it might be good practice to wipe directory and re-upload files
-            // each time so we don't have duplicate problems
-            // potential downside: data may be lost if there is a failure in between
-            // deleting and rewriting
-            for (File file : Objects.requireNonNull(dir.listFiles())) {
-                if (!file.delete()) {
-                    throw new FlooringPersistenceException("Could not delete file: " + file.getName());
+            for (LocalDate date : dates) {
+                ReentrantLock fileLock = files.lockOf(date);
+                fileLock.lock();
+                try {
+                    // a date another write already cleaned may have been evicted since
+                    Long change = dirtyDates.changeOf(date);
+                    if (change == null) {
+                        continue;
+                    }
+                    // changes are applied before they are marked, so these orders hold every change up to this one
+                    if (sharedFolder != null) {
+                        writeSharedDate(date);
+                    } else {
+                        files.writeDateFile(date, table.partition(date));
+                    }
+                    dirtyDates.written(date, change);
+                } finally {
+                    fileLock.unlock();
                 }
+                written.add(date);
             }
+        } finally {
+            // keep the manifest in step with whatever did get written
+            if (manifest != null && !written.isEmpty()) {
+                long stamp = lock.writeLock();
+                try {
+                    for (LocalDate date : written) {
+                        manifest.updateFile(date, files.orderFile(date));
+                    }
+                    manifest.save();
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+        }
+    }
 
-            // create map of date to writer to separate for each file (separated by date)
-            Map<LocalDate, PrintWriter> writers = new HashMap<>();
-
-            // go through all orders
-            for (Order order : orderMap.values()) {
-                LocalDate date = order.getDate();
-                // if file DNE
-                if (!writers.containsKey(date)) {
-                    File newFile = new File(
-                            DATA_FOLDER + "/orders/Orders_" + date.format(dateFormatter) + ".txt");
-                    writers.put(date, new PrintWriter(new FileWriter(newFile, true)));
-                    // add header at top of file
-                    writers.get(date).println(ORDER_HEADER);
+    /**
+     * Writes a date file in a shared folder, under the date's lock across
+     * processes. If another process rewrote the file since this one last read
+     * or wrote it, their orders are merged in first: everything they wrote is
+     * kept apart from the orders that were changed or removed here. The
+     * caller holds the date's file lock.
+     * @param date the date
+     */
+    private void writeSharedDate(LocalDate date) throws FlooringPersistenceException {
+        Path file = files.orderFile(date).toPath();
+        FileLock dateLock = sharedFolder.lockDate(date);
+        try {
+            OrderSnapshot orders;
+            SharedFolder.FileStamp stamp = SharedFolder.FileStamp.of(file);
+            if (stamp.equals(fileStamps.getOrDefault(date, SharedFolder.FileStamp.MISSING))) {
+                orders = table.partition(date);
+            } else {
+                List<CompactOrder> onDisk = stamp.equals(SharedFolder.FileStamp.MISSING)
+                        ? List.of() : files.readOrderFile(file.toFile());
+                long lockStamp = lock.writeLock();
+                try {
+                    orders = mergeOrders(adoptVersions(onDisk), writtenOrders.getOrDefault(date, OrderSnapshot.EMPTY),
+                            table.partition(date));
+                    replacePartition(date, orders);
+                } finally {
+                    lock.unlockWrite(lockStamp);
                 }
-                // write rest of data
-                writers.get(date).println(order);
             }
 
-            // clean up all filewriters
-            for (PrintWriter printWriter : writers.values()) {
-                printWriter.flush();
-                printWriter.close();
+            files.writeDateFile(date, orders);
+            fileStamps.put(date, SharedFolder.FileStamp.of(file));
+            writtenOrders.put(date, orders);
+        } finally {
+            sharedFolder.unlockDate(dateLock, date);
+        }
+        sharedFolder.advanceGeneration();
+    }
+
+    /**
+     * Matches orders another process wrote against the ones held here. An
+     * order they left as it was keeps the instance held here, and with it its
+     * version; one they changed gets the next version, so an edit made here
+     * against the old one is refused. The caller holds the write lock.
+     * @param onDisk the orders read from a date file
+     * @return the orders to use instead
+     */
+    private List<CompactOrder> adoptVersions(List<CompactOrder> onDisk) {
+        OrderCodec codec = files.getCodec();
+        List<CompactOrder> adopted = new ArrayList<>(onDisk.size());
+        for (CompactOrder order : onDisk) {
+            CompactOrder current = table.get(order.getOrderNumber());
+            // compared as written, an order built in memory can differ from its file form in scale alone
+            if (current != null && current.getDate().equals(order.getDate())
+                    && codec.encode(current).equals(codec.encode(order))) {
+                adopted.add(current);
+            } else {
+                adopted.add(current == null ? order : order.withVersion(current.getVersion() + 1));
+            }
+        }
+        return adopted;
+    }
+
+    /**
+     * Applies the changes made here to a date file another process rewrote.
+     * @param onDisk the orders in the file now
+     * @param written the orders this process last read from or wrote to it
+     * @param current the orders this process has for the date now
+     * @return the merged orders, sorted by number
+     */
+    private static OrderSnapshot mergeOrders(List<CompactOrder> onDisk, OrderSnapshot written, OrderSnapshot current) {
+        Map<Integer, CompactOrder> merged = new HashMap<>();
+        for (CompactOrder order : onDisk) {
+            merged.put(order.getOrderNumber(), order);
+        }
+        for (CompactOrder order : written.compactOrders()) {
+            if (current.get(order.getOrderNumber()) == null) {
+                merged.remove(order.getOrderNumber());
             }
+        }
+        // orders are replaced rather than edited, so an unchanged order is the same object
+        for (CompactOrder order : current.compactOrders()) {
+            if (written.get(order.getOrderNumber()) != order) {
+                merged.put(order.getOrderNumber(), order);
+            }
+        }
+        return OrderSnapshot.sortedByNumber(merged.values());
+    }
 
-        } catch (IOException e) {
-            throw new FlooringPersistenceException("Error was encountered while writing order data to a file.", e);
+    /**
+     * Returns every order. When lazy loading, dates that are not resident are
+     * read straight from their files without being kept in memory.
+     * @return all orders
+     */
+    private Collection<CompactOrder> allOrders() {
+        long stamp = lock.readLock();
+        try {
+            if (manifest == null) {
+                return table.orders();
+            }
+            List<CompactOrder> orders = new ArrayList<>();
+            for (LocalDate date : manifest.getDates()) {
+                File file = files.orderFile(date);
+                if (residentDates.containsKey(date)) {
+                    orders.addAll(table.partition(date).compactOrders());
+                } else if (file.exists()) {
+                    orders.addAll(files.readOrderFile(file));
+                }
+            }
+            return orders;
+        } finally {
+            lock.unlockRead(stamp);
         }
     }
 
@@ -372,17 +1619,8 @@ public class FlooringDaoImpl implements FlooringDao{
      */
     @Override
     public void exportData() {
-        try {
-            PrintWriter writer = new PrintWriter(new FileWriter(DATA_FOLDER + "/backup/dataexport.txt"));
-            writer.println(ORDER_HEADER + ";Date");
-            for (Order order : orderMap.values()) {
-                writer.println(order + DELIMITER + order.getDate().format(dateFormatter));
-                writer.flush();
-            }
-            writer.close();
-        } catch (IOException e) {
-            throw new FlooringPersistenceException("Unable to export data.", e);
-        }
+        checkOpen();
+        files.export(allOrders());
     }
 
 }
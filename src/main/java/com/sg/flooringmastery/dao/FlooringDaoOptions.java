@@ -0,0 +1,274 @@
+package com.sg.flooringmastery.dao;
+
+/**
+ * Tuning options for FlooringDaoImpl.
+ */
+public class FlooringDaoOptions {
+
+    private PersistenceMode persistenceMode = PersistenceMode.IMMEDIATE;
+    private long compactionIntervalMillis = 5000;
+    private long flushWindowMillis = 200;
+    private int flushBatchSize = 100;
+    private boolean parallelLoad = true;
+    private boolean lazyLoad = false;
+    private int maxResidentDates = 32;
+    private boolean snapshot = false;
+    private boolean sharedFolder = false;
+    private long refreshIntervalMillis = 1000;
+    private int orderNumberBlockSize = 1000;
+    private boolean columnarStore = false;
+
+    /**
+     * Builds options from system properties, falling back to the defaults
+     * for anything not set.
+     * <ul>
+     *     <li>flooring.persistence - immediate, journaled or write_behind</li>
+     *     <li>flooring.compactionIntervalMillis - how often the journal is compacted</li>
+     *     <li>flooring.flushWindowMillis - how long write-behind changes are gathered</li>
+     *     <li>flooring.flushBatchSize - how many write-behind changes force an early flush</li>
+     *     <li>flooring.parallelLoad - whether order files are read in parallel at startup</li>
+     *     <li>flooring.lazyLoad - whether date files are only read once they are needed</li>
+     *     <li>flooring.maxResidentDates - how many dates stay in memory when lazy loading</li>
+     *     <li>flooring.snapshot - whether a binary snapshot is kept for faster startup</li>
+     *     <li>flooring.sharedFolder - whether other processes use the same data folder</li>
+     *     <li>flooring.refreshIntervalMillis - how often a shared folder is checked for changes</li>
+     *     <li>flooring.orderNumberBlockSize - how many order numbers are leased at a time</li>
+     *     <li>flooring.columnarStore - whether the orders are also kept column by column for summaries</li>
+     * </ul>
+     * @return the options
+     */
+    public static FlooringDaoOptions fromSystemProperties() {
+        FlooringDaoOptions options = new FlooringDaoOptions();
+
+        String mode = System.getProperty("flooring.persistence");
+        if (mode != null) {
+            options.setPersistenceMode(PersistenceMode.valueOf(mode.trim().toUpperCase()));
+        }
+        options.setCompactionIntervalMillis(
+                Long.getLong("flooring.compactionIntervalMillis", options.getCompactionIntervalMillis()));
+        options.setFlushWindowMillis(Long.getLong("flooring.flushWindowMillis", options.getFlushWindowMillis()));
+        options.setFlushBatchSize(Integer.getInteger("flooring.flushBatchSize", options.getFlushBatchSize()));
+
+        String parallelLoad = System.getProperty("flooring.parallelLoad");
+        if (parallelLoad != null) {
+            options.setParallelLoad(Boolean.parseBoolean(parallelLoad));
+        }
+        options.setLazyLoad(Boolean.getBoolean("flooring.lazyLoad"));
+        options.setMaxResidentDates(Integer.getInteger("flooring.maxResidentDates", options.getMaxResidentDates()));
+        options.setSnapshot(Boolean.getBoolean("flooring.snapshot"));
+        options.setSharedFolder(Boolean.getBoolean("flooring.sharedFolder"));
+        options.setRefreshIntervalMillis(
+                Long.getLong("flooring.refreshIntervalMillis", options.getRefreshIntervalMillis()));
+        options.setOrderNumberBlockSize(
+                Integer.getInteger("flooring.orderNumberBlockSize", options.getOrderNumberBlockSize()));
+        options.setColumnarStore(Boolean.getBoolean("flooring.columnarStore"));
+
+        return options;
+    }
+
+    /**
+     * Returns how order changes are persisted.
+     * @return the persistence mode
+     */
+    public PersistenceMode getPersistenceMode() {
+        return persistenceMode;
+    }
+
+    /**
+     * Sets how order changes are persisted.
+     * @param persistenceMode the persistence mode
+     */
+    public void setPersistenceMode(PersistenceMode persistenceMode) {
+        this.persistenceMode = persistenceMode;
+    }
+
+    /**
+     * Returns how often the journal is folded into the date files.
+     * @return the interval in milliseconds
+     */
+    public long getCompactionIntervalMillis() {
+        return compactionIntervalMillis;
+    }
+
+    /**
+     * Sets how often the journal is folded into the date files.
+     * @param compactionIntervalMillis the interval in milliseconds
+     */
+    public void setCompactionIntervalMillis(long compactionIntervalMillis) {
+        this.compactionIntervalMillis = compactionIntervalMillis;
+    }
+
+    /**
+     * Returns how long the write-behind flusher gathers changes before writing.
+     * @return the window in milliseconds
+     */
+    public long getFlushWindowMillis() {
+        return flushWindowMillis;
+    }
+
+    /**
+     * Sets how long the write-behind flusher gathers changes before writing.
+     * @param flushWindowMillis the window in milliseconds
+     */
+    public void setFlushWindowMillis(long flushWindowMillis) {
+        this.flushWindowMillis = flushWindowMillis;
+    }
+
+    /**
+     * Returns how many queued changes make the write-behind flusher write
+     * without waiting out the window.
+     * @return the batch size
+     */
+    public int getFlushBatchSize() {
+        return flushBatchSize;
+    }
+
+    /**
+     * Sets how many queued changes make the write-behind flusher write
+     * without waiting out the window.
+     * @param flushBatchSize the batch size
+     */
+    public void setFlushBatchSize(int flushBatchSize) {
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    /**
+     * Returns whether order files are read in parallel at startup.
+     * @return true if parallel
+     */
+    public boolean isParallelLoad() {
+        return parallelLoad;
+    }
+
+    /**
+     * Sets whether order files are read in parallel at startup.
+     * @param parallelLoad true to read in parallel
+     */
+    public void setParallelLoad(boolean parallelLoad) {
+        this.parallelLoad = parallelLoad;
+    }
+
+    /**
+     * Returns whether date files are only read once they are needed.
+     * @return true if lazy loading
+     */
+    public boolean isLazyLoad() {
+        return lazyLoad;
+    }
+
+    /**
+     * Sets whether date files are only read once they are needed.
+     * @param lazyLoad true to load lazily
+     */
+    public void setLazyLoad(boolean lazyLoad) {
+        this.lazyLoad = lazyLoad;
+    }
+
+    /**
+     * Returns how many dates stay in memory when lazy loading. Dates with
+     * unwritten changes are never evicted, so this can be exceeded briefly.
+     * @return the maximum number of resident dates
+     */
+    public int getMaxResidentDates() {
+        return maxResidentDates;
+    }
+
+    /**
+     * Sets how many dates stay in memory when lazy loading.
+     * @param maxResidentDates the maximum number of resident dates
+     */
+    public void setMaxResidentDates(int maxResidentDates) {
+        this.maxResidentDates = maxResidentDates;
+    }
+
+    /**
+     * Returns whether a binary snapshot of the orders is kept next to the
+     * text files and read at startup while it is still current. Ignored when
+     * lazy loading or sharing the data folder.
+     * @return true if the snapshot is used
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Sets whether a binary snapshot of the orders is kept for faster startup.
+     * @param snapshot true to use the snapshot
+     */
+    public void setSnapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Returns whether other processes read and write the same data folder.
+     * Writes then lock each date file across processes and merge in what
+     * the others wrote, and their changes are picked up in the background.
+     * Can't be combined with JOURNALED mode, the journal belongs to one process.
+     * @return true if the folder is shared
+     */
+    public boolean isSharedFolder() {
+        return sharedFolder;
+    }
+
+    /**
+     * Sets whether other processes read and write the same data folder.
+     * @param sharedFolder true if the folder is shared
+     */
+    public void setSharedFolder(boolean sharedFolder) {
+        this.sharedFolder = sharedFolder;
+    }
+
+    /**
+     * Returns how often a shared data folder is checked for changes made by
+     * other processes.
+     * @return the interval in milliseconds
+     */
+    public long getRefreshIntervalMillis() {
+        return refreshIntervalMillis;
+    }
+
+    /**
+     * Sets how often a shared data folder is checked for changes made by
+     * other processes.
+     * @param refreshIntervalMillis the interval in milliseconds
+     */
+    public void setRefreshIntervalMillis(long refreshIntervalMillis) {
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+
+    /**
+     * Returns how many order numbers are leased from the sequence file at a
+     * time. Numbers within a block are handed out without any file access.
+     * @return the block size
+     */
+    public int getOrderNumberBlockSize() {
+        return orderNumberBlockSize;
+    }
+
+    /**
+     * Sets how many order numbers are leased from the sequence file at a time.
+     * @param orderNumberBlockSize the block size, at least 1
+     */
+    public void setOrderNumberBlockSize(int orderNumberBlockSize) {
+        this.orderNumberBlockSize = orderNumberBlockSize;
+    }
+
+    /**
+     * Returns whether the orders are also kept column by column, so sales
+     * summaries over a range of dates scan arrays instead of every order.
+     * Costs about fifty bytes an order. Ignored when lazy loading, where
+     * the dates in range are summed up as they are read instead.
+     * @return true if the columnar store is kept
+     */
+    public boolean isColumnarStore() {
+        return columnarStore;
+    }
+
+    /**
+     * Sets whether the orders are also kept column by column.
+     * @param columnarStore true to keep the columnar store
+     */
+    public void setColumnarStore(boolean columnarStore) {
+        this.columnarStore = columnarStore;
+    }
+}
@@ -0,0 +1,36 @@
+package com.sg.flooringmastery.dao;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * IMMEDIATE mode: every change rewrites the date files it touched before
+ * the call that made it returns.
+ */
+public class ImmediatePersistence implements OrderPersistence {
+
+    private final DirtyDates dirtyDates;
+    private final DateWriter writer;
+
+    /**
+     * Constructor that takes in what to write and how.
+     * @param dirtyDates the dates whose files are behind
+     * @param writer writes them
+     */
+    public ImmediatePersistence(DirtyDates dirtyDates, DateWriter writer) {
+        this.dirtyDates = dirtyDates;
+        this.writer = writer;
+    }
+
+    @Override
+    public CompletableFuture<Void> persist() throws FlooringPersistenceException {
+        writeData();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void writeData() throws FlooringPersistenceException {
+        if (!dirtyDates.isEmpty()) {
+            writer.writeDates(dirtyDates.dates());
+        }
+    }
+}
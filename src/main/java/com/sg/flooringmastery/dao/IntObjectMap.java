@@ -0,0 +1,284 @@
+package com.sg.flooringmastery.dao;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A hash map from int keys to objects that stores the keys as plain ints.
+ * Keys and values sit in two parallel arrays and collisions are resolved by
+ * probing the next slot, so a lookup never boxes the key or follows a chain
+ * of entry objects. Null values are not allowed, an empty slot is one whose
+ * value is null. Not thread safe.
+ * @param <V> the type of value
+ */
+public class IntObjectMap<V> {
+
+    private final static int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int modCount;
+
+    /**
+     * Constructor for an empty map.
+     */
+    public IntObjectMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Constructor for an empty map that can hold the given number of entries
+     * without growing.
+     * @param expectedSize the expected number of entries
+     */
+    public IntObjectMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 2 < expectedSize) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Returns the value for a key.
+     * @param key the key
+     * @return the value, or null if the key is not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = slotOf(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether a key is in the map.
+     * @param key the key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Puts a value in the map, replacing any value already under the key.
+     * @param key the key
+     * @param value the value, not null
+     * @return the value that was replaced, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("IntObjectMap does not hold null values");
+        }
+
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        for (; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V old = (V) values[slot];
+                values[slot] = value;
+                return old;
+            }
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        modCount++;
+        // kept at most half full so probe runs stay short
+        if (size > keys.length / 2) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes a key from the map.
+     * @param key the key
+     * @return the value that was removed, or null if the key was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = keys.length - 1;
+        for (int slot = slotOf(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V old = (V) values[slot];
+                deleteSlot(slot, mask);
+                size--;
+                modCount++;
+                return old;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the map is empty.
+     * @return true if there are no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns a read-only view of the keys. The view follows later changes
+     * to the map; only iterating it boxes the keys.
+     * @return the keys
+     */
+    public Set<Integer> keySet() {
+        return new AbstractSet<Integer>() {
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Integer && containsKey((Integer) o);
+            }
+
+            @Override
+            public Iterator<Integer> iterator() {
+                return new SlotIterator<Integer>() {
+                    @Override
+                    Integer at(int slot) {
+                        return keys[slot];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns a read-only view of the values, in no particular order. The
+     * view follows later changes to the map.
+     * @return the values
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new SlotIterator<V>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    V at(int slot) {
+                        return (V) values[slot];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Empties a slot and moves later entries of the same probe run back so
+     * that every remaining key can still be found from its home slot.
+     */
+    private void deleteSlot(int slot, int mask) {
+        int hole = slot;
+        for (int next = (hole + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = slotOf(keys[next], mask);
+            // the entry at next can fill the hole only if its home slot is not between the hole and next
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        values[hole] = null;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slotOf(oldKeys[i], mask);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int slotOf(int key, int mask) {
+        // the same spreading as HashMap: sequential order numbers land in
+        // sequential slots, which linear probing handles without collisions
+        return (key ^ (key >>> 16)) & mask;
+    }
+
+    /**
+     * Walks the occupied slots.
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        private final int expectedModCount = modCount;
+        private int next = advance(0);
+
+        abstract T at(int slot);
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= values.length) {
+                throw new NoSuchElementException();
+            }
+            T element = at(next);
+            next = advance(next + 1);
+            return element;
+        }
+    }
+}
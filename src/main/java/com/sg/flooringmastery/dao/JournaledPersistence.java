@@ -0,0 +1,163 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * JOURNALED mode: every change is appended to an OrderJournal while the
+ * change is made, and forced to the disk once the DAO has let go of its
+ * write lock, before the call that made it returns. Changes made at the same
+ * time share one flush. A background compactor folds the journal into the
+ * date files now and then. A record is "+;MMddyyyy;line" for an order added
+ * or replaced, the line as the date file holds it, or "-;number" for an
+ * order removed.
+ */
+public class JournaledPersistence implements OrderPersistence {
+
+    private final static String ADD = "+";
+    private final static String REMOVE = "-";
+    private final static String DELIMITER = ";";
+
+    private final OrderJournal journal;
+    private final DirtyDates dirtyDates;
+    private final DateWriter writer;
+    private final OrderFiles files;
+    private final long compactionIntervalMillis;
+
+    // only one compaction at a time
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private PeriodicTask compactor;
+
+    /**
+     * Constructor that takes in the journal and what the compactor needs.
+     * @param journal the journal
+     * @param dirtyDates the dates whose files are behind
+     * @param writer writes them
+     * @param files for the codec the records are written with
+     * @param compactionIntervalMillis how often to compact
+     */
+    public JournaledPersistence(OrderJournal journal, DirtyDates dirtyDates, DateWriter writer, OrderFiles files,
+                                long compactionIntervalMillis) {
+        this.journal = journal;
+        this.dirtyDates = dirtyDates;
+        this.writer = writer;
+        this.files = files;
+        this.compactionIntervalMillis = compactionIntervalMillis;
+    }
+
+    /**
+     * Starts the compactor. Whatever it hasn't folded in yet gets folded in
+     * by the DAO's close().
+     */
+    @Override
+    public void start() {
+        compactor = new PeriodicTask("order-journal-compactor", compactionIntervalMillis, this::writeData);
+    }
+
+    @Override
+    public void recordAdded(List<Order> orders) throws FlooringPersistenceException {
+        OrderCodec codec = files.getCodec();
+        List<String> records = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            records.add(ADD + DELIMITER + order.getDate().format(OrderFiles.DATE_FORMAT) + DELIMITER
+                    + codec.encode(order));
+        }
+        journal.appendAll(records);
+    }
+
+    @Override
+    public void recordRemoved(List<Integer> orderNumbers) throws FlooringPersistenceException {
+        List<String> records = new ArrayList<>(orderNumbers.size());
+        for (Integer orderNumber : orderNumbers) {
+            records.add(REMOVE + DELIMITER + orderNumber);
+        }
+        journal.appendAll(records);
+    }
+
+    /**
+     * Re-applies the records left in the journal by a run that ended before
+     * they were compacted. The DAO folds them into the date files after.
+     */
+    @Override
+    public void recover(Consumer<Order> add, IntConsumer remove) throws FlooringPersistenceException {
+        OrderCodec codec = files.getCodec();
+        List<String> records = journal.readRecords();
+        for (int i = 0; i < records.size(); i++) {
+            String record = records.get(i);
+            String[] parts = record.split(DELIMITER, 3);
+
+            try {
+                if (parts[0].equals(ADD)) {
+                    byte[] line = parts[2].getBytes(StandardCharsets.UTF_8);
+                    add.accept(codec.decodeOrder(ByteBuffer.wrap(line), 0, line.length,
+                            LocalDate.parse(parts[1], OrderFiles.DATE_FORMAT)));
+                } else if (parts[0].equals(REMOVE)) {
+                    remove.accept(Integer.parseInt(parts[1]));
+                } else {
+                    throw new FlooringPersistenceException("Unknown record: " + record);
+                }
+            } catch (RuntimeException e) {
+                throw new FlooringPersistenceException("orders.journal record " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Forces the changes recorded so far to the disk, along with those of
+     * any other thread forcing at the same time.
+     */
+    @Override
+    public CompletableFuture<Void> persist() throws FlooringPersistenceException {
+        journal.force();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Compacts the journal: writes the date files touched since the last
+     * compaction, then drops the records they now hold.
+     */
+    @Override
+    public void writeData() throws FlooringPersistenceException {
+        if (dirtyDates.isEmpty()) {
+            return;
+        }
+        compactionLock.lock();
+        try {
+            // a record is appended after its date is marked, so every sealed record
+            // belongs to one of the dates captured after the seal
+            journal.seal();
+            writer.writeDates(dirtyDates.dates());
+
+            // every sealed change is now in the date files, forced to the disk with them
+            journal.dropSealed();
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    @Override
+    public RuntimeException getBackgroundFailure() {
+        return compactor == null ? null : compactor.getLastFailure();
+    }
+
+    @Override
+    public void stop() {
+        if (compactor != null) {
+            compactor.stop();
+        }
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+}
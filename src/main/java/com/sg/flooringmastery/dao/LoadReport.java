@@ -0,0 +1,68 @@
+package com.sg.flooringmastery.dao;
+
+/**
+ * A summary of how long it took to load the order files at startup.
+ */
+public class LoadReport {
+
+    private final int fileCount;
+    private final int orderCount;
+    private final long elapsedMillis;
+    private final String source;
+
+    /**
+     * Constructor for a LoadReport.
+     * @param fileCount the number of order files read
+     * @param orderCount the number of orders loaded
+     * @param elapsedMillis how long loading took
+     * @param source where the orders came from: parallel, sequential, manifest or snapshot
+     */
+    public LoadReport(int fileCount, int orderCount, long elapsedMillis, String source) {
+        this.fileCount = fileCount;
+        this.orderCount = orderCount;
+        this.elapsedMillis = elapsedMillis;
+        this.source = source;
+    }
+
+    /**
+     * Returns the number of order files read.
+     * @return the number of files
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * Returns the number of orders loaded.
+     * @return the number of orders
+     */
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * Returns how long loading took.
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns where the orders came from.
+     * @return parallel or sequential for the text files, manifest for lazy loading, or snapshot
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Overridden toString.
+     * @return a one line summary
+     */
+    @Override
+    public String toString() {
+        return "Loaded " + orderCount + " orders from " + fileCount + " files in " + elapsedMillis + " ms ("
+                + source + ")";
+    }
+}
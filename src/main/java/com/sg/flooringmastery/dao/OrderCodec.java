@@ -0,0 +1,571 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.Tax;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+import static java.math.RoundingMode.UP;
+
+/**
+ * Reads and writes the semicolon delimited lines of the data files.
+ *
+ * Lines are tokenized directly on the bytes of a ByteBuffer. Numbers are
+ * parsed straight into an unscaled long and a scale, and state and product
+ * columns are matched against the catalogs byte by byte, so the only String
+ * created per order line is the customer name. Lines are read into
+ * CompactOrders, the form the DAO keeps, and written from them, without any
+ * BigDecimal in between.
+ */
+public class OrderCodec {
+
+    private final static byte DELIMITER = ';';
+    private final static String TEXT_DELIMITER = ";";
+    // ten-thousandths in a cent
+    private final static long CENT_UNITS = 100;
+
+    private final Tax[] taxes;
+    private final byte[][] stateKeys;
+    private final byte[][] rateKeys;
+    private final Product[] products;
+    private final byte[][] productKeys;
+
+    // <state abbr;rate, Tax>, the taxes of orders priced at a rate the catalog no longer has
+    private final ConcurrentMap<String, Tax> pastTaxes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor that takes in the catalogs the state and product columns
+     * refer to.
+     * @param taxMap tax information by state abbreviation
+     * @param productMap products by product type
+     */
+    public OrderCodec(Map<String, Tax> taxMap, Map<String, Product> productMap) {
+        taxes = taxMap.values().toArray(new Tax[0]);
+        stateKeys = new byte[taxes.length][];
+        rateKeys = new byte[taxes.length][];
+        for (int i = 0; i < taxes.length; i++) {
+            stateKeys[i] = taxes[i].getStateAbbr().getBytes(StandardCharsets.UTF_8);
+            rateKeys[i] = taxes[i].getTaxRate().toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        products = productMap.values().toArray(new Product[0]);
+        productKeys = new byte[products.length][];
+        for (int i = 0; i < products.length; i++) {
+            productKeys[i] = products[i].getProductType().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /****************** READING ******************/
+
+    /**
+     * Decodes every order line of an order file. The first line is the header
+     * and is skipped, as are blank lines.
+     * @param buffer the file contents, from position to limit
+     * @param date the date of the file
+     * @param consumer receives each order
+     */
+    public void decodeOrders(ByteBuffer buffer, LocalDate date, Consumer<Order> consumer) {
+        decodeCompactOrders(buffer, date, order -> consumer.accept(order.toOrder()));
+    }
+
+    /**
+     * Decodes every order line of an order file into the form the DAO keeps.
+     * The first line is the header and is skipped, as are blank lines.
+     * @param buffer the file contents, from position to limit
+     * @param date the date of the file
+     * @param consumer receives each order
+     * @throws FlooringPersistenceException if a line can't be decoded, naming
+     * the line
+     */
+    public void decodeCompactOrders(ByteBuffer buffer, LocalDate date, Consumer<CompactOrder> consumer) {
+        int[] fields = new int[13];
+        CompactOrder.Amounts amounts = new CompactOrder.Amounts();
+        int line = 2;
+        int start = nextLine(buffer, buffer.position());
+        while (start < buffer.limit()) {
+            int end = lineEnd(buffer, start);
+            if (contentEnd(buffer, start, end) > start) {
+                try {
+                    consumer.accept(decodeCompactOrder(buffer, start, end, date, fields, amounts));
+                } catch (FlooringPersistenceException e) {
+                    throw onLine(line, e);
+                }
+            }
+            start = nextLine(buffer, end);
+            line++;
+        }
+    }
+
+    /**
+     * Decodes just the order numbers of an order file.
+     * @param buffer the file contents, from position to limit
+     * @return the order numbers, in file order
+     * @throws FlooringPersistenceException if an order number can't be
+     * decoded, naming the line
+     */
+    public int[] decodeOrderNumbers(ByteBuffer buffer) {
+        int[] numbers = new int[64];
+        int count = 0;
+
+        int line = 2;
+        int start = nextLine(buffer, buffer.position());
+        while (start < buffer.limit()) {
+            int end = lineEnd(buffer, start);
+            if (contentEnd(buffer, start, end) > start) {
+                if (count == numbers.length) {
+                    numbers = Arrays.copyOf(numbers, count * 2);
+                }
+                try {
+                    numbers[count++] = parseInt(buffer, start, fieldEnd(buffer, start, end));
+                } catch (FlooringPersistenceException e) {
+                    throw onLine(line, e);
+                }
+            }
+            start = nextLine(buffer, end);
+            line++;
+        }
+        return Arrays.copyOf(numbers, count);
+    }
+
+    /**
+     * Adds the line number, counting the header as line 1, to why a line
+     * couldn't be decoded.
+     */
+    private static FlooringPersistenceException onLine(int line, FlooringPersistenceException e) {
+        return new FlooringPersistenceException("line " + line + ": " + e.getMessage(), e);
+    }
+
+    /**
+     * Decodes a single order line.
+     * @param buffer the buffer holding the line
+     * @param start index of the first byte of the line
+     * @param end index just past the last byte of the line, excluding the line break
+     * @param date the date of the file the line came from
+     * @return the order
+     */
+    public Order decodeOrder(ByteBuffer buffer, int start, int end, LocalDate date) {
+        return decodeCompactOrder(buffer, start, end, date, new int[13], new CompactOrder.Amounts()).toOrder();
+    }
+
+    /**
+     * Decodes a single order line into the form the DAO keeps.
+     * @param fields scratch space for where each field starts, 13 long
+     * @param amounts scratch space for the amounts
+     */
+    private CompactOrder decodeCompactOrder(ByteBuffer buffer, int start, int end, LocalDate date,
+                                            int[] fields, CompactOrder.Amounts amounts) {
+        end = contentEnd(buffer, start, end);
+
+        // 0OrderNumber,1CustomerName,2State,3TaxRate,4ProductType,5Area,6CostPerSquareFoot,7LaborCostPerSquareFoot,8MaterialCost,9LaborCost,10Tax,11Total
+        int count = 0;
+        fields[count++] = start;
+        for (int i = start; i < end && count < fields.length; i++) {
+            if (buffer.get(i) == DELIMITER) {
+                fields[count++] = i + 1;
+            }
+        }
+        if (count < 12) {
+            throw new FlooringPersistenceException("Malformed order line: " + decodeString(buffer, start, end));
+        }
+        if (count == 12) {
+            fields[12] = end + 1;
+        }
+
+        // the amounts are columns 5 to 11, in the order CompactOrder numbers them
+        amounts.clear();
+        for (int amount = 0; amount < CompactOrder.AMOUNT_COUNT; amount++) {
+            parseAmount(buffer, fields[5 + amount], fields[6 + amount] - 1, amounts, amount);
+        }
+        return new CompactOrder(
+                parseInt(buffer, fields[0], fields[1] - 1), // order number
+                decodeString(buffer, fields[1], fields[2] - 1).intern(), // customer name, shared between orders
+                findTax(buffer, fields[2], fields[3] - 1, fields[4] - 1), // state abbr and rate -> tax object
+                findProduct(buffer, fields[4], fields[5] - 1), // product type -> product object
+                date,
+                amounts,
+                0);
+    }
+
+    /**
+     * Decodes every line of Taxes.txt after the header.
+     * @param buffer the file contents, from position to limit
+     * @param consumer receives each tax
+     */
+    public static void decodeTaxes(ByteBuffer buffer, Consumer<Tax> consumer) {
+        int start = nextLine(buffer, buffer.position());
+        while (start < buffer.limit()) {
+            int end = contentEnd(buffer, start, lineEnd(buffer, start));
+            if (end > start) {
+                // StateAbbr,StateName,TaxRate
+                int nameStart = fieldEnd(buffer, start, end) + 1;
+                int rateStart = fieldEnd(buffer, nameStart, end) + 1;
+                consumer.accept(new Tax(
+                        decodeString(buffer, start, nameStart - 1), // state abbr
+                        decodeString(buffer, nameStart, rateStart - 1), // state name
+                        parseDecimal(buffer, rateStart, fieldEnd(buffer, rateStart, end)))); // tax rate
+            }
+            start = nextLine(buffer, lineEnd(buffer, start));
+        }
+    }
+
+    /**
+     * Decodes every line of Products.txt after the header.
+     * @param buffer the file contents, from position to limit
+     * @param consumer receives each product
+     */
+    public static void decodeProducts(ByteBuffer buffer, Consumer<Product> consumer) {
+        int start = nextLine(buffer, buffer.position());
+        while (start < buffer.limit()) {
+            int end = contentEnd(buffer, start, lineEnd(buffer, start));
+            if (end > start) {
+                // ProductType,CostPerSquareFoot,LaborCostPerSquareFoot
+                int costStart = fieldEnd(buffer, start, end) + 1;
+                int laborStart = fieldEnd(buffer, costStart, end) + 1;
+                consumer.accept(new Product(
+                        decodeString(buffer, start, costStart - 1), // productType
+                        parseDecimal(buffer, costStart, laborStart - 1), // cost sq ft
+                        parseDecimal(buffer, laborStart, fieldEnd(buffer, laborStart, end)))); // labor cost sq ft
+            }
+            start = nextLine(buffer, lineEnd(buffer, start));
+        }
+    }
+
+    /****************** WRITING ******************/
+
+    /**
+     * Encodes an order as a line of an order file, without the line break.
+     * Money columns are written with two decimals, rounded up.
+     * @param order the order
+     * @return the line
+     */
+    public String encode(Order order) {
+        StringBuilder line = new StringBuilder(128);
+        encode(order, line);
+        return line.toString();
+    }
+
+    /**
+     * Appends an order as a line of an order file, without the line break.
+     * @param order the order
+     * @param line the builder to append to
+     */
+    public void encode(Order order, StringBuilder line) {
+        // same columns as encode(CompactOrder, StringBuilder), kept apart so an Order isn't compacted just to be written
+        // the order keeps the rates it was priced with, even if the catalog changed since
+        BigDecimal costPerSquareFoot = order.getCostPerSquareFoot() != null
+                ? order.getCostPerSquareFoot() : order.getProduct().getCostPerSquareFoot();
+        BigDecimal laborCostPerSquareFoot = order.getLaborCostPerSquareFoot() != null
+                ? order.getLaborCostPerSquareFoot() : order.getProduct().getLaborCostPerSquareFoot();
+
+        line.append(order.getOrderNumber()).append(TEXT_DELIMITER)
+                .append(order.getCustomerName()).append(TEXT_DELIMITER)
+                .append(order.getTaxInfo().getStateAbbr()).append(TEXT_DELIMITER)
+                .append(order.getTaxInfo().getTaxRate()).append(TEXT_DELIMITER)
+                .append(order.getProduct().getProductType()).append(TEXT_DELIMITER);
+        appendMoney(line, order.getArea()).append(TEXT_DELIMITER);
+        appendMoney(line, costPerSquareFoot).append(TEXT_DELIMITER);
+        appendMoney(line, laborCostPerSquareFoot).append(TEXT_DELIMITER);
+        appendMoney(line, order.getMaterialCost()).append(TEXT_DELIMITER);
+        appendMoney(line, order.getLaborCost()).append(TEXT_DELIMITER);
+        appendMoney(line, order.getTax()).append(TEXT_DELIMITER);
+        appendMoney(line, order.getTotalCost());
+    }
+
+    /**
+     * Encodes an order the DAO keeps as a line of an order file, without the
+     * line break.
+     * @param order the order
+     * @return the line
+     */
+    public String encode(CompactOrder order) {
+        StringBuilder line = new StringBuilder(128);
+        encode(order, line);
+        return line.toString();
+    }
+
+    /**
+     * Appends an order the DAO keeps as a line of an order file, without the
+     * line break. Amounts are rounded to cents straight from their
+     * ten-thousandths.
+     * @param order the order
+     * @param line the builder to append to
+     */
+    public void encode(CompactOrder order, StringBuilder line) {
+        line.append(order.getOrderNumber()).append(TEXT_DELIMITER)
+                .append(order.getCustomerName()).append(TEXT_DELIMITER)
+                .append(order.getTaxInfo().getStateAbbr()).append(TEXT_DELIMITER)
+                .append(order.getTaxInfo().getTaxRate()).append(TEXT_DELIMITER)
+                .append(order.getProduct().getProductType()).append(TEXT_DELIMITER);
+        appendMoney(line, order, CompactOrder.AREA).append(TEXT_DELIMITER);
+        // the order keeps the rates it was priced with, even if the catalog changed since
+        if (!order.hasAmount(CompactOrder.COST_PER_SQUARE_FOOT)) {
+            appendMoney(line, order.getProduct().getCostPerSquareFoot()).append(TEXT_DELIMITER);
+        } else {
+            appendMoney(line, order, CompactOrder.COST_PER_SQUARE_FOOT).append(TEXT_DELIMITER);
+        }
+        if (!order.hasAmount(CompactOrder.LABOR_COST_PER_SQUARE_FOOT)) {
+            appendMoney(line, order.getProduct().getLaborCostPerSquareFoot()).append(TEXT_DELIMITER);
+        } else {
+            appendMoney(line, order, CompactOrder.LABOR_COST_PER_SQUARE_FOOT).append(TEXT_DELIMITER);
+        }
+        appendMoney(line, order, CompactOrder.MATERIAL_COST).append(TEXT_DELIMITER);
+        appendMoney(line, order, CompactOrder.LABOR_COST).append(TEXT_DELIMITER);
+        appendMoney(line, order, CompactOrder.TAX).append(TEXT_DELIMITER);
+        if (order.hasAmount(CompactOrder.TOTAL_COST)) {
+            appendMoney(line, order, CompactOrder.TOTAL_COST);
+        } else {
+            appendMoney(line, order.getTotalCost());
+        }
+    }
+
+    /**
+     * Encodes a tax as a line of Taxes.txt, without the line break.
+     * @param tax the tax
+     * @return the line
+     */
+    public static String encodeTax(Tax tax) {
+        return tax.getStateAbbr() + TEXT_DELIMITER + tax.getStateName() + TEXT_DELIMITER
+                + tax.getTaxRate().toPlainString();
+    }
+
+    /**
+     * Encodes a product as a line of Products.txt, without the line break.
+     * @param product the product
+     * @return the line
+     */
+    public static String encodeProduct(Product product) {
+        return product.getProductType() + TEXT_DELIMITER + product.getCostPerSquareFoot().toPlainString()
+                + TEXT_DELIMITER + product.getLaborCostPerSquareFoot().toPlainString();
+    }
+
+    private static StringBuilder appendMoney(StringBuilder line, BigDecimal value) {
+        return line.append(value.setScale(CompactOrder.FILE_SCALE, UP).toPlainString());
+    }
+
+    /**
+     * Appends an amount of a CompactOrder with two decimals, rounded up like
+     * appendMoney(BigDecimal), without making a BigDecimal unless the amount
+     * didn't fit in ten-thousandths.
+     */
+    private static StringBuilder appendMoney(StringBuilder line, CompactOrder order, int amount) {
+        if (!order.hasUnits(amount)) {
+            return appendMoney(line, order.amount(amount));
+        }
+        long units = order.units(amount);
+        long cents = units / CENT_UNITS;
+        if (units % CENT_UNITS != 0) {
+            cents += Long.signum(units);
+        }
+        if (cents < 0) {
+            line.append('-');
+        }
+        long abs = Math.abs(cents);
+        line.append(abs / 100).append('.');
+        long fraction = abs % 100;
+        if (fraction < 10) {
+            line.append('0');
+        }
+        return line.append(fraction);
+    }
+
+    /****************** TOKENIZING ******************/
+
+    /**
+     * Finds the end of the line starting at start.
+     * @return index of the line break, or the limit
+     */
+    static int lineEnd(ByteBuffer buffer, int start) {
+        int limit = buffer.limit();
+        int i = start;
+        while (i < limit && buffer.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Finds the start of the line after the one starting at (or ending at) index.
+     */
+    private static int nextLine(ByteBuffer buffer, int index) {
+        int end = lineEnd(buffer, index);
+        return end < buffer.limit() ? end + 1 : end;
+    }
+
+    /**
+     * Trims a trailing carriage return and trailing spaces off a line.
+     */
+    static int contentEnd(ByteBuffer buffer, int start, int end) {
+        while (end > start && (buffer.get(end - 1) == '\r' || buffer.get(end - 1) == ' ')) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Finds the end of the field starting at start.
+     */
+    private static int fieldEnd(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        while (i < end && buffer.get(i) != DELIMITER) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String decodeString(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a whole number that has to fit in an int, such as an order
+     * number. Stops at the first digit that takes it out of range, so a long
+     * run of digits can't wrap around into a valid one.
+     */
+    static int parseInt(ByteBuffer buffer, int start, int end) {
+        boolean negative = start < end && buffer.get(start) == '-';
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new FlooringPersistenceException("Not a whole number: " + decodeString(buffer, start, end));
+            }
+            value = value * 10 + digit;
+            if (value > limit) {
+                throw new FlooringPersistenceException("Number out of range: " + decodeString(buffer, start, end));
+            }
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * Parses a plain decimal such as "231.75" straight into an unscaled value
+     * and a scale, which gives the same BigDecimal as new BigDecimal("231.75").
+     */
+    static BigDecimal parseDecimal(ByteBuffer buffer, int start, int end) {
+        boolean negative = start < end && buffer.get(start) == '-';
+        long unscaled = 0;
+        int scale = 0;
+        boolean fraction = false;
+        int digits = 0;
+
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                throw new FlooringPersistenceException("Not a number: " + decodeString(buffer, start, end));
+            }
+            if (++digits > 18) {
+                // too long for a long, let BigDecimal deal with it
+                return new BigDecimal(decodeString(buffer, start, end));
+            }
+            unscaled = unscaled * 10 + digit;
+            if (fraction) {
+                scale++;
+            }
+        }
+        if (digits == 0) {
+            throw new FlooringPersistenceException("Not a number: " + decodeString(buffer, start, end));
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    /**
+     * Parses a plain decimal like parseDecimal() into one of the amounts of
+     * an order, without making a BigDecimal unless it is too long for a long.
+     */
+    private static void parseAmount(ByteBuffer buffer, int start, int end, CompactOrder.Amounts amounts, int amount) {
+        boolean negative = start < end && buffer.get(start) == '-';
+        long unscaled = 0;
+        int scale = 0;
+        boolean fraction = false;
+        int digits = 0;
+
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                throw new FlooringPersistenceException("Not a number: " + decodeString(buffer, start, end));
+            }
+            if (++digits > 18) {
+                amounts.set(amount, new BigDecimal(decodeString(buffer, start, end)));
+                return;
+            }
+            unscaled = unscaled * 10 + digit;
+            if (fraction) {
+                scale++;
+            }
+        }
+        if (digits == 0) {
+            throw new FlooringPersistenceException("Not a number: " + decodeString(buffer, start, end));
+        }
+        amounts.set(amount, negative ? -unscaled : unscaled, scale);
+    }
+
+    /**
+     * Finds the tax of an order from its state and tax rate columns. An
+     * order keeps the rate it was priced at, so one whose rate the catalog
+     * no longer has gets a tax of its own, shared with the other orders of
+     * that state and rate.
+     * @param start index of the state column
+     * @param end index just past the state column
+     * @param rateEnd index just past the tax rate column
+     */
+    private Tax findTax(ByteBuffer buffer, int start, int end, int rateEnd) {
+        for (int i = 0; i < stateKeys.length; i++) {
+            if (matches(buffer, start, end, stateKeys[i])) {
+                if (matches(buffer, end + 1, rateEnd, rateKeys[i])) {
+                    return taxes[i];
+                }
+                BigDecimal rate = parseDecimal(buffer, end + 1, rateEnd);
+                if (rate.compareTo(taxes[i].getTaxRate()) == 0) {
+                    return taxes[i];
+                }
+                Tax tax = taxes[i];
+                return pastTaxes.computeIfAbsent(tax.getStateAbbr() + TEXT_DELIMITER + rate,
+                        key -> new Tax(tax.getStateAbbr(), tax.getStateName(), rate));
+            }
+        }
+        return null;
+    }
+
+    private Product findProduct(ByteBuffer buffer, int start, int end) {
+        for (int i = 0; i < productKeys.length; i++) {
+            if (matches(buffer, start, end, productKeys[i])) {
+                return products[i];
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int start, int end, byte[] key) {
+        if (end - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
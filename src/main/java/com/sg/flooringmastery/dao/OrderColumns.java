@@ -0,0 +1,447 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.SalesSummary;
+import com.sg.flooringmastery.dto.SalesTotals;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The orders laid out column by column for adding up over any range of
+ * dates: one int array for the day of each order, one each for a small id of
+ * its state and product type, and one long array per amount in CompactOrder's
+ * ten-thousandths. A summary reads the columns start to finish, which keeps
+ * the CPU streaming through memory instead of chasing an object per order.
+ * The overall totals are added up by a ColumnScan, with the Vector API when
+ * it is available, and the totals by state and product type in one more
+ * pass keyed on the pair of ids.
+ *
+ * The row of a removed order is reused by the next order added. An order
+ * with an amount the columns can't hold, one never priced or one with more
+ * than four decimals, is kept to the side and added in as BigDecimals.
+ * Not thread safe, the DAO changes it under its write lock along with
+ * orderMap.
+ */
+public class OrderColumns {
+
+    // which amount column
+    static final int AREA = 0;
+    static final int MATERIAL_COST = 1;
+    static final int LABOR_COST = 2;
+    static final int TAX = 3;
+    static final int TOTAL_COST = 4;
+    static final int AMOUNT_COLUMNS = 5;
+
+    // the CompactOrder amount held in each column
+    private static final int[] COMPACT_AMOUNTS = {CompactOrder.AREA, CompactOrder.MATERIAL_COST,
+            CompactOrder.LABOR_COST, CompactOrder.TAX, CompactOrder.TOTAL_COST};
+
+    // the day of a row with no order in it, before any day a scan asks for
+    private static final int FREE_ROW = Integer.MIN_VALUE;
+    private static final int MIN_ROWS = 16;
+
+    private final ColumnScan scan;
+    private int[] days = new int[MIN_ROWS];
+    private int[] stateIds = new int[MIN_ROWS];
+    private int[] productIds = new int[MIN_ROWS];
+    private final long[][] amounts = new long[AMOUNT_COLUMNS][MIN_ROWS];
+    // rows in use or freed, the scans stop here
+    private int rowCount;
+    private int[] freeRows = new int[MIN_ROWS];
+    private int freeCount;
+    // the largest amount held, either sign, which bounds how many rows can be summed in a long
+    private long largestAmount;
+    private final RowMap rowsByOrderNumber = new RowMap();
+    private final IntObjectMap<CompactOrder> otherOrders = new IntObjectMap<>();
+
+    private final Map<String, Integer> stateIdsByName = new HashMap<>();
+    private final List<String> stateNames = new ArrayList<>();
+    private final Map<String, Integer> productIdsByName = new HashMap<>();
+    private final List<String> productNames = new ArrayList<>();
+
+    /**
+     * Constructor for an empty OrderColumns that scans as fast as this JVM
+     * allows.
+     */
+    public OrderColumns() {
+        this(ColumnScan.best());
+    }
+
+    /**
+     * Constructor for an empty OrderColumns with a given scan.
+     * @param scan the scan the overall totals are added up with
+     */
+    OrderColumns(ColumnScan scan) {
+        this.scan = scan;
+    }
+
+    /**
+     * Adds an order.
+     * @param order the order, not already in
+     */
+    public void add(CompactOrder order) {
+        for (int amount : COMPACT_AMOUNTS) {
+            if (!order.hasUnits(amount)) {
+                otherOrders.put(order.getOrderNumber(), order);
+                return;
+            }
+        }
+
+        int row = freeCount > 0 ? freeRows[--freeCount] : newRow();
+        days[row] = Math.toIntExact(order.getDate().toEpochDay());
+        stateIds[row] = idOf(stateIdsByName, stateNames,
+                order.getTaxInfo() == null ? null : order.getTaxInfo().getStateAbbr());
+        productIds[row] = idOf(productIdsByName, productNames,
+                order.getProduct() == null ? null : order.getProduct().getProductType());
+        for (int column = 0; column < AMOUNT_COLUMNS; column++) {
+            long units = order.units(COMPACT_AMOUNTS[column]);
+            amounts[column][row] = units;
+            largestAmount = Math.max(largestAmount, Math.abs(units));
+        }
+        rowsByOrderNumber.put(order.getOrderNumber(), row);
+    }
+
+    /**
+     * Takes an order back out.
+     * @param order the order, as it was when it was added
+     */
+    public void remove(CompactOrder order) {
+        if (otherOrders.remove(order.getOrderNumber()) != null) {
+            return;
+        }
+        int row = rowsByOrderNumber.remove(order.getOrderNumber());
+        if (row < 0) {
+            return;
+        }
+        days[row] = FREE_ROW;
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    /**
+     * Returns the number of orders.
+     * @return the number of orders
+     */
+    public int size() {
+        return rowsByOrderNumber.size() + otherOrders.size();
+    }
+
+    /**
+     * Forgets every order.
+     */
+    public void clear() {
+        rowCount = 0;
+        freeCount = 0;
+        largestAmount = 0;
+        rowsByOrderNumber.clear();
+        otherOrders.clear();
+    }
+
+    /**
+     * Adds up the orders of a range of dates, overall and by state and by
+     * product type. Each total also has the smallest and largest order total.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @return the summary
+     */
+    public SalesSummary summary(LocalDate from, LocalDate to) {
+        int fromDay = dayOf(from);
+        int toDay = dayOf(to);
+        int products = productNames.size();
+
+        Sums overall = new Sums();
+        Sums[] byPair = new Sums[stateNames.size() * products];
+        ColumnScan.Totals totals = new ColumnScan.Totals();
+        ColumnScan.Totals[] pairTotals = new ColumnScan.Totals[byPair.length];
+        for (int pair = 0; pair < byPair.length; pair++) {
+            byPair[pair] = new Sums();
+            pairTotals[pair] = new ColumnScan.Totals();
+        }
+
+        // runs short enough that no long sum can overflow, almost always just the one
+        int run = largestAmount == 0 ? Integer.MAX_VALUE
+                : (int) Math.min(Integer.MAX_VALUE, Long.MAX_VALUE / largestAmount);
+        for (int start = 0, end; start < rowCount; start = end) {
+            end = (int) Math.min((long) start + run, rowCount);
+            totals.clear();
+            scan.scan(days, amounts, start, end, fromDay, toDay, totals);
+            overall.add(totals);
+
+            for (ColumnScan.Totals pair : pairTotals) {
+                pair.clear();
+            }
+            scanPairs(start, end, fromDay, toDay, products, pairTotals);
+            for (int pair = 0; pair < byPair.length; pair++) {
+                byPair[pair].add(pairTotals[pair]);
+            }
+        }
+
+        Map<String, Sums> byState = new TreeMap<>();
+        Map<String, Sums> byProduct = new TreeMap<>();
+        for (int pair = 0; pair < byPair.length; pair++) {
+            if (byPair[pair].orderCount > 0) {
+                byPair[pair].addTo(byState, stateNames.get(pair / products));
+                byPair[pair].addTo(byProduct, productNames.get(pair % products));
+            }
+        }
+        for (CompactOrder order : otherOrders.values()) {
+            if (order.getDate().toEpochDay() >= fromDay && order.getDate().toEpochDay() <= toDay) {
+                overall.add(order);
+                addTo(byState, order.getTaxInfo() == null ? null : order.getTaxInfo().getStateAbbr(), order);
+                addTo(byProduct, order.getProduct() == null ? null : order.getProduct().getProductType(), order);
+            }
+        }
+
+        return new SalesSummary(overall.toSalesTotals(), totalsOf(byState), totalsOf(byProduct));
+    }
+
+    /**
+     * Adds up the rows from start to end that are in range by their pair of
+     * state and product ids. The pairs are few enough to stay in cache, so
+     * this is a plain loop that adds each row into its pair's totals.
+     */
+    private void scanPairs(int start, int end, int fromDay, int toDay, int products, ColumnScan.Totals[] byPair) {
+        long[] totalCost = amounts[TOTAL_COST];
+        for (int row = start; row < end; row++) {
+            int day = days[row];
+            if (day < fromDay || day > toDay) {
+                continue;
+            }
+            ColumnScan.Totals totals = byPair[stateIds[row] * products + productIds[row]];
+            totals.orderCount++;
+            for (int column = 0; column < AMOUNT_COLUMNS; column++) {
+                totals.sums[column] += amounts[column][row];
+            }
+            totals.smallestTotal = Math.min(totals.smallestTotal, totalCost[row]);
+            totals.largestTotal = Math.max(totals.largestTotal, totalCost[row]);
+        }
+    }
+
+    private int newRow() {
+        if (rowCount == days.length) {
+            int capacity = days.length * 2;
+            days = Arrays.copyOf(days, capacity);
+            stateIds = Arrays.copyOf(stateIds, capacity);
+            productIds = Arrays.copyOf(productIds, capacity);
+            for (int column = 0; column < AMOUNT_COLUMNS; column++) {
+                amounts[column] = Arrays.copyOf(amounts[column], capacity);
+            }
+        }
+        return rowCount++;
+    }
+
+    /**
+     * Returns the id of a state or product type name, giving it the next one
+     * the first time it is seen. Null, for an order without one, gets an id
+     * too so every row has a pair; its totals are left out of the summary.
+     */
+    private static int idOf(Map<String, Integer> idsByName, List<String> names, String name) {
+        Integer id = idsByName.get(name);
+        if (id == null) {
+            id = names.size();
+            idsByName.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    /**
+     * Returns a date as an epoch day, pulled into the days an int can hold
+     * so LocalDate.MIN and MAX can bound a range.
+     */
+    private static int dayOf(LocalDate date) {
+        return (int) Math.max(FREE_ROW + 1L, Math.min(Integer.MAX_VALUE, date.toEpochDay()));
+    }
+
+    private static void addTo(Map<String, Sums> sumsByName, String name, CompactOrder order) {
+        if (name != null) {
+            sumsByName.computeIfAbsent(name, n -> new Sums()).add(order);
+        }
+    }
+
+    private static Map<String, SalesTotals> totalsOf(Map<String, Sums> sumsByName) {
+        Map<String, SalesTotals> totals = new TreeMap<>();
+        sumsByName.forEach((name, sums) -> totals.put(name, sums.toSalesTotals()));
+        return totals;
+    }
+
+    /**
+     * The exact totals of a summary as the runs and the orders to the side
+     * are added in.
+     */
+    private static final class Sums {
+        long orderCount;
+        final BigDecimal[] sums = {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+                BigDecimal.ZERO};
+        BigDecimal smallestTotal;
+        BigDecimal largestTotal;
+
+        void add(ColumnScan.Totals totals) {
+            if (totals.orderCount == 0) {
+                return;
+            }
+            orderCount += totals.orderCount;
+            for (int column = 0; column < AMOUNT_COLUMNS; column++) {
+                sums[column] = sums[column].add(BigDecimal.valueOf(totals.sums[column], CompactOrder.SCALE));
+            }
+            include(BigDecimal.valueOf(totals.smallestTotal, CompactOrder.SCALE));
+            include(BigDecimal.valueOf(totals.largestTotal, CompactOrder.SCALE));
+        }
+
+        void add(CompactOrder order) {
+            orderCount++;
+            for (int column = 0; column < AMOUNT_COLUMNS; column++) {
+                BigDecimal amount = order.amount(COMPACT_AMOUNTS[column]);
+                if (column == TOTAL_COST) {
+                    amount = totalCostOf(order);
+                }
+                if (amount != null) {
+                    sums[column] = sums[column].add(amount);
+                }
+            }
+            include(totalCostOf(order));
+        }
+
+        /**
+         * Adds these sums, made for one pair of ids, to those of a name.
+         */
+        void addTo(Map<String, Sums> sumsByName, String name) {
+            if (name == null) {
+                return;
+            }
+            Sums into = sumsByName.computeIfAbsent(name, n -> new Sums());
+            into.orderCount += orderCount;
+            for (int column = 0; column < AMOUNT_COLUMNS; column++) {
+                into.sums[column] = into.sums[column].add(sums[column]);
+            }
+            into.include(smallestTotal);
+            into.include(largestTotal);
+        }
+
+        private void include(BigDecimal total) {
+            if (total == null) {
+                return;
+            }
+            if (smallestTotal == null || total.compareTo(smallestTotal) < 0) {
+                smallestTotal = total;
+            }
+            if (largestTotal == null || total.compareTo(largestTotal) > 0) {
+                largestTotal = total;
+            }
+        }
+
+        SalesTotals toSalesTotals() {
+            return new SalesTotals(orderCount, sums[AREA], sums[MATERIAL_COST], sums[LABOR_COST], sums[TAX],
+                    sums[TOTAL_COST], smallestTotal, largestTotal);
+        }
+
+        /**
+         * Returns an order's total, or null for an order that was never
+         * priced, the same as SalesAggregates counts it.
+         */
+        private static BigDecimal totalCostOf(CompactOrder order) {
+            if (order.getMaterialCost() == null || order.getLaborCost() == null || order.getTax() == null) {
+                return null;
+            }
+            return order.getTotalCost();
+        }
+    }
+
+    /**
+     * A hash map from order number to row, as plain ints, probed the same
+     * way as IntObjectMap. A row is stored plus one so the zeros of a new
+     * array read as empty slots.
+     */
+    private static final class RowMap {
+        private int[] keys = new int[MIN_ROWS];
+        private int[] rows = new int[MIN_ROWS];
+        private int size;
+
+        void put(int key, int row) {
+            int mask = keys.length - 1;
+            int slot = slotOf(key, mask);
+            for (; rows[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    rows[slot] = row + 1;
+                    return;
+                }
+            }
+            keys[slot] = key;
+            rows[slot] = row + 1;
+            size++;
+            if (size > keys.length / 2) {
+                resize(keys.length * 2);
+            }
+        }
+
+        /**
+         * Removes an order number.
+         * @return its row, or -1 if it wasn't there
+         */
+        int remove(int key) {
+            int mask = keys.length - 1;
+            for (int slot = slotOf(key, mask); rows[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    int row = rows[slot] - 1;
+                    deleteSlot(slot, mask);
+                    size--;
+                    return row;
+                }
+            }
+            return -1;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            keys = new int[MIN_ROWS];
+            rows = new int[MIN_ROWS];
+            size = 0;
+        }
+
+        private void deleteSlot(int slot, int mask) {
+            int hole = slot;
+            for (int next = (hole + 1) & mask; rows[next] != 0; next = (next + 1) & mask) {
+                int home = slotOf(keys[next], mask);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    rows[hole] = rows[next];
+                    hole = next;
+                }
+            }
+            rows[hole] = 0;
+        }
+
+        private void resize(int capacity) {
+            int[] oldKeys = keys;
+            int[] oldRows = rows;
+            keys = new int[capacity];
+            rows = new int[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldRows[i] != 0) {
+                    int slot = slotOf(oldKeys[i], mask);
+                    while (rows[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    rows[slot] = oldRows[i];
+                }
+            }
+        }
+
+        private static int slotOf(int key, int mask) {
+            return (key ^ (key >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.Tax;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The text files of a data folder: Products.txt, Taxes.txt, one
+ * Orders_MMddyyyy.txt per date and the export. Reads them through an
+ * OrderCodec built from the current catalogs, and writes each one to a temp
+ * file renamed over the old one, so a failure part way through never leaves
+ * a truncated or missing file behind. A date file and the folder entry for
+ * it are forced to the disk before the write returns, so what was written
+ * survives a power loss too. Safe to share between threads; two threads
+ * writing the same date file take its lock first.
+ */
+public class OrderFiles {
+
+    /**
+     * How dates are written in order file names and the export.
+     */
+    static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMddyyyy");
+
+    private final static String ORDER_HEADER =
+            "OrderNumber;CustomerName;State;TaxRate;ProductType;Area;CostPerSquareFoot;LaborCostPerSquareFoot;MaterialCost;LaborCost;Tax;Total";
+    private final static String PRODUCT_HEADER = "ProductType;CostPerSquareFoot;LaborCostPerSquareFoot";
+    private final static String TAX_HEADER = "State;StateName;TaxRate";
+    private final static String DELIMITER = ";";
+    private final static int EXPORT_BUFFER_SIZE = 64 * 1024;
+    private final static int FILE_LOCK_STRIPES = 64;
+    private final static Pattern ORDER_FILE_DATE = Pattern.compile(".*(\\d{8})");
+
+    private final String dataFolder;
+
+    // date files are written under the lock of their stripe
+    private final ReentrantLock[] fileLocks = new ReentrantLock[FILE_LOCK_STRIPES];
+
+    // reads and writes the data file lines, rebuilt whenever the catalogs change
+    private volatile OrderCodec codec;
+
+    /**
+     * Constructor that takes in the data folder.
+     * @param dataFolder the data folder
+     */
+    public OrderFiles(String dataFolder) {
+        this.dataFolder = dataFolder;
+        for (int i = 0; i < fileLocks.length; i++) {
+            fileLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns a file in the data folder.
+     * @param fileName the file's name
+     * @return the path to it
+     */
+    public Path resolve(String fileName) {
+        return Path.of(dataFolder, fileName);
+    }
+
+    /**
+     * Returns the codec for the current catalogs.
+     * @return the codec
+     */
+    public OrderCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Rebuilds the codec for new catalogs.
+     * @param taxes the taxes by state abbreviation
+     * @param products the products by product type
+     */
+    public void useCatalogs(Map<String, Tax> taxes, Map<String, Product> products) {
+        codec = new OrderCodec(taxes, products);
+    }
+
+    /**
+     * Reads Taxes.txt.
+     * @return the taxes by state abbreviation
+     */
+    public Map<String, Tax> readTaxes() {
+        Map<String, Tax> taxes = new HashMap<>();
+        OrderCodec.decodeTaxes(readFile(resolve("Taxes.txt").toFile()), tax -> taxes.put(tax.getStateAbbr(), tax));
+        return Map.copyOf(taxes);
+    }
+
+    /**
+     * Reads Products.txt.
+     * @return the products by product type
+     */
+    public Map<String, Product> readProducts() {
+        Map<String, Product> products = new HashMap<>();
+        OrderCodec.decodeProducts(readFile(resolve("Products.txt").toFile()),
+                product -> products.put(product.getProductType(), product));
+        return Map.copyOf(products);
+    }
+
+    /**
+     * Rewrites a product's line of Products.txt.
+     * @param product the product
+     */
+    public void writeProduct(Product product) throws FlooringPersistenceException {
+        writeCatalogLine("Products.txt", PRODUCT_HEADER, product.getProductType(), OrderCodec.encodeProduct(product));
+    }
+
+    /**
+     * Rewrites a state's line of Taxes.txt.
+     * @param tax the tax
+     */
+    public void writeTax(Tax tax) throws FlooringPersistenceException {
+        writeCatalogLine("Taxes.txt", TAX_HEADER, tax.getStateAbbr(), OrderCodec.encodeTax(tax));
+    }
+
+    /**
+     * Rewrites the line of a catalog file with the given key in its first
+     * column, or adds it at the end, leaving the other lines as they were.
+     * @param fileName the catalog file, in the data folder
+     * @param header the header to write if the file has none
+     * @param key the first column of the line
+     * @param line the new line
+     */
+    private void writeCatalogLine(String fileName, String header, String key, String line)
+            throws FlooringPersistenceException {
+        Path target = resolve(fileName);
+        Path temp = target.resolveSibling(fileName + ".tmp");
+        try {
+            List<String> lines = Files.isRegularFile(target)
+                    ? new ArrayList<>(Files.readAllLines(target, StandardCharsets.UTF_8)) : new ArrayList<>();
+            if (lines.isEmpty()) {
+                lines.add(header);
+            }
+            boolean replaced = false;
+            for (int i = 1; i < lines.size(); i++) {
+                if (lines.get(i).startsWith(key + DELIMITER)) {
+                    lines.set(i, line);
+                    replaced = true;
+                    break;
+                }
+            }
+            if (!replaced) {
+                lines.add(line);
+            }
+            try {
+                Files.write(temp, lines, StandardCharsets.UTF_8);
+                moveIntoPlace(temp, target);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Error was encountered while writing " + fileName + ".", e);
+        }
+    }
+
+    /**
+     * Returns the order file for a date.
+     * @param date the date
+     * @return the Orders_MMddyyyy.txt file
+     */
+    public File orderFile(LocalDate date) {
+        return new File(dataFolder + "/orders/Orders_" + date.format(DATE_FORMAT) + ".txt");
+    }
+
+    /**
+     * Lists the Orders_MMddyyyy.txt files.
+     * @return the order files
+     */
+    public List<File> listOrderFiles() {
+        File dir = new File(dataFolder + "/orders");
+
+        List<File> files = new ArrayList<>();
+        for (File file : Objects.requireNonNull(dir.listFiles())) {
+            if (file.getName().toLowerCase().endsWith(".txt") && file.isFile()) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Fingerprints every text file a snapshot stands in for.
+     * @return the fingerprint
+     */
+    public long fingerprintTextFiles() {
+        List<File> files = listOrderFiles();
+        files.add(resolve("Products.txt").toFile());
+        files.add(resolve("Taxes.txt").toFile());
+        return BinarySnapshot.fingerprint(files);
+    }
+
+    /**
+     * Extracts the date from an order file's name.
+     * @param file the order file
+     * @return the date
+     */
+    public LocalDate dateOfFile(File file) {
+        Matcher matcher = ORDER_FILE_DATE.matcher(file.getName());
+        if (!matcher.find()) {
+            throw new FlooringPersistenceException("Date was not found in the filename: " + file.getName());
+        }
+        return LocalDate.parse(matcher.group(1), DATE_FORMAT);
+    }
+
+    /**
+     * Reads every order in a single Orders_MMddyyyy.txt file.
+     * @param file the order file
+     * @return the orders in the file
+     */
+    public List<CompactOrder> readOrderFile(File file) {
+        LocalDate date = dateOfFile(file);
+        List<CompactOrder> orders = new ArrayList<>();
+        ByteBuffer contents = readFile(file);
+        try {
+            codec.decodeCompactOrders(contents, date, orders::add);
+        } catch (FlooringPersistenceException e) {
+            throw inFile(file, e);
+        }
+        return orders;
+    }
+
+    /**
+     * Reads just the order numbers of a single order file, for the manifest.
+     * @param file the order file
+     * @return the order numbers in the file
+     */
+    public int[] readOrderNumbers(File file) {
+        try {
+            return codec.decodeOrderNumbers(readFile(file));
+        } catch (FlooringPersistenceException e) {
+            throw inFile(file, e);
+        }
+    }
+
+    /**
+     * Adds the name of the file to why it couldn't be decoded.
+     */
+    private static FlooringPersistenceException inFile(File file, FlooringPersistenceException e) {
+        return new FlooringPersistenceException(file.getName() + " " + e.getMessage(), e);
+    }
+
+    /**
+     * Reads a whole data file into a heap buffer for the codec. The buffer
+     * is garbage collected like any other, where a memory mapping would hold
+     * on to the file, and keep it from being replaced on Windows, until the
+     * collector got round to unmapping it.
+     * @param file the file
+     * @return the file contents
+     */
+    private ByteBuffer readFile(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new FlooringPersistenceException("-_- " + file.getName() + " is too big to load.");
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full
+            }
+            return buffer.flip();
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("-_- Could not load data from " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Returns the in-process lock a date's file is written under.
+     * @param date the date
+     * @return the lock of the date's stripe
+     */
+    public ReentrantLock lockOf(LocalDate date) {
+        return fileLocks[Math.floorMod(date.hashCode(), fileLocks.length)];
+    }
+
+    /**
+     * Rewrites the order file for a single date, or removes it if the date
+     * has no orders left. The caller holds the date's lock.
+     * @param date the date of the file
+     * @param orders all orders for that date, by order number
+     */
+    public void writeDateFile(LocalDate date, OrderSnapshot orders) throws FlooringPersistenceException {
+        Path dir = resolve("orders");
+        String fileName = "Orders_" + date.format(DATE_FORMAT) + ".txt";
+        Path target = dir.resolve(fileName);
+
+        try {
+            if (orders.isEmpty()) {
+                if (Files.deleteIfExists(target)) {
+                    forceDirectory(dir);
+                }
+                return;
+            }
+
+            // not Files.createTempFile, which would create the file owner-only
+            Path temp = dir.resolve(fileName + ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                     PrintWriter writer = new PrintWriter(new BufferedWriter(
+                             Channels.newWriter(channel, StandardCharsets.UTF_8)))) {
+                    writer.println(ORDER_HEADER);
+                    for (CompactOrder order : orders.compactOrders()) {
+                        writer.println(codec.encode(order));
+                    }
+                    writer.flush();
+                    if (writer.checkError()) {
+                        throw new IOException("Could not write " + temp.getFileName());
+                    }
+                    // the contents have to be on the disk before the rename is, or a power
+                    // loss can leave the new name pointing at an empty file
+                    channel.force(true);
+                }
+                moveIntoPlace(temp, target);
+                forceDirectory(dir);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Error was encountered while writing " + fileName + ".", e);
+        }
+    }
+
+    /**
+     * Renames a finished temp file over its target, atomically when the file
+     * system allows it.
+     * @param source the finished temp file
+     * @param target the file being replaced
+     */
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Forces a directory's entries to the disk, so a file renamed into it or
+     * deleted from it stays that way after a power loss. Windows can't open a
+     * directory as a channel; NTFS journals the rename itself there.
+     * @param dir the directory
+     */
+    private static void forceDirectory(Path dir) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            // a directory on Windows
+        }
+    }
+
+    /**
+     * Writes orders to backup/dataexport.txt, each line followed by the
+     * order's date.
+     * @param orders the orders
+     */
+    public void export(Collection<CompactOrder> orders) {
+        Path exportFile = Path.of(dataFolder, "backup", "dataexport.txt");
+        try (FileChannel channel = FileChannel.open(exportFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // lines are gathered into one buffer and written a chunk at a time
+            StringBuilder lines = new StringBuilder(EXPORT_BUFFER_SIZE + 256);
+            lines.append(ORDER_HEADER).append(DELIMITER).append("Date").append(System.lineSeparator());
+            for (CompactOrder order : orders) {
+                codec.encode(order, lines);
+                lines.append(DELIMITER).append(order.getDate().format(DATE_FORMAT)).append(System.lineSeparator());
+                if (lines.length() >= EXPORT_BUFFER_SIZE) {
+                    writeFully(channel, lines);
+                }
+            }
+            writeFully(channel, lines);
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Unable to export data.", e);
+        }
+    }
+
+    /**
+     * Writes out and empties a buffer of text.
+     * @param channel the file being written
+     * @param text the text
+     */
+    private static void writeFully(FileChannel channel, StringBuilder text) throws IOException {
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(text));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        text.setLength(0);
+    }
+}
@@ -0,0 +1,73 @@
+package com.sg.flooringmastery.dao;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A secondary index of orders on one attribute, such as the state or the
+ * product type: for each value, the numbers of the orders that have it, as
+ * a sorted PostingList. Not thread safe, the DAO changes it under its write
+ * lock along with orderMap.
+ */
+public class OrderIndex {
+
+    private final Function<CompactOrder, String> keyOf;
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    /**
+     * Constructor that takes in the attribute to index on.
+     * @param keyOf reads the attribute off an order, null if it has none
+     */
+    public OrderIndex(Function<CompactOrder, String> keyOf) {
+        this.keyOf = keyOf;
+    }
+
+    /**
+     * Files an order under its key.
+     * @param order the order
+     */
+    public void add(CompactOrder order) {
+        String key = keyOf.apply(order);
+        if (key != null) {
+            postings.computeIfAbsent(key, k -> new PostingList()).add(order.getOrderNumber());
+        }
+    }
+
+    /**
+     * Takes an order out from under its key.
+     * @param order the order, as it was when it was added
+     */
+    public void remove(CompactOrder order) {
+        String key = keyOf.apply(order);
+        PostingList orderNumbers = key == null ? null : postings.get(key);
+        if (orderNumbers != null && orderNumbers.remove(order.getOrderNumber()) && orderNumbers.size() == 0) {
+            postings.remove(key);
+        }
+    }
+
+    /**
+     * Returns the numbers of the orders filed under a key.
+     * @param key the key
+     * @return the order numbers, empty if there are none
+     */
+    public PostingList get(String key) {
+        PostingList orderNumbers = postings.get(key);
+        return orderNumbers != null ? orderNumbers : new PostingList();
+    }
+
+    /**
+     * Returns the number of distinct keys.
+     * @return the number of keys
+     */
+    public int keyCount() {
+        return postings.size();
+    }
+
+    /**
+     * Empties the index.
+     */
+    public void clear() {
+        postings.clear();
+    }
+}
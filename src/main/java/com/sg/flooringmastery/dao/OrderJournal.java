@@ -0,0 +1,269 @@
+package com.sg.flooringmastery.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only log of order changes that have not made it into the
+ * Orders_MMddyyyy.txt files yet. Each record is a single line of text.
+ * Appending only hands the records to the file, which is quick enough to do
+ * while the DAO holds its write lock; force() then waits until everything
+ * appended so far is on the disk, after which a change survives the machine
+ * going down as well as the process. Threads forcing at the same time share
+ * a single flush.
+ *
+ * Compaction seals the records written so far into a second file, so new
+ * records can keep being appended while the sealed ones are written to the
+ * date files. Replaying a record twice gives the same result, which keeps
+ * every step of this safe to repeat after a crash.
+ */
+public class OrderJournal {
+
+    private final Path path;
+    private final Path sealedPath;
+    // records sealed while the sealed file of an unfinished compaction was still there
+    private final Path sealingPath;
+    private FileChannel channel;
+
+    // how many appends there have been, guarded by this
+    private long appended;
+    // how many of them are known to be on the disk, guarded by forceLock,
+    // which is held through a flush so appends don't wait on the disk
+    private long forced;
+    private final Object forceLock = new Object();
+
+    /**
+     * Constructor that takes in the journal file.
+     * @param path the journal file
+     */
+    public OrderJournal(Path path) {
+        this.path = path;
+        this.sealedPath = path.resolveSibling(path.getFileName() + ".sealed");
+        this.sealingPath = path.resolveSibling(path.getFileName() + ".sealing");
+    }
+
+    /**
+     * Appends a single record to the end of the journal.
+     * @param record the record, without a line break
+     */
+    public synchronized void append(String record) throws FlooringPersistenceException {
+        appendAll(List.of(record));
+    }
+
+    /**
+     * Appends several records to the end of the journal in a single write.
+     * They are only sure to survive a crash once force() returns.
+     * @param records the records, without line breaks
+     */
+    public synchronized void appendAll(List<String> records) throws FlooringPersistenceException {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            StringBuilder text = new StringBuilder();
+            for (String record : records) {
+                text.append(record).append('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+            FileChannel out = openChannel();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            appended++;
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not append to the order journal.", e);
+        }
+    }
+
+    /**
+     * Waits until every record appended so far is on the disk. A thread that
+     * finds a flush under way waits for it, and then returns straight away
+     * if that flush already covered its records.
+     */
+    public void force() throws FlooringPersistenceException {
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+        synchronized (forceLock) {
+            if (forced >= target) {
+                return;
+            }
+            FileChannel out;
+            long upTo;
+            synchronized (this) {
+                out = channel;
+                upTo = appended;
+            }
+            try {
+                // force(false) skips metadata like the modified time, but not the length the new records need
+                if (out != null) {
+                    out.force(false);
+                }
+            } catch (IOException e) {
+                throw new FlooringPersistenceException("Could not append to the order journal.", e);
+            }
+            forced = upTo;
+        }
+    }
+
+    /**
+     * Reads every complete record in the journal, sealed ones first. A final
+     * line without a line break was cut off mid-append and is ignored.
+     * @return the records
+     */
+    public synchronized List<String> readRecords() throws FlooringPersistenceException {
+        List<String> records = new ArrayList<>();
+        readRecords(sealedPath, records);
+        readRecords(sealingPath, records);
+        readRecords(path, records);
+        return records;
+    }
+
+    private void readRecords(Path file, List<String> records) throws FlooringPersistenceException {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try {
+            String contents = Files.readString(file, StandardCharsets.UTF_8);
+            int start = 0;
+            int end;
+            while ((end = contents.indexOf('\n', start)) >= 0) {
+                String record = contents.substring(start, end).strip();
+                if (!record.isEmpty()) {
+                    records.add(record);
+                }
+                start = end + 1;
+            }
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not read the order journal.", e);
+        }
+    }
+
+    /**
+     * Moves every record appended so far into the sealed file, leaving the
+     * journal empty for new records. Records sealed by an earlier compaction
+     * that never finished stay sealed. Appends only wait for the rename, the
+     * sealed records are forced to the disk after it.
+     */
+    public void seal() throws FlooringPersistenceException {
+        synchronized (forceLock) {
+            try {
+                foldSealing();
+
+                FileChannel old;
+                long upTo;
+                synchronized (this) {
+                    if (!Files.exists(path) || Files.size(path) == 0) {
+                        return;
+                    }
+                    old = channel;
+                    channel = null;
+                    upTo = appended;
+                    Files.move(path, Files.exists(sealedPath) ? sealingPath : sealedPath,
+                            StandardCopyOption.ATOMIC_MOVE);
+                }
+                // the rename keeps the file, so records not forced yet are forced where they are now
+                if (old != null) {
+                    old.force(false);
+                    old.close();
+                }
+                forced = upTo;
+
+                foldSealing();
+            } catch (IOException e) {
+                throw new FlooringPersistenceException("Could not seal the order journal.", e);
+            }
+        }
+    }
+
+    /**
+     * Adds the records sealed while an earlier sealed file was still there
+     * to the end of it. The caller holds forceLock.
+     */
+    private void foldSealing() throws IOException {
+        if (!Files.exists(sealingPath)) {
+            return;
+        }
+        if (!Files.exists(sealedPath)) {
+            Files.move(sealingPath, sealedPath, StandardCopyOption.ATOMIC_MOVE);
+            return;
+        }
+        // the records are only deleted from the sealing file once they are on disk in the sealed file
+        try (FileChannel sealed = FileChannel.open(sealedPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            dropTornRecord(sealed);
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(sealingPath));
+            while (buffer.hasRemaining()) {
+                sealed.write(buffer);
+            }
+            sealed.force(false);
+        }
+        Files.delete(sealingPath);
+    }
+
+    /**
+     * Drops the sealed records once they are safely in the date files.
+     */
+    public synchronized void dropSealed() throws FlooringPersistenceException {
+        try {
+            Files.deleteIfExists(sealedPath);
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not clear the order journal.", e);
+        }
+    }
+
+    /**
+     * Closes the underlying file.
+     */
+    public synchronized void close() {
+        try {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not close the order journal.", e);
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            dropTornRecord(channel);
+        }
+        return channel;
+    }
+
+    /**
+     * Cuts off a last line without a line break, left by an append that was
+     * cut off, so the next write doesn't run on from it. Leaves the channel
+     * positioned at the end of the file.
+     * @param file the journal or sealed file
+     */
+    private static void dropTornRecord(FileChannel file) throws IOException {
+        long end = file.size();
+        ByteBuffer oneByte = ByteBuffer.allocate(1);
+        while (end > 0) {
+            oneByte.clear();
+            file.read(oneByte, end - 1);
+            if (oneByte.get(0) == '\n') {
+                break;
+            }
+            end--;
+        }
+        if (end < file.size()) {
+            file.truncate(end);
+        }
+        file.position(end);
+    }
+}
@@ -0,0 +1,342 @@
+package com.sg.flooringmastery.dao;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A lightweight summary of the order files: which dates exist and which
+ * order numbers each date file holds. It lets FlooringDaoImpl start without
+ * reading any orders and only load a date file once it is needed.
+ *
+ * The manifest is saved next to the orders folder and remembers the size and
+ * last modified time of every file it summarized, so only files that changed
+ * since the last run have to be scanned again.
+ */
+public class OrderManifest {
+
+    private final static String HEADER = "Date;Size;Modified;OrderNumbers";
+    private final static String DELIMITER = ";";
+    private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MMddyyyy");
+
+    private final Path path;
+
+    // <date, summary of Orders_MMddyyyy.txt>
+    private final NavigableMap<LocalDate, Entry> entries = new TreeMap<>();
+
+    /**
+     * Summary of a single date file.
+     */
+    private static class Entry {
+        long size;
+        long modified;
+        int[] orderNumbers; // sorted
+    }
+
+    /**
+     * Constructor that takes in the manifest file.
+     * @param path the manifest file
+     */
+    public OrderManifest(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Brings the manifest up to date with the order files on disk. Files whose
+     * size and last modified time match the saved manifest are not read.
+     * @param files the order files, keyed by date
+     * @param scanner reads the order numbers out of a single file
+     * @return true if anything changed since the saved manifest
+     */
+    public boolean refresh(Map<LocalDate, File> files, Function<File, int[]> scanner) {
+        entries.clear();
+        readSaved();
+
+        boolean changed = entries.keySet().retainAll(files.keySet());
+        for (Map.Entry<LocalDate, File> file : files.entrySet()) {
+            Entry entry = entries.get(file.getKey());
+            long size = file.getValue().length();
+            long modified = file.getValue().lastModified();
+
+            if (entry == null || entry.size != size || entry.modified != modified) {
+                entry = new Entry();
+                entry.size = size;
+                entry.modified = modified;
+                entry.orderNumbers = scanner.apply(file.getValue());
+                Arrays.sort(entry.orderNumbers);
+                entries.put(file.getKey(), entry);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns whether there is a file for the date.
+     * @param date the date
+     * @return true if the date has orders on disk
+     */
+    public boolean containsDate(LocalDate date) {
+        return entries.containsKey(date);
+    }
+
+    /**
+     * Returns all dates with orders.
+     * @return the dates, oldest first
+     */
+    public NavigableSet<LocalDate> getDates() {
+        return Collections.unmodifiableNavigableSet(entries.navigableKeySet());
+    }
+
+    /**
+     * Finds which date an order belongs to.
+     * @param orderNumber the order number
+     * @return the date, or null if no date holds the order
+     */
+    public LocalDate dateOf(int orderNumber) {
+        for (Map.Entry<LocalDate, Entry> entry : entries.entrySet()) {
+            int[] numbers = entry.getValue().orderNumbers;
+            if (numbers.length > 0 && orderNumber >= numbers[0] && orderNumber <= numbers[numbers.length - 1]
+                    && Arrays.binarySearch(numbers, orderNumber) >= 0) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records that an order now belongs to a date.
+     * @param date the date
+     * @param orderNumber the order number
+     */
+    public void addOrder(LocalDate date, int orderNumber) {
+        Entry entry = entries.computeIfAbsent(date, d -> {
+            Entry created = new Entry();
+            created.orderNumbers = new int[0];
+            return created;
+        });
+
+        int[] numbers = entry.orderNumbers;
+        int index = Arrays.binarySearch(numbers, orderNumber);
+        if (index < 0) {
+            int insertAt = -index - 1;
+            int[] grown = new int[numbers.length + 1];
+            System.arraycopy(numbers, 0, grown, 0, insertAt);
+            grown[insertAt] = orderNumber;
+            System.arraycopy(numbers, insertAt, grown, insertAt + 1, numbers.length - insertAt);
+            entry.orderNumbers = grown;
+        }
+    }
+
+    /**
+     * Records that an order no longer belongs to a date.
+     * @param date the date
+     * @param orderNumber the order number
+     */
+    public void removeOrder(LocalDate date, int orderNumber) {
+        Entry entry = entries.get(date);
+        if (entry == null) {
+            return;
+        }
+
+        int[] numbers = entry.orderNumbers;
+        int index = Arrays.binarySearch(numbers, orderNumber);
+        if (index >= 0) {
+            int[] shrunk = new int[numbers.length - 1];
+            System.arraycopy(numbers, 0, shrunk, 0, index);
+            System.arraycopy(numbers, index + 1, shrunk, index, numbers.length - index - 1);
+            entry.orderNumbers = shrunk;
+        }
+    }
+
+    /**
+     * Records the size and last modified time of a date file that was just
+     * written, or forgets the date if its file was deleted. A date that got
+     * new orders since its file was deleted is kept, the write of those
+     * orders updates it again.
+     * @param date the date
+     * @param file the date's order file
+     */
+    public void updateFile(LocalDate date, File file) {
+        Entry entry = entries.get(date);
+        if (!file.exists()) {
+            if (entry != null && entry.orderNumbers.length == 0) {
+                entries.remove(date);
+            }
+            return;
+        }
+        if (entry != null) {
+            entry.size = file.length();
+            entry.modified = file.lastModified();
+        }
+    }
+
+    /**
+     * Replaces what the manifest knows about a date file that another
+     * process rewrote, or forgets the date if the file is gone.
+     * @param date the date
+     * @param file the date's order file
+     * @param orderNumbers the order numbers now in the file
+     * @return the order numbers the date had before
+     */
+    public int[] replaceFile(LocalDate date, File file, int[] orderNumbers) {
+        Entry previous = entries.remove(date);
+        int[] before = previous == null ? new int[0] : previous.orderNumbers;
+        if (!file.exists()) {
+            return before;
+        }
+        Entry entry = new Entry();
+        entry.size = file.length();
+        entry.modified = file.lastModified();
+        entry.orderNumbers = orderNumbers.clone();
+        Arrays.sort(entry.orderNumbers);
+        entries.put(date, entry);
+        return before;
+    }
+
+    /**
+     * Returns the number of orders across all dates.
+     * @return the order count
+     */
+    public int getOrderCount() {
+        int count = 0;
+        for (Entry entry : entries.values()) {
+            count += entry.orderNumbers.length;
+        }
+        return count;
+    }
+
+    /**
+     * Returns every order number across all dates.
+     * @return a set of all order numbers
+     */
+    public OrderNumberSet getAllOrderNumbers() {
+        OrderNumberSet orderNumbers = new OrderNumberSet();
+        for (Entry entry : entries.values()) {
+            for (int orderNumber : entry.orderNumbers) {
+                orderNumbers.add(orderNumber);
+            }
+        }
+        return orderNumbers;
+    }
+
+    /**
+     * Saves the manifest, replacing the old one in a single rename.
+     */
+    public void save() throws FlooringPersistenceException {
+        // named after the process, another one sharing the folder may be saving too
+        Path temp = path.resolveSibling(path.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(temp, StandardCharsets.UTF_8))) {
+                writer.println(HEADER);
+                for (Map.Entry<LocalDate, Entry> entry : entries.entrySet()) {
+                    Entry value = entry.getValue();
+                    writer.println(entry.getKey().format(dateFormatter) + DELIMITER + value.size + DELIMITER
+                            + value.modified + DELIMITER + encodeRanges(value.orderNumbers));
+                }
+                if (writer.checkError()) {
+                    throw new IOException("Could not write " + temp.getFileName());
+                }
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not save the order manifest.", e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                // the next save overwrites it anyway
+            }
+        }
+    }
+
+    /**
+     * Reads the saved manifest, if there is one. A damaged manifest is simply
+     * ignored, every file gets rescanned instead.
+     */
+    private void readSaved() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            // skip header
+            reader.readLine();
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] tokens = line.split(DELIMITER, -1);
+                Entry entry = new Entry();
+                entry.size = Long.parseLong(tokens[1]);
+                entry.modified = Long.parseLong(tokens[2]);
+                entry.orderNumbers = decodeRanges(tokens[3]);
+                entries.put(LocalDate.parse(tokens[0], dateFormatter), entry);
+            }
+        } catch (IOException | RuntimeException e) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Writes sorted order numbers as comma separated runs, e.g. "1-4,6".
+     * @param numbers the sorted order numbers
+     * @return the encoded runs
+     */
+    private static String encodeRanges(int[] numbers) {
+        StringBuilder builder = new StringBuilder();
+        int i = 0;
+        while (i < numbers.length) {
+            int runEnd = i;
+            while (runEnd + 1 < numbers.length && numbers[runEnd + 1] == numbers[runEnd] + 1) {
+                runEnd++;
+            }
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(numbers[i]);
+            if (runEnd > i) {
+                builder.append('-').append(numbers[runEnd]);
+            }
+            i = runEnd + 1;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Reads runs written by encodeRanges back into sorted order numbers.
+     * @param ranges the encoded runs
+     * @return the sorted order numbers
+     */
+    private static int[] decodeRanges(String ranges) {
+        if (ranges.isEmpty()) {
+            return new int[0];
+        }
+        int[] numbers = new int[16];
+        int count = 0;
+        for (String range : ranges.split(",")) {
+            int dash = range.indexOf('-');
+            int first = Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+            int last = dash < 0 ? first : Integer.parseInt(range.substring(dash + 1));
+            for (int number = first; number <= last; number++) {
+                if (count == numbers.length) {
+                    numbers = Arrays.copyOf(numbers, count * 2);
+                }
+                numbers[count++] = number;
+            }
+        }
+        return Arrays.copyOf(numbers, count);
+    }
+}
@@ -0,0 +1,165 @@
+package com.sg.flooringmastery.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Hands out order numbers from blocks leased out of the orders.seq file.
+ * The file holds the highest number any instance has leased. Leasing a
+ * block locks the file, moves that mark up by a block and lets go, after
+ * which the whole block is handed out from memory without touching the
+ * disk, so processes sharing a data folder never hand out the same number
+ * and never wait on each other for one.
+ *
+ * A folder written before the sequence file existed is seeded once with
+ * the highest order number in its files. After that the mark alone says
+ * where numbering goes on, so starting up never has to look at the orders;
+ * deleting orders.seq seeds it again, which is how to pick up orders added
+ * to the files by hand. Unused numbers are returned on close if no one
+ * leased after this instance, so a single instance keeps numbering without
+ * gaps.
+ */
+public class OrderNumberAllocator {
+
+    private final Path path;
+    private final int blockSize;
+
+    // replaced whenever a block runs out, numbers are taken from it without locking
+    private volatile Lease lease = new Lease(0, 0);
+
+    /**
+     * A block of leased numbers, from next up to but not including limit.
+     */
+    private static class Lease {
+        final AtomicInteger next;
+        final int limit;
+
+        Lease(int first, int limit) {
+            this.next = new AtomicInteger(first);
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * Constructor that takes in the sequence file and the block size.
+     * @param path the sequence file
+     * @param blockSize how many numbers to lease at a time
+     */
+    public OrderNumberAllocator(Path path, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Order numbers must be leased at least one at a time: " + blockSize);
+        }
+        this.path = path;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Writes the first mark of a sequence file that doesn't have one yet.
+     * The highest order number is only asked for then.
+     * @param highestOrderNumber the highest order number in the order files
+     */
+    public synchronized void seed(IntSupplier highestOrderNumber) throws FlooringPersistenceException {
+        try (FileChannel channel = openChannel()) {
+            // released when the channel closes
+            SharedFolder.lockRange(channel, 0, Long.MAX_VALUE);
+            if (channel.size() == 0) {
+                writeMark(channel, highestOrderNumber.getAsInt());
+            }
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not start the order number sequence in " + path.getFileName() + ".", e);
+        }
+    }
+
+    /**
+     * Returns the next order number, leasing a new block when this one has
+     * run out.
+     * @return the order number
+     */
+    public int nextOrderNumber() throws FlooringPersistenceException {
+        while (true) {
+            Lease current = lease;
+            int orderNumber = current.next.getAndIncrement();
+            if (orderNumber < current.limit) {
+                return orderNumber;
+            }
+            synchronized (this) {
+                if (lease == current) {
+                    lease = leaseBlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives back the rest of the current block if no one leased after it.
+     * Called when the DAO closes.
+     */
+    public synchronized void close() throws FlooringPersistenceException {
+        Lease current = lease;
+        lease = new Lease(0, 0);
+        int unused = Math.min(current.next.get(), current.limit);
+        if (unused >= current.limit) {
+            return;
+        }
+
+        try (FileChannel channel = openChannel()) {
+            // released when the channel closes
+            SharedFolder.lockRange(channel, 0, Long.MAX_VALUE);
+            if (readMark(channel) == current.limit - 1) {
+                writeMark(channel, unused - 1);
+            }
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not return unused order numbers.", e);
+        }
+    }
+
+    /**
+     * Leases the next block above the sequence file's mark.
+     * The caller holds this object's monitor.
+     */
+    private Lease leaseBlock() throws FlooringPersistenceException {
+        try (FileChannel channel = openChannel()) {
+            // held until the channel closes, like the one in close()
+            SharedFolder.lockRange(channel, 0, Long.MAX_VALUE);
+            int first = readMark(channel) + 1;
+            int limit = first + blockSize;
+            writeMark(channel, limit - 1);
+            return new Lease(first, limit);
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not lease order numbers from " + path.getFileName() + ".", e);
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static int readMark(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), 32));
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // keep reading until the buffer is full
+        }
+        String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).strip();
+        try {
+            return text.isEmpty() ? 0 : Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IOException("The order number sequence is not a number: " + text, e);
+        }
+    }
+
+    private static void writeMark(FileChannel channel, int orderNumber) throws IOException {
+        // rewritten in place, every reader holds the lock so none sees it half written
+        ByteBuffer buffer = ByteBuffer.wrap((orderNumber + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        channel.truncate(0);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        channel.force(false);
+    }
+}
@@ -0,0 +1,276 @@
+package com.sg.flooringmastery.dao;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of order numbers kept as sorted runs of consecutive numbers, each
+ * run a start and an end in two int arrays. Order numbers are handed out in
+ * sequence and only a few are ever removed, so there are few runs however
+ * many orders there are: a million orders in one run take eight bytes, and
+ * the size only grows with the gaps. Membership is a binary search over the
+ * runs, with a shortcut for the last run, where new numbers go. Iterates in
+ * ascending order. Not thread safe.
+ */
+public class OrderNumberSet extends AbstractSet<Integer> {
+
+    // run i is every number from starts[i] to ends[i], both included; runs are
+    // in ascending order and never touch, or they would be one run
+    private int[] starts;
+    private int[] ends;
+    private int runs;
+    private int size;
+    private int modCount;
+
+    /**
+     * Constructor for an empty set.
+     */
+    public OrderNumberSet() {
+        starts = new int[4];
+        ends = new int[4];
+    }
+
+    /**
+     * Copy constructor.
+     * @param other the set to copy
+     */
+    public OrderNumberSet(OrderNumberSet other) {
+        runs = other.runs;
+        starts = Arrays.copyOf(other.starts, Math.max(runs, 1));
+        ends = Arrays.copyOf(other.ends, Math.max(runs, 1));
+        size = other.size;
+    }
+
+    /**
+     * Returns whether an order number is in the set.
+     * @param orderNumber the order number
+     * @return true if present
+     */
+    public boolean contains(int orderNumber) {
+        int run = runAtOrBelow(orderNumber);
+        return run >= 0 && orderNumber <= ends[run];
+    }
+
+    /**
+     * Adds an order number, extending or joining the runs next to it when it
+     * is right beside them.
+     * @param orderNumber the order number, not negative
+     * @return true if it was not already in the set
+     */
+    public boolean add(int orderNumber) {
+        if (orderNumber < 0) {
+            throw new IllegalArgumentException("Order numbers can't be negative: " + orderNumber);
+        }
+        int run = runAtOrBelow(orderNumber);
+        if (run >= 0 && orderNumber <= ends[run]) {
+            return false;
+        }
+
+        boolean extendsBelow = run >= 0 && ends[run] == orderNumber - 1;
+        boolean extendsAbove = run + 1 < runs && starts[run + 1] == orderNumber + 1;
+        if (extendsBelow && extendsAbove) {
+            ends[run] = ends[run + 1];
+            deleteRun(run + 1);
+        } else if (extendsBelow) {
+            ends[run] = orderNumber;
+        } else if (extendsAbove) {
+            starts[run + 1] = orderNumber;
+        } else {
+            insertRun(run + 1, orderNumber, orderNumber);
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Removes an order number, splitting its run in two if it was inside it.
+     * @param orderNumber the order number
+     * @return true if it was in the set
+     */
+    public boolean remove(int orderNumber) {
+        int run = runAtOrBelow(orderNumber);
+        if (run < 0 || orderNumber > ends[run]) {
+            return false;
+        }
+
+        if (starts[run] == ends[run]) {
+            deleteRun(run);
+        } else if (orderNumber == starts[run]) {
+            starts[run]++;
+        } else if (orderNumber == ends[run]) {
+            ends[run]--;
+        } else {
+            insertRun(run + 1, orderNumber + 1, ends[run]);
+            ends[run] = orderNumber - 1;
+        }
+        size--;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && contains(((Integer) o).intValue());
+    }
+
+    @Override
+    public boolean add(Integer orderNumber) {
+        return add(orderNumber.intValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && remove(((Integer) o).intValue());
+    }
+
+    @Override
+    public void clear() {
+        runs = 0;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the smallest order number at or above the given one.
+     * @param from where to start looking
+     * @return the next order number, or -1 if there is none
+     */
+    public int nextNumber(int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        int run = runAtOrBelow(from);
+        if (run >= 0 && from <= ends[run]) {
+            return from;
+        }
+        return run + 1 < runs ? starts[run + 1] : -1;
+    }
+
+    /**
+     * Returns the largest order number in the set.
+     * @return the largest order number, or -1 if the set is empty
+     */
+    public int last() {
+        return runs == 0 ? -1 : ends[runs - 1];
+    }
+
+    /**
+     * Returns each run of consecutive numbers written out, like "1-4" or "6",
+     * in ascending order.
+     * @return the runs
+     */
+    public List<String> ranges() {
+        List<String> ranges = new ArrayList<>(runs);
+        for (int run = 0; run < runs; run++) {
+            ranges.add(starts[run] == ends[run] ? Integer.toString(starts[run]) : starts[run] + "-" + ends[run]);
+        }
+        return ranges;
+    }
+
+    /**
+     * Describes the set as runs of consecutive numbers, like "1-4, 6, 8-9".
+     * @param maxRuns how many runs to write before cutting the list short
+     * @return the description
+     */
+    public String toRanges(int maxRuns) {
+        StringBuilder ranges = new StringBuilder();
+        for (int run = 0; run < runs; run++) {
+            if (run == maxRuns) {
+                ranges.append(", ... (").append(size).append(" orders in total)");
+                break;
+            }
+            if (run > 0) {
+                ranges.append(", ");
+            }
+            ranges.append(starts[run]);
+            if (ends[run] > starts[run]) {
+                ranges.append('-').append(ends[run]);
+            }
+        }
+        return ranges.toString();
+    }
+
+    /**
+     * Overridden toString, listing every run of numbers.
+     * @return the runs, like "1-4, 6, 8-9"
+     */
+    @Override
+    public String toString() {
+        return toRanges(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private final int expectedModCount = modCount;
+            private int run;
+            private int next = runs == 0 ? 0 : starts[0];
+
+            @Override
+            public boolean hasNext() {
+                return run < runs;
+            }
+
+            @Override
+            public Integer next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (run >= runs) {
+                    throw new NoSuchElementException();
+                }
+                int current = next;
+                if (current == ends[run]) {
+                    run++;
+                    if (run < runs) {
+                        next = starts[run];
+                    }
+                } else {
+                    next = current + 1;
+                }
+                return current;
+            }
+        };
+    }
+
+    /**
+     * Returns the last run starting at or below a number, or -1 if every run
+     * starts above it.
+     */
+    private int runAtOrBelow(int number) {
+        if (runs > 0 && starts[runs - 1] <= number) {
+            return runs - 1;
+        }
+        int run = Arrays.binarySearch(starts, 0, runs, number);
+        return run >= 0 ? run : -run - 2;
+    }
+
+    private void insertRun(int run, int start, int end) {
+        if (runs == starts.length) {
+            starts = Arrays.copyOf(starts, runs * 2);
+            ends = Arrays.copyOf(ends, runs * 2);
+        }
+        System.arraycopy(starts, run, starts, run + 1, runs - run);
+        System.arraycopy(ends, run, ends, run + 1, runs - run);
+        starts[run] = start;
+        ends[run] = end;
+        runs++;
+    }
+
+    private void deleteRun(int run) {
+        System.arraycopy(starts, run + 1, starts, run, runs - run - 1);
+        System.arraycopy(ends, run + 1, ends, run, runs - run - 1);
+        runs--;
+    }
+}
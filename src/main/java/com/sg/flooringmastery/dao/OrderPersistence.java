@@ -0,0 +1,95 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * How order changes reach the disk once they are applied in memory, one
+ * implementation per PersistenceMode. The DAO records each change under its
+ * write lock, so they are recorded in the order they were applied, and then
+ * calls persist() after letting go of the lock. Either way the date files
+ * themselves are written by the DAO's DateWriter.
+ */
+public interface OrderPersistence {
+
+    /**
+     * Writes the files of the given dates from the orders in memory.
+     */
+    @FunctionalInterface
+    interface DateWriter {
+
+        /**
+         * Writes the files of the given dates, leaving any date that fails
+         * or changes again meanwhile dirty.
+         * @param dates the dates
+         */
+        void writeDates(List<LocalDate> dates) throws FlooringPersistenceException;
+    }
+
+    /**
+     * Starts whatever runs in the background, once the orders are loaded.
+     */
+    default void start() {
+    }
+
+    /**
+     * Records orders that were added or replaced. The caller holds the write
+     * lock.
+     * @param orders the orders, as they were applied
+     */
+    default void recordAdded(List<Order> orders) throws FlooringPersistenceException {
+    }
+
+    /**
+     * Records orders that were removed. The caller holds the write lock.
+     * @param orderNumbers their order numbers
+     */
+    default void recordRemoved(List<Integer> orderNumbers) throws FlooringPersistenceException {
+    }
+
+    /**
+     * Applies again the changes a run that ended early recorded but never
+     * wrote to the date files. The caller holds the write lock.
+     * @param add applies an added or replaced order
+     * @param remove applies a removed order
+     */
+    default void recover(Consumer<Order> add, IntConsumer remove) throws FlooringPersistenceException {
+    }
+
+    /**
+     * Makes the changes recorded so far durable, or schedules them to be.
+     * @return a future that completes once they are durable
+     */
+    CompletableFuture<Void> persist() throws FlooringPersistenceException;
+
+    /**
+     * Writes every date file that is behind the orders in memory.
+     */
+    void writeData() throws FlooringPersistenceException;
+
+    /**
+     * Returns why the last background run failed, for modes that write on a
+     * schedule rather than for a caller who waits on the result.
+     * @return the failure, or null if there is none
+     */
+    default RuntimeException getBackgroundFailure() {
+        return null;
+    }
+
+    /**
+     * Stops whatever runs in the background, before the last writeData().
+     */
+    default void stop() {
+    }
+
+    /**
+     * Lets go of any file held open, after the last writeData().
+     */
+    default void close() {
+    }
+}
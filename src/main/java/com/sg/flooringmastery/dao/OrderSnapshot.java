@@ -0,0 +1,268 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A read-only set of orders copied out of the DAO. Orders are only copied
+ * into an array, never hashed, and keep the order they were copied in.
+ * They are held as CompactOrders and turned into Orders as they are read.
+ *
+ * The DAO also keeps each date's orders in one of these, sorted by order
+ * number. A change to a date builds a new set with with() or without() and
+ * swaps it in, so a set handed out is never changed under its reader.
+ */
+public class OrderSnapshot extends AbstractSet<Order> {
+
+    /**
+     * A set with no orders.
+     */
+    public final static OrderSnapshot EMPTY = new OrderSnapshot(new CompactOrder[0]);
+
+    private final static Comparator<CompactOrder> BY_NUMBER = Comparator.comparingInt(CompactOrder::getOrderNumber);
+
+    private final CompactOrder[] orders;
+
+    /**
+     * Constructor that copies the given orders.
+     * @param orders the orders, which must be distinct
+     */
+    public OrderSnapshot(Collection<CompactOrder> orders) {
+        this.orders = orders.toArray(new CompactOrder[0]);
+    }
+
+    private OrderSnapshot(CompactOrder[] orders) {
+        this.orders = orders;
+    }
+
+    /**
+     * Copies the given orders, sorted by order number.
+     * @param orders the orders, which must have distinct order numbers
+     * @return the sorted set
+     */
+    public static OrderSnapshot sortedByNumber(Collection<CompactOrder> orders) {
+        CompactOrder[] sorted = orders.toArray(new CompactOrder[0]);
+        Arrays.sort(sorted, BY_NUMBER);
+        return new OrderSnapshot(sorted);
+    }
+
+    /**
+     * Returns a copy of this set, sorted by order number, with the order
+     * added or replacing the order with the same number.
+     * @param order the order
+     * @return the new set
+     */
+    public OrderSnapshot with(CompactOrder order) {
+        int index = indexOf(order.getOrderNumber());
+        if (index >= 0) {
+            CompactOrder[] replaced = orders.clone();
+            replaced[index] = order;
+            return new OrderSnapshot(replaced);
+        }
+
+        int insertAt = -index - 1;
+        CompactOrder[] added = new CompactOrder[orders.length + 1];
+        System.arraycopy(orders, 0, added, 0, insertAt);
+        added[insertAt] = order;
+        System.arraycopy(orders, insertAt, added, insertAt + 1, orders.length - insertAt);
+        return new OrderSnapshot(added);
+    }
+
+    /**
+     * Returns a copy of this set, sorted by order number, without the order
+     * with the given number.
+     * @param orderNumber the order number
+     * @return the new set, or this set if the order wasn't in it
+     */
+    public OrderSnapshot without(int orderNumber) {
+        int index = indexOf(orderNumber);
+        if (index < 0) {
+            return this;
+        }
+
+        CompactOrder[] removed = new CompactOrder[orders.length - 1];
+        System.arraycopy(orders, 0, removed, 0, index);
+        System.arraycopy(orders, index + 1, removed, index, orders.length - index - 1);
+        return new OrderSnapshot(removed);
+    }
+
+    /**
+     * Looks up an order by number, only meaningful on a set sorted by number.
+     * @param orderNumber the order number
+     * @return the order, or null if it isn't in the set
+     */
+    public CompactOrder get(int orderNumber) {
+        int index = indexOf(orderNumber);
+        return index >= 0 ? orders[index] : null;
+    }
+
+    /**
+     * Binary search by order number, only meaningful on a set sorted by number.
+     * @return the index, or (-(insertion point) - 1) like Arrays.binarySearch
+     */
+    private int indexOf(int orderNumber) {
+        int low = 0;
+        int high = orders.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midNumber = orders[mid].getOrderNumber();
+            if (midNumber < orderNumber) {
+                low = mid + 1;
+            } else if (midNumber > orderNumber) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Streams a page of the orders straight off the array, so skipping to a
+     * page costs nothing however far in it is.
+     * @param offset how many orders to skip
+     * @param limit the most orders to return
+     * @return the page
+     */
+    public Stream<Order> page(int offset, int limit) {
+        int from = Math.min(Math.max(offset, 0), orders.length);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), orders.length);
+        return Arrays.stream(orders, from, to).map(CompactOrder::toOrder);
+    }
+
+    /**
+     * Streams the orders straight off the array.
+     * @return the stream
+     */
+    @Override
+    public Stream<Order> stream() {
+        return Arrays.stream(orders).map(CompactOrder::toOrder);
+    }
+
+    /**
+     * Returns the orders as they are held, without turning them into Orders.
+     * @return a read-only view of the orders
+     */
+    public List<CompactOrder> compactOrders() {
+        return Collections.unmodifiableList(Arrays.asList(orders));
+    }
+
+    /**
+     * Merges sets sorted by order number into a single stream sorted by
+     * order number. The sets are walked as the stream is read, nothing is
+     * copied up front.
+     * @param sets the sets, each sorted by number, no number in two of them
+     * @return the merged stream
+     */
+    public static Stream<Order> mergeByNumber(List<OrderSnapshot> sets) {
+        return mergeCompactByNumber(sets).map(CompactOrder::toOrder);
+    }
+
+    /**
+     * Merges sets like mergeByNumber(), leaving the orders as they are held.
+     * @param sets the sets, each sorted by number, no number in two of them
+     * @return the merged stream
+     */
+    public static Stream<CompactOrder> mergeCompactByNumber(List<OrderSnapshot> sets) {
+        if (sets.isEmpty()) {
+            return Stream.empty();
+        }
+        if (sets.size() == 1) {
+            return Arrays.stream(sets.get(0).orders);
+        }
+
+        // one cursor per set, the one at the lowest order number first
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(sets.size());
+        long size = 0;
+        for (OrderSnapshot set : sets) {
+            if (set.orders.length > 0) {
+                cursors.add(new Cursor(set.orders));
+                size += set.orders.length;
+            }
+        }
+        Iterator<CompactOrder> merged = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !cursors.isEmpty();
+            }
+
+            @Override
+            public CompactOrder next() {
+                Cursor cursor = cursors.poll();
+                if (cursor == null) {
+                    throw new NoSuchElementException();
+                }
+                CompactOrder order = cursor.orders[cursor.index++];
+                if (cursor.index < cursor.orders.length) {
+                    cursors.add(cursor);
+                }
+                return order;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliterator(merged, size,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * A position in a set's array, for mergeByNumber().
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+        final CompactOrder[] orders;
+        int index;
+
+        Cursor(CompactOrder[] orders) {
+            this.orders = orders;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return Integer.compare(orders[index].getOrderNumber(), other.orders[other.index].getOrderNumber());
+        }
+    }
+
+    /**
+     * Returns an iterator over the orders, in the order they were copied in.
+     * @return the iterator
+     */
+    @Override
+    public Iterator<Order> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < orders.length;
+            }
+
+            @Override
+            public Order next() {
+                if (index >= orders.length) {
+                    throw new NoSuchElementException();
+                }
+                return orders[index++].toOrder();
+            }
+        };
+    }
+
+    /**
+     * Returns the number of orders.
+     * @return the number of orders
+     */
+    @Override
+    public int size() {
+        return orders.length;
+    }
+}
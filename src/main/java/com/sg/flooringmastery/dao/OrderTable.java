@@ -0,0 +1,503 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.OrderQuery;
+import com.sg.flooringmastery.dto.SalesSummary;
+import com.sg.flooringmastery.dto.SalesTotals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The orders held in memory: by order number, as the set of every order
+ * number, and partitioned by date into immutable OrderSnapshots. When every
+ * order is in memory it also keeps the secondary indexes by state, product
+ * and customer, the running sales totals and, if asked for, the columnar
+ * store in step with them; when lazy loading it keeps none of those, since
+ * most orders aren't there to be counted.
+ *
+ * Not thread safe, the DAO changes it under its write lock. Lookups by
+ * number may be read optimistically and the date partitions without any
+ * lock, since a partition is replaced rather than changed once published.
+ */
+public class OrderTable {
+
+    // <OrderNumber, order>, kept compact and only turned into an Order on the way out
+    private volatile IntObjectMap<CompactOrder> orderMap = new IntObjectMap<>();
+
+    // every order number, including those of dates that aren't loaded when lazy loading
+    private volatile OrderNumberSet orderNumbers = new OrderNumberSet();
+
+    // <date, orders sorted by number>, the same orders as orderMap partitioned by date
+    private volatile ConcurrentNavigableMap<LocalDate, OrderSnapshot> ordersByDate = new ConcurrentSkipListMap<>();
+
+    private final boolean indexed;
+    private final OrderIndex ordersByState = new OrderIndex(
+            order -> order.getTaxInfo() == null ? null : order.getTaxInfo().getStateAbbr());
+    private final OrderIndex ordersByProduct = new OrderIndex(
+            order -> order.getProduct() == null ? null : order.getProduct().getProductType());
+    private final CustomerNameIndex ordersByCustomer = new CustomerNameIndex();
+    private final SalesAggregates sales = new SalesAggregates();
+
+    // the same orders column by column for summaries over any dates, null unless asked for
+    private final OrderColumns columns;
+
+    /**
+     * Constructor for an empty table.
+     * @param indexed whether to keep the secondary indexes and sales totals,
+     *                false when only some dates are in memory
+     * @param columnar whether to keep the columnar store too
+     */
+    public OrderTable(boolean indexed, boolean columnar) {
+        this.indexed = indexed;
+        this.columns = indexed && columnar ? new OrderColumns() : null;
+    }
+
+    /**
+     * Empties the table before it is loaded again.
+     * @param expectedOrders about how many orders are coming
+     * @param orderNumbers every order number there is, for a table only
+     *                     some dates will be loaded into
+     */
+    public void reset(int expectedOrders, OrderNumberSet orderNumbers) {
+        this.orderMap = new IntObjectMap<>(expectedOrders);
+        this.orderNumbers = orderNumbers;
+        this.ordersByDate = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Looks up an order.
+     * @param orderNumber the order number
+     * @return the order, or null if it is not in memory
+     */
+    public CompactOrder get(int orderNumber) {
+        return orderMap.get(orderNumber);
+    }
+
+    /**
+     * Returns whether an order is in memory.
+     * @param orderNumber the order number
+     * @return true if it is
+     */
+    public boolean contains(int orderNumber) {
+        return orderMap.containsKey(orderNumber);
+    }
+
+    /**
+     * Returns how many orders are in memory.
+     * @return the number of orders
+     */
+    public int size() {
+        return orderMap.size();
+    }
+
+    /**
+     * Returns a copy of every order in memory.
+     * @return the orders
+     */
+    public List<CompactOrder> orders() {
+        return new ArrayList<>(orderMap.values());
+    }
+
+    /**
+     * Returns a copy of the set of every order number.
+     * @return the order numbers
+     */
+    public OrderNumberSet copyOrderNumbers() {
+        return new OrderNumberSet(orderNumbers);
+    }
+
+    /**
+     * Returns every order number as runs of consecutive numbers.
+     * @return the runs written out, in ascending order
+     */
+    public List<String> orderNumberRanges() {
+        return orderNumbers.ranges();
+    }
+
+    /**
+     * Returns the largest order number.
+     * @return the largest order number, or -1 if there are no orders
+     */
+    public int lastOrderNumber() {
+        return orderNumbers.last();
+    }
+
+    /**
+     * Counts an order number in without its order, for a date that isn't loaded.
+     * @param orderNumber the order number
+     */
+    public void addOrderNumber(int orderNumber) {
+        orderNumbers.add(orderNumber);
+    }
+
+    /**
+     * Forgets an order number of a date that isn't loaded.
+     * @param orderNumber the order number
+     */
+    public void removeOrderNumber(int orderNumber) {
+        orderNumbers.remove(orderNumber);
+    }
+
+    /**
+     * Returns a date's partition.
+     * @param date the date
+     * @return the date's orders, sorted by order number
+     */
+    public OrderSnapshot partition(LocalDate date) {
+        return ordersByDate.getOrDefault(date, OrderSnapshot.EMPTY);
+    }
+
+    /**
+     * Returns the partitions of the dates in a range that are in memory.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @return the partitions, in date order
+     */
+    public List<OrderSnapshot> partitionsBetween(LocalDate from, LocalDate to) {
+        return new ArrayList<>(ordersByDate.subMap(from, true, to, true).values());
+    }
+
+    /**
+     * Returns every partition in memory.
+     * @return a read-only view of the partitions by date
+     */
+    public Map<LocalDate, OrderSnapshot> partitions() {
+        return Collections.unmodifiableMap(ordersByDate);
+    }
+
+    /**
+     * Adds an order, replacing any order with the same number that is in the
+     * same date.
+     * @param order the order
+     */
+    public void put(CompactOrder order) {
+        CompactOrder previous = orderMap.put(order.getOrderNumber(), order);
+        if (previous != null) {
+            unindexAttributes(previous);
+        }
+        indexAttributes(order);
+        orderNumbers.add(order.getOrderNumber());
+        ordersByDate.put(order.getDate(), partition(order.getDate()).with(order));
+    }
+
+    /**
+     * Adds a whole file's worth of orders, building each date's partition
+     * once instead of once per order. The secondary indexes are left to
+     * reindex().
+     * @param orders the orders
+     */
+    public void putAll(Collection<CompactOrder> orders) {
+        Map<LocalDate, List<CompactOrder>> byDate = new HashMap<>();
+        for (CompactOrder order : orders) {
+            orderMap.put(order.getOrderNumber(), order);
+            orderNumbers.add(order.getOrderNumber());
+            byDate.computeIfAbsent(order.getDate(), date -> new ArrayList<>()).add(order);
+        }
+        for (Map.Entry<LocalDate, List<CompactOrder>> entry : byDate.entrySet()) {
+            OrderSnapshot existing = ordersByDate.get(entry.getKey());
+            if (existing != null) {
+                // another file for the same date, rare enough to merge one by one
+                for (CompactOrder order : entry.getValue()) {
+                    existing = existing.with(order);
+                }
+                ordersByDate.put(entry.getKey(), existing);
+            } else {
+                ordersByDate.put(entry.getKey(), OrderSnapshot.sortedByNumber(entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Removes an order.
+     * @param order the order, as it is in the table
+     */
+    public void remove(CompactOrder order) {
+        orderMap.remove(order.getOrderNumber());
+        unindexAttributes(order);
+        orderNumbers.remove(order.getOrderNumber());
+        OrderSnapshot partition = ordersByDate.get(order.getDate());
+        if (partition != null) {
+            partition = partition.without(order.getOrderNumber());
+            if (partition.isEmpty()) {
+                ordersByDate.remove(order.getDate());
+            } else {
+                ordersByDate.put(order.getDate(), partition);
+            }
+        }
+    }
+
+    /**
+     * Swaps in a date's orders as another process left them. Orders missing
+     * from them are removed, and orders that moved here from a different date
+     * are taken out of that date.
+     * @param date the date
+     * @param orders the date's orders, sorted by number
+     */
+    public void replacePartition(LocalDate date, OrderSnapshot orders) {
+        for (CompactOrder order : partition(date).compactOrders()) {
+            int orderNumber = order.getOrderNumber();
+            if (orders.get(orderNumber) == null) {
+                orderMap.remove(orderNumber);
+                orderNumbers.remove(orderNumber);
+                unindexAttributes(order);
+            }
+        }
+
+        for (CompactOrder order : orders.compactOrders()) {
+            int orderNumber = order.getOrderNumber();
+            CompactOrder elsewhere = orderMap.get(orderNumber);
+            if (elsewhere != null && !elsewhere.getDate().equals(date)) {
+                remove(elsewhere);
+            }
+            CompactOrder previous = orderMap.put(orderNumber, order);
+            orderNumbers.add(orderNumber);
+            if (previous != order) {
+                if (previous != null) {
+                    unindexAttributes(previous);
+                }
+                indexAttributes(order);
+            }
+        }
+
+        if (orders.isEmpty()) {
+            ordersByDate.remove(date);
+        } else {
+            ordersByDate.put(date, orders);
+        }
+    }
+
+    /**
+     * Drops a date's orders from memory when lazy loading, keeping their
+     * order numbers.
+     * @param date the date
+     */
+    public void dropPartition(LocalDate date) {
+        OrderSnapshot partition = ordersByDate.remove(date);
+        if (partition != null) {
+            for (CompactOrder order : partition.compactOrders()) {
+                orderMap.remove(order.getOrderNumber());
+            }
+        }
+    }
+
+    /**
+     * Files every order in the secondary indexes afresh, once the table is
+     * loaded. Going through the orders by number means each posting list is
+     * only ever appended to, where filing them file by file would insert
+     * into the middle of the longer lists over and over.
+     */
+    public void reindex() {
+        ordersByState.clear();
+        ordersByProduct.clear();
+        ordersByCustomer.clear();
+        sales.clear();
+        if (columns != null) {
+            columns.clear();
+        }
+        if (indexed) {
+            for (int orderNumber : orderNumbers) {
+                indexAttributes(orderMap.get(orderNumber));
+            }
+        }
+    }
+
+    /**
+     * Files an order in the secondary indexes, counts it in the sales
+     * totals and adds it to the columnar store if there is one.
+     * @param order the order
+     */
+    private void indexAttributes(CompactOrder order) {
+        if (indexed) {
+            ordersByState.add(order);
+            ordersByProduct.add(order);
+            ordersByCustomer.add(order);
+            sales.add(order);
+            if (columns != null) {
+                columns.add(order);
+            }
+        }
+    }
+
+    /**
+     * Takes an order out of the secondary indexes, the sales totals and the
+     * columnar store.
+     * @param order the order, as it was indexed
+     */
+    private void unindexAttributes(CompactOrder order) {
+        if (indexed) {
+            ordersByState.remove(order);
+            ordersByProduct.remove(order);
+            ordersByCustomer.remove(order);
+            sales.remove(order);
+            if (columns != null) {
+                columns.remove(order);
+            }
+        }
+    }
+
+    /**
+     * Returns whether find() can answer a query from the secondary indexes,
+     * which takes at least one of a state, a product or a customer.
+     * @param query the criteria
+     * @return true if it can
+     */
+    public boolean canFind(OrderQuery query) {
+        return indexed && (query.getStateAbbr() != null || query.getProductType() != null
+                || query.getCustomerName() != null);
+    }
+
+    /**
+     * Finds the orders matching a query, by order number. The state, product
+     * and customer criteria are looked up in the secondary indexes and their
+     * posting lists intersected, so the work grows with the rarest criterion
+     * rather than with the number of orders; dates are checked on what is
+     * left. Posting lists are changed in place, so the caller holds the read
+     * lock.
+     * @param query the criteria, at least one of them indexed
+     * @param offset how many matching orders to skip
+     * @param limit the most orders to return
+     * @return the page of matching orders
+     */
+    public List<Order> find(OrderQuery query, int offset, int limit) {
+        List<PostingList> postings = new ArrayList<>(3);
+        if (query.getStateAbbr() != null) {
+            postings.add(ordersByState.get(query.getStateAbbr()));
+        }
+        if (query.getProductType() != null) {
+            postings.add(ordersByProduct.get(query.getProductType()));
+        }
+        if (query.getCustomerName() != null) {
+            postings.add(ordersByCustomer.get(CustomerNameIndex.keyOf(query.getCustomerName())));
+        }
+
+        List<Order> page = new ArrayList<>();
+        int skipped = 0;
+        for (int orderNumber : PostingList.intersect(postings)) {
+            if (page.size() >= limit) {
+                break;
+            }
+            CompactOrder order = orderMap.get(orderNumber);
+            if (order != null && matches(query, order)) {
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    page.add(order.toOrder());
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Finds the orders whose customer name starts with some text, ignoring
+     * case, by order number. The caller holds the read lock.
+     * @param prefix the text
+     * @param offset how many matching orders to skip
+     * @param limit the most orders to return
+     * @return the page of matching orders
+     */
+    public List<Order> findByCustomerPrefix(String prefix, int offset, int limit) {
+        return ordersNumbered(ordersByCustomer.startingWith(prefix, this::customerNameOf, offset, limit));
+    }
+
+    /**
+     * Finds the orders whose customer name contains some text, ignoring
+     * case, by order number. The caller holds the read lock.
+     * @param fragment the text
+     * @param offset how many matching orders to skip
+     * @param limit the most orders to return
+     * @return the page of matching orders
+     */
+    public List<Order> findByCustomerSubstring(String fragment, int offset, int limit) {
+        return ordersNumbered(ordersByCustomer.containing(fragment, this::customerNameOf, offset, limit));
+    }
+
+    /**
+     * Returns the running sales totals over every order, by state and by
+     * product. The caller holds the read lock.
+     * @return the sales summary
+     */
+    public SalesSummary salesSummary() {
+        return sales.summary();
+    }
+
+    /**
+     * Returns the running sales totals of one date. The caller holds the
+     * read lock.
+     * @param date the date
+     * @return the totals for that date
+     */
+    public SalesTotals salesTotals(LocalDate date) {
+        return sales.forDate(date);
+    }
+
+    /**
+     * Returns whether the columnar store is kept.
+     * @return true if it is
+     */
+    public boolean hasColumns() {
+        return columns != null;
+    }
+
+    /**
+     * Scans the columnar store for the sales totals of a range of dates. The
+     * caller holds the read lock.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @return the sales summary
+     */
+    public SalesSummary columnSummary(LocalDate from, LocalDate to) {
+        return columns.summary(from, to);
+    }
+
+    /**
+     * Returns the customer name of an order, under the read lock.
+     * @param orderNumber the order number
+     * @return the customer name, or null if there is no such order
+     */
+    private String customerNameOf(int orderNumber) {
+        CompactOrder order = orderMap.get(orderNumber);
+        return order == null ? null : order.getCustomerName();
+    }
+
+    /**
+     * Looks up orders by number, under the read lock.
+     * @param orderNumbers the order numbers, in the order wanted
+     * @return the orders still in the table
+     */
+    private List<Order> ordersNumbered(int[] orderNumbers) {
+        List<Order> orders = new ArrayList<>(orderNumbers.length);
+        for (int orderNumber : orderNumbers) {
+            CompactOrder order = orderMap.get(orderNumber);
+            if (order != null) {
+                orders.add(order.toOrder());
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * Returns whether an order meets every criterion of a query that is
+     * set, the same test as OrderQuery.matches() without making an Order.
+     * @param query the criteria
+     * @param order the order
+     * @return true if it matches
+     */
+    public static boolean matches(OrderQuery query, CompactOrder order) {
+        return query.coversDate(order.getDate())
+                && (query.getStateAbbr() == null || order.getTaxInfo() != null
+                        && query.getStateAbbr().equals(order.getTaxInfo().getStateAbbr()))
+                && (query.getProductType() == null || order.getProduct() != null
+                        && query.getProductType().equals(order.getProduct().getProductType()))
+                && (query.getCustomerName() == null || order.getCustomerName() != null
+                        && query.getCustomerName().strip().equalsIgnoreCase(order.getCustomerName().strip()));
+    }
+}
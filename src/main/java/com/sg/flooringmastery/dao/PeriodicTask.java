@@ -0,0 +1,64 @@
+package com.sg.flooringmastery.dao;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a task over and over on a daemon thread of its own, with a fixed
+ * delay between the end of one run and the start of the next. A run that
+ * fails is left for the next run to try again, and why it failed is kept
+ * until a run goes through.
+ */
+public class PeriodicTask {
+
+    private final ScheduledExecutorService executor;
+
+    // why the last run failed, null if it didn't
+    private volatile RuntimeException lastFailure;
+
+    /**
+     * Constructor for a PeriodicTask. The first run comes one interval after
+     * this returns.
+     * @param threadName the name of the thread
+     * @param intervalMillis the delay between runs
+     * @param task the task
+     */
+    public PeriodicTask(String threadName, long intervalMillis, Runnable task) {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            // a run that throws would cancel every run after it
+            try {
+                task.run();
+                lastFailure = null;
+            } catch (RuntimeException e) {
+                // nothing was marked as done, so the next run picks it up
+                lastFailure = e;
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns why the last run failed.
+     * @return the failure, or null if the last run went through
+     */
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Stops the thread, waiting for a run already under way to end.
+     */
+    public void stop() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.sg.flooringmastery.dao;
+
+/**
+ * The ways FlooringDaoImpl can persist order changes.
+ */
+public enum PersistenceMode {
+
+    /**
+     * Every change rewrites the affected date file before returning.
+     */
+    IMMEDIATE,
+
+    /**
+     * Every change is appended to a journal file before returning, and a
+     * background compactor folds the journal into the date files.
+     */
+    JOURNALED,
+
+    /**
+     * Every change is queued in memory, and a background flusher writes all
+     * changes that arrive within a short window in one pass, with one write
+     * per affected date.
+     */
+    WRITE_BEHIND
+}
@@ -0,0 +1,148 @@
+package com.sg.flooringmastery.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The order numbers filed under one key of an OrderIndex, kept as a sorted
+ * array of ints. New orders get the highest number yet, so adding one is
+ * almost always an append. Not thread safe.
+ */
+public class PostingList {
+
+    private int[] numbers = new int[4];
+    private int size;
+
+    /**
+     * Adds an order number.
+     * @param orderNumber the order number
+     * @return true if it was not already in the list
+     */
+    public boolean add(int orderNumber) {
+        int insertAt;
+        if (size == 0 || numbers[size - 1] < orderNumber) {
+            insertAt = size;
+        } else {
+            int index = Arrays.binarySearch(numbers, 0, size, orderNumber);
+            if (index >= 0) {
+                return false;
+            }
+            insertAt = -index - 1;
+        }
+        if (size == numbers.length) {
+            numbers = Arrays.copyOf(numbers, size * 2);
+        }
+        System.arraycopy(numbers, insertAt, numbers, insertAt + 1, size - insertAt);
+        numbers[insertAt] = orderNumber;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes an order number.
+     * @param orderNumber the order number
+     * @return true if it was in the list
+     */
+    public boolean remove(int orderNumber) {
+        int index = Arrays.binarySearch(numbers, 0, size, orderNumber);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(numbers, index + 1, numbers, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns whether an order number is in the list.
+     * @param orderNumber the order number
+     * @return true if present
+     */
+    public boolean contains(int orderNumber) {
+        return Arrays.binarySearch(numbers, 0, size, orderNumber) >= 0;
+    }
+
+    /**
+     * Returns the order number at a position.
+     * @param index the position, from 0 up to size
+     * @return the order number
+     */
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return numbers[index];
+    }
+
+    /**
+     * Returns the number of order numbers.
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every order number.
+     */
+    public void clear() {
+        numbers = new int[4];
+        size = 0;
+    }
+
+    /**
+     * Returns the order numbers, ascending.
+     * @return a copy of the numbers
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(numbers, size);
+    }
+
+    /**
+     * Returns the order numbers found in every one of the lists. Starts from
+     * the shortest list and gallops through the others, so the work grows
+     * with the shortest list rather than the longest.
+     * @param lists the lists, at least one
+     * @return the common order numbers, ascending
+     */
+    public static int[] intersect(List<PostingList> lists) {
+        List<PostingList> bySize = new ArrayList<>(lists);
+        bySize.sort(Comparator.comparingInt(PostingList::size));
+
+        int[] common = bySize.get(0).toArray();
+        int count = common.length;
+        for (int i = 1; i < bySize.size() && count > 0; i++) {
+            PostingList other = bySize.get(i);
+            int kept = 0;
+            int from = 0;
+            for (int j = 0; j < count; j++) {
+                from = other.seek(common[j], from);
+                if (from < other.size && other.numbers[from] == common[j]) {
+                    common[kept++] = common[j];
+                }
+            }
+            count = kept;
+        }
+        return Arrays.copyOf(common, count);
+    }
+
+    /**
+     * Finds the first position at or after from whose number is not below
+     * the target, by doubling the step and then binary searching the last
+     * stretch.
+     * @return the position, or size if every number is below the target
+     */
+    private int seek(int target, int from) {
+        int step = 1;
+        int high = from;
+        while (high < size && numbers[high] < target) {
+            from = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        int index = Arrays.binarySearch(numbers, from, Math.min(high + 1, size), target);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,149 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.SalesSummary;
+import com.sg.flooringmastery.dto.SalesTotals;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running sales totals, kept up to date one order at a time instead of
+ * being added up from every order when asked for. Each order counts towards
+ * the totals of its date, its state, its product type and the overall
+ * totals, and is taken back out the same way, so answering for a date is a
+ * single lookup and a summary only reads one total per state and product.
+ * Not thread safe, the DAO changes it under its write lock along with
+ * orderMap.
+ */
+public class SalesAggregates {
+
+    private final Totals overall = new Totals();
+    private final Map<LocalDate, Totals> byDate = new HashMap<>();
+    private final Map<String, Totals> byState = new HashMap<>();
+    private final Map<String, Totals> byProduct = new HashMap<>();
+
+    /**
+     * Counts an order in.
+     * @param order the order
+     */
+    public void add(CompactOrder order) {
+        apply(order, 1);
+    }
+
+    /**
+     * Takes an order back out.
+     * @param order the order, as it was when it was added
+     */
+    public void remove(CompactOrder order) {
+        apply(order, -1);
+    }
+
+    /**
+     * Returns the totals for one date.
+     * @param date the date
+     * @return the totals, none if there are no orders that day
+     */
+    public SalesTotals forDate(LocalDate date) {
+        Totals totals = byDate.get(date);
+        return totals == null ? SalesTotals.NONE : totals.copy();
+    }
+
+    /**
+     * Returns the overall totals and the totals by state and by product.
+     * @return the summary
+     */
+    public SalesSummary summary() {
+        return new SalesSummary(overall.copy(), copyOf(byState), copyOf(byProduct));
+    }
+
+    /**
+     * Forgets every order.
+     */
+    public void clear() {
+        overall.clear();
+        byDate.clear();
+        byState.clear();
+        byProduct.clear();
+    }
+
+    private void apply(CompactOrder order, int sign) {
+        overall.apply(order, sign);
+        applyTo(byDate, order.getDate(), order, sign);
+        applyTo(byState, order.getTaxInfo() == null ? null : order.getTaxInfo().getStateAbbr(), order, sign);
+        applyTo(byProduct, order.getProduct() == null ? null : order.getProduct().getProductType(), order, sign);
+    }
+
+    /**
+     * Applies an order to the totals under a key, dropping them once their
+     * last order is gone so removed states and dates don't linger.
+     */
+    private static <K> void applyTo(Map<K, Totals> totalsByKey, K key, CompactOrder order, int sign) {
+        if (key == null) {
+            return;
+        }
+        Totals totals = totalsByKey.computeIfAbsent(key, k -> new Totals());
+        totals.apply(order, sign);
+        if (totals.orderCount == 0) {
+            totalsByKey.remove(key);
+        }
+    }
+
+    private static Map<String, SalesTotals> copyOf(Map<String, Totals> totalsByKey) {
+        Map<String, SalesTotals> copy = new TreeMap<>();
+        for (Map.Entry<String, Totals> entry : totalsByKey.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copy;
+    }
+
+    /**
+     * The mutable totals behind one SalesTotals.
+     */
+    private static final class Totals {
+        long orderCount;
+        BigDecimal area = BigDecimal.ZERO;
+        BigDecimal materialCost = BigDecimal.ZERO;
+        BigDecimal laborCost = BigDecimal.ZERO;
+        BigDecimal tax = BigDecimal.ZERO;
+        BigDecimal totalCost = BigDecimal.ZERO;
+
+        void apply(CompactOrder order, int sign) {
+            orderCount += sign;
+            area = plus(area, order.getArea(), sign);
+            materialCost = plus(materialCost, order.getMaterialCost(), sign);
+            laborCost = plus(laborCost, order.getLaborCost(), sign);
+            tax = plus(tax, order.getTax(), sign);
+            totalCost = plus(totalCost, totalCostOf(order), sign);
+        }
+
+        void clear() {
+            orderCount = 0;
+            area = materialCost = laborCost = tax = totalCost = BigDecimal.ZERO;
+        }
+
+        SalesTotals copy() {
+            return new SalesTotals(orderCount, area, materialCost, laborCost, tax, totalCost);
+        }
+
+        /**
+         * Returns an order's total, or null for an order that was never
+         * priced, whose getTotalCost() would fail adding up missing costs.
+         */
+        private static BigDecimal totalCostOf(CompactOrder order) {
+            if (order.getMaterialCost() == null || order.getLaborCost() == null || order.getTax() == null) {
+                return null;
+            }
+            return order.getTotalCost();
+        }
+
+        private static BigDecimal plus(BigDecimal sum, BigDecimal amount, int sign) {
+            if (amount == null) {
+                return sum;
+            }
+            return sign > 0 ? sum.add(amount) : sum.subtract(amount);
+        }
+    }
+}
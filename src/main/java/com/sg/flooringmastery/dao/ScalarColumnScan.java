@@ -0,0 +1,52 @@
+package com.sg.flooringmastery.dao;
+
+import static com.sg.flooringmastery.dao.OrderColumns.AREA;
+import static com.sg.flooringmastery.dao.OrderColumns.LABOR_COST;
+import static com.sg.flooringmastery.dao.OrderColumns.MATERIAL_COST;
+import static com.sg.flooringmastery.dao.OrderColumns.TAX;
+import static com.sg.flooringmastery.dao.OrderColumns.TOTAL_COST;
+
+/**
+ * The plain loop over the columns. Rows outside the dates add zero rather
+ * than being branched around, so the loop runs the same however the dates
+ * are spread and the JIT is free to unroll and vectorize it where it can.
+ */
+final class ScalarColumnScan implements ColumnScan {
+
+    @Override
+    public void scan(int[] days, long[][] amounts, int start, int end, int fromDay, int toDay, Totals totals) {
+        long[] area = amounts[AREA];
+        long[] materialCost = amounts[MATERIAL_COST];
+        long[] laborCost = amounts[LABOR_COST];
+        long[] tax = amounts[TAX];
+        long[] totalCost = amounts[TOTAL_COST];
+
+        long orderCount = 0;
+        long areaSum = 0, materialSum = 0, laborSum = 0, taxSum = 0, totalSum = 0;
+        long smallest = totals.smallestTotal;
+        long largest = totals.largestTotal;
+        for (int row = start; row < end; row++) {
+            int day = days[row];
+            // all ones when the row is in range, all zeros when it isn't
+            long in = -(long) ((day >= fromDay) & (day <= toDay) ? 1 : 0);
+            orderCount -= in;
+            areaSum += area[row] & in;
+            materialSum += materialCost[row] & in;
+            laborSum += laborCost[row] & in;
+            taxSum += tax[row] & in;
+            long total = totalCost[row];
+            totalSum += total & in;
+            smallest = Math.min(smallest, total & in | ~in & Long.MAX_VALUE);
+            largest = Math.max(largest, total & in | ~in & Long.MIN_VALUE);
+        }
+
+        totals.orderCount += orderCount;
+        totals.sums[AREA] += areaSum;
+        totals.sums[MATERIAL_COST] += materialSum;
+        totals.sums[LABOR_COST] += laborSum;
+        totals.sums[TAX] += taxSum;
+        totals.sums[TOTAL_COST] += totalSum;
+        totals.smallestTotal = smallest;
+        totals.largestTotal = largest;
+    }
+}
@@ -0,0 +1,228 @@
+package com.sg.flooringmastery.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lets several FlooringDaoImpl instances, in separate processes, share one
+ * data folder. They coordinate through byte range locks on a lock file:
+ * one range per date file, held while that file is rewritten, and one for
+ * a generation counter that every writer bumps, so the others can tell
+ * cheaply whether anything changed at all. Order numbers are coordinated
+ * separately, by OrderNumberAllocator.
+ *
+ * File locks belong to the whole process, so a range must never be locked
+ * twice at once from the same process. Date ranges are only locked under
+ * the DAO's own lock for that date; the generation range is guarded here.
+ * Locks are polled for rather than waited on: the operating system sees one
+ * owner per process, so two processes whose threads wait on each other's
+ * ranges look deadlocked to it even when the holders are about to let go.
+ */
+public class SharedFolder {
+
+    private final static long GENERATION_POSITION = 0;
+    // date ranges sit far above the counters, one byte per day, so every
+    // LocalDate lands on a position that isn't negative
+    private final static long DATE_POSITIONS = 1L << 40;
+    private final static long MIN_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private final static long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final FileChannel channel;
+    private final ReentrantLock generationLock = new ReentrantLock();
+
+    /**
+     * Opens the lock file of a data folder, creating it if needed.
+     * @param folder the data folder
+     */
+    public SharedFolder(Path folder) throws FlooringPersistenceException {
+        try {
+            channel = FileChannel.open(folder.resolve("orders.lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not open the lock file of " + folder, e);
+        }
+    }
+
+    /**
+     * Locks a date file against every other process. Blocks until the lock
+     * is free.
+     * @param date the date
+     * @return the lock, to be handed to unlockDate once the file is written
+     */
+    public FileLock lockDate(LocalDate date) throws FlooringPersistenceException {
+        try {
+            return lockRange(channel, DATE_POSITIONS + date.toEpochDay(), 1);
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not lock the order file for " + date, e);
+        }
+    }
+
+    /**
+     * Releases a lock taken by lockDate.
+     * @param dateLock the lock
+     * @param date the date it was taken for
+     */
+    public void unlockDate(FileLock dateLock, LocalDate date) throws FlooringPersistenceException {
+        try {
+            dateLock.release();
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not unlock the order file for " + date + ".", e);
+        }
+    }
+
+    /**
+     * Returns the generation counter, which changes every time any process
+     * rewrites a date file.
+     * @return the generation
+     */
+    public long readGeneration() throws FlooringPersistenceException {
+        try {
+            return readLong(GENERATION_POSITION);
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not read the lock file.", e);
+        }
+    }
+
+    /**
+     * Tells the other processes that a date file was rewritten.
+     */
+    public void advanceGeneration() throws FlooringPersistenceException {
+        generationLock.lock();
+        try {
+            FileLock generation = lockRange(channel, GENERATION_POSITION, 8);
+            try {
+                writeLong(GENERATION_POSITION, readLong(GENERATION_POSITION) + 1);
+            } finally {
+                generation.release();
+            }
+        } catch (IOException e) {
+            throw new FlooringPersistenceException("Could not update the lock file.", e);
+        } finally {
+            generationLock.unlock();
+        }
+    }
+
+    /**
+     * Releases every lock and closes the lock file.
+     */
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // the locks go away with the channel either way
+        }
+    }
+
+    /**
+     * Takes an exclusive lock on a range of a file, retrying with a growing
+     * pause until the other process lets go of it. File locks belong to the
+     * whole JVM, so a range already locked through another channel in this
+     * one can't be waited for, it fails as an IOException.
+     * @param channel the file
+     * @param position where the range starts
+     * @param size how long the range is
+     * @return the lock
+     */
+    static FileLock lockRange(FileChannel channel, long position, long size) throws IOException {
+        long backoff = MIN_BACKOFF_NANOS;
+        while (true) {
+            FileLock range;
+            try {
+                range = channel.tryLock(position, size, false);
+            } catch (OverlappingFileLockException e) {
+                throw new IOException("The file is already locked by another DAO in this JVM using the same folder", e);
+            }
+            if (range != null) {
+                return range;
+            }
+            LockSupport.parkNanos(backoff);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a file lock");
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+        }
+    }
+
+    private long readLong(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            // keep reading until the buffer is full
+        }
+        // a lock file too short to hold the counter yet counts as zero
+        return buffer.hasRemaining() ? 0 : buffer.flip().getLong();
+    }
+
+    private void writeLong(long position, long value) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8).putLong(value).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * What a date file looked like when it was last read or written. Files
+     * are replaced by renaming a new file over them, so a rewrite changes
+     * the file key as well as the size and modified time, even within one
+     * tick of a coarse file system clock.
+     */
+    public static final class FileStamp {
+
+        /**
+         * The stamp of a file that does not exist.
+         */
+        public final static FileStamp MISSING = new FileStamp(-1, -1, null);
+
+        private final long size;
+        private final long modified;
+        private final Object fileKey;
+
+        private FileStamp(long size, long modified, Object fileKey) {
+            this.size = size;
+            this.modified = modified;
+            this.fileKey = fileKey;
+        }
+
+        /**
+         * Stamps a file as it is now.
+         * @param file the file
+         * @return the stamp, or MISSING if there is no such file
+         */
+        public static FileStamp of(Path file) throws FlooringPersistenceException {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new FileStamp(attributes.size(), attributes.lastModifiedTime().toMillis(), attributes.fileKey());
+            } catch (NoSuchFileException e) {
+                return MISSING;
+            } catch (IOException e) {
+                throw new FlooringPersistenceException("Could not read the attributes of " + file.getFileName(), e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FileStamp stamp = (FileStamp) o;
+            return size == stamp.size && modified == stamp.modified && Objects.equals(fileKey, stamp.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, modified, fileKey);
+        }
+    }
+}
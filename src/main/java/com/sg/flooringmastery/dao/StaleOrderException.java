@@ -0,0 +1,15 @@
+package com.sg.flooringmastery.dao;
+
+/**
+ * Class to be used when an order was changed or removed by someone else
+ * since it was read, so replacing it would overwrite their change.
+ */
+public class StaleOrderException extends RuntimeException {
+    public StaleOrderException(String message) {
+        super(message);
+    }
+
+    public StaleOrderException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
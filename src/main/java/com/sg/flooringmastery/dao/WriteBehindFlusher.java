@@ -0,0 +1,110 @@
+package com.sg.flooringmastery.dao;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Group commit for order changes. Changes are only counted here; a single
+ * background thread waits for the flush window to close (or for the batch to
+ * fill up) and then runs the flush action once for everything that arrived
+ * in the meantime.
+ */
+public class WriteBehindFlusher {
+
+    private final Runnable flushAction;
+    private final long windowMillis;
+    private final int batchSize;
+    private final Thread thread;
+
+    // changes waiting for the next flush, and the future they all share
+    private int pending = 0;
+    private CompletableFuture<Void> currentBatch = new CompletableFuture<>();
+    private boolean running = true;
+
+    /**
+     * Constructor for a WriteBehindFlusher. The flusher thread starts right away.
+     * @param flushAction writes every pending change to disk
+     * @param windowMillis how long to wait for more changes after the first one arrives
+     * @param batchSize how many changes trigger a flush without waiting out the window
+     */
+    public WriteBehindFlusher(Runnable flushAction, long windowMillis, int batchSize) {
+        this.flushAction = flushAction;
+        this.windowMillis = windowMillis;
+        this.batchSize = batchSize;
+
+        thread = new Thread(this::flushLoop, "order-write-behind");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Registers a change that has already been applied in memory.
+     * @return a future that completes once the change is on disk
+     */
+    public synchronized CompletableFuture<Void> submit() {
+        pending++;
+        // wake the flusher for the first change of a batch and once the batch is full
+        if (pending == 1 || pending >= batchSize) {
+            notifyAll();
+        }
+        return currentBatch;
+    }
+
+    /**
+     * Stops the flusher thread once anything still pending has been flushed.
+     */
+    public void stop() {
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            CompletableFuture<Void> batch;
+            synchronized (this) {
+                try {
+                    while (running && pending == 0) {
+                        wait();
+                    }
+
+                    // hold the batch open so a burst of changes shares one write
+                    long deadline = System.currentTimeMillis() + windowMillis;
+                    long remaining = windowMillis;
+                    while (running && pending < batchSize && remaining > 0) {
+                        wait(remaining);
+                        remaining = deadline - System.currentTimeMillis();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                if (pending == 0) {
+                    return; // stopped with nothing left to write
+                }
+
+                batch = currentBatch;
+                currentBatch = new CompletableFuture<>();
+                pending = 0;
+            }
+
+            try {
+                flushAction.run();
+                batch.complete(null);
+            } catch (RuntimeException e) {
+                batch.completeExceptionally(e);
+            }
+
+            synchronized (this) {
+                if (!running && pending == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.sg.flooringmastery.dao;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * WRITE_BEHIND mode: changes are queued with a WriteBehindFlusher, which
+ * writes everything that arrived within its window in one pass, each date
+ * file once.
+ */
+public class WriteBehindPersistence extends ImmediatePersistence {
+
+    private final long flushWindowMillis;
+    private final int flushBatchSize;
+    private WriteBehindFlusher flusher;
+
+    /**
+     * Constructor that takes in what to write, how, and how often.
+     * @param dirtyDates the dates whose files are behind
+     * @param writer writes them
+     * @param flushWindowMillis how long to wait for more changes after the first
+     * @param flushBatchSize how many changes trigger a flush without waiting
+     */
+    public WriteBehindPersistence(DirtyDates dirtyDates, DateWriter writer, long flushWindowMillis,
+                                  int flushBatchSize) {
+        super(dirtyDates, writer);
+        this.flushWindowMillis = flushWindowMillis;
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    @Override
+    public void start() {
+        flusher = new WriteBehindFlusher(this::writeData, flushWindowMillis, flushBatchSize);
+    }
+
+    @Override
+    public CompletableFuture<Void> persist() {
+        return flusher.submit();
+    }
+
+    @Override
+    public void stop() {
+        if (flusher != null) {
+            flusher.stop();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.sg.flooringmastery.dto;
+
+import java.util.List;
+
+/**
+ * A summary of a bulk import: how many rows were read, how many became
+ * orders and how fast it went. Only the first few rejects are kept, so a
+ * bad file can't fill up memory with them.
+ */
+public class ImportReport {
+
+    private final long rowCount;
+    private final long importedCount;
+    private final long rejectedCount;
+    private final long elapsedMillis;
+    private final List<String> rejects;
+
+    /**
+     * Constructor for an ImportReport.
+     * @param rowCount the number of rows read, not counting the header
+     * @param importedCount the number of orders added
+     * @param rejectedCount the number of rows turned down
+     * @param elapsedMillis how long the import took
+     * @param rejects why the first rejected rows were turned down, one line each
+     */
+    public ImportReport(long rowCount, long importedCount, long rejectedCount, long elapsedMillis, List<String> rejects) {
+        this.rowCount = rowCount;
+        this.importedCount = importedCount;
+        this.rejectedCount = rejectedCount;
+        this.elapsedMillis = elapsedMillis;
+        this.rejects = List.copyOf(rejects);
+    }
+
+    /**
+     * Returns the number of rows read.
+     * @return the number of rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of orders added.
+     * @return the number of orders
+     */
+    public long getImportedCount() {
+        return importedCount;
+    }
+
+    /**
+     * Returns the number of rows turned down.
+     * @return the number of rejects
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Returns how long the import took.
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns how many rows were read per second.
+     * @return the rows per second
+     */
+    public long getRowsPerSecond() {
+        return rowCount * 1000 / Math.max(elapsedMillis, 1);
+    }
+
+    /**
+     * Returns why the first rejected rows were turned down.
+     * @return one line per reject, starting with its line number
+     */
+    public List<String> getRejects() {
+        return rejects;
+    }
+
+    /**
+     * Overridden toString.
+     * @return a one line summary
+     */
+    @Override
+    public String toString() {
+        return "Imported " + importedCount + " of " + rowCount + " rows (" + rejectedCount + " rejected) in "
+                + elapsedMillis + " ms, " + getRowsPerSecond() + " rows/sec";
+    }
+}
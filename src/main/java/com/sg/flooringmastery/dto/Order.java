@@ -13,9 +13,7 @@ public class Order {
     private Integer orderNumber;
     private String customerName;
     private Tax taxInfo; // stateName can be derived from Tax obj
-    private String state;
     private Product product; // productName can be derived from Product obj
-    private String productName;
     private BigDecimal area;
     private BigDecimal costPerSquareFoot;
 
@@ -27,6 +25,9 @@ public class Order {
     private BigDecimal tax;
     private BigDecimal totalCost;
     private LocalDate date;
+
+    // how many times the order was replaced since it was loaded, not part of equals()
+    private long version;
     /**
      * Constructs a new Order with assigned parameters.
      * @param orderNumber the order number
@@ -141,6 +142,24 @@ public class Order {
         this.date = date;
     }
 
+    /**
+     * Returns the version of the order. Replacing an order gives the new
+     * order the next version, so an edit made against an older version can
+     * be told apart and refused.
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version. NOT to be used by the client.
+     * @param version the version
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * Returns material cost per square foot
      * @return mateiral cost per square foot
@@ -223,10 +242,14 @@ public class Order {
     }
 
     /**
-     * Calculates the order's total cost.
+     * Returns the order's total cost, as it was priced or read. An order
+     * whose total was never set adds up its costs instead.
      * @return the total cost
      */
     public BigDecimal getTotalCost() {
+        if (totalCost != null) {
+            return totalCost;
+        }
         return (getMaterialCost().add(getLaborCost())).add(getTax());
     }
 
@@ -239,8 +262,24 @@ public class Order {
     }
 
     /**
-     * New toString() method because of order.toString() implicitly called in
-     * writeData() of flooringdaoimpl.
+     * Sets all four costs at once from fixed point amounts, as the pricing
+     * does.
+     * @param materialCost material cost, in units of 10^-scale
+     * @param laborCost labor cost, in units of 10^-scale
+     * @param tax tax, in units of 10^-scale
+     * @param totalCost total cost, in units of 10^-scale
+     * @param scale the number of decimals
+     */
+    public void setCosts(long materialCost, long laborCost, long tax, long totalCost, int scale) {
+        this.materialCost = BigDecimal.valueOf(materialCost, scale);
+        this.laborCost = BigDecimal.valueOf(laborCost, scale);
+        this.tax = BigDecimal.valueOf(tax, scale);
+        this.totalCost = BigDecimal.valueOf(totalCost, scale);
+    }
+
+    /**
+     * New toString() method that follows the Orders_MMddyyyy.txt layout. The
+     * files themselves are written by OrderCodec in the dao package.
      * @return a correctly formatted string for the Orders_MMddyyyy.txt files.
      */
     public String toString() {
@@ -266,7 +305,7 @@ public class Order {
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         Order order = (Order) o;
-        return Objects.equals(orderNumber, order.orderNumber) && Objects.equals(customerName, order.customerName) && Objects.equals(taxInfo, order.taxInfo) && Objects.equals(state, order.state) && Objects.equals(product, order.product) && Objects.equals(productName, order.productName) && Objects.equals(area, order.area) && Objects.equals(costPerSquareFoot, order.costPerSquareFoot) && Objects.equals(laborCostPerSquareFoot, order.laborCostPerSquareFoot) && Objects.equals(materialCost, order.materialCost) && Objects.equals(laborCost, order.laborCost) && Objects.equals(tax, order.tax) && Objects.equals(totalCost, order.totalCost) && Objects.equals(date, order.date);
+        return Objects.equals(orderNumber, order.orderNumber) && Objects.equals(customerName, order.customerName) && Objects.equals(taxInfo, order.taxInfo) && Objects.equals(product, order.product) && Objects.equals(area, order.area) && Objects.equals(costPerSquareFoot, order.costPerSquareFoot) && Objects.equals(laborCostPerSquareFoot, order.laborCostPerSquareFoot) && Objects.equals(materialCost, order.materialCost) && Objects.equals(laborCost, order.laborCost) && Objects.equals(tax, order.tax) && Objects.equals(totalCost, order.totalCost) && Objects.equals(date, order.date);
     }
 
     /**
@@ -275,6 +314,6 @@ public class Order {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(orderNumber, customerName, taxInfo, state, product, productName, area, costPerSquareFoot, laborCostPerSquareFoot, materialCost, laborCost, tax, totalCost, date);
+        return Objects.hash(orderNumber, customerName, taxInfo, product, area, costPerSquareFoot, laborCostPerSquareFoot, materialCost, laborCost, tax, totalCost, date);
     }
 }
@@ -0,0 +1,119 @@
+package com.sg.flooringmastery.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A search for orders. Every criterion left null matches anything, the ones
+ * that are set must all match. Customer names match whole, ignoring case
+ * and surrounding spaces.
+ */
+public class OrderQuery {
+
+    private String stateAbbr;
+    private String productType;
+    private String customerName;
+    private LocalDate from;
+    private LocalDate to;
+
+    /**
+     * Returns the state abbreviation the orders must have.
+     * @return the state abbreviation, or null for any state
+     */
+    public String getStateAbbr() {
+        return stateAbbr;
+    }
+
+    /**
+     * Sets the state abbreviation the orders must have.
+     * @param stateAbbr the state abbreviation, or null for any state
+     */
+    public void setStateAbbr(String stateAbbr) {
+        this.stateAbbr = stateAbbr;
+    }
+
+    /**
+     * Returns the product type the orders must have.
+     * @return the product type, or null for any product
+     */
+    public String getProductType() {
+        return productType;
+    }
+
+    /**
+     * Sets the product type the orders must have.
+     * @param productType the product type, or null for any product
+     */
+    public void setProductType(String productType) {
+        this.productType = productType;
+    }
+
+    /**
+     * Returns the customer the orders must be for.
+     * @return the customer name, or null for any customer
+     */
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    /**
+     * Sets the customer the orders must be for.
+     * @param customerName the customer name, or null for any customer
+     */
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    /**
+     * Returns the first date the orders may be on.
+     * @return the first date, inclusive, or null for no lower bound
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Sets the first date the orders may be on.
+     * @param from the first date, inclusive, or null for no lower bound
+     */
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    /**
+     * Returns the last date the orders may be on.
+     * @return the last date, inclusive, or null for no upper bound
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Sets the last date the orders may be on.
+     * @param to the last date, inclusive, or null for no upper bound
+     */
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    /**
+     * Returns whether an order's date falls within the query's dates.
+     * @param date the order's date
+     * @return true if it is in range
+     */
+    public boolean coversDate(LocalDate date) {
+        return (from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to));
+    }
+
+    /**
+     * Returns whether an order meets every criterion that is set.
+     * @param order the order
+     * @return true if it matches
+     */
+    public boolean matches(Order order) {
+        return coversDate(order.getDate())
+                && (stateAbbr == null || order.getTaxInfo() != null && stateAbbr.equals(order.getTaxInfo().getStateAbbr()))
+                && (productType == null || order.getProduct() != null && productType.equals(order.getProduct().getProductType()))
+                && (customerName == null || order.getCustomerName() != null
+                        && customerName.strip().equalsIgnoreCase(order.getCustomerName().strip()));
+    }
+}
@@ -0,0 +1,75 @@
+package com.sg.flooringmastery.dto;
+
+/**
+ * What happened to one order of a batch. A batch carries on past orders
+ * that fail, so each one reports back on its own.
+ */
+public class OrderResult {
+
+    private final Integer orderNumber;
+    private final Order order;
+    private final String failure;
+
+    /**
+     * Constructs the result of an order that went through.
+     * @param orderNumber the order number
+     * @param order the order as it was added, replaced or removed
+     */
+    public OrderResult(Integer orderNumber, Order order) {
+        this.orderNumber = orderNumber;
+        this.order = order;
+        this.failure = null;
+    }
+
+    /**
+     * Constructs the result of an order that was turned down.
+     * @param orderNumber the order number, null if it never got one
+     * @param failure why the order was turned down
+     */
+    public OrderResult(Integer orderNumber, String failure) {
+        this.orderNumber = orderNumber;
+        this.order = null;
+        this.failure = failure;
+    }
+
+    /**
+     * Returns the order number.
+     * @return the order number, null if the order never got one
+     */
+    public Integer getOrderNumber() {
+        return orderNumber;
+    }
+
+    /**
+     * Returns the order as it was added, replaced or removed.
+     * @return the order, null if it failed
+     */
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns why the order was turned down.
+     * @return the reason, null if it went through
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    /**
+     * Returns true if the order went through.
+     * @return true if success, false if failure
+     */
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    /**
+     * Overridden toString.
+     * @return a one line summary
+     */
+    @Override
+    public String toString() {
+        return "Order #" + orderNumber + (isSuccess() ? ": ok" : ": " + failure);
+    }
+}
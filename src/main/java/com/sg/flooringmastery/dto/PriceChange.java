@@ -0,0 +1,73 @@
+package com.sg.flooringmastery.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One order's costs before and after it was repriced.
+ */
+public class PriceChange {
+
+    private final Order before;
+    private final Order after;
+
+    /**
+     * Constructor for a PriceChange.
+     * @param before the order as it was priced before
+     * @param after the repriced order
+     */
+    public PriceChange(Order before, Order after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    /**
+     * Returns the order number.
+     * @return the order number
+     */
+    public Integer getOrderNumber() {
+        return after.getOrderNumber();
+    }
+
+    /**
+     * Returns the date of the order.
+     * @return the date
+     */
+    public LocalDate getDate() {
+        return after.getDate();
+    }
+
+    /**
+     * Returns the order as it was priced before.
+     * @return the old order
+     */
+    public Order getBefore() {
+        return before;
+    }
+
+    /**
+     * Returns the repriced order.
+     * @return the new order
+     */
+    public Order getAfter() {
+        return after;
+    }
+
+    /**
+     * Returns how much the total went up, or down if negative.
+     * @return the new total less the old one
+     */
+    public BigDecimal getDifference() {
+        return after.getTotalCost().subtract(before.getTotalCost());
+    }
+
+    /**
+     * Overridden toString.
+     * @return a one line summary
+     */
+    @Override
+    public String toString() {
+        return "Order #" + getOrderNumber() + " on " + getDate() + ": " + before.getTotalCost() + " -> "
+                + after.getTotalCost();
+    }
+}
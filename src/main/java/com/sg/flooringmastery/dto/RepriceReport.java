@@ -0,0 +1,86 @@
+package com.sg.flooringmastery.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * What a repricing did: the orders it repriced, old and new costs side by
+ * side, and the orders it could not reprice.
+ */
+public class RepriceReport {
+
+    private final String change;
+    private final List<PriceChange> priceChanges;
+    private final List<OrderResult> failures;
+    private final long elapsedMillis;
+
+    /**
+     * Constructor for a RepriceReport.
+     * @param change the catalog change that was priced in, as one line
+     * @param priceChanges every repriced order, by order number
+     * @param failures the orders that could not be repriced
+     * @param elapsedMillis how long the repricing took
+     */
+    public RepriceReport(String change, List<PriceChange> priceChanges, List<OrderResult> failures,
+                         long elapsedMillis) {
+        this.change = change;
+        this.priceChanges = List.copyOf(priceChanges);
+        this.failures = List.copyOf(failures);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Returns the catalog change that was priced in.
+     * @return the change, as one line
+     */
+    public String getChange() {
+        return change;
+    }
+
+    /**
+     * Returns every repriced order.
+     * @return the price changes, by order number
+     */
+    public List<PriceChange> getPriceChanges() {
+        return priceChanges;
+    }
+
+    /**
+     * Returns the orders that could not be repriced, such as ones that kept
+     * changing while this ran.
+     * @return the failed results
+     */
+    public List<OrderResult> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns how long the repricing took.
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns how much the repriced orders' totals went up altogether.
+     * @return the sum of the differences, negative if they went down
+     */
+    public BigDecimal getTotalDifference() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (PriceChange priceChange : priceChanges) {
+            total = total.add(priceChange.getDifference());
+        }
+        return total;
+    }
+
+    /**
+     * Overridden toString.
+     * @return a one line summary
+     */
+    @Override
+    public String toString() {
+        return change + ": repriced " + priceChanges.size() + " orders (" + failures.size() + " failed) in "
+                + elapsedMillis + " ms, totals changed by " + getTotalDifference();
+    }
+}
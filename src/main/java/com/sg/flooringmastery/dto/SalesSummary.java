@@ -0,0 +1,50 @@
+package com.sg.flooringmastery.dto;
+
+import java.util.Map;
+
+/**
+ * The sales totals over every order, or every order in a range of dates,
+ * along with the same totals broken down by state and by product type.
+ */
+public class SalesSummary {
+
+    private final SalesTotals overall;
+    private final Map<String, SalesTotals> byState;
+    private final Map<String, SalesTotals> byProduct;
+
+    /**
+     * Constructor for a SalesSummary.
+     * @param overall the totals over all the orders
+     * @param byState the totals for each state abbreviation, in order
+     * @param byProduct the totals for each product type, in order
+     */
+    public SalesSummary(SalesTotals overall, Map<String, SalesTotals> byState, Map<String, SalesTotals> byProduct) {
+        this.overall = overall;
+        this.byState = byState;
+        this.byProduct = byProduct;
+    }
+
+    /**
+     * Returns the totals over every order.
+     * @return the overall totals
+     */
+    public SalesTotals getOverall() {
+        return overall;
+    }
+
+    /**
+     * Returns the totals for each state.
+     * @return the totals by state abbreviation, sorted
+     */
+    public Map<String, SalesTotals> getByState() {
+        return byState;
+    }
+
+    /**
+     * Returns the totals for each product type.
+     * @return the totals by product type, sorted
+     */
+    public Map<String, SalesTotals> getByProduct() {
+        return byProduct;
+    }
+}
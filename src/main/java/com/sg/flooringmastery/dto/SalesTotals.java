@@ -0,0 +1,135 @@
+package com.sg.flooringmastery.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Running totals over a group of orders, such as every order for one state:
+ * how many there are, their area and what they cost. Totals added up by
+ * scanning the orders also have the smallest and largest order total.
+ */
+public class SalesTotals {
+
+    /**
+     * The totals of no orders at all.
+     */
+    public static final SalesTotals NONE = new SalesTotals(0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+            BigDecimal.ZERO, BigDecimal.ZERO);
+
+    private final long orderCount;
+    private final BigDecimal area;
+    private final BigDecimal materialCost;
+    private final BigDecimal laborCost;
+    private final BigDecimal tax;
+    private final BigDecimal totalCost;
+    private final BigDecimal smallestOrder;
+    private final BigDecimal largestOrder;
+
+    /**
+     * Constructor for SalesTotals.
+     * @param orderCount the number of orders
+     * @param area their total area
+     * @param materialCost their total cost of materials
+     * @param laborCost their total cost of labor
+     * @param tax their total tax
+     * @param totalCost their total cost
+     */
+    public SalesTotals(long orderCount, BigDecimal area, BigDecimal materialCost, BigDecimal laborCost,
+                       BigDecimal tax, BigDecimal totalCost) {
+        this(orderCount, area, materialCost, laborCost, tax, totalCost, null, null);
+    }
+
+    /**
+     * Constructor for SalesTotals that also has the range of order totals.
+     * @param orderCount the number of orders
+     * @param area their total area
+     * @param materialCost their total cost of materials
+     * @param laborCost their total cost of labor
+     * @param tax their total tax
+     * @param totalCost their total cost
+     * @param smallestOrder the smallest order total, null if there are no priced orders
+     * @param largestOrder the largest order total, null if there are no priced orders
+     */
+    public SalesTotals(long orderCount, BigDecimal area, BigDecimal materialCost, BigDecimal laborCost,
+                       BigDecimal tax, BigDecimal totalCost, BigDecimal smallestOrder, BigDecimal largestOrder) {
+        this.orderCount = orderCount;
+        this.area = area;
+        this.materialCost = materialCost;
+        this.laborCost = laborCost;
+        this.tax = tax;
+        this.totalCost = totalCost;
+        this.smallestOrder = smallestOrder;
+        this.largestOrder = largestOrder;
+    }
+
+    /**
+     * Returns the number of orders.
+     * @return the number of orders
+     */
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * Returns the total area.
+     * @return the area
+     */
+    public BigDecimal getArea() {
+        return area;
+    }
+
+    /**
+     * Returns the total cost of materials.
+     * @return the cost of materials
+     */
+    public BigDecimal getMaterialCost() {
+        return materialCost;
+    }
+
+    /**
+     * Returns the total cost of labor.
+     * @return the cost of labor
+     */
+    public BigDecimal getLaborCost() {
+        return laborCost;
+    }
+
+    /**
+     * Returns the total tax.
+     * @return the tax
+     */
+    public BigDecimal getTax() {
+        return tax;
+    }
+
+    /**
+     * Returns the total cost, tax included.
+     * @return the total cost
+     */
+    public BigDecimal getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Returns the smallest order total. Running totals can't take an order
+     * back out of a minimum, so only scanned totals have one.
+     * @return the smallest total, or null if not known
+     */
+    public BigDecimal getSmallestOrder() {
+        return smallestOrder;
+    }
+
+    /**
+     * Returns the largest order total, only known for scanned totals.
+     * @return the largest total, or null if not known
+     */
+    public BigDecimal getLargestOrder() {
+        return largestOrder;
+    }
+
+    @Override
+    public String toString() {
+        String range = smallestOrder == null ? "" : ", orders from " + smallestOrder + " to " + largestOrder;
+        return orderCount + " orders, area " + area + ", materials " + materialCost + ", labor " + laborCost
+                + ", tax " + tax + ", total " + totalCost + range;
+    }
+}
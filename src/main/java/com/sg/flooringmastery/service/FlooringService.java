@@ -1,11 +1,21 @@
 package com.sg.flooringmastery.service;
 
+import com.sg.flooringmastery.dto.ImportReport;
 import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.OrderQuery;
+import com.sg.flooringmastery.dto.OrderResult;
 import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.RepriceReport;
+import com.sg.flooringmastery.dto.SalesSummary;
+import com.sg.flooringmastery.dto.SalesTotals;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * An interface for the service layer.
@@ -19,6 +29,86 @@ public interface FlooringService {
      */
     Set<Order> getOrdersByDate(LocalDate date);
 
+    /**
+     * Returns all orders between two dates, ordered by date and order number.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @return all orders in the range
+     */
+    Set<Order> getOrdersBetween(LocalDate from, LocalDate to);
+
+    /**
+     * Returns a page of the orders associated with the date, by order number.
+     * @param date the specified date
+     * @param offset how many orders to skip
+     * @param pageSize the most orders to return
+     * @return the page of orders
+     */
+    Stream<Order> getOrdersByDate(LocalDate date, int offset, int pageSize);
+
+    /**
+     * Returns a page of the orders between two dates, by order number.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @param offset how many orders to skip
+     * @param pageSize the most orders to return
+     * @return the page of orders
+     */
+    Stream<Order> getOrdersBetween(LocalDate from, LocalDate to, int offset, int pageSize);
+
+    /**
+     * Returns a page of the orders matching a query, by order number.
+     * @param query the criteria, such as state, product type, customer and dates
+     * @param offset how many matching orders to skip
+     * @param pageSize the most orders to return
+     * @return the page of orders
+     */
+    Stream<Order> findOrders(OrderQuery query, int offset, int pageSize);
+
+    /**
+     * Returns a page of the orders whose customer name starts with some
+     * text, ignoring case, by order number.
+     * @param prefix the start of the name
+     * @param offset how many matching orders to skip
+     * @param pageSize the most orders to return
+     * @return the page of orders
+     */
+    Stream<Order> findOrdersByCustomerPrefix(String prefix, int offset, int pageSize);
+
+    /**
+     * Returns a page of the orders whose customer name contains some text,
+     * ignoring case, by order number.
+     * @param fragment any part of the name
+     * @param offset how many matching orders to skip
+     * @param pageSize the most orders to return
+     * @return the page of orders
+     */
+    Stream<Order> findOrdersByCustomerSubstring(String fragment, int offset, int pageSize);
+
+    /**
+     * Returns the sales totals over every order, broken down by state and by
+     * product type.
+     * @return the sales summary
+     */
+    SalesSummary getSalesSummary();
+
+    /**
+     * Returns the sales totals for the orders of a range of dates, broken
+     * down by state and by product type, each with its smallest and largest
+     * order total.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @return the sales summary
+     */
+    SalesSummary getSalesSummary(LocalDate from, LocalDate to);
+
+    /**
+     * Returns the sales totals for the orders of one date.
+     * @param date the date
+     * @return the totals for that date
+     */
+    SalesTotals getSalesTotals(LocalDate date);
+
     /**
      * Returns true if an order was successfully added, false if not
      * @param order the order to be added
@@ -54,6 +144,38 @@ public interface FlooringService {
      */
     void replaceOrder(Order order);
 
+    /**
+     * Replaces the existing order, as long as no one else changed it since
+     * it was read.
+     * @param order the edited order
+     * @param expectedVersion the version of the order the edit started from
+     * @throws com.sg.flooringmastery.dao.StaleOrderException if the order changed or was removed since
+     */
+    void replaceOrder(Order order, long expectedVersion);
+
+    /**
+     * Adds a batch of new orders. Each order gets its costs calculated and
+     * an order number, and the whole batch is written in one pass.
+     * @param orders the orders, as returned by createNewOrder
+     * @return one result per order, in the same order
+     */
+    List<OrderResult> addOrders(Collection<Order> orders);
+
+    /**
+     * Replaces a batch of edited orders, each only if no one changed it
+     * since it was read.
+     * @param orders the edited orders, as returned by editOrder
+     * @return one result per order, in the same order
+     */
+    List<OrderResult> replaceOrders(Collection<Order> orders);
+
+    /**
+     * Removes a batch of orders.
+     * @param orderNumbers the order numbers
+     * @return one result per order number, in the same order
+     */
+    List<OrderResult> removeOrders(Collection<Integer> orderNumbers);
+
     /**
      * Removes an order.
      * @param order the order to be removed
@@ -68,6 +190,28 @@ public interface FlooringService {
      */
     Order getOrder(Integer orderNumber);
 
+    /**
+     * Checks that a customer name isn't blank and only holds letters,
+     * digits, spaces, commas, periods and apostrophes.
+     * @param customerName the customer name
+     * @throws com.sg.flooringmastery.dao.InvalidOrderException if it is not a valid name
+     */
+    void validateCustomerName(String customerName);
+
+    /**
+     * Checks that an area meets the minimum order of 100 square feet.
+     * @param area the area
+     * @throws com.sg.flooringmastery.dao.InvalidOrderException if the area is too small
+     */
+    void validateArea(BigDecimal area);
+
+    /**
+     * Checks that a new order's date is in the future.
+     * @param date the date
+     * @throws com.sg.flooringmastery.dao.InvalidOrderException if the date is today or earlier
+     */
+    void validateOrderDate(LocalDate date);
+
     /**
      * Gets a set of all valid states you can sell to.
      * @return set of state abbreviations
@@ -86,6 +230,41 @@ public interface FlooringService {
      */
     Set<Integer> getAllOrderNumbers();
 
+    /**
+     * Gets every existing order number as runs of consecutive numbers, ready
+     * to show.
+     * @return the runs written out, like "1-4" or "6", in ascending order
+     */
+    List<String> getOrderNumberRanges();
+
+    /**
+     * Imports orders from a comma separated file with the columns
+     * CustomerName,State,ProductType,Area,Date, streaming it rather than
+     * reading it all in.
+     * @param file the file
+     * @return how many rows were imported and rejected, and how fast
+     */
+    ImportReport importOrders(Path file);
+
+    /**
+     * Changes a product's costs in the catalog and reprices every future
+     * order of that product.
+     * @param productType the product type
+     * @param costPerSquareFoot the new material cost per square foot
+     * @param laborCostPerSquareFoot the new labor cost per square foot
+     * @return the old and new costs of each repriced order, null if there is no such product
+     */
+    RepriceReport repriceProduct(String productType, BigDecimal costPerSquareFoot, BigDecimal laborCostPerSquareFoot);
+
+    /**
+     * Changes a state's tax rate in the catalog and reprices every future
+     * order of that state.
+     * @param stateAbbr the state abbreviation
+     * @param taxRate the new tax rate, in percent
+     * @return the old and new costs of each repriced order, null if there is no such state
+     */
+    RepriceReport repriceTax(String stateAbbr, BigDecimal taxRate);
+
     /**
      * Exports all data to a dataexport.txt file.
      */
@@ -2,21 +2,38 @@ package com.sg.flooringmastery.service;
 
 import com.sg.flooringmastery.dao.FlooringDao;
 import com.sg.flooringmastery.dao.FlooringPersistenceException;
+import com.sg.flooringmastery.dao.InvalidOrderException;
+import com.sg.flooringmastery.dto.ImportReport;
 import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.OrderQuery;
+import com.sg.flooringmastery.dto.OrderResult;
 import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.RepriceReport;
+import com.sg.flooringmastery.dto.SalesSummary;
+import com.sg.flooringmastery.dto.SalesTotals;
 import com.sg.flooringmastery.dto.Tax;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * The Service layer, which handles all business logic.
  */
 @Component
 public class FlooringServiceImpl implements FlooringService{
+    private final static int IMPORT_CHUNK_SIZE = 1000;
+    private final static Pattern CUSTOMER_NAME = Pattern.compile("[\\p{Alnum},.'\\s]*");
+    private final static BigDecimal MIN_AREA = new BigDecimal("100");
     private FlooringDao dao;
 
     /**
@@ -38,6 +55,112 @@ public class FlooringServiceImpl implements FlooringService{
         return dao.getOrdersForDate(date);
     }
 
+    /**
+     * Returns a set of all orders between two dates.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @return a set of all orders in the range
+     */
+    @Override
+    public Set<Order> getOrdersBetween(LocalDate from, LocalDate to) {
+        return dao.getOrdersBetween(from, to);
+    }
+
+    /**
+     * Returns a page of the orders from that date.
+     * @param date the specified date
+     * @param offset how many orders to skip
+     * @param pageSize the most orders to return
+     * @return the page, by order number
+     */
+    @Override
+    public Stream<Order> getOrdersByDate(LocalDate date, int offset, int pageSize) {
+        return dao.streamOrdersForDate(date, offset, pageSize);
+    }
+
+    /**
+     * Returns a page of the orders between two dates.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @param offset how many orders to skip
+     * @param pageSize the most orders to return
+     * @return the page, by order number
+     */
+    @Override
+    public Stream<Order> getOrdersBetween(LocalDate from, LocalDate to, int offset, int pageSize) {
+        return dao.streamOrdersBetween(from, to, offset, pageSize);
+    }
+
+    /**
+     * Returns a page of the orders matching a query.
+     * @param query the criteria
+     * @param offset how many matching orders to skip
+     * @param pageSize the most orders to return
+     * @return the page, by order number
+     */
+    @Override
+    public Stream<Order> findOrders(OrderQuery query, int offset, int pageSize) {
+        return dao.findOrders(query, offset, pageSize);
+    }
+
+    /**
+     * Returns a page of the orders whose customer name starts with some text.
+     * @param prefix the start of the name
+     * @param offset how many matching orders to skip
+     * @param pageSize the most orders to return
+     * @return the page, by order number
+     */
+    @Override
+    public Stream<Order> findOrdersByCustomerPrefix(String prefix, int offset, int pageSize) {
+        return dao.findOrdersByCustomerPrefix(prefix, offset, pageSize);
+    }
+
+    /**
+     * Returns a page of the orders whose customer name contains some text.
+     * @param fragment any part of the name
+     * @param offset how many matching orders to skip
+     * @param pageSize the most orders to return
+     * @return the page, by order number
+     */
+    @Override
+    public Stream<Order> findOrdersByCustomerSubstring(String fragment, int offset, int pageSize) {
+        return dao.findOrdersByCustomerSubstring(fragment, offset, pageSize);
+    }
+
+    /**
+     * Returns the sales totals over every order, by state and by product.
+     * The DAO keeps them up to date as orders change, so this does not add
+     * up the orders.
+     * @return the sales summary
+     */
+    @Override
+    public SalesSummary getSalesSummary() {
+        return dao.getSalesSummary();
+    }
+
+    /**
+     * Returns the sales totals for the orders of a range of dates, by state
+     * and by product. These are added up when asked for, from the DAO's
+     * columnar store when it keeps one.
+     * @param from the first date, inclusive
+     * @param to the last date, inclusive
+     * @return the sales summary
+     */
+    @Override
+    public SalesSummary getSalesSummary(LocalDate from, LocalDate to) {
+        return dao.getSalesSummary(from, to);
+    }
+
+    /**
+     * Returns the sales totals for the orders of one date.
+     * @param date the date
+     * @return the totals for that date
+     */
+    @Override
+    public SalesTotals getSalesTotals(LocalDate date) {
+        return dao.getSalesTotals(date);
+    }
+
     /**
      * Adds a new order to the map.
      * @param order the order to be added
@@ -105,6 +228,9 @@ public class FlooringServiceImpl implements FlooringService{
                 oldOrder.getDate()
         );
 
+        // the edit replaces the order as it was read here
+        newOrder.setVersion(oldOrder.getVersion());
+
         Product productInfo = newOrder.getProduct();
         newOrder.setLaborCostPerSquareFoot(productInfo.getLaborCostPerSquareFoot());
         newOrder.setCostPerSquareFoot(productInfo.getCostPerSquareFoot());
@@ -116,19 +242,103 @@ public class FlooringServiceImpl implements FlooringService{
     }
 
     /**
-     * Replaces an order in the map (step 2).
+     * Replaces an order in the map (step 2), as long as it is still the
+     * version editOrder started from.
      * @param order the order to replace the old order with.
      */
     @Override
     public void replaceOrder(Order order) {
+        replaceOrder(order, order.getVersion());
+    }
+
+    /**
+     * Replaces an order in the map if no one changed it since it was read.
+     * Waits for the change to be written, so an edit the user was told is
+     * saved is on disk in every persistence mode.
+     * @param order the order to replace the old order with
+     * @param expectedVersion the version of the order the edit started from
+     */
+    @Override
+    public void replaceOrder(Order order, long expectedVersion) {
         try {
-            dao.addOrder(order);
+            dao.replaceOrder(order, expectedVersion);
         } catch (FlooringPersistenceException e) {
             throw new FlooringPersistenceException("The order was unable to be overwritten.", e);
         }
     }
 
 
+    /**
+     * Adds a batch of orders. Orders missing what it takes to price them are
+     * turned down here, the rest are priced, numbered and handed to the dao
+     * together so each date file is written once.
+     * @param orders the orders to be added
+     * @return one result per order
+     */
+    @Override
+    public List<OrderResult> addOrders(Collection<Order> orders) {
+        OrderResult[] results = new OrderResult[orders.size()];
+        List<Order> accepted = new ArrayList<>(orders.size());
+        List<Integer> positions = new ArrayList<>(orders.size());
+
+        int i = 0;
+        for (Order order : orders) {
+            if (order.getTaxInfo() == null || order.getProduct() == null || order.getArea() == null || order.getDate() == null) {
+                results[i++] = new OrderResult(null, "The order is missing its state, product, area or date.");
+                continue;
+            }
+            order.setCostPerSquareFoot(order.getProduct().getCostPerSquareFoot());
+            order.setLaborCostPerSquareFoot(order.getProduct().getLaborCostPerSquareFoot());
+            calculateOrderCosts(order);
+            accepted.add(order);
+            positions.add(i++);
+        }
+
+        try {
+            for (Order order : accepted) {
+                order.setOrderNumber(dao.getNextOrderNumber());
+            }
+            List<OrderResult> added = dao.addOrders(accepted);
+            for (int j = 0; j < added.size(); j++) {
+                results[positions.get(j)] = added.get(j);
+            }
+        } catch (FlooringPersistenceException e) {
+            throw new FlooringPersistenceException("Unable to add these orders.", e);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Replaces a batch of orders, recalculating their costs first.
+     * @param orders the edited orders
+     * @return one result per order
+     */
+    @Override
+    public List<OrderResult> replaceOrders(Collection<Order> orders) {
+        for (Order order : orders) {
+            calculateOrderCosts(order);
+        }
+        try {
+            return dao.replaceOrders(orders);
+        } catch (FlooringPersistenceException e) {
+            throw new FlooringPersistenceException("The orders were unable to be overwritten.", e);
+        }
+    }
+
+    /**
+     * Removes a batch of orders.
+     * @param orderNumbers the order numbers
+     * @return one result per order number
+     */
+    @Override
+    public List<OrderResult> removeOrders(Collection<Integer> orderNumbers) {
+        try {
+            return dao.removeOrders(orderNumbers);
+        } catch (FlooringPersistenceException e) {
+            throw new FlooringPersistenceException("Unable to remove these orders.", e);
+        }
+    }
+
     /**
      * Removes an order.
      * @param order the order to be removed
@@ -152,6 +362,42 @@ public class FlooringServiceImpl implements FlooringService{
         return dao.getOrder(orderNumber);
     }
 
+    /**
+     * Checks a customer name against the characters an order file can hold.
+     * @param customerName the customer name
+     */
+    @Override
+    public void validateCustomerName(String customerName) {
+        if (customerName == null || customerName.isBlank()) {
+            throw new InvalidOrderException("Customer name cannot be blank.");
+        }
+        if (!CUSTOMER_NAME.matcher(customerName).matches()) {
+            throw new InvalidOrderException("A customer name can only hold letters, digits, spaces, commas, periods and apostrophes.");
+        }
+    }
+
+    /**
+     * Checks an area against the minimum order.
+     * @param area the area
+     */
+    @Override
+    public void validateArea(BigDecimal area) {
+        if (area == null || area.compareTo(MIN_AREA) < 0) {
+            throw new InvalidOrderException("You need to order at least " + MIN_AREA + " square feet.");
+        }
+    }
+
+    /**
+     * Checks that a date is after today.
+     * @param date the date
+     */
+    @Override
+    public void validateOrderDate(LocalDate date) {
+        if (date == null || !date.isAfter(LocalDate.now())) {
+            throw new InvalidOrderException("The date must be in the future.");
+        }
+    }
+
     /**
      * Returns a set of all existing acceptable states.
      * @return a set of all existing acceptable states
@@ -179,6 +425,68 @@ public class FlooringServiceImpl implements FlooringService{
         return dao.getAllOrderNumbers();
     }
 
+    /**
+     * Returns every existing order number as runs of consecutive numbers.
+     * @return the runs, in ascending order
+     */
+    @Override
+    public List<String> getOrderNumberRanges() {
+        return dao.getOrderNumberRanges();
+    }
+
+    /**
+     * Imports orders from a file, pricing them on all but one of the
+     * processors while the reader and writer keep the rest busy.
+     * @param file the file
+     * @return the import report
+     */
+    @Override
+    public ImportReport importOrders(Path file) {
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        return new OrderImporter(dao, this, workers, IMPORT_CHUNK_SIZE).importOrders(file);
+    }
+
+    /**
+     * Changes a product's costs and reprices its future orders, in parallel,
+     * writing each date file they are in once.
+     * @param productType the product type
+     * @param costPerSquareFoot the new material cost per square foot
+     * @param laborCostPerSquareFoot the new labor cost per square foot
+     * @return the repricing report, null if there is no such product
+     */
+    @Override
+    public RepriceReport repriceProduct(String productType, BigDecimal costPerSquareFoot, BigDecimal laborCostPerSquareFoot) {
+        if (dao.getProductFromProductType(productType) == null) {
+            return null;
+        }
+        try {
+            return new OrderRepricer(dao, this).repriceProduct(
+                    new Product(productType, costPerSquareFoot, laborCostPerSquareFoot));
+        } catch (FlooringPersistenceException e) {
+            throw new FlooringPersistenceException("Unable to reprice the " + productType + " orders.", e);
+        }
+    }
+
+    /**
+     * Changes a state's tax rate and reprices its future orders, in
+     * parallel, writing each date file they are in once.
+     * @param stateAbbr the state abbreviation
+     * @param taxRate the new tax rate, in percent
+     * @return the repricing report, null if there is no such state
+     */
+    @Override
+    public RepriceReport repriceTax(String stateAbbr, BigDecimal taxRate) {
+        Tax tax = dao.getTaxInfoFromAbbr(stateAbbr);
+        if (tax == null) {
+            return null;
+        }
+        try {
+            return new OrderRepricer(dao, this).repriceTax(new Tax(stateAbbr, tax.getStateName(), taxRate));
+        } catch (FlooringPersistenceException e) {
+            throw new FlooringPersistenceException("Unable to reprice the " + stateAbbr + " orders.", e);
+        }
+    }
+
     /**
      * Exports all data to a dataexport.txt file.
      */
@@ -188,26 +496,13 @@ public class FlooringServiceImpl implements FlooringService{
     }
 
     /**
-     * Calculates and sets all costs.
+     * Calculates and sets all costs, in fixed point with PricingEngine. See
+     * there for how they are rounded.
      * @param order order
      */
     @Override
     public void calculateOrderCosts(Order order) {
-        BigDecimal hundred = new BigDecimal("100");
-        BigDecimal materialCost = order.getArea().multiply(order.getCostPerSquareFoot());
-        BigDecimal laborCost = order.getArea().multiply(order.getLaborCostPerSquareFoot());
-
-        order.setMaterialCost(materialCost);
-        order.setLaborCost(laborCost);
-
-        BigDecimal tax = ((order.getMaterialCost().add(order.getLaborCost()))
-                .multiply(order.getTaxInfo().getTaxRate())).divide(hundred);
-
-        order.setTax(tax);
-
-        BigDecimal totalCost = (order.getMaterialCost().add(order.getLaborCost())).add(order.getTax());
-        order.setTotalCost(totalCost);
-
+        PricingEngine.price(order);
     }
 
 }
@@ -0,0 +1,381 @@
+package com.sg.flooringmastery.service;
+
+import com.sg.flooringmastery.dao.FlooringDao;
+import com.sg.flooringmastery.dao.FlooringPersistenceException;
+import com.sg.flooringmastery.dao.InvalidOrderException;
+import com.sg.flooringmastery.dto.ImportReport;
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.OrderResult;
+import com.sg.flooringmastery.dto.Product;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Imports orders from a comma separated file with the columns
+ * CustomerName,State,ProductType,Area,Date and a header line. A customer
+ * name holding a comma goes in double quotes.
+ *
+ * The file is streamed through three stages joined by bounded queues: the
+ * calling thread reads it a chunk of lines at a time, worker threads parse,
+ * check and price each chunk, and a single writer numbers the orders and
+ * adds them with batched dao calls. A full queue holds the
+ * stage before it back, so no more than a few chunks are ever in memory
+ * however big the file is. Chunks may be written out of file order.
+ */
+public class OrderImporter {
+
+    private final static String DELIMITER = ",";
+    private final static int MAX_REJECTS_KEPT = 20;
+    private final static long POLL_MILLIS = 100;
+    private final static Chunk END = new Chunk(0, List.of());
+
+    private final FlooringDao dao;
+    private final FlooringService service;
+    private final int workerCount;
+    private final int chunkSize;
+    private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    /**
+     * A run of consecutive lines of the file, or the orders made from them.
+     */
+    private static class Chunk {
+        final long firstLine;
+        final List<String> lines;
+        final List<Order> orders = new ArrayList<>();
+        final List<Long> orderLines = new ArrayList<>();
+
+        Chunk(long firstLine, List<String> lines) {
+            this.firstLine = firstLine;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * State shared by the stages of one import.
+     */
+    private class Run {
+        final BlockingQueue<Chunk> read = new ArrayBlockingQueue<>(workerCount * 2);
+        final BlockingQueue<Chunk> priced = new ArrayBlockingQueue<>(workerCount * 2);
+        final AtomicInteger workersLeft = new AtomicInteger(workerCount);
+        final AtomicLong imported = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final List<String> rejects = new ArrayList<>();
+        // the first thing to go wrong in any stage, which stops them all
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final Set<String> states = service.getAcceptableStates();
+        final Set<String> productTypes = new HashSet<>();
+
+        Run() {
+            for (Product product : service.getAvailableProducts()) {
+                productTypes.add(product.getProductType());
+            }
+        }
+
+        void reject(long line, String reason) {
+            rejected.incrementAndGet();
+            synchronized (rejects) {
+                if (rejects.size() < MAX_REJECTS_KEPT) {
+                    rejects.add("line " + line + ": " + reason);
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor for an OrderImporter.
+     * @param dao the dao the orders are added through
+     * @param service the service that prices them
+     * @param workerCount how many threads price orders
+     * @param chunkSize how many lines are handed between the stages at a time
+     */
+    public OrderImporter(FlooringDao dao, FlooringService service, int workerCount, int chunkSize) {
+        if (workerCount < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("An import needs at least one worker and one line per chunk.");
+        }
+        this.dao = dao;
+        this.service = service;
+        this.workerCount = workerCount;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports every valid row of a file. Rows that fail a check are counted
+     * and skipped, the rest of the file still goes in.
+     * @param file the file
+     * @return what happened
+     */
+    public ImportReport importOrders(Path file) throws FlooringPersistenceException {
+        long start = System.nanoTime();
+        Run run = new Run();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < workerCount; i++) {
+            threads.add(startThread(() -> priceChunks(run), "order-import-worker-" + i));
+        }
+        threads.add(startThread(() -> writeChunks(run), "order-import-writer"));
+
+        long rowCount = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine(); // skip the header
+            long lineNumber = 1;
+            List<String> lines = new ArrayList<>(chunkSize);
+            while (run.failure.get() == null && (line = reader.readLine()) != null) {
+                lineNumber++;
+                // blank lines travel with the chunk so line numbers stay right, but aren't rows
+                lines.add(line);
+                if (!line.isBlank()) {
+                    rowCount++;
+                }
+                if (lines.size() == chunkSize) {
+                    handOff(run, run.read, new Chunk(lineNumber - lines.size() + 1, lines));
+                    lines = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!lines.isEmpty()) {
+                handOff(run, run.read, new Chunk(lineNumber - lines.size() + 1, lines));
+            }
+        } catch (IOException e) {
+            run.failure.compareAndSet(null, new FlooringPersistenceException("Could not read " + file.getFileName() + ".", e));
+        } catch (RuntimeException e) {
+            run.failure.compareAndSet(null, e);
+        } finally {
+            // every worker takes one END and leaves; a stopped run ignores these
+            for (int i = 0; i < workerCount; i++) {
+                handOff(run, run.read, END);
+            }
+            for (Thread thread : threads) {
+                join(thread);
+            }
+        }
+
+        RuntimeException failure = run.failure.get();
+        if (failure != null) {
+            throw new FlooringPersistenceException("The import stopped after " + run.imported.get() + " orders.", failure);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new ImportReport(rowCount, run.imported.get(), run.rejected.get(), elapsedMillis, run.rejects);
+    }
+
+    /**
+     * Worker stage: turns lines into priced orders. The last worker to
+     * finish tells the writer there is nothing more coming.
+     */
+    private void priceChunks(Run run) {
+        try {
+            Chunk chunk;
+            while ((chunk = take(run, run.read)) != null && chunk != END) {
+                for (int i = 0; i < chunk.lines.size(); i++) {
+                    long lineNumber = chunk.firstLine + i;
+                    if (chunk.lines.get(i).isBlank()) {
+                        continue;
+                    }
+                    Order order = parseOrder(run, chunk.lines.get(i), lineNumber);
+                    if (order != null) {
+                        chunk.orders.add(order);
+                        chunk.orderLines.add(lineNumber);
+                    }
+                }
+                handOff(run, run.priced, chunk);
+            }
+        } catch (RuntimeException e) {
+            run.failure.compareAndSet(null, e);
+        } finally {
+            if (run.workersLeft.decrementAndGet() == 0) {
+                handOff(run, run.priced, END);
+            }
+        }
+    }
+
+    /**
+     * Writer stage: numbers the orders and adds them in one batch. Chunks
+     * that finished pricing while the last batch was being written go into
+     * the next batch together, so a slow disk means fewer, bigger writes
+     * rather than a backlog of small ones.
+     */
+    private void writeChunks(Run run) {
+        try {
+            List<Chunk> batch = new ArrayList<>();
+            boolean done = false;
+            while (!done) {
+                Chunk chunk = take(run, run.priced);
+                if (chunk == null) {
+                    return;
+                }
+                batch.clear();
+                batch.add(chunk);
+                run.priced.drainTo(batch);
+                // END is only ever queued last
+                done = batch.remove(END);
+
+                List<Order> orders = new ArrayList<>();
+                List<Long> orderLines = new ArrayList<>();
+                for (Chunk priced : batch) {
+                    orders.addAll(priced.orders);
+                    orderLines.addAll(priced.orderLines);
+                }
+                if (orders.isEmpty()) {
+                    continue;
+                }
+                for (Order order : orders) {
+                    order.setOrderNumber(dao.getNextOrderNumber());
+                }
+                List<OrderResult> results = dao.addOrders(orders);
+                for (int i = 0; i < results.size(); i++) {
+                    if (results.get(i).isSuccess()) {
+                        run.imported.incrementAndGet();
+                    } else {
+                        run.reject(orderLines.get(i), results.get(i).getFailure());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            run.failure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * Parses, checks and prices one line.
+     * @return the order, or null if the line was rejected
+     */
+    private Order parseOrder(Run run, String line, long lineNumber) {
+        List<String> fields = splitFields(line);
+        if (fields.size() != 5) {
+            run.reject(lineNumber, "expected 5 fields but found " + fields.size());
+            return null;
+        }
+        String customerName = fields.get(0).strip();
+        String stateAbbr = fields.get(1).strip();
+        String productType = fields.get(2).strip();
+
+        try {
+            service.validateCustomerName(customerName);
+        } catch (InvalidOrderException e) {
+            run.reject(lineNumber, e.getMessage());
+            return null;
+        }
+        if (!run.states.contains(stateAbbr)) {
+            run.reject(lineNumber, "we don't ship to " + stateAbbr);
+            return null;
+        }
+        if (!run.productTypes.contains(productType)) {
+            run.reject(lineNumber, "no such product " + productType);
+            return null;
+        }
+
+        BigDecimal area;
+        LocalDate date;
+        try {
+            area = new BigDecimal(fields.get(3).strip());
+            date = LocalDate.parse(fields.get(4).strip(), dateFormatter);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            run.reject(lineNumber, "unreadable area or date");
+            return null;
+        }
+        try {
+            service.validateArea(area);
+            service.validateOrderDate(date);
+        } catch (InvalidOrderException e) {
+            run.reject(lineNumber, e.getMessage());
+            return null;
+        }
+
+        return service.createNewOrder(customerName, stateAbbr, productType, area, date);
+    }
+
+    /**
+     * Splits a line on commas, keeping commas that are inside double quotes.
+     */
+    static List<String> splitFields(String line) {
+        List<String> fields = new ArrayList<>(5);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                // a doubled quote inside quotes stands for one quote
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (!quoted && DELIMITER.charAt(0) == c) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Puts a chunk on a queue, waiting while it is full unless the run has
+     * stopped, in which case the chunk is dropped.
+     */
+    private static void handOff(Run run, BlockingQueue<Chunk> queue, Chunk chunk) {
+        try {
+            while (!queue.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (run.failure.get() != null) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.failure.compareAndSet(null, new FlooringPersistenceException("The import was interrupted."));
+        }
+    }
+
+    /**
+     * Takes a chunk off a queue, waiting while it is empty.
+     * @return the chunk, or null once the run has stopped
+     */
+    private static Chunk take(Run run, BlockingQueue<Chunk> queue) {
+        try {
+            while (run.failure.get() == null) {
+                Chunk chunk = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (chunk != null) {
+                    return chunk;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.failure.compareAndSet(null, new FlooringPersistenceException("The import was interrupted."));
+        }
+        return null;
+    }
+
+    private static Thread startThread(Runnable stage, String name) {
+        Thread thread = new Thread(stage, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
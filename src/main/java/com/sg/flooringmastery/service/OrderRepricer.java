@@ -0,0 +1,153 @@
+package com.sg.flooringmastery.service;
+
+import com.sg.flooringmastery.dao.FlooringDao;
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.OrderQuery;
+import com.sg.flooringmastery.dto.OrderResult;
+import com.sg.flooringmastery.dto.PriceChange;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.RepriceReport;
+import com.sg.flooringmastery.dto.Tax;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Prices a catalog change into the orders it affects. The catalog is
+ * updated first, so orders placed from then on already get the new price.
+ * Then every future order of the product or state is found through the
+ * dao's indexes, repriced in parallel on the common fork-join pool, and
+ * replaced in a single batch so each date file is written once.
+ *
+ * Orders on or before today keep what they were priced at. An order someone
+ * else changed while it was being repriced is read again and repriced
+ * again, a few times at most, then reported as failed.
+ */
+public class OrderRepricer {
+
+    private final static int MAX_ATTEMPTS = 3;
+
+    private final FlooringDao dao;
+    private final FlooringService service;
+
+    /**
+     * Constructor for an OrderRepricer.
+     * @param dao the dao the catalogs and orders are updated through
+     * @param service the service that prices the orders
+     */
+    public OrderRepricer(FlooringDao dao, FlooringService service) {
+        this.dao = dao;
+        this.service = service;
+    }
+
+    /**
+     * Puts a product's new costs in the catalog and reprices the future
+     * orders of that product.
+     * @param product the product, with its new costs
+     * @return the price changes
+     */
+    public RepriceReport repriceProduct(Product product) {
+        long start = System.nanoTime();
+        dao.updateProduct(product);
+
+        String change = product.getProductType() + " at $" + product.getCostPerSquareFoot() + " material and $"
+                + product.getLaborCostPerSquareFoot() + " labor per square foot";
+        OrderQuery query = new OrderQuery();
+        query.setProductType(product.getProductType());
+        return reprice(start, change, query, order -> {
+            Order repriced = copyOf(order, order.getTaxInfo(), product);
+            repriced.setCostPerSquareFoot(product.getCostPerSquareFoot());
+            repriced.setLaborCostPerSquareFoot(product.getLaborCostPerSquareFoot());
+            service.calculateOrderCosts(repriced);
+            return repriced;
+        });
+    }
+
+    /**
+     * Puts a state's new tax rate in the catalog and reprices the future
+     * orders of that state. Their per square foot costs stay as they were.
+     * @param tax the state's tax, with its new rate
+     * @return the price changes
+     */
+    public RepriceReport repriceTax(Tax tax) {
+        long start = System.nanoTime();
+        dao.updateTax(tax);
+
+        String change = tax.getStateName() + " taxed at " + tax.getTaxRate() + "%";
+        OrderQuery query = new OrderQuery();
+        query.setStateAbbr(tax.getStateAbbr());
+        return reprice(start, change, query, order -> {
+            Order repriced = copyOf(order, tax, order.getProduct());
+            repriced.setCostPerSquareFoot(order.getCostPerSquareFoot() != null
+                    ? order.getCostPerSquareFoot() : order.getProduct().getCostPerSquareFoot());
+            repriced.setLaborCostPerSquareFoot(order.getLaborCostPerSquareFoot() != null
+                    ? order.getLaborCostPerSquareFoot() : order.getProduct().getLaborCostPerSquareFoot());
+            service.calculateOrderCosts(repriced);
+            return repriced;
+        });
+    }
+
+    /**
+     * Reprices the future orders matching a query and replaces them.
+     * @param start when the repricing started, from System.nanoTime()
+     * @param change the catalog change, as one line
+     * @param query which orders the change affects, any date
+     * @param reprice makes the repriced copy of an order
+     * @return the price changes
+     */
+    private RepriceReport reprice(long start, String change, OrderQuery query, UnaryOperator<Order> reprice) {
+        query.setFrom(LocalDate.now().plusDays(1));
+
+        List<PriceChange> priceChanges = new ArrayList<>();
+        List<OrderResult> failures = new ArrayList<>();
+        List<Order> affected = findAll(query);
+        for (int attempt = 1; !affected.isEmpty(); attempt++) {
+            List<Order> repriced = affected.parallelStream().map(reprice).collect(Collectors.toList());
+            List<OrderResult> results = dao.replaceOrders(repriced);
+
+            List<Order> retry = new ArrayList<>();
+            for (int i = 0; i < results.size(); i++) {
+                OrderResult result = results.get(i);
+                if (result.isSuccess()) {
+                    priceChanges.add(new PriceChange(affected.get(i), repriced.get(i)));
+                    continue;
+                }
+                // an order edited away from the product, state or dates is no longer affected
+                Order current = dao.getOrder(result.getOrderNumber());
+                if (current != null && query.matches(current)) {
+                    if (attempt < MAX_ATTEMPTS) {
+                        retry.add(current);
+                    } else {
+                        failures.add(result);
+                    }
+                }
+            }
+            affected = retry;
+        }
+
+        priceChanges.sort(Comparator.comparing(PriceChange::getOrderNumber));
+        return new RepriceReport(change, priceChanges, failures, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Finds every order matching a query, in one pass over the matches.
+     */
+    private List<Order> findAll(OrderQuery query) {
+        return dao.findOrders(query, 0, Integer.MAX_VALUE).collect(Collectors.toList());
+    }
+
+    /**
+     * Copies an order with a different tax or product, as the version it
+     * was read at, so replacing it fails if it changed since.
+     */
+    private static Order copyOf(Order order, Tax tax, Product product) {
+        Order copy = new Order(order.getOrderNumber(), order.getCustomerName(), tax, product, order.getArea(),
+                order.getDate());
+        copy.setVersion(order.getVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,184 @@
+package com.sg.flooringmastery.service;
+
+import com.sg.flooringmastery.dto.Order;
+
+import java.math.BigDecimal;
+
+import static java.math.RoundingMode.UP;
+
+/**
+ * Works out what an order costs in fixed point. Amounts are longs counting
+ * ten-thousandths of a dollar, and each one is the exact amount rounded away
+ * from zero to the nearest ten-thousandth:
+ * <ul>
+ *     <li>material cost = area * cost per square foot</li>
+ *     <li>labor cost = area * labor cost per square foot</li>
+ *     <li>tax = (material cost + labor cost) * tax rate / 100</li>
+ *     <li>total = material cost + labor cost + tax</li>
+ * </ul>
+ * Areas, per square foot costs and tax rates with at most two decimals make
+ * material and labor exact in ten-thousandths, so only the tax is ever
+ * rounded. Rounding away from zero is also how the order files round to
+ * cents, and rounding the same way twice lands on the same cent as rounding
+ * once, so the files come out as they did when the exact amounts were kept.
+ * <p>
+ * Anything that does not fit, such as an area with more than two decimals
+ * or a product that would overflow a long, falls back to BigDecimal and is
+ * rounded by the same rule.
+ */
+public class PricingEngine {
+
+    /**
+     * The number of decimals kept, amounts count units of 10^-SCALE dollars.
+     */
+    public static final int SCALE = 4;
+
+    // the inputs are taken in hundredths
+    private static final int INPUT_SCALE = 2;
+    // the tax before rounding is in units of 10^-8: a ten-thousandth times a hundredth, over 100
+    private static final long TAX_DIVISOR = 10_000;
+    // what hundredths() returns for an amount that isn't a whole number of them
+    private static final long NOT_HUNDREDTHS = Long.MIN_VALUE;
+
+    /**
+     * The costs of one order, in ten-thousandths of a dollar. Mutable, so one
+     * can be reused from order to order.
+     */
+    public static final class Quote {
+        private long materialCost;
+        private long laborCost;
+        private long tax;
+        private long totalCost;
+
+        /**
+         * Returns the material cost.
+         * @return the material cost, in ten-thousandths
+         */
+        public long getMaterialCost() {
+            return materialCost;
+        }
+
+        /**
+         * Returns the labor cost.
+         * @return the labor cost, in ten-thousandths
+         */
+        public long getLaborCost() {
+            return laborCost;
+        }
+
+        /**
+         * Returns the tax.
+         * @return the tax, in ten-thousandths
+         */
+        public long getTax() {
+            return tax;
+        }
+
+        /**
+         * Returns the total cost.
+         * @return the total cost, in ten-thousandths
+         */
+        public long getTotalCost() {
+            return totalCost;
+        }
+    }
+
+    private PricingEngine() {
+    }
+
+    /**
+     * Prices an order from amounts in hundredths. Allocates nothing.
+     * @param area the area, in hundredths of a square foot
+     * @param costPerSquareFoot the material cost per square foot, in cents
+     * @param laborCostPerSquareFoot the labor cost per square foot, in cents
+     * @param taxRate the tax rate, in hundredths of a percent
+     * @param quote where the costs go
+     * @return true if priced, false if an amount would overflow a long, in
+     * which case the quote is left as it was
+     */
+    public static boolean price(long area, long costPerSquareFoot, long laborCostPerSquareFoot, long taxRate,
+                                Quote quote) {
+        try {
+            long materialCost = Math.multiplyExact(area, costPerSquareFoot);
+            long laborCost = Math.multiplyExact(area, laborCostPerSquareFoot);
+            long subtotal = Math.addExact(materialCost, laborCost);
+            long tax = roundAwayFromZero(Math.multiplyExact(subtotal, taxRate), TAX_DIVISOR);
+            long totalCost = Math.addExact(subtotal, tax);
+
+            quote.materialCost = materialCost;
+            quote.laborCost = laborCost;
+            quote.tax = tax;
+            quote.totalCost = totalCost;
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Prices an order and sets its material cost, labor cost, tax and total,
+     * from its area, its per square foot costs and its state's tax rate. The
+     * long arithmetic allocates nothing, so the only allocations left are
+     * the four BigDecimal costs the order keeps.
+     * @param order the order
+     */
+    public static void price(Order order) {
+        long area = hundredths(order.getArea());
+        long costPerSquareFoot = hundredths(order.getCostPerSquareFoot());
+        long laborCostPerSquareFoot = hundredths(order.getLaborCostPerSquareFoot());
+        long taxRate = hundredths(order.getTaxInfo().getTaxRate());
+
+        // the quote doesn't outlive this call, so the JIT keeps it off the heap
+        Quote quote = new Quote();
+        if (area != NOT_HUNDREDTHS && costPerSquareFoot != NOT_HUNDREDTHS && laborCostPerSquareFoot != NOT_HUNDREDTHS
+                && taxRate != NOT_HUNDREDTHS && price(area, costPerSquareFoot, laborCostPerSquareFoot, taxRate, quote)) {
+            order.setCosts(quote.materialCost, quote.laborCost, quote.tax, quote.totalCost, SCALE);
+        } else {
+            priceExactly(order);
+        }
+    }
+
+    /**
+     * Prices an order in BigDecimal, for amounts the longs can't hold, and
+     * rounds the results by the same rule: the tax is worked out on the
+     * rounded material and labor costs and rounded itself before the total
+     * adds them up.
+     * @param order the order
+     */
+    static void priceExactly(Order order) {
+        BigDecimal materialCost = order.getArea().multiply(order.getCostPerSquareFoot()).setScale(SCALE, UP);
+        BigDecimal laborCost = order.getArea().multiply(order.getLaborCostPerSquareFoot()).setScale(SCALE, UP);
+        BigDecimal subtotal = materialCost.add(laborCost);
+        BigDecimal tax = subtotal.multiply(order.getTaxInfo().getTaxRate()).movePointLeft(2).setScale(SCALE, UP);
+
+        order.setMaterialCost(materialCost);
+        order.setLaborCost(laborCost);
+        order.setTax(tax);
+        order.setTotalCost(subtotal.add(tax));
+    }
+
+    /**
+     * Returns an amount in hundredths, or NOT_HUNDREDTHS if it has more than
+     * two decimals or doesn't fit in a long. Reads the unscaled value rather
+     * than moving the decimal point, which would make a new BigDecimal.
+     */
+    private static long hundredths(BigDecimal amount) {
+        int scale = amount.scale();
+        if (scale < 0 || scale > INPUT_SCALE || amount.precision() - scale > 16) {
+            return NOT_HUNDREDTHS;
+        }
+        long unscaled = amount.unscaledValue().longValue();
+        return scale == INPUT_SCALE ? unscaled : unscaled * (scale == 0 ? 100 : 10);
+    }
+
+    /**
+     * Divides, rounding any remainder away from zero.
+     */
+    private static long roundAwayFromZero(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        if (dividend % divisor != 0) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
@@ -1,17 +1,28 @@
 package com.sg.flooringmastery.view;
 
 import com.sg.flooringmastery.dao.InvalidOrderException;
+import com.sg.flooringmastery.dto.ImportReport;
 import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.OrderResult;
+import com.sg.flooringmastery.dto.PriceChange;
 import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.RepriceReport;
+import com.sg.flooringmastery.dto.SalesSummary;
+import com.sg.flooringmastery.dto.SalesTotals;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -22,6 +33,8 @@ public class FlooringView {
 
     private UserIO io = new UserIOImpl();
     private DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+    private final static int MAX_ORDER_NUMBER_RANGES = 50;
+    private final static int MAX_PRICE_CHANGES_SHOWN = 20;
 
     /**
      * A constructor for FlooringView that takes in an io object.
@@ -73,9 +86,13 @@ public class FlooringView {
         io.print("3. EDIT AN ORDER");
         io.print("4. REMOVE AN ORDER");
         io.print("5. EXPORT ALL DATA");
-        io.print("6. QUIT");
+        io.print("6. SEARCH ORDERS BY CUSTOMER");
+        io.print("7. SALES SUMMARY");
+        io.print("8. IMPORT ORDERS");
+        io.print("9. UPDATE PRICES");
+        io.print("10. QUIT");
 
-        return io.readInt("Please select from the above choices.", 1, 6);
+        return io.readInt("Please select from the above choices.", 1, 10);
 
     }
 
@@ -110,26 +127,53 @@ public class FlooringView {
     }
 
     /**
-     * Displays multiple orders given a set.
-     * @param orders the set of orders.
+     * Displays one page of the orders for a date. The banner only goes above
+     * the first page.
+     * @param page the orders on this page
+     * @param offset how many orders came before this page
      */
-    public void displayOrders(Set<Order> orders) {
+    public void displayOrderPage(List<Order> page, int offset) {
+        displayPage("* * * * * * * * * *  ALL ORDERS FOR SELECTED DATE  * * * * * * * * * *",
+                "No orders were found for the selected date.", page, offset);
+    }
 
-        io.print("* * * * * * * * * *  ALL ORDERS FOR SELECTED DATE  * * * * * * * * * *");
+    /**
+     * Displays one page of the orders found by a customer search. The banner
+     * only goes above the first page.
+     * @param page the orders on this page
+     * @param offset how many orders came before this page
+     */
+    public void displayCustomerMatchPage(List<Order> page, int offset) {
+        displayPage("* * * * * * * * * *  ORDERS FOR MATCHING CUSTOMERS  * * * * * * * * * *",
+                "No orders were found for a customer by that name.", page, offset);
+    }
 
-        if (orders == null || orders.isEmpty()) {
-            io.print("No orders were found for the selected date.");
-            return;
+    /**
+     * Displays one page of orders under a banner, or a note if the first page
+     * is empty.
+     */
+    private void displayPage(String banner, String noneFound, List<Order> page, int offset) {
+        if (offset == 0) {
+            io.print(banner);
+            if (page.isEmpty()) {
+                io.print(noneFound);
+                return;
+            }
         }
 
-        try {
-            for (Order order : orders) {
-                displayOrder(order);
-            }
-        } catch (Exception e) {
-            displayErrorMessage("No orders were found for the selected date.");
-            throw new InvalidOrderException("No orders were found for the selected date.");
+        for (Order order : page) {
+            displayOrder(order);
         }
+        io.print("(showing orders " + (offset + 1) + " to " + (offset + page.size()) + ")");
+    }
+
+    /**
+     * Asks if the user would like to see the next page of orders.
+     * @return true to show the next page, false to stop
+     */
+    public boolean askForNextPage() {
+        String answer = io.readString("Show the next page? (y/n)");
+        return answer.equalsIgnoreCase("y");
     }
 
     /**
@@ -163,6 +207,14 @@ public class FlooringView {
         io.print("* * * * * * ORDER #" + failedOrderNum + " WAS NOT EDITED. TRY AGAIN. * * * * * *");
     }
 
+    /**
+     * Displays a note letting the user know someone else changed the order while they were editing it.
+     * @param staleOrderNum the order num that changed.
+     */
+    public void displayStaleEdit(Integer staleOrderNum) {
+        io.print("* * * * * * ORDER #" + staleOrderNum + " WAS CHANGED BY SOMEONE ELSE. NOT EDITED. * * * * * *");
+    }
+
     /**
      * Displays a note letting the user know that their desired order was successfully removed.
      */
@@ -193,6 +245,156 @@ public class FlooringView {
         io.print("* * * EXPORT FAILED * * *\n");
     }
 
+    /**
+     * Prompts the user for the file to import orders from.
+     * @return the file
+     */
+    public Path askForImportFile() {
+        io.print("* * * * * * * * * * * * *  IMPORTING ORDERS  * * * * * * * * * * * * *");
+        io.print("The file needs a header line and the columns CustomerName,State,ProductType,Area,Date (MM/DD/YYYY).");
+        while (true) {
+            String fileName = io.readString("Enter the path of the file to import: ");
+            if (fileName.isBlank()) {
+                displayErrorMessage("The file name cannot be blank.");
+                continue;
+            }
+            Path file = Path.of(fileName.strip());
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+            displayErrorMessage("There is no file at " + file + ". Try again!");
+        }
+    }
+
+    /**
+     * Displays how an import went, along with the first rows it turned down.
+     * @param report the import report
+     */
+    public void displayImportReport(ImportReport report) {
+        io.print("* * * * * * * IMPORT FINISHED * * * * * * *");
+        io.print(report.toString());
+        for (String reject : report.getRejects()) {
+            io.print("    rejected " + reject);
+        }
+        if (report.getRejectedCount() > report.getRejects().size()) {
+            io.print("    ... and " + (report.getRejectedCount() - report.getRejects().size()) + " more rejected rows");
+        }
+        io.print("");
+    }
+
+    /**
+     * Asks for one end of the dates a sales summary covers.
+     * @param end which end, "first" or "last"
+     * @return the date, or null if left blank for no limit
+     */
+    public LocalDate askForSummaryDate(String end) {
+        while (true) {
+            String input = io.readString("Enter the " + end + " date in the format (MM/DD/YYYY), "
+                    + "or leave blank for no limit.").strip();
+            if (input.isEmpty()) {
+                return null;
+            }
+            try {
+                return LocalDate.parse(input, DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+            } catch (DateTimeParseException e) {
+                displayErrorMessage("That's not the correct format. Try again!");
+            }
+        }
+    }
+
+    /**
+     * Displays the sales totals over every order, then by state and by
+     * product type. Totals over a range of dates also show the smallest and
+     * largest order.
+     * @param summary the sales summary
+     */
+    public void displaySalesSummary(SalesSummary summary) {
+        io.print("* * * * * * * * * * * * * * *  SALES SUMMARY  * * * * * * * * * * * * * * *");
+        String header = String.format("%-12s %8s %12s %14s %14s %12s %14s",
+                "", "ORDERS", "AREA", "MATERIALS", "LABOR", "TAX", "TOTAL");
+        if (summary.getOverall().getSmallestOrder() != null) {
+            header += String.format(" %12s %12s", "SMALLEST", "LARGEST");
+        }
+        io.print(header);
+        displaySalesTotals("ALL ORDERS", summary.getOverall());
+        io.print("By state:");
+        summary.getByState().forEach(this::displaySalesTotals);
+        io.print("By product:");
+        summary.getByProduct().forEach(this::displaySalesTotals);
+        io.print("");
+    }
+
+    /**
+     * Displays one row of sales totals.
+     */
+    private void displaySalesTotals(String label, SalesTotals totals) {
+        String row = String.format("%-12s %8d %12s %14s %14s %12s %14s", label, totals.getOrderCount(),
+                totals.getArea().setScale(2, RoundingMode.HALF_UP),
+                totals.getMaterialCost().setScale(2, RoundingMode.HALF_UP),
+                totals.getLaborCost().setScale(2, RoundingMode.HALF_UP),
+                totals.getTax().setScale(2, RoundingMode.HALF_UP),
+                totals.getTotalCost().setScale(2, RoundingMode.HALF_UP));
+        if (totals.getSmallestOrder() != null) {
+            row += String.format(" %12s %12s", totals.getSmallestOrder().setScale(2, RoundingMode.HALF_UP),
+                    totals.getLargestOrder().setScale(2, RoundingMode.HALF_UP));
+        }
+        io.print(row);
+    }
+
+    /**
+     * Asks whether a product's costs or a state's tax rate are changing.
+     * @return 1 for a product, 2 for a state
+     */
+    public int askForPriceUpdateKind() {
+        io.print("* * * * * * * * * * * * * *  UPDATING PRICES  * * * * * * * * * * * * * *");
+        io.print("Every order after today is repriced, earlier orders keep their prices.");
+        io.print("1. A PRODUCT'S COSTS");
+        io.print("2. A STATE'S TAX RATE");
+        return io.readInt("What is changing?", 1, 2);
+    }
+
+    /**
+     * Prompts the user for a new cost or rate, which can't be negative.
+     * @param prompt what to ask for
+     * @return the amount
+     */
+    public BigDecimal askForRate(String prompt) {
+        while (true) {
+            try {
+                BigDecimal rate = new BigDecimal(io.readString(prompt).strip());
+                if (rate.signum() >= 0) {
+                    return rate;
+                }
+                io.print("It can't be negative. Try again!");
+            } catch (NumberFormatException e) {
+                displayErrorMessage("That's not a number! Try again!");
+            }
+        }
+    }
+
+    /**
+     * Displays how a repricing went, with the old and new totals of the
+     * first orders it repriced and any it could not.
+     * @param report the repricing report
+     */
+    public void displayRepriceReport(RepriceReport report) {
+        io.print("* * * * * * * REPRICING FINISHED * * * * * * *");
+        io.print(report.toString());
+        List<PriceChange> priceChanges = report.getPriceChanges();
+        for (PriceChange priceChange : priceChanges.subList(0, Math.min(priceChanges.size(), MAX_PRICE_CHANGES_SHOWN))) {
+            io.printF("    #%s on %s: $%.2f -> $%.2f (%+.2f)\n", priceChange.getOrderNumber(),
+                    priceChange.getDate().format(dateFormatter), priceChange.getBefore().getTotalCost(),
+                    priceChange.getAfter().getTotalCost(), priceChange.getDifference());
+        }
+        if (priceChanges.size() > MAX_PRICE_CHANGES_SHOWN) {
+            io.print("    ... and " + (priceChanges.size() - MAX_PRICE_CHANGES_SHOWN) + " more repriced orders");
+        }
+        for (OrderResult failure : report.getFailures()) {
+            io.print("    not repriced: " + failure);
+        }
+        io.print("");
+    }
+
     /**
      * Displays a note letting the user know they have just entered an unknown command.
      */
@@ -208,42 +410,67 @@ public class FlooringView {
     }
 
     /**
-     * Prompts the user for the order number.
+     * Prompts the user for the order number. The existing order numbers are
+     * shown as ranges, MAX_ORDER_NUMBER_RANGES at a time, and pressing enter
+     * instead of a number shows the next page of them.
+     * @param orderNumberRanges the existing order numbers, as ranges
      * @return the order number
      */
-    public Integer askForOrderNumber(Set<Integer> existingOrderNumbers) {
-
+    public Integer askForOrderNumber(List<String> orderNumberRanges) {
+        int shown = 0;
         while (true) {
+            if (shown < orderNumberRanges.size()) {
+                int end = Math.min(shown + MAX_ORDER_NUMBER_RANGES, orderNumberRanges.size());
+                io.print((shown == 0 ? "Here are all the existing order numbers: " : "More existing order numbers: ")
+                        + String.join(", ", orderNumberRanges.subList(shown, end)));
+                shown = end;
+            }
+
+            boolean more = shown < orderNumberRanges.size();
+            String input = io.readString(more
+                    ? "Which order number would you like to select? (press enter to see more)"
+                    : "Which order number would you like to select?").strip();
+            if (more && input.isEmpty()) {
+                continue;
+            }
             try {
-                io.print("Here are all the existing order numbers: " + existingOrderNumbers);
-                return io.readInt("Which order number would you like to select?");
+                return Integer.parseInt(input);
             } catch (NumberFormatException e) {
                 displayErrorMessage("That's not a number! try again.");
             }
         }
     }
 
+    /**
+     * Prompts the user for part of a customer's name to search for. Ending
+     * it with * only matches names that start with it.
+     * @return the text as typed, never blank
+     */
+    public String askForCustomerSearch() {
+        io.print("* * * * * * * * * * * *  SEARCH BY CUSTOMER  * * * * * * * * * * * *");
+        while (true) {
+            String text = io.readString("Enter any part of the customer's name (end it with * to match the start of the name): ");
+            if (!text.isBlank() && !text.strip().equals("*")) {
+                return text;
+            }
+            displayErrorMessage("The search cannot be blank.");
+        }
+    }
+
     /**
      * Prompts the user for the customer's name.
+     * @param validator the service's check of a customer name
      * @return the customer's name
      */
-    public String askForCustomerName() {
+    public String askForCustomerName(Consumer<String> validator) {
         while (true) {
             try {
                 String name = io.readString("Enter the customer name: ");
 
-                // name cannot be NULL
-                if (name.isBlank() || name == null || name.equals("\n")) {
-                    displayErrorMessage("Customer name cannot be blank.");
-                    continue;
-                }
-
-                // "[A-z0-9,. ]+"
-                if (name.matches("[\\p{Alnum},.'\s]*")) { // Check if valid
-                    return name;
-                }
-                displayErrorMessage("Invalid input. Please try again and enter a valid name.");
-
+                validator.accept(name);
+                return name;
+            } catch (InvalidOrderException e) {
+                displayErrorMessage(e.getMessage());
             } catch (Exception e) {
                 displayErrorMessage("Invalid input. Please try again and enter a valid name.");
             }
@@ -297,19 +524,18 @@ public class FlooringView {
 
     /**
      * Prompts the user for a FUTURE date in the format (MM/DD/YYYY).
+     * @param validator the service's check of an order date
      * @return the date, which must be in the future.
      */
-    public LocalDate askForFutureDate() {
-        LocalDate rightNow = LocalDate.now();
+    public LocalDate askForFutureDate(Consumer<LocalDate> validator) {
         while(true) {
             try {
                 LocalDate futureDateCandidate = io.readLocalDate("Enter a future date in the format (MM/DD/YYYY).", DateTimeFormatter.ofPattern("MM/dd/yyyy"));
-                if (futureDateCandidate.isAfter(rightNow)) {
-                    return futureDateCandidate;
-                } else {
-                    // just keep going
-                    io.print("The date must be in the future. Try again!");
-                }
+                validator.accept(futureDateCandidate);
+                return futureDateCandidate;
+            } catch (InvalidOrderException e) {
+                // just keep going
+                io.print(e.getMessage() + " Try again!");
             } catch (DateTimeParseException e) {
                 io.print("That's not the correct format. Try again!\n");
                 // keep prompting for a correct format (even if order doesn't exist)
@@ -353,12 +579,12 @@ public class FlooringView {
     }
 
     /**
-     * Prompts the user for the area they'd like to order, with a minimum of 100 square feet.
+     * Prompts the user for the area they'd like to order, which has to meet the minimum order.
+     * @param validator the service's check of an area
      * @return the area they'd like to order
      */
-    public BigDecimal askForArea() {
+    public BigDecimal askForArea(Consumer<BigDecimal> validator) {
         String areaString;
-        BigDecimal hundred = new BigDecimal("100");
 
         while (true) {
             try {
@@ -367,11 +593,10 @@ public class FlooringView {
                 BigDecimal area = new BigDecimal(areaString);
 
                 // if area reaches minimum, approve
-                if (area.compareTo(hundred) >= 0) {
-                    return area;
-                }
-
-                io.print("You need to order at least 100 square feet. Try again!");
+                validator.accept(area);
+                return area;
+            } catch (InvalidOrderException e) {
+                io.print(e.getMessage() + " Try again!");
             } catch (NumberFormatException e) {
                 displayErrorMessage("Tha'ts not a number! Try again!");
             }
@@ -444,9 +669,10 @@ public class FlooringView {
     /**
      * Asks for the edited customer name.
      * @param oldName the old name
+     * @param validator the service's check of a customer name
      * @return the new customer name
      */
-    public String askForEditedCustomerName(String oldName) {
+    public String askForEditedCustomerName(String oldName, Consumer<String> validator) {
         while (true) {
             String newName = io.readString("Enter the customer name (" + oldName + "): ");
 
@@ -455,11 +681,12 @@ public class FlooringView {
                 return oldName;
             }
 
-            if (newName.matches("[\\p{Alnum},.'\s]*")) { // Check if valid
+            try {
+                validator.accept(newName);
                 return newName;
+            } catch (InvalidOrderException e) {
+                io.print(e.getMessage());
             }
-
-            io.print("Invalid input. Please try again and enter a valid name.");
         }
     }
 
@@ -528,11 +755,11 @@ public class FlooringView {
     /**
      * Ask for edited area.
      * @param oldArea the old area
+     * @param validator the service's check of an area
      * @return the new area
      */
-    public BigDecimal askForEditedArea(BigDecimal oldArea) {
+    public BigDecimal askForEditedArea(BigDecimal oldArea, Consumer<BigDecimal> validator) {
         String newAreaString;
-        BigDecimal hundred = new BigDecimal("100");
 
         while (true) {
             try {
@@ -545,11 +772,10 @@ public class FlooringView {
                 BigDecimal newArea = new BigDecimal(newAreaString);
 
                 // if area reaches minimum, approve
-                if (newArea.compareTo(hundred) >= 0) {
-                    return newArea;
-                }
-
-                displayErrorMessage("You need to order at least 100 square feet. Try again!");
+                validator.accept(newArea);
+                return newArea;
+            } catch (InvalidOrderException e) {
+                displayErrorMessage(e.getMessage() + " Try again!");
             } catch (NumberFormatException e) {
                 displayErrorMessage("Please enter a number.");
             }
@@ -0,0 +1,119 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.Tax;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactOrderTest {
+
+    private final Tax tax = new Tax("TX", "Texas", new BigDecimal("4.45"));
+    private final Product product = new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10"));
+
+    private Order order(String area, String materialCost, String laborCost, String taxCost, String totalCost) {
+        Order order = new Order(7, new String("Ada Lovelace"), tax, product, new BigDecimal(area),
+                LocalDate.of(2026, 10, 10));
+        order.setCostPerSquareFoot(product.getCostPerSquareFoot());
+        order.setLaborCostPerSquareFoot(product.getLaborCostPerSquareFoot());
+        order.setMaterialCost(materialCost == null ? null : new BigDecimal(materialCost));
+        order.setLaborCost(laborCost == null ? null : new BigDecimal(laborCost));
+        order.setTax(taxCost == null ? null : new BigDecimal(taxCost));
+        order.setTotalCost(totalCost == null ? null : new BigDecimal(totalCost));
+        order.setVersion(3);
+        return order;
+    }
+
+    /**
+     * Tests that an order comes back exactly as it went in, scales included,
+     * whether its amounts fit in ten-thousandths, are too wide for them, or
+     * are missing, and that the date and customer name are shared.
+     */
+    @Test
+    public void testRoundTrip() {
+        Order[] orders = {
+                order("100", "225.0000", "210.00", "19.3595", "454.3595"),
+                order("-0.5", "-1.125", "-1.05", "-0.0968", "-2.2718"),
+                order("100.00001", "225.0000225", "210.000021", "19.35750194", "454.35752444"),
+                order("90000000000000000000", "202500000000000000000", "1.00", "0", "202500000000000000001.00"),
+                order("100", null, null, null, null),
+        };
+        for (Order order : orders) {
+            CompactOrder compact = CompactOrder.of(order);
+            Order back = compact.toOrder();
+            assertEquals(order, back);
+            assertEquals(order.getArea().scale(), back.getArea().scale());
+            assertEquals(3, back.getVersion());
+            assertEquals(order.getMaterialCost(), compact.getMaterialCost());
+        }
+
+        CompactOrder first = CompactOrder.of(orders[0]);
+        CompactOrder second = CompactOrder.of(order("1", "2.25", "2.10", "0.1936", "4.5436"));
+        assertSame(first.getCustomerName(), second.getCustomerName());
+        assertSame(first.getDate(), second.getDate());
+        assertEquals(4, first.withVersion(4).getVersion());
+        assertEquals(3, first.getVersion());
+    }
+
+    /**
+     * Tests that the codec writes a CompactOrder as the same line as the
+     * Order it came from, rounding each amount up to cents.
+     */
+    @Test
+    public void testEncodesLikeOrder() {
+        OrderCodec codec = new OrderCodec(Map.of("TX", tax), Map.of("Carpet", product));
+        Order[] orders = {
+                order("100", "225.0000", "210.00", "19.3595", "454.3595"),
+                order("-0.5", "-1.125", "-1.05", "-0.0968", "-2.2718"),
+                order("0.01", "0.0225", "0.021", "0.0020", "0.0455"),
+                order("100.00001", "225.0000225", "210.000021", "19.35750194", "454.35752444"),
+        };
+        for (Order order : orders) {
+            assertEquals(codec.encode(order), codec.encode(CompactOrder.of(order)));
+        }
+        assertEquals("7;Ada Lovelace;TX;4.45;Carpet;-0.50;2.25;2.10;-1.13;-1.05;-0.10;-2.28",
+                codec.encode(CompactOrder.of(orders[1])));
+    }
+
+    /**
+     * Tests that rounding to cents gives what the codec writes, and what
+     * reading the line back gives, scales included, leaves missing costs
+     * missing, and leaves an order already in cents as it is.
+     */
+    @Test
+    public void testInCents() {
+        OrderCodec codec = new OrderCodec(Map.of("TX", tax), Map.of("Carpet", product));
+        Order[] orders = {
+                order("100", "225.0000", "210.00", "19.3595", "454.3595"),
+                order("-0.5", "-1.125", "-1.05", "-0.0968", "-2.2718"),
+                order("100.00001", "225.0000225", "210.000021", "19.35750194", "454.35752444"),
+        };
+        for (Order order : orders) {
+            CompactOrder inCents = CompactOrder.of(order).inCents();
+            String line = codec.encode(order);
+            assertEquals(line, codec.encode(inCents));
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            Order back = codec.decodeOrder(buffer, 0, buffer.limit(), order.getDate());
+            assertEquals(back.getArea(), inCents.getArea());
+            assertEquals(back.getMaterialCost(), inCents.getMaterialCost());
+            assertEquals(back.getTax(), inCents.getTax());
+            assertEquals(back.getTotalCost(), inCents.getTotalCost());
+            assertEquals(3, inCents.getVersion());
+        }
+
+        CompactOrder inCents = CompactOrder.of(orders[0]).inCents();
+        assertEquals(new BigDecimal("19.36"), inCents.getTax());
+        assertSame(inCents, inCents.inCents());
+
+        CompactOrder unpriced = CompactOrder.of(order("100", null, null, null, null)).inCents();
+        assertEquals(new BigDecimal("100.00"), unpriced.getArea());
+        assertNull(unpriced.getTax());
+    }
+}
@@ -0,0 +1,88 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.Tax;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomerNameIndexTest {
+
+    private final Tax tax = new Tax("TX", "Texas", new BigDecimal("4.45"));
+    private final Product product = new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10"));
+    private final LocalDate date = LocalDate.of(2026, 10, 10);
+
+    private CompactOrder order(int orderNumber, String customerName) {
+        return CompactOrder.of(new Order(orderNumber, customerName, tax, product, new BigDecimal("100"), date));
+    }
+
+    private final Map<Integer, String> names = new HashMap<>();
+
+    private CustomerNameIndex indexOf(CompactOrder... orders) {
+        CustomerNameIndex index = new CustomerNameIndex();
+        for (CompactOrder order : orders) {
+            index.add(order);
+            names.put(order.getOrderNumber(), order.getCustomerName());
+        }
+        return index;
+    }
+
+    /**
+     * Tests prefix searches ignore case and leading spaces, and come back by
+     * order number across several names.
+     */
+    @Test
+    public void testStartingWith() {
+        CustomerNameIndex index = indexOf(order(4, "Ada Lovelace"), order(1, "adam Smith"),
+                order(3, " Alan Turing"), order(2, "Ada Lovelace"), order(5, "Grace Hopper"));
+
+        assertArrayEquals(new int[] {1, 2, 4}, index.startingWith("  ADA", names::get, 0, 10));
+        assertArrayEquals(new int[] {1, 2, 3, 4}, index.startingWith("a", names::get, 0, 10));
+        assertArrayEquals(new int[] {2, 3}, index.startingWith("a", names::get, 1, 2));
+        assertArrayEquals(new int[0], index.startingWith("zed", names::get, 0, 10));
+        assertArrayEquals(new int[] {3}, index.startingWith("alan tu", names::get, 0, 10));
+        // "lovelace" is in a name, just not at the start of one
+        assertArrayEquals(new int[0], index.startingWith("lovelace", names::get, 0, 10));
+    }
+
+    /**
+     * Tests substring searches, including text shorter than three characters
+     * and text whose runs are all in a name but not next to each other.
+     */
+    @Test
+    public void testContaining() {
+        CustomerNameIndex index = indexOf(order(1, "Ada Lovelace"), order(2, "Grace Hopper"),
+                order(3, "Alan Turing"), order(4, "Cela Grace"));
+
+        assertArrayEquals(new int[] {1, 2, 4}, index.containing("ACE", names::get, 0, 10));
+        assertArrayEquals(new int[] {1}, index.containing("lace", names::get, 0, 10));
+        assertArrayEquals(new int[] {3, 4}, index.containing("r", names::get, 1, 10));
+        // "Cela Grace" has both "ace" and "cel" but not "acel"
+        assertArrayEquals(new int[0], index.containing("acel", names::get, 0, 10));
+    }
+
+    /**
+     * Tests that a removed order is no longer found, through its name or its
+     * runs, and that clearing empties the index.
+     */
+    @Test
+    public void testRemove() {
+        CompactOrder ada = order(1, "Ada Lovelace");
+        CustomerNameIndex index = indexOf(ada, order(2, "Grace Hopper"));
+
+        index.remove(ada);
+        assertArrayEquals(new int[0], index.containing("love", names::get, 0, 10));
+        assertArrayEquals(new int[0], index.get("ada lovelace").toArray());
+        assertArrayEquals(new int[] {2}, index.containing("e", names::get, 0, 10));
+
+        index.clear();
+        assertArrayEquals(new int[0], index.containing("hop", names::get, 0, 10));
+        assertArrayEquals(new int[0], index.containing("", names::get, 0, 10));
+    }
+}
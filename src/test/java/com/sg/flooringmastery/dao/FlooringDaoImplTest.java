@@ -3,15 +3,30 @@ package com.sg.flooringmastery.dao;
 import com.sg.flooringmastery.dto.Order;
 import com.sg.flooringmastery.dto.Product;
 import com.sg.flooringmastery.dto.Tax;
+import com.sg.flooringmastery.service.PricingEngine;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 import java.io.FileWriter;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,6 +34,15 @@ public class FlooringDaoImplTest {
 
     FlooringDao testDao;
 
+    // the real DAOs below work in a folder of their own, and are closed after each test
+    @TempDir
+    Path folder;
+    List<FlooringDaoImpl> opened = new ArrayList<>();
+
+    private final LocalDate firstDate = LocalDate.of(2026, 10, 10);
+    private final LocalDate secondDate = LocalDate.of(2026, 10, 11);
+    private final LocalDate thirdDate = LocalDate.of(2026, 10, 12);
+
     public FlooringDaoImplTest() {
 
     }
@@ -26,6 +50,55 @@ public class FlooringDaoImplTest {
     @BeforeEach
     public void setUp() throws Exception{
         testDao = new FlooringDaoStubImpl();
+
+        Files.writeString(folder.resolve("Products.txt"),
+                "ProductType;CostPerSquareFoot;LaborCostPerSquareFoot\nCarpet;2.25;2.10\nWood;5.15;4.75\n");
+        Files.writeString(folder.resolve("Taxes.txt"),
+                "State;StateName;TaxRate\nTX;Texas;4.45\nCA;California;25.00\n");
+        Files.createDirectory(folder.resolve("orders"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        opened.forEach(FlooringDaoImpl::close);
+    }
+
+    /**
+     * Opens a real DAO on the test folder.
+     */
+    private FlooringDaoImpl open(FlooringDaoOptions options) {
+        FlooringDaoImpl dao = new FlooringDaoImpl(folder.toString(), options);
+        dao.open();
+        opened.add(dao);
+        return dao;
+    }
+
+    private FlooringDaoImpl open(PersistenceMode mode, boolean lazyLoad) {
+        FlooringDaoOptions options = new FlooringDaoOptions();
+        options.setPersistenceMode(mode);
+        options.setLazyLoad(lazyLoad);
+        options.setMaxResidentDates(1);
+        options.setFlushWindowMillis(1);
+        return open(options);
+    }
+
+    private void close(FlooringDaoImpl dao) {
+        opened.remove(dao);
+        dao.close();
+    }
+
+    /**
+     * Makes a priced order, numbered by the DAO unless a number is given.
+     */
+    private Order order(FlooringDao dao, Integer orderNumber, String customerName, String state, String productType,
+                        String area, LocalDate date) {
+        Product product = dao.getProductFromProductType(productType);
+        Order order = new Order(orderNumber == null ? dao.getNextOrderNumber() : orderNumber, customerName,
+                dao.getTaxInfoFromAbbr(state), product, new BigDecimal(area), date);
+        order.setCostPerSquareFoot(product.getCostPerSquareFoot());
+        order.setLaborCostPerSquareFoot(product.getLaborCostPerSquareFoot());
+        PricingEngine.price(order);
+        return order;
     }
 
     /**
@@ -121,4 +194,263 @@ public class FlooringDaoImplTest {
         assertNull(testDao.getOrder(orderNumber));
     }
 
-}
\ No newline at end of file
+    /**
+     * Tests that adds, a replace that moves an order to another date and a
+     * remove all come back the same after the DAO is closed and opened
+     * again, in every persistence mode.
+     */
+    @ParameterizedTest
+    @EnumSource(PersistenceMode.class)
+    public void testChangesSurviveReload(PersistenceMode mode) {
+        // 1. add three orders over two dates, move one and remove another
+        FlooringDaoImpl dao = open(mode, false);
+        Order first = order(dao, null, "Ada Lovelace", "TX", "Carpet", "100.00", firstDate);
+        Order second = order(dao, null, "Alan Turing", "CA", "Wood", "250.50", firstDate);
+        Order third = order(dao, null, "Grace Hopper", "TX", "Wood", "101.25", secondDate);
+        dao.addOrder(first);
+        dao.addOrder(second);
+        dao.addOrder(third);
+        Order moved = order(dao, second.getOrderNumber(), "Alan Turing", "TX", "Carpet", "300.00", secondDate);
+        dao.replaceOrder(moved, dao.getOrder(second.getOrderNumber()).getVersion());
+        dao.removeOrder(first.getOrderNumber());
+
+        Set<Order> before = dao.getOrdersForDate(secondDate);
+        assertEquals(2, before.size());
+        close(dao);
+
+        // 2. open it again and compare
+        FlooringDaoImpl reopened = open(mode, false);
+        assertNull(reopened.getOrder(first.getOrderNumber()));
+        assertTrue(reopened.getOrdersForDate(firstDate).isEmpty());
+        assertEquals(before, reopened.getOrdersForDate(secondDate));
+        assertEquals(Set.of(second.getOrderNumber(), third.getOrderNumber()), reopened.getAllOrderNumbers());
+        assertTrue(reopened.getNextOrderNumber() > third.getOrderNumber());
+    }
+
+    /**
+     * Tests that a DAO refuses to be used before it is opened and after it
+     * is closed.
+     */
+    @Test
+    public void testUseBeforeOpenThrows() {
+        FlooringDaoImpl dao = new FlooringDaoImpl(folder.toString());
+        assertThrows(IllegalStateException.class, () -> dao.getTaxInfoFromAbbr("TX"));
+        assertThrows(IllegalStateException.class, dao::getNextOrderNumber);
+
+        dao.open();
+        assertNotNull(dao.getTaxInfoFromAbbr("TX"));
+        dao.close();
+        assertThrows(IllegalStateException.class, () -> dao.getOrdersForDate(firstDate));
+    }
+
+    /**
+     * Tests that changes only in the journal when the process died are
+     * replayed into memory and folded into the date files on the next open.
+     */
+    @Test
+    public void testReplaysJournalAfterCrash() throws Exception {
+        // 1. a clean run leaves two orders in the date files
+        FlooringDaoOptions options = new FlooringDaoOptions();
+        options.setPersistenceMode(PersistenceMode.JOURNALED);
+        options.setCompactionIntervalMillis(60 * 60 * 1000);
+        FlooringDaoImpl dao = open(options);
+        Order first = order(dao, null, "Ada Lovelace", "TX", "Carpet", "100.00", firstDate);
+        Order second = order(dao, null, "Alan Turing", "CA", "Wood", "250.50", firstDate);
+        dao.addOrder(first);
+        dao.addOrder(second);
+        close(dao);
+
+        // 2. the next run changes them and dies before compacting; it is
+        // never closed, which is all a crash leaves behind
+        FlooringDaoImpl crashed = new FlooringDaoImpl(folder.toString(), options);
+        crashed.open();
+        Order edited = order(crashed, first.getOrderNumber(), "Ada King", "TX", "Wood", "120.00", secondDate);
+        crashed.replaceOrder(edited, crashed.getOrder(first.getOrderNumber()).getVersion());
+        crashed.removeOrder(second.getOrderNumber());
+        Order added = order(crashed, null, "Grace Hopper", "CA", "Carpet", "75.00", firstDate);
+        crashed.addOrder(added);
+        Order expectedEdit = crashed.getOrder(first.getOrderNumber());
+        Order expectedAdd = crashed.getOrder(added.getOrderNumber());
+        assertTrue(Files.size(folder.resolve("orders.journal")) > 0);
+
+        // 3. the journal is replayed on the next open
+        FlooringDaoImpl recovered = open(options);
+        assertEquals(expectedEdit, recovered.getOrder(first.getOrderNumber()));
+        assertEquals(expectedAdd, recovered.getOrder(added.getOrderNumber()));
+        assertNull(recovered.getOrder(second.getOrderNumber()));
+        assertTrue(recovered.getNextOrderNumber() > added.getOrderNumber());
+        close(recovered);
+
+        // 4. and was folded into the date files, which are all an unjournaled DAO reads
+        FlooringDaoImpl plain = open(PersistenceMode.IMMEDIATE, false);
+        assertEquals(Set.of(expectedEdit), plain.getOrdersForDate(secondDate));
+        assertEquals(Set.of(expectedAdd), plain.getOrdersForDate(firstDate));
+    }
+
+    /**
+     * Tests that with only one date kept in memory, orders of dates that
+     * were evicted are read back when asked for, and can still be changed.
+     */
+    @ParameterizedTest
+    @EnumSource(PersistenceMode.class)
+    public void testGetOrderAfterEviction(PersistenceMode mode) {
+        // 1. orders on three dates, written out by a DAO that has them all
+        FlooringDaoImpl dao = open(mode, false);
+        List<Order> orders = new ArrayList<>();
+        for (LocalDate date : List.of(firstDate, secondDate, thirdDate)) {
+            Order order = order(dao, null, "Customer " + date, "TX", "Carpet", "100.00", date);
+            dao.addOrder(order);
+            orders.add(dao.getOrder(order.getOrderNumber()));
+        }
+        close(dao);
+
+        // 2. a lazy DAO keeping one date reads each back in turn, evicting the one before
+        FlooringDaoImpl lazy = open(mode, true);
+        for (int round = 0; round < 2; round++) {
+            for (Order order : orders) {
+                assertEquals(order, lazy.getOrder(order.getOrderNumber()));
+            }
+        }
+        assertEquals(Set.of(orders.get(0)), lazy.getOrdersForDate(firstDate));
+
+        // 3. an evicted date is loaded again to be changed
+        Order edited = order(lazy, orders.get(1).getOrderNumber(), "Edited", "CA", "Wood", "10.00", secondDate);
+        lazy.replaceOrder(edited, lazy.getOrder(edited.getOrderNumber()).getVersion());
+        lazy.getOrder(orders.get(2).getOrderNumber());
+        Order expected = lazy.getOrder(edited.getOrderNumber());
+        assertEquals("Edited", expected.getCustomerName());
+        close(lazy);
+
+        assertEquals(Set.of(expected), open(mode, false).getOrdersForDate(secondDate));
+    }
+
+    /**
+     * Tests that a replace started from an old version of an order, or from
+     * an order since removed, is turned down and leaves the order as it was.
+     */
+    @ParameterizedTest
+    @EnumSource(PersistenceMode.class)
+    public void testStaleReplaceThrows(PersistenceMode mode) {
+        FlooringDaoImpl dao = open(mode, false);
+        Order order = order(dao, null, "Ada Lovelace", "TX", "Carpet", "100.00", firstDate);
+        dao.addOrder(order);
+        long version = dao.getOrder(order.getOrderNumber()).getVersion();
+
+        // 1. the first edit from that version wins
+        dao.replaceOrder(order(dao, order.getOrderNumber(), "First Edit", "TX", "Carpet", "100.00", firstDate), version);
+        Order current = dao.getOrder(order.getOrderNumber());
+        assertEquals("First Edit", current.getCustomerName());
+
+        // 2. the second, started from the same version, doesn't
+        Order late = order(dao, order.getOrderNumber(), "Second Edit", "TX", "Carpet", "100.00", firstDate);
+        assertThrows(StaleOrderException.class, () -> dao.replaceOrder(late, version));
+        assertEquals(current, dao.getOrder(order.getOrderNumber()));
+
+        // 3. nor does an edit of an order that is gone
+        dao.removeOrder(order.getOrderNumber());
+        assertThrows(StaleOrderException.class, () -> dao.replaceOrder(late, current.getVersion()));
+        assertNull(dao.getOrder(order.getOrderNumber()));
+    }
+
+    /**
+     * Tests readers and writers working on one DAO at the same time. Every
+     * set a reader gets back stays as it was while the writers carry on, no
+     * change is lost in memory or on disk, and of the edits racing on one
+     * order from the same version exactly one gets in.
+     */
+    @ParameterizedTest
+    @EnumSource(PersistenceMode.class)
+    public void testConcurrentReadersAndWriters(PersistenceMode mode) throws Exception {
+        FlooringDaoImpl dao = open(mode, false);
+        Order contended = order(dao, null, "Contended", "TX", "Carpet", "100.00", firstDate);
+        dao.addOrder(contended);
+        List<LocalDate> dates = List.of(firstDate, secondDate, thirdDate);
+        int writers = 4;
+        int readers = 4;
+        int ordersPerWriter = 60;
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers + readers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<Set<Order>>> written = new ArrayList<>();
+        List<Future<Integer>> read = new ArrayList<>();
+        try {
+            // 1. each writer adds orders across the dates, edits them all and removes every third
+            for (int w = 0; w < writers; w++) {
+                String writer = "Writer " + w;
+                written.add(executor.submit(() -> {
+                    start.await();
+                    Set<Order> kept = new HashSet<>();
+                    for (int i = 0; i < ordersPerWriter; i++) {
+                        Order order = order(dao, null, writer, "TX", "Carpet", "100.00", dates.get(i % dates.size()));
+                        dao.addOrder(order, false);
+                        Order edited = order(dao, order.getOrderNumber(), writer + " Edited", "CA", "Wood",
+                                "10.00", order.getDate());
+                        dao.replaceOrder(edited, dao.getOrder(order.getOrderNumber()).getVersion(), false);
+                        if (i % 3 == 0) {
+                            dao.removeOrder(order.getOrderNumber(), false);
+                        } else {
+                            kept.add(dao.getOrder(order.getOrderNumber()));
+                        }
+                    }
+                    // one more edit of the shared order, racing the other writers from the same version
+                    try {
+                        dao.replaceOrder(order(dao, contended.getOrderNumber(), writer, "TX", "Carpet", "100.00",
+                                firstDate), 0);
+                    } catch (StaleOrderException e) {
+                        // another writer got there first
+                    }
+                    return kept;
+                }));
+            }
+
+            // 2. readers keep taking sets of a date and check them again later, at least once each
+            for (int r = 0; r < readers; r++) {
+                read.add(executor.submit(() -> {
+                    start.await();
+                    int checks = 0;
+                    do {
+                        for (LocalDate date : dates) {
+                            Set<Order> orders = dao.getOrdersForDate(date);
+                            List<Order> before = new ArrayList<>(orders);
+                            for (Order order : before) {
+                                assertEquals(date, order.getDate());
+                            }
+                            Set<Integer> numbers = dao.getAllOrderNumbers();
+                            List<Integer> numbersBefore = new ArrayList<>(numbers);
+                            dao.getSalesTotals(date);
+                            assertEquals(before, new ArrayList<>(orders));
+                            assertEquals(numbersBefore, new ArrayList<>(numbers));
+                            checks++;
+                        }
+                    } while (writing.get());
+                    return checks;
+                }));
+            }
+
+            start.countDown();
+            Set<Order> expected = new HashSet<>();
+            for (Future<Set<Order>> kept : written) {
+                expected.addAll(kept.get(2, TimeUnit.MINUTES));
+            }
+            writing.set(false);
+            for (Future<Integer> checks : read) {
+                assertTrue(checks.get(2, TimeUnit.MINUTES) > 0);
+            }
+
+            // 3. every kept order is there, and nothing else the writers made
+            assertEquals(1, dao.getOrder(contended.getOrderNumber()).getVersion());
+            expected.add(dao.getOrder(contended.getOrderNumber()));
+            Set<Order> all = dao.getOrdersBetween(firstDate, thirdDate);
+            assertEquals(expected, all);
+            assertEquals(writers * (ordersPerWriter - ordersPerWriter / 3) + 1, all.size());
+
+            // 4. and the same orders come back from the files
+            close(dao);
+            assertEquals(expected, open(mode, false).getOrdersBetween(firstDate, thirdDate));
+        } finally {
+            writing.set(false);
+            executor.shutdownNow();
+        }
+    }
+}
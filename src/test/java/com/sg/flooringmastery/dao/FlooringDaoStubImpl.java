@@ -1,7 +1,11 @@
 package com.sg.flooringmastery.dao;
 
 import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.OrderQuery;
+import com.sg.flooringmastery.dto.OrderResult;
 import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.SalesSummary;
+import com.sg.flooringmastery.dto.SalesTotals;
 import com.sg.flooringmastery.dto.Tax;
 
 import java.io.File;
@@ -13,6 +17,7 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * A stub implementation of FlooringDao that hard codes all relevant values.
@@ -95,6 +100,56 @@ public class FlooringDaoStubImpl implements FlooringDao {
         return orderMap.values().stream().filter(order -> order.getDate().equals(date)).collect(Collectors.toSet());
     }
 
+    public Set<Order> getOrdersBetween(LocalDate from, LocalDate to) {
+        return orderMap.values().stream()
+                .filter(order -> !order.getDate().isBefore(from) && !order.getDate().isAfter(to))
+                .collect(Collectors.toSet());
+    }
+
+    public Stream<Order> streamOrdersForDate(LocalDate date, int offset, int limit) {
+        return orderMap.values().stream().filter(order -> order.getDate().equals(date))
+                .sorted(Comparator.comparing(Order::getOrderNumber)).skip(offset).limit(limit);
+    }
+
+    public Stream<Order> streamOrdersBetween(LocalDate from, LocalDate to, int offset, int limit) {
+        return orderMap.values().stream()
+                .filter(order -> !order.getDate().isBefore(from) && !order.getDate().isAfter(to))
+                .sorted(Comparator.comparing(Order::getOrderNumber)).skip(offset).limit(limit);
+    }
+
+    public Stream<Order> findOrders(OrderQuery query, int offset, int limit) {
+        return orderMap.values().stream().filter(query::matches)
+                .sorted(Comparator.comparing(Order::getOrderNumber)).skip(offset).limit(limit);
+    }
+
+    public Stream<Order> findOrdersByCustomerPrefix(String prefix, int offset, int limit) {
+        return orderMap.values().stream().filter(order -> CustomerNameIndex.startsWith(order.getCustomerName(), prefix))
+                .sorted(Comparator.comparing(Order::getOrderNumber)).skip(offset).limit(limit);
+    }
+
+    public Stream<Order> findOrdersByCustomerSubstring(String fragment, int offset, int limit) {
+        return orderMap.values().stream().filter(order -> CustomerNameIndex.contains(order.getCustomerName(), fragment))
+                .sorted(Comparator.comparing(Order::getOrderNumber)).skip(offset).limit(limit);
+    }
+
+    public SalesSummary getSalesSummary() {
+        SalesAggregates sales = new SalesAggregates();
+        orderMap.values().forEach(order -> sales.add(CompactOrder.of(order)));
+        return sales.summary();
+    }
+
+    public SalesSummary getSalesSummary(LocalDate from, LocalDate to) {
+        OrderColumns columns = new OrderColumns();
+        orderMap.values().forEach(order -> columns.add(CompactOrder.of(order)));
+        return columns.summary(from, to);
+    }
+
+    public SalesTotals getSalesTotals(LocalDate date) {
+        SalesAggregates sales = new SalesAggregates();
+        orderMap.values().forEach(order -> sales.add(CompactOrder.of(order)));
+        return sales.forDate(date);
+    }
+
     public Integer getNextOrderNumber() {
         return ++orderNumberTracker;
     }
@@ -103,10 +158,68 @@ public class FlooringDaoStubImpl implements FlooringDao {
         orderMap.put(order.getOrderNumber(), order);
     }
 
+    public void addOrder(Order order, boolean awaitWrite) {
+        addOrder(order);
+    }
+
+    public void replaceOrder(Order order, long expectedVersion) {
+        Order current = orderMap.get(order.getOrderNumber());
+        if (current == null || current.getVersion() != expectedVersion) {
+            throw new StaleOrderException("Order #" + order.getOrderNumber() + " was changed by someone else since it was read.");
+        }
+        order.setVersion(expectedVersion + 1);
+        orderMap.put(order.getOrderNumber(), order);
+    }
+
+    public void replaceOrder(Order order, long expectedVersion, boolean awaitWrite) {
+        replaceOrder(order, expectedVersion);
+    }
+
     public void removeOrder(Integer orderNumber) {
         orderMap.remove(orderNumber);
     }
 
+    public void removeOrder(Integer orderNumber, boolean awaitWrite) {
+        removeOrder(orderNumber);
+    }
+
+    public List<OrderResult> addOrders(Collection<Order> orders) {
+        List<OrderResult> results = new ArrayList<>();
+        for (Order order : orders) {
+            if (orderMap.containsKey(order.getOrderNumber())) {
+                results.add(new OrderResult(order.getOrderNumber(), "Order #" + order.getOrderNumber() + " already exists."));
+            } else {
+                addOrder(order);
+                results.add(new OrderResult(order.getOrderNumber(), order));
+            }
+        }
+        return results;
+    }
+
+    public List<OrderResult> replaceOrders(Collection<Order> orders) {
+        List<OrderResult> results = new ArrayList<>();
+        for (Order order : orders) {
+            try {
+                replaceOrder(order, order.getVersion());
+                results.add(new OrderResult(order.getOrderNumber(), order));
+            } catch (StaleOrderException e) {
+                results.add(new OrderResult(order.getOrderNumber(), e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    public List<OrderResult> removeOrders(Collection<Integer> orderNumbers) {
+        List<OrderResult> results = new ArrayList<>();
+        for (Integer orderNumber : orderNumbers) {
+            Order removed = orderMap.remove(orderNumber);
+            results.add(removed == null
+                    ? new OrderResult(orderNumber, "Order #" + orderNumber + " does not exist.")
+                    : new OrderResult(orderNumber, removed));
+        }
+        return results;
+    }
+
     public Tax getTaxInfoFromAbbr(String stateAbbr) {
         return taxMap.get(stateAbbr);
     }
@@ -123,10 +236,25 @@ public class FlooringDaoStubImpl implements FlooringDao {
         return new HashSet<>(productMap.values());
     }
 
+    public void updateProduct(Product product) {
+        productMap.put(product.getProductType(), product);
+    }
+
+    public void updateTax(Tax tax) {
+        taxMap.put(tax.getStateAbbr(), tax);
+    }
+
     public Set<Integer> getAllOrderNumbers() {
         return new HashSet<>(orderMap.keySet());
     }
 
+    @Override
+    public List<String> getOrderNumberRanges() {
+        OrderNumberSet orderNumbers = new OrderNumberSet();
+        orderNumbers.addAll(orderMap.keySet());
+        return orderNumbers.ranges();
+    }
+
     @Override
     public void writeData() {
         try {
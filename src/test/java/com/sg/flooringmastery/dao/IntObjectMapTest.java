@@ -0,0 +1,57 @@
+package com.sg.flooringmastery.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntObjectMapTest {
+
+    /**
+     * Tests that random puts and removes leave the map matching a HashMap,
+     * which exercises growing and the shifting done on remove.
+     */
+    @Test
+    public void testMatchesHashMap() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(2000) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = -100; key < 1900; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertEquals(expected.keySet(), new HashSet<>(map.keySet()));
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+    }
+
+    /**
+     * Tests that the key view follows the map and can't change it.
+     */
+    @Test
+    public void testKeySetView() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "one");
+
+        Set<Integer> keys = map.keySet();
+        map.put(2, "two");
+        assertTrue(keys.contains(2));
+        assertEquals(2, keys.size());
+        assertThrows(UnsupportedOperationException.class, () -> keys.add(3));
+    }
+}
@@ -0,0 +1,83 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.Tax;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares the throughput of OrderCodec with the old String.split() and
+ * new BigDecimal(String) unmarshalling. Not a unit test, run main() directly.
+ */
+public class OrderCodecBenchmark {
+
+    private static final int LINES = 200_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        Map<String, Tax> taxMap = new HashMap<>();
+        taxMap.put("KY", new Tax("KY", "Kentucky", new BigDecimal("6.00")));
+        taxMap.put("CA", new Tax("CA", "California", new BigDecimal("25.00")));
+        Map<String, Product> productMap = new HashMap<>();
+        productMap.put("Carpet", new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10")));
+        productMap.put("Tile", new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15")));
+
+        StringBuilder file = new StringBuilder("OrderNumber;CustomerName;State;TaxRate;ProductType;Area;"
+                + "CostPerSquareFoot;LaborCostPerSquareFoot;MaterialCost;LaborCost;Tax;Total\n");
+        for (int i = 1; i <= LINES; i++) {
+            file.append(i).append(i % 2 == 0
+                    ? ";Acme, Inc.;KY;6.00;Carpet;103.00;2.25;2.10;231.75;216.30;26.89;474.94\n"
+                    : ";Ada Lovelace;CA;25.00;Tile;249.00;3.50;4.15;871.50;1033.35;476.22;2381.07\n");
+        }
+        String text = file.toString();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+        OrderCodec codec = new OrderCodec(taxMap, productMap);
+        LocalDate date = LocalDate.of(2026, 10, 10);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            long checksum = 0;
+            String[] lines = text.split("\n");
+            for (int i = 1; i < lines.length; i++) {
+                checksum += splitAndParse(lines[i], date, taxMap, productMap).getOrderNumber();
+            }
+            report("split + BigDecimal(String)", round, start, checksum);
+
+            start = System.nanoTime();
+            long[] sum = {0};
+            codec.decodeOrders(ByteBuffer.wrap(bytes), date, order -> sum[0] += order.getOrderNumber());
+            report("OrderCodec", round, start, sum[0]);
+        }
+    }
+
+    /**
+     * The unmarshalling FlooringDaoImpl used before OrderCodec.
+     */
+    private static Order splitAndParse(String line, LocalDate date, Map<String, Tax> taxMap,
+                                       Map<String, Product> productMap) {
+        String[] tokens = line.split(";");
+        Order order = new Order(Integer.parseInt(tokens[0]), tokens[1], taxMap.get(tokens[2]),
+                productMap.get(tokens[4]), new BigDecimal(tokens[5]), date);
+        order.setTax(new BigDecimal(tokens[3]));
+        order.setCostPerSquareFoot(new BigDecimal(tokens[6]));
+        order.setLaborCostPerSquareFoot(new BigDecimal(tokens[7]));
+        order.setMaterialCost(new BigDecimal(tokens[8]));
+        order.setLaborCost(new BigDecimal(tokens[9]));
+        order.setTax(new BigDecimal(tokens[10]));
+        order.setTotalCost(new BigDecimal(tokens[11]));
+        return order;
+    }
+
+    private static void report(String name, int round, long start, long checksum) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("round %d  %-28s %,12.0f lines/sec  (checksum %d)%n",
+                round, name, LINES / seconds, checksum);
+    }
+}
@@ -0,0 +1,112 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.Tax;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderCodecTest {
+
+    private static final String HEADER =
+            "OrderNumber;CustomerName;State;TaxRate;ProductType;Area;CostPerSquareFoot;LaborCostPerSquareFoot;MaterialCost;LaborCost;Tax;Total";
+    private static final String LINE = "6;My Awesome TEst;KY;6.00;Carpet;103.00;2.25;2.10;231.75;216.30;26.89;474.94";
+
+    OrderCodec codec;
+    Map<String, Tax> taxMap = new HashMap<>();
+    Map<String, Product> productMap = new HashMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        taxMap.put("KY", new Tax("KY", "Kentucky", new BigDecimal("6.00")));
+        productMap.put("Carpet", new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10")));
+        codec = new OrderCodec(taxMap, productMap);
+    }
+
+    /**
+     * Tests that decoding gives the same values new BigDecimal(String) would.
+     */
+    @Test
+    public void testDecodeOrders() {
+        byte[] file = (HEADER + "\r\n" + LINE + "\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+        List<Order> orders = new ArrayList<>();
+        codec.decodeOrders(ByteBuffer.wrap(file), LocalDate.of(2025, 3, 7), orders::add);
+
+        assertEquals(1, orders.size());
+        Order order = orders.get(0);
+        assertEquals(6, order.getOrderNumber());
+        assertEquals("My Awesome TEst", order.getCustomerName());
+        assertSame(taxMap.get("KY"), order.getTaxInfo());
+        assertSame(productMap.get("Carpet"), order.getProduct());
+        assertEquals(new BigDecimal("103.00"), order.getArea());
+        assertEquals(new BigDecimal("231.75"), order.getMaterialCost());
+        assertEquals(new BigDecimal("26.89"), order.getTax());
+        assertEquals(new BigDecimal("474.94"), order.getTotalCost());
+    }
+
+    /**
+     * Tests that an encoded order decodes back to the same line.
+     */
+    @Test
+    public void testEncodeRoundTrip() {
+        byte[] line = LINE.getBytes(StandardCharsets.UTF_8);
+        Order order = codec.decodeOrder(ByteBuffer.wrap(line), 0, line.length, LocalDate.of(2025, 3, 7));
+
+        assertEquals(LINE, codec.encode(order));
+        assertEquals(order.toString(), codec.encode(order));
+    }
+
+    /**
+     * Tests that an order priced at a rate the catalog no longer has keeps
+     * it, sharing one tax with the other orders at that rate.
+     */
+    @Test
+    public void testKeepsPastTaxRate() {
+        String older = "7;Old Rate;KY;5.50;Carpet;100.00;2.25;2.10;225.00;210.00;23.93;458.93";
+        byte[] file = (HEADER + "\n" + LINE + "\n" + older + "\n" + older.replace("7;", "8;") + "\n")
+                .getBytes(StandardCharsets.UTF_8);
+        List<Order> orders = new ArrayList<>();
+        codec.decodeOrders(ByteBuffer.wrap(file), LocalDate.of(2025, 3, 7), orders::add);
+
+        assertSame(taxMap.get("KY"), orders.get(0).getTaxInfo());
+        assertEquals(new BigDecimal("5.50"), orders.get(1).getTaxInfo().getTaxRate());
+        assertEquals("Kentucky", orders.get(1).getTaxInfo().getStateName());
+        assertSame(orders.get(1).getTaxInfo(), orders.get(2).getTaxInfo());
+        assertEquals(older, codec.encode(orders.get(1)));
+    }
+
+    /**
+     * Tests that an order number outside the int range is turned down with
+     * the line it is on, rather than wrapping around into another number,
+     * and that the ends of the range still decode.
+     */
+    @Test
+    public void testRejectsOrderNumberOutOfRange() {
+        String[] tooBig = {"2147483648", "-2147483649", "4294967302", "99999999999999999999999"};
+        for (String orderNumber : tooBig) {
+            byte[] file = (HEADER + "\r\n" + LINE + "\r\n\r\n" + orderNumber + LINE.substring(1) + "\r\n")
+                    .getBytes(StandardCharsets.UTF_8);
+            FlooringPersistenceException e = assertThrows(FlooringPersistenceException.class,
+                    () -> codec.decodeOrders(ByteBuffer.wrap(file), LocalDate.of(2025, 3, 7), order -> { }));
+            assertTrue(e.getMessage().startsWith("line 4: "), e.getMessage());
+            assertTrue(e.getMessage().contains(orderNumber), e.getMessage());
+            e = assertThrows(FlooringPersistenceException.class, () -> codec.decodeOrderNumbers(ByteBuffer.wrap(file)));
+            assertTrue(e.getMessage().startsWith("line 4: "), e.getMessage());
+        }
+
+        byte[] file = (HEADER + "\n" + "2147483647" + LINE.substring(1) + "\n" + "-2147483648" + LINE.substring(1))
+                .getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(new int[]{Integer.MAX_VALUE, Integer.MIN_VALUE}, codec.decodeOrderNumbers(ByteBuffer.wrap(file)));
+    }
+}
@@ -0,0 +1,76 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.Tax;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Measures how fast the columnar store adds up orders, with the plain loop
+ * and with the best scan this JVM has, both over every date and over about
+ * a third of them. Reports rows per second and how many bytes of columns
+ * that reads per second. Not a unit test, run main() directly with a heap
+ * of about 2g. To have the vector scan, build with mvn -Pvector and run
+ * with --add-modules jdk.incubator.vector.
+ */
+public class OrderColumnsBenchmark {
+
+    private static final int ORDERS = 10_000_000;
+    private static final int ROUNDS = 10;
+    // the day, state and product ids and five amounts
+    private static final int BYTES_PER_ROW = 3 * Integer.BYTES + OrderColumns.AMOUNT_COLUMNS * Long.BYTES;
+
+    public static void main(String[] args) {
+        Tax[] taxes = {
+                new Tax("TX", "Texas", new BigDecimal("4.45")),
+                new Tax("KY", "Kentucky", new BigDecimal("6.00")),
+                new Tax("CA", "California", new BigDecimal("25.00")),
+                new Tax("WA", "Washington", new BigDecimal("9.25")),
+        };
+        Product[] products = {
+                new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10")),
+                new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15")),
+        };
+        LocalDate firstDate = LocalDate.of(2020, 1, 1);
+
+        OrderColumns scalar = new OrderColumns(new ScalarColumnScan());
+        OrderColumns best = new OrderColumns();
+        Random random = new Random(1);
+        for (int i = 1; i <= ORDERS; i++) {
+            Order order = new Order(i, "Customer", taxes[random.nextInt(taxes.length)],
+                    products[random.nextInt(products.length)], BigDecimal.valueOf(random.nextInt(100_000), 2),
+                    firstDate.plusDays(random.nextInt(3000)));
+            order.setMaterialCost(BigDecimal.valueOf(random.nextInt(1_000_000), 2));
+            order.setLaborCost(BigDecimal.valueOf(random.nextInt(1_000_000), 2));
+            order.setTax(BigDecimal.valueOf(random.nextInt(100_000), 2));
+            CompactOrder compact = CompactOrder.of(order);
+            scalar.add(compact);
+            best.add(compact);
+        }
+
+        LocalDate from = firstDate.plusDays(1000);
+        LocalDate to = firstDate.plusDays(1999);
+        System.out.println("best scan: " + ColumnScan.best().getClass().getSimpleName());
+        run("scalar, every date", () -> scalar.summary(LocalDate.MIN, LocalDate.MAX));
+        run("best, every date", () -> best.summary(LocalDate.MIN, LocalDate.MAX));
+        run("scalar, a third", () -> scalar.summary(from, to));
+        run("best, a third", () -> best.summary(from, to));
+    }
+
+    private static void run(String name, Runnable summary) {
+        // warm up, then time
+        for (int i = 0; i < ROUNDS; i++) {
+            summary.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            summary.run();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9 / ROUNDS;
+        System.out.printf("%-20s %8.1f ms  %,8.0f M rows/s  %6.2f GB/s%n", name, seconds * 1000,
+                ORDERS / seconds / 1e6, (double) ORDERS * BYTES_PER_ROW / seconds / 1e9);
+    }
+}
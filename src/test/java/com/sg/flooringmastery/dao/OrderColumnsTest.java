@@ -0,0 +1,175 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.SalesSummary;
+import com.sg.flooringmastery.dto.SalesTotals;
+import com.sg.flooringmastery.dto.Tax;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderColumnsTest {
+
+    private final Tax[] taxes = {
+            new Tax("TX", "Texas", new BigDecimal("4.45")),
+            new Tax("KY", "Kentucky", new BigDecimal("6.00")),
+            new Tax("CA", "California", new BigDecimal("25.00")),
+            null,
+    };
+    private final Product[] products = {
+            new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10")),
+            new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15")),
+            new Product("Wood", new BigDecimal("5.15"), new BigDecimal("4.75")),
+    };
+    private final LocalDate firstDate = LocalDate.of(2026, 10, 1);
+
+    /**
+     * Makes an order with amounts of two to five decimals, so now and then
+     * one is too wide for the columns, and every so often one never priced.
+     */
+    private CompactOrder order(Random random, int orderNumber) {
+        Order order = new Order(orderNumber, "Customer " + orderNumber, taxes[random.nextInt(taxes.length)],
+                products[random.nextInt(products.length)], amount(random), firstDate.plusDays(random.nextInt(60)));
+        if (random.nextInt(20) > 0) {
+            order.setMaterialCost(amount(random));
+            order.setLaborCost(amount(random));
+            order.setTax(amount(random));
+            order.setTotalCost(order.getMaterialCost().add(order.getLaborCost()).add(order.getTax()));
+        }
+        return CompactOrder.of(order);
+    }
+
+    private static BigDecimal amount(Random random) {
+        int scale = random.nextInt(10) == 0 ? 5 : 2 + random.nextInt(3);
+        return BigDecimal.valueOf(random.nextLong(-1_000_000_000L, 10_000_000_000L), scale);
+    }
+
+    /**
+     * Tests that a summary over every date gives the same totals as the
+     * running SalesAggregates, and one over a range of dates the same as
+     * adding up the orders in range, through adds, replaces and removes,
+     * with both the plain and the best scan.
+     */
+    @Test
+    public void testMatchesSalesAggregates() {
+        for (ColumnScan scan : new ColumnScan[]{new ScalarColumnScan(), ColumnScan.best()}) {
+            Random random = new Random(42);
+            OrderColumns columns = new OrderColumns(scan);
+            List<CompactOrder> orders = new ArrayList<>();
+            for (int i = 1; i <= 5000; i++) {
+                orders.add(order(random, i));
+                columns.add(orders.get(i - 1));
+            }
+            for (int i = 0; i < 2000; i++) {
+                int index = random.nextInt(orders.size());
+                CompactOrder old = orders.get(index);
+                columns.remove(old);
+                if (random.nextBoolean()) {
+                    orders.set(index, order(random, old.getOrderNumber()));
+                    columns.add(orders.get(index));
+                } else {
+                    orders.remove(index);
+                }
+            }
+            assertEquals(orders.size(), columns.size());
+
+            SalesAggregates sales = new SalesAggregates();
+            orders.forEach(sales::add);
+            assertSameSums(sales.summary(), columns.summary(LocalDate.MIN, LocalDate.MAX));
+
+            LocalDate from = firstDate.plusDays(10);
+            LocalDate to = firstDate.plusDays(29);
+            SalesAggregates inRange = new SalesAggregates();
+            BigDecimal smallest = null;
+            BigDecimal largest = null;
+            for (CompactOrder order : orders) {
+                if (!order.getDate().isBefore(from) && !order.getDate().isAfter(to)) {
+                    inRange.add(order);
+                    if (order.getTax() != null) {
+                        smallest = smallest == null ? order.getTotalCost() : smallest.min(order.getTotalCost());
+                        largest = largest == null ? order.getTotalCost() : largest.max(order.getTotalCost());
+                    }
+                }
+            }
+            SalesSummary summary = columns.summary(from, to);
+            assertSameSums(inRange.summary(), summary);
+            assertEquals(0, smallest.compareTo(summary.getOverall().getSmallestOrder()));
+            assertEquals(0, largest.compareTo(summary.getOverall().getLargestOrder()));
+
+            assertEquals(0, columns.summary(to, from).getOverall().getOrderCount());
+            columns.clear();
+            assertEquals(0, columns.summary(LocalDate.MIN, LocalDate.MAX).getOverall().getOrderCount());
+        }
+    }
+
+    /**
+     * Tests that the best scan adds up exactly what the plain loop does,
+     * whatever the length of the run and wherever it starts, so the rows
+     * after the last full vector are covered too. The best scan is the
+     * vector one whenever it was compiled and the incubator module added,
+     * as mvn -Pvector does for the tests.
+     */
+    @Test
+    public void testBestScanMatchesScalar() {
+        ColumnScan best = ColumnScan.best();
+        if (getClass().getResource("VectorColumnScan.class") != null
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            assertEquals("VectorColumnScan", best.getClass().getSimpleName());
+        }
+        ColumnScan scalar = new ScalarColumnScan();
+
+        Random random = new Random(7);
+        int rows = 300;
+        int[] days = new int[rows];
+        long[][] amounts = new long[OrderColumns.AMOUNT_COLUMNS][rows];
+        for (int row = 0; row < rows; row++) {
+            days[row] = random.nextInt(10) == 0 ? Integer.MIN_VALUE : 20_000 + random.nextInt(30);
+            for (long[] column : amounts) {
+                column[row] = random.nextLong(-1_000_000, 1_000_000);
+            }
+        }
+
+        for (int start = 0; start < 20; start++) {
+            for (int end = start; end < rows; end += 1 + random.nextInt(17)) {
+                int fromDay = 20_000 + random.nextInt(15);
+                int toDay = fromDay + random.nextInt(20);
+                ColumnScan.Totals expected = new ColumnScan.Totals();
+                ColumnScan.Totals actual = new ColumnScan.Totals();
+                scalar.scan(days, amounts, start, end, fromDay, toDay, expected);
+                best.scan(days, amounts, start, end, fromDay, toDay, actual);
+                assertEquals(expected.orderCount, actual.orderCount);
+                assertArrayEquals(expected.sums, actual.sums);
+                assertEquals(expected.smallestTotal, actual.smallestTotal);
+                assertEquals(expected.largestTotal, actual.largestTotal);
+            }
+        }
+    }
+
+    private static void assertSameSums(SalesSummary expected, SalesSummary actual) {
+        assertSameSums(expected.getOverall(), actual.getOverall());
+        assertSameSums(expected.getByState(), actual.getByState());
+        assertSameSums(expected.getByProduct(), actual.getByProduct());
+    }
+
+    private static void assertSameSums(Map<String, SalesTotals> expected, Map<String, SalesTotals> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((name, totals) -> assertSameSums(totals, actual.get(name)));
+    }
+
+    private static void assertSameSums(SalesTotals expected, SalesTotals actual) {
+        assertEquals(expected.getOrderCount(), actual.getOrderCount());
+        assertEquals(0, expected.getArea().compareTo(actual.getArea()));
+        assertEquals(0, expected.getMaterialCost().compareTo(actual.getMaterialCost()));
+        assertEquals(0, expected.getLaborCost().compareTo(actual.getLaborCost()));
+        assertEquals(0, expected.getTax().compareTo(actual.getTax()));
+        assertEquals(0, expected.getTotalCost().compareTo(actual.getTotalCost()));
+    }
+}
@@ -0,0 +1,76 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.Tax;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures how much heap each order takes held as an Order, the way the DAO
+ * used to keep them, and as a CompactOrder. Customer names repeat the way
+ * returning customers do. Not a unit test, run main() directly, ideally
+ * with a fixed heap such as -Xms1g -Xmx1g.
+ */
+public class OrderHeapBenchmark {
+
+    private static final int ORDERS = 500_000;
+    private static final int CUSTOMERS = 50_000;
+
+    public static void main(String[] args) {
+        Map<String, Tax> taxMap = new HashMap<>();
+        taxMap.put("KY", new Tax("KY", "Kentucky", new BigDecimal("6.00")));
+        taxMap.put("CA", new Tax("CA", "California", new BigDecimal("25.00")));
+        Map<String, Product> productMap = new HashMap<>();
+        productMap.put("Carpet", new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10")));
+        productMap.put("Tile", new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15")));
+
+        StringBuilder file = new StringBuilder("OrderNumber;CustomerName;State;TaxRate;ProductType;Area;"
+                + "CostPerSquareFoot;LaborCostPerSquareFoot;MaterialCost;LaborCost;Tax;Total\n");
+        for (int i = 1; i <= ORDERS; i++) {
+            file.append(i).append(";Customer ").append(i % CUSTOMERS).append(i % 2 == 0
+                    ? ";KY;6.00;Carpet;103.00;2.25;2.10;231.75;216.30;26.89;474.94\n"
+                    : ";CA;25.00;Tile;249.00;3.50;4.15;871.50;1033.35;476.22;2381.07\n");
+        }
+        byte[] bytes = file.toString().getBytes(StandardCharsets.UTF_8);
+        file = null;
+
+        OrderCodec codec = new OrderCodec(taxMap, productMap);
+        LocalDate date = LocalDate.of(2026, 10, 10);
+
+        long before = usedHeap();
+        List<Order> orders = new ArrayList<>(ORDERS);
+        // every name its own String, as the decoder made them before names were shared
+        codec.decodeOrders(ByteBuffer.wrap(bytes), date, order -> {
+            order.setCustomerName(new String(order.getCustomerName()));
+            orders.add(order);
+        });
+        report("Order", usedHeap() - before, orders.size());
+        orders.clear();
+        ((ArrayList<Order>) orders).trimToSize();
+
+        before = usedHeap();
+        List<CompactOrder> compactOrders = new ArrayList<>(ORDERS);
+        codec.decodeCompactOrders(ByteBuffer.wrap(bytes), date, compactOrders::add);
+        report("CompactOrder", usedHeap() - before, compactOrders.size());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void report(String name, long bytes, int count) {
+        System.out.printf("%-14s %,d orders, %,d bytes, %d bytes per order%n", name, count, bytes, bytes / count);
+    }
+}
@@ -0,0 +1,61 @@
+package com.sg.flooringmastery.dao;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderJournalTest {
+
+    @TempDir
+    Path folder;
+
+    /**
+     * Tests that records sealed while an unfinished compaction's sealed file
+     * is still there come after its records, and that appends made after a
+     * seal go to a fresh journal.
+     */
+    @Test
+    public void testSealKeepsRecordOrder() throws Exception {
+        Path path = folder.resolve("orders.journal");
+        OrderJournal journal = new OrderJournal(path);
+        journal.appendAll(List.of("-;1", "-;2"));
+        journal.force();
+        journal.seal();
+
+        // the compaction of the first seal never got to dropSealed()
+        journal.append("-;3");
+        journal.force();
+        journal.seal();
+        journal.append("-;4");
+        journal.force();
+        assertEquals(List.of("-;1", "-;2", "-;3", "-;4"), journal.readRecords());
+
+        journal.dropSealed();
+        assertEquals(List.of("-;4"), journal.readRecords());
+        journal.close();
+    }
+
+    /**
+     * Tests that a record cut off mid-append is dropped rather than run on
+     * into by the next append.
+     */
+    @Test
+    public void testTornRecord() throws Exception {
+        Path path = folder.resolve("orders.journal");
+        Files.writeString(path, "-;1\n-;2", StandardCharsets.UTF_8, StandardOpenOption.CREATE);
+
+        OrderJournal journal = new OrderJournal(path);
+        assertEquals(List.of("-;1"), journal.readRecords());
+        journal.append("-;3");
+        journal.force();
+        assertEquals(List.of("-;1", "-;3"), journal.readRecords());
+        journal.close();
+    }
+}
@@ -0,0 +1,87 @@
+package com.sg.flooringmastery.dao;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderNumberAllocatorTest {
+
+    @TempDir
+    Path folder;
+
+    private String mark() throws Exception {
+        return Files.readString(folder.resolve("orders.seq")).strip();
+    }
+
+    /**
+     * Tests that numbers come from leased blocks, start above the seeded
+     * mark, and that two allocators on the same file never hand out the same
+     * number.
+     */
+    @Test
+    public void testLeasedBlocks() throws Exception {
+        Path sequence = folder.resolve("orders.seq");
+        OrderNumberAllocator first = new OrderNumberAllocator(sequence, 10);
+        OrderNumberAllocator second = new OrderNumberAllocator(sequence, 10);
+        first.seed(() -> 6);
+
+        assertEquals(7, first.nextOrderNumber());
+        assertEquals("16", mark());
+        assertEquals(17, second.nextOrderNumber());
+        assertEquals("26", mark());
+
+        Set<Integer> numbers = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            assertTrue(numbers.add(first.nextOrderNumber()));
+            assertTrue(numbers.add(second.nextOrderNumber()));
+        }
+        assertFalse(numbers.contains(7));
+        assertFalse(numbers.contains(17));
+    }
+
+    /**
+     * Tests that only a sequence file without a mark is seeded, and that
+     * closing gives back the unused numbers.
+     */
+    @Test
+    public void testSeedAndClose() throws Exception {
+        OrderNumberAllocator allocator = new OrderNumberAllocator(folder.resolve("orders.seq"), 1000);
+        allocator.seed(() -> 50);
+        assertEquals("50", mark());
+        assertEquals(51, allocator.nextOrderNumber());
+        assertEquals(52, allocator.nextOrderNumber());
+        assertEquals("1050", mark());
+
+        allocator.close();
+        assertEquals("52", mark());
+        OrderNumberAllocator next = new OrderNumberAllocator(folder.resolve("orders.seq"), 1000);
+        next.seed(() -> {
+            throw new AssertionError("the mark is there, the orders shouldn't be looked at");
+        });
+        assertEquals(53, next.nextOrderNumber());
+    }
+
+    /**
+     * Tests that a sequence file locked through another channel in this JVM,
+     * as by a second DAO on the same folder, fails as a persistence error.
+     */
+    @Test
+    public void testLockedInThisJvm() throws Exception {
+        Path sequence = folder.resolve("orders.seq");
+        OrderNumberAllocator allocator = new OrderNumberAllocator(sequence, 10);
+        try (FileChannel other = FileChannel.open(sequence, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock held = other.lock()) {
+            assertThrows(FlooringPersistenceException.class, allocator::nextOrderNumber);
+        }
+        assertEquals(1, allocator.nextOrderNumber());
+    }
+}
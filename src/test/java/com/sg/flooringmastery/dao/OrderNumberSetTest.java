@@ -0,0 +1,109 @@
+package com.sg.flooringmastery.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderNumberSetTest {
+
+    /**
+     * Tests adding, removing and membership, in and around runs.
+     */
+    @Test
+    public void testAddRemoveContains() {
+        OrderNumberSet numbers = new OrderNumberSet();
+        assertTrue(numbers.add(63));
+        assertTrue(numbers.add(64));
+        assertTrue(numbers.add(1000));
+        assertFalse(numbers.add(64));
+
+        assertTrue(numbers.contains(63));
+        assertTrue(numbers.contains(Integer.valueOf(1000)));
+        assertFalse(numbers.contains(65));
+        assertFalse(numbers.contains(-1));
+        assertEquals(3, numbers.size());
+
+        assertTrue(numbers.remove(64));
+        assertFalse(numbers.remove(64));
+        assertEquals(List.of(63, 1000), Arrays.asList(numbers.toArray(new Integer[0])));
+        assertEquals(1000, numbers.last());
+        assertEquals(-1, new OrderNumberSet().last());
+    }
+
+    /**
+     * Tests that runs of numbers are described as ranges, and that the
+     * description is cut short after the requested number of runs.
+     */
+    @Test
+    public void testToRanges() {
+        OrderNumberSet numbers = new OrderNumberSet();
+        for (int n : new int[]{1, 2, 3, 4, 6, 8, 9, 62, 63, 64, 65, 200}) {
+            numbers.add(n);
+        }
+
+        assertEquals("1-4, 6, 8-9, 62-65, 200", numbers.toString());
+        assertEquals("1-4, 6, ... (12 orders in total)", numbers.toRanges(2));
+        assertEquals("", new OrderNumberSet().toString());
+    }
+
+    /**
+     * Tests that adds and removes in any order keep the same numbers as a
+     * TreeSet, joining runs when a gap is filled and splitting them when a
+     * number inside one is removed, and that a copy doesn't share them.
+     */
+    @Test
+    public void testMatchesTreeSet() {
+        Random random = new Random(11);
+        OrderNumberSet numbers = new OrderNumberSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int n = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(n), numbers.remove(n));
+            } else {
+                assertEquals(expected.add(n), numbers.add(n));
+            }
+        }
+        assertEquals(expected.size(), numbers.size());
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(numbers));
+        assertEquals(expected.last(), numbers.last());
+        for (int n = -1; n < 2_001; n++) {
+            assertEquals(expected.contains(n), numbers.contains(n));
+            Integer next = expected.ceiling(n);
+            assertEquals(next == null ? -1 : next, numbers.nextNumber(n));
+        }
+
+        OrderNumberSet copy = new OrderNumberSet(numbers);
+        copy.clear();
+        assertTrue(copy.isEmpty());
+        assertEquals(expected.size(), numbers.size());
+    }
+
+    /**
+     * Tests that filling the gap between two runs joins them, and that a
+     * removal from the middle of a run splits it.
+     */
+    @Test
+    public void testRanges() {
+        OrderNumberSet numbers = new OrderNumberSet();
+        for (int n = 1; n <= 1_000_000; n++) {
+            numbers.add(n);
+        }
+        assertEquals(List.of("1-1000000"), numbers.ranges());
+
+        numbers.remove(500);
+        numbers.remove(1);
+        numbers.add(Integer.MAX_VALUE);
+        assertEquals(List.of("2-499", "501-1000000", String.valueOf(Integer.MAX_VALUE)), numbers.ranges());
+        numbers.add(500);
+        assertEquals(List.of("2-1000000", String.valueOf(Integer.MAX_VALUE)), numbers.ranges());
+        assertEquals(1_000_000, numbers.size());
+        assertEquals(List.of(), new OrderNumberSet().ranges());
+    }
+}
@@ -0,0 +1,86 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.Tax;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderSnapshotTest {
+
+    private final Tax tax = new Tax("TX", "Texas", new BigDecimal("4.45"));
+    private final Product product = new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10"));
+    private final LocalDate date = LocalDate.of(2026, 10, 10);
+
+    private CompactOrder order(int orderNumber, String customerName) {
+        return CompactOrder.of(new Order(orderNumber, customerName, tax, product, new BigDecimal("100"), date));
+    }
+
+    private List<Integer> numbers(OrderSnapshot orders) {
+        List<Integer> numbers = new ArrayList<>();
+        for (Order order : orders) {
+            numbers.add(order.getOrderNumber());
+        }
+        return numbers;
+    }
+
+    /**
+     * Tests that with() keeps the orders sorted and replaces an order with
+     * the same number, without changing the set it was called on.
+     */
+    @Test
+    public void testWith() {
+        OrderSnapshot orders = OrderSnapshot.sortedByNumber(List.of(order(5, "E"), order(1, "A")));
+
+        OrderSnapshot added = orders.with(order(3, "C"));
+        assertEquals(List.of(1, 3, 5), numbers(added));
+        assertEquals(List.of(1, 5), numbers(orders));
+
+        OrderSnapshot replaced = added.with(order(3, "Changed"));
+        assertEquals(List.of(1, 3, 5), numbers(replaced));
+        assertTrue(replaced.contains(order(3, "Changed").toOrder()));
+        assertFalse(replaced.contains(order(3, "C").toOrder()));
+        assertTrue(added.contains(order(3, "C").toOrder()));
+    }
+
+    /**
+     * Tests that without() removes by order number and returns the same set
+     * when there is nothing to remove.
+     */
+    @Test
+    public void testWithout() {
+        OrderSnapshot orders = OrderSnapshot.EMPTY.with(order(2, "B")).with(order(1, "A")).with(order(4, "D"));
+
+        OrderSnapshot removed = orders.without(2);
+        assertEquals(List.of(1, 4), numbers(removed));
+        assertEquals(3, orders.size());
+        assertSame(removed, removed.without(2));
+        assertEquals(0, OrderSnapshot.EMPTY.size());
+    }
+
+    /**
+     * Tests that pages are cut out of the sorted set and that merging keeps
+     * order numbers in order across sets.
+     */
+    @Test
+    public void testPageAndMerge() {
+        OrderSnapshot odd = OrderSnapshot.sortedByNumber(List.of(order(5, "E"), order(1, "A"), order(3, "C")));
+        OrderSnapshot even = OrderSnapshot.sortedByNumber(List.of(order(2, "B"), order(6, "F")));
+
+        assertEquals(List.of(3, 5), odd.page(1, 10).map(Order::getOrderNumber).collect(Collectors.toList()));
+        assertEquals(0, odd.page(7, 2).count());
+
+        List<Integer> merged = OrderSnapshot.mergeByNumber(List.of(odd, OrderSnapshot.EMPTY, even))
+                .map(Order::getOrderNumber).collect(Collectors.toList());
+        assertEquals(List.of(1, 2, 3, 5, 6), merged);
+        assertEquals(List.of(3, 5), OrderSnapshot.mergeByNumber(List.of(odd, even)).skip(2).limit(2)
+                .map(Order::getOrderNumber).collect(Collectors.toList()));
+    }
+}
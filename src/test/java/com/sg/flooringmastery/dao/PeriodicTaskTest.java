@@ -0,0 +1,55 @@
+package com.sg.flooringmastery.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PeriodicTaskTest {
+
+    /**
+     * Tests that a run failing with any RuntimeException is kept as the last
+     * failure without stopping the runs after it, and that a run going
+     * through clears it.
+     */
+    @Test
+    public void testKeepsRunningAfterAFailure() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch failed = new CountDownLatch(1);
+        CountDownLatch recovered = new CountDownLatch(1);
+        PeriodicTask task = new PeriodicTask("periodic-task-test", 5, () -> {
+            int run = runs.incrementAndGet();
+            if (run == 1) {
+                failed.countDown();
+                throw new IllegalStateException("first run");
+            }
+            if (run == 3) {
+                recovered.countDown();
+            }
+        });
+        try {
+            assertTrue(failed.await(10, TimeUnit.SECONDS));
+            assertTrue(recovered.await(10, TimeUnit.SECONDS));
+            assertTrue(runs.get() >= 3);
+            assertNull(task.getLastFailure());
+        } finally {
+            task.stop();
+        }
+
+        PeriodicTask failing = new PeriodicTask("periodic-task-test", 5, () -> {
+            throw new NullPointerException("every run");
+        });
+        try {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (failing.getLastFailure() == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertInstanceOf(NullPointerException.class, failing.getLastFailure());
+        } finally {
+            failing.stop();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.sg.flooringmastery.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostingListTest {
+
+    private PostingList of(int... orderNumbers) {
+        PostingList list = new PostingList();
+        for (int orderNumber : orderNumbers) {
+            list.add(orderNumber);
+        }
+        return list;
+    }
+
+    /**
+     * Tests that numbers stay sorted and distinct whether they are appended
+     * or inserted out of order.
+     */
+    @Test
+    public void testAddRemove() {
+        PostingList list = of(5, 1, 9, 3, 7);
+        assertFalse(list.add(3));
+        assertArrayEquals(new int[] {1, 3, 5, 7, 9}, list.toArray());
+
+        assertTrue(list.remove(5));
+        assertFalse(list.remove(5));
+        assertFalse(list.contains(5));
+        assertTrue(list.contains(9));
+        assertEquals(4, list.size());
+    }
+
+    /**
+     * Tests intersecting lists of very different lengths, including an
+     * empty one.
+     */
+    @Test
+    public void testIntersect() {
+        PostingList evens = new PostingList();
+        PostingList threes = new PostingList();
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 2 == 0) {
+                evens.add(i);
+            }
+            if (i % 3 == 0) {
+                threes.add(i);
+            }
+        }
+        PostingList few = of(6, 7, 12, 9_996, 20_000);
+
+        assertArrayEquals(new int[] {6, 12, 9_996}, PostingList.intersect(List.of(evens, threes, few)));
+        assertEquals(1667, PostingList.intersect(List.of(evens, threes)).length);
+        assertEquals(0, PostingList.intersect(List.of(evens, new PostingList())).length);
+    }
+}
@@ -0,0 +1,78 @@
+package com.sg.flooringmastery.dao;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.SalesSummary;
+import com.sg.flooringmastery.dto.SalesTotals;
+import com.sg.flooringmastery.dto.Tax;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SalesAggregatesTest {
+
+    private final Tax texas = new Tax("TX", "Texas", new BigDecimal("4.45"));
+    private final Tax kentucky = new Tax("KY", "Kentucky", new BigDecimal("6.00"));
+    private final Product carpet = new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10"));
+    private final LocalDate date = LocalDate.of(2026, 10, 10);
+
+    private CompactOrder order(int orderNumber, Tax tax, String area, String materialCost, String laborCost, String taxCost) {
+        Order order = new Order(orderNumber, "Customer " + orderNumber, tax, carpet, new BigDecimal(area), date);
+        order.setMaterialCost(new BigDecimal(materialCost));
+        order.setLaborCost(new BigDecimal(laborCost));
+        order.setTax(new BigDecimal(taxCost));
+        return CompactOrder.of(order);
+    }
+
+    /**
+     * Tests that the totals follow orders being added, replaced and removed,
+     * and that a state with no orders left drops out of the summary.
+     */
+    @Test
+    public void testAddReplaceRemove() {
+        SalesAggregates sales = new SalesAggregates();
+        CompactOrder first = order(1, texas, "100", "225.00", "210.00", "19.36");
+        CompactOrder second = order(2, kentucky, "200", "450.00", "420.00", "52.20");
+        sales.add(first);
+        sales.add(second);
+
+        SalesSummary summary = sales.summary();
+        assertEquals(2, summary.getOverall().getOrderCount());
+        assertEquals(0, new BigDecimal("300").compareTo(summary.getOverall().getArea()));
+        assertEquals(0, new BigDecimal("1376.56").compareTo(summary.getOverall().getTotalCost()));
+        assertEquals(1, summary.getByState().get("TX").getOrderCount());
+        assertEquals(2, summary.getByProduct().get("Carpet").getOrderCount());
+
+        // a replace is the old order taken out and the new one counted in
+        CompactOrder moved = order(1, kentucky, "150", "337.50", "315.00", "39.15");
+        sales.remove(first);
+        sales.add(moved);
+        summary = sales.summary();
+        assertFalse(summary.getByState().containsKey("TX"));
+        assertEquals(2, summary.getByState().get("KY").getOrderCount());
+        assertEquals(0, new BigDecimal("91.35").compareTo(summary.getOverall().getTax()));
+
+        sales.remove(moved);
+        sales.remove(second);
+        assertEquals(0, sales.summary().getOverall().getOrderCount());
+        assertEquals(0, BigDecimal.ZERO.compareTo(sales.summary().getOverall().getTotalCost()));
+        assertTrue(sales.summary().getByProduct().isEmpty());
+    }
+
+    /**
+     * Tests the totals for one date, including a date with no orders.
+     */
+    @Test
+    public void testForDate() {
+        SalesAggregates sales = new SalesAggregates();
+        sales.add(order(1, texas, "100", "225.00", "210.00", "19.36"));
+
+        SalesTotals totals = sales.forDate(date);
+        assertEquals(1, totals.getOrderCount());
+        assertEquals(0, new BigDecimal("435.00").compareTo(totals.getMaterialCost().add(totals.getLaborCost())));
+        assertSame(SalesTotals.NONE, sales.forDate(date.plusDays(1)));
+    }
+}
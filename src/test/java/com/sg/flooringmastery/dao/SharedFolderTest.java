@@ -0,0 +1,71 @@
+package com.sg.flooringmastery.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SharedFolderTest {
+
+    @TempDir
+    Path folder;
+
+    SharedFolder sharedFolder;
+
+    @BeforeEach
+    public void setUp() {
+        sharedFolder = new SharedFolder(folder);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        sharedFolder.close();
+    }
+
+    /**
+     * Tests that the generation moves with every rewrite and that date locks
+     * can be taken again once released.
+     */
+    @Test
+    public void testGenerationAndDateLocks() throws Exception {
+        assertEquals(0, sharedFolder.readGeneration());
+        sharedFolder.advanceGeneration();
+        sharedFolder.advanceGeneration();
+        assertEquals(2, sharedFolder.readGeneration());
+
+        LocalDate date = LocalDate.of(1969, 12, 31);
+        try (FileLock first = sharedFolder.lockDate(date)) {
+            assertTrue(first.isValid());
+        }
+        try (FileLock again = sharedFolder.lockDate(date)) {
+            assertTrue(again.isValid());
+        }
+    }
+
+    /**
+     * Tests that replacing a file the way date files are written changes its
+     * stamp, even when the size stays the same.
+     */
+    @Test
+    public void testFileStamp() throws Exception {
+        Path file = folder.resolve("Orders_01012030.txt");
+        assertEquals(SharedFolder.FileStamp.MISSING, SharedFolder.FileStamp.of(file));
+
+        Files.writeString(file, "same size");
+        SharedFolder.FileStamp written = SharedFolder.FileStamp.of(file);
+        assertEquals(written, SharedFolder.FileStamp.of(file));
+
+        Path temp = folder.resolve("Orders_01012030.txt.tmp");
+        Files.writeString(temp, "SAME SIZE");
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        assertNotEquals(written, SharedFolder.FileStamp.of(file));
+    }
+}
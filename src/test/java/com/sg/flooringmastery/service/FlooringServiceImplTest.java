@@ -4,7 +4,9 @@ import com.sg.flooringmastery.dao.FlooringDao;
 import com.sg.flooringmastery.dao.FlooringDaoStubImpl;
 import com.sg.flooringmastery.dao.FlooringPersistenceException;
 import com.sg.flooringmastery.dao.InvalidOrderException;
+import com.sg.flooringmastery.dao.StaleOrderException;
 import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.OrderResult;
 import com.sg.flooringmastery.dto.Product;
 import com.sg.flooringmastery.dto.Tax;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +16,7 @@ import org.springframework.cglib.core.Local;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -139,4 +142,69 @@ public class FlooringServiceImplTest {
         assertTrue(testService.getOrder(1).equals(standard));
     }
 
-}
\ No newline at end of file
+    /**
+     * Tests that an edit started from an order someone else changed since is
+     * rejected instead of overwriting their change.
+     */
+    @Test
+    public void testStaleEditIsRejected() {
+        // 1. two edits start from the same version of order #2
+        Order first = testService.editOrder(2, "First Editor", null, null, null);
+        Order second = testService.editOrder(2, "Second Editor", null, null, null);
+
+        // 2. the first one wins, the second one is now stale
+        testService.replaceOrder(first);
+        assertThrows(StaleOrderException.class, () -> testService.replaceOrder(second));
+
+        assertEquals("First Editor", testService.getOrder(2).getCustomerName());
+    }
+
+    /**
+     * Tests that a batch reports on each order and carries on past the ones
+     * that fail.
+     */
+    @Test
+    public void testBatchRemoveAndAdd() {
+        // 1. remove the stub loaded orders, plus one that doesn't exist
+        List<OrderResult> removed = testService.removeOrders(List.of(1, 2, 3, 99));
+        assertEquals(4, removed.size());
+        assertTrue(removed.get(0).isSuccess());
+        assertEquals("Sydney, Inc.", removed.get(0).getOrder().getCustomerName());
+        assertFalse(removed.get(3).isSuccess());
+        assertTrue(testService.getAllOrderNumbers().isEmpty());
+
+        // 2. add two good orders around one that can't be priced
+        LocalDate date = LocalDate.parse("12/12/2029", DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+        Order first = testService.createNewOrder("First", "TX", "Wood", new BigDecimal("100"), date);
+        Order broken = new Order(null, "Broken", null, null, new BigDecimal("100"), date);
+        Order second = testService.createNewOrder("Second", "CA", "Carpet", new BigDecimal("120"), date);
+
+        List<OrderResult> added = testService.addOrders(List.of(first, broken, second));
+        assertEquals(3, added.size());
+        assertTrue(added.get(0).isSuccess());
+        assertFalse(added.get(1).isSuccess());
+        assertNull(added.get(1).getOrderNumber());
+        assertTrue(added.get(2).isSuccess());
+
+        assertEquals(first, testService.getOrder(added.get(0).getOrderNumber()));
+        assertEquals(second, testService.getOrder(added.get(2).getOrderNumber()));
+        assertEquals(2, testService.getOrdersByDate(date).size());
+    }
+
+    /**
+     * Tests the order rules the view and the importer both check with.
+     */
+    @Test
+    public void testValidation() {
+        testService.validateCustomerName("Sydney, Inc.");
+        assertThrows(InvalidOrderException.class, () -> testService.validateCustomerName(" "));
+        assertThrows(InvalidOrderException.class, () -> testService.validateCustomerName("Sydney; Inc."));
+
+        testService.validateArea(new BigDecimal("100"));
+        assertThrows(InvalidOrderException.class, () -> testService.validateArea(new BigDecimal("99.99")));
+
+        testService.validateOrderDate(LocalDate.now().plusDays(1));
+        assertThrows(InvalidOrderException.class, () -> testService.validateOrderDate(LocalDate.now()));
+    }
+
+}
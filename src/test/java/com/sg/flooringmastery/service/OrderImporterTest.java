@@ -0,0 +1,84 @@
+package com.sg.flooringmastery.service;
+
+import com.sg.flooringmastery.dao.FlooringDao;
+import com.sg.flooringmastery.dao.FlooringDaoStubImpl;
+import com.sg.flooringmastery.dao.FlooringPersistenceException;
+import com.sg.flooringmastery.dto.ImportReport;
+import com.sg.flooringmastery.dto.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderImporterTest {
+
+    @TempDir
+    Path folder;
+
+    FlooringDao testDao;
+    FlooringService testService;
+
+    @BeforeEach
+    public void setUp() {
+        testDao = new FlooringDaoStubImpl();
+        testService = new FlooringServiceImpl(testDao);
+        // the stub hands out numbers from 1, which its own orders already hold
+        testService.removeOrders(List.of(1, 2, 3));
+    }
+
+    /**
+     * Tests that good rows are priced and added across several chunks while
+     * bad rows are counted and reported by line number.
+     */
+    @Test
+    public void testImportOrders() throws Exception {
+        String future = LocalDate.now().plusDays(30).format(DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+        String past = LocalDate.now().minusDays(1).format(DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+
+        Path file = folder.resolve("feed.csv");
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("CustomerName,State,ProductType,Area,Date");
+            for (int i = 0; i < 1000; i++) {
+                out.println("Customer " + i + ",TX,Wood,150," + future);
+            }
+            out.println("\"Sydney, Inc.\",CA,Carpet,200," + future);
+            out.println("Nowhere,NY,Wood,150," + future);   // line 1003
+            out.println("Too Small,TX,Wood,99," + future);
+            out.println("Too Late,TX,Wood,150," + past);
+            out.println("Short,TX,Wood");
+            out.println();
+        }
+
+        ImportReport report = new OrderImporter(testDao, testService, 3, 64).importOrders(file);
+
+        assertEquals(1005, report.getRowCount());
+        assertEquals(1001, report.getImportedCount());
+        assertEquals(4, report.getRejectedCount());
+        assertTrue(report.getRejects().get(0).startsWith("line 1003:"));
+        assertEquals(1001, testService.getAllOrderNumbers().size());
+
+        Order quoted = testService.getOrdersByDate(LocalDate.now().plusDays(30)).stream()
+                .filter(order -> order.getCustomerName().equals("Sydney, Inc."))
+                .findFirst().orElseThrow();
+        // 200 * (2.25 + 2.10) plus 25% tax
+        assertEquals(0, new BigDecimal("1087.50").compareTo(quoted.getTotalCost()));
+    }
+
+    /**
+     * Tests that a file that can't be read stops the import.
+     */
+    @Test
+    public void testMissingFile() {
+        OrderImporter importer = new OrderImporter(testDao, testService, 2, 10);
+        assertThrows(FlooringPersistenceException.class, () -> importer.importOrders(folder.resolve("missing.csv")));
+    }
+}
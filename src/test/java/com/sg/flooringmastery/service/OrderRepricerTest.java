@@ -0,0 +1,86 @@
+package com.sg.flooringmastery.service;
+
+import com.sg.flooringmastery.dao.FlooringDao;
+import com.sg.flooringmastery.dao.FlooringDaoStubImpl;
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.OrderResult;
+import com.sg.flooringmastery.dto.PriceChange;
+import com.sg.flooringmastery.dto.RepriceReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderRepricerTest {
+
+    FlooringDao testDao;
+    FlooringService testService;
+    List<Integer> futureOrders = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        testDao = new FlooringDaoStubImpl();
+        testService = new FlooringServiceImpl(testDao);
+        // the stub hands out numbers from 1, which its own orders already hold; order 1 stays as a past order
+        testService.removeOrders(List.of(2, 3));
+        testDao.getNextOrderNumber();
+
+        LocalDate future = LocalDate.now().plusDays(30);
+        List<Order> orders = List.of(
+                testService.createNewOrder("Wood TX", "TX", "Wood", new BigDecimal("100"), future),
+                testService.createNewOrder("Wood CA", "CA", "Wood", new BigDecimal("200"), future.plusDays(1)),
+                testService.createNewOrder("Carpet CA", "CA", "Carpet", new BigDecimal("100"), future));
+        for (OrderResult result : testService.addOrders(orders)) {
+            futureOrders.add(result.getOrderNumber());
+        }
+    }
+
+    /**
+     * Tests that a product's new costs reprice its future orders only, and
+     * land in the catalog for new orders.
+     */
+    @Test
+    public void testRepriceProduct() {
+        Order past = testService.getOrder(1);
+
+        RepriceReport report = testService.repriceProduct("Wood", new BigDecimal("6.00"), new BigDecimal("5.00"));
+
+        assertEquals(2, report.getPriceChanges().size());
+        assertTrue(report.getFailures().isEmpty());
+        PriceChange texas = report.getPriceChanges().get(0);
+        assertEquals("Wood TX", texas.getAfter().getCustomerName());
+        // 100 * (5.15 + 4.75) * 1.0445 before, 100 * (6.00 + 5.00) * 1.0445 after
+        assertEquals(0, new BigDecimal("1034.055").compareTo(texas.getBefore().getTotalCost()));
+        assertEquals(0, new BigDecimal("1148.95").compareTo(texas.getAfter().getTotalCost()));
+        assertEquals(0, new BigDecimal("114.895").compareTo(texas.getDifference()));
+
+        Order stored = testService.getOrder(futureOrders.get(0));
+        assertEquals(new BigDecimal("6.00"), stored.getCostPerSquareFoot());
+        assertSame(past, testService.getOrder(1));
+        assertEquals(new BigDecimal("6.00"), testDao.getProductFromProductType("Wood").getCostPerSquareFoot());
+        assertNull(testService.repriceProduct("Marble", BigDecimal.ONE, BigDecimal.ONE));
+    }
+
+    /**
+     * Tests that a new tax rate reprices the state's future orders and keeps
+     * their per square foot costs.
+     */
+    @Test
+    public void testRepriceTax() {
+        RepriceReport report = testService.repriceTax("CA", new BigDecimal("10.00"));
+
+        assertEquals(2, report.getPriceChanges().size());
+        assertTrue(report.getTotalDifference().signum() < 0);
+        Order carpet = testService.getOrder(futureOrders.get(2));
+        assertEquals(new BigDecimal("10.00"), carpet.getTaxInfo().getTaxRate());
+        assertEquals(new BigDecimal("2.25"), carpet.getCostPerSquareFoot());
+        // 100 * (2.25 + 2.10) plus 10% tax
+        assertEquals(0, new BigDecimal("478.50").compareTo(carpet.getTotalCost()));
+        assertEquals(new BigDecimal("4.45"), testService.getOrder(futureOrders.get(0)).getTaxInfo().getTaxRate());
+    }
+}
@@ -0,0 +1,97 @@
+package com.sg.flooringmastery.service;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.Tax;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Compares the throughput of PricingEngine with the BigDecimal arithmetic
+ * calculateOrderCosts used before, on the same orders. Not a unit test, run
+ * main() directly.
+ */
+public class PricingEngineBenchmark {
+
+    private static final int ORDERS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        Tax[] taxes = {
+                new Tax("TX", "Texas", new BigDecimal("4.45")),
+                new Tax("KY", "Kentucky", new BigDecimal("6.00")),
+                new Tax("CA", "California", new BigDecimal("25.00"))
+        };
+        Product[] products = {
+                new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10")),
+                new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15")),
+                new Product("Wood", new BigDecimal("5.15"), new BigDecimal("4.75"))
+        };
+        LocalDate date = LocalDate.of(2026, 10, 10);
+
+        Order[] orders = new Order[ORDERS];
+        long[][] hundredths = new long[ORDERS][];
+        for (int i = 0; i < ORDERS; i++) {
+            Tax tax = taxes[i % taxes.length];
+            Product product = products[i % products.length];
+            BigDecimal area = BigDecimal.valueOf(10_000 + i % 90_000, 2);
+            orders[i] = new Order(i + 1, "Customer", tax, product, area, date);
+            orders[i].setCostPerSquareFoot(product.getCostPerSquareFoot());
+            orders[i].setLaborCostPerSquareFoot(product.getLaborCostPerSquareFoot());
+            hundredths[i] = new long[] {
+                    area.unscaledValue().longValue(),
+                    product.getCostPerSquareFoot().unscaledValue().longValue(),
+                    product.getLaborCostPerSquareFoot().unscaledValue().longValue(),
+                    tax.getTaxRate().unscaledValue().longValue()
+            };
+        }
+
+        PricingEngine.Quote quote = new PricingEngine.Quote();
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            long checksum = 0;
+            for (Order order : orders) {
+                priceInBigDecimal(order);
+                checksum += order.getTotalCost().unscaledValue().longValue();
+            }
+            report("BigDecimal", round, start, checksum);
+
+            start = System.nanoTime();
+            checksum = 0;
+            for (Order order : orders) {
+                PricingEngine.price(order);
+                checksum += order.getTotalCost().unscaledValue().longValue();
+            }
+            report("PricingEngine.price(Order)", round, start, checksum);
+
+            start = System.nanoTime();
+            checksum = 0;
+            for (long[] amounts : hundredths) {
+                PricingEngine.price(amounts[0], amounts[1], amounts[2], amounts[3], quote);
+                checksum += quote.getTotalCost();
+            }
+            report("PricingEngine.price(long..)", round, start, checksum);
+        }
+    }
+
+    /**
+     * The arithmetic calculateOrderCosts used before PricingEngine.
+     */
+    private static void priceInBigDecimal(Order order) {
+        BigDecimal materialCost = order.getArea().multiply(order.getCostPerSquareFoot());
+        BigDecimal laborCost = order.getArea().multiply(order.getLaborCostPerSquareFoot());
+        BigDecimal tax = materialCost.add(laborCost).multiply(order.getTaxInfo().getTaxRate())
+                .divide(new BigDecimal("100"));
+        order.setMaterialCost(materialCost);
+        order.setLaborCost(laborCost);
+        order.setTax(tax);
+        order.setTotalCost(materialCost.add(laborCost).add(tax));
+    }
+
+    private static void report(String name, int round, long start, long checksum) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("round %d  %-28s %,12.0f orders/sec  (checksum %d)%n",
+                round, name, ORDERS / seconds, checksum);
+    }
+}
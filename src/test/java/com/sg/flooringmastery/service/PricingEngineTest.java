@@ -0,0 +1,154 @@
+package com.sg.flooringmastery.service;
+
+import com.sg.flooringmastery.dto.Order;
+import com.sg.flooringmastery.dto.Product;
+import com.sg.flooringmastery.dto.Tax;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.math.RoundingMode.UP;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PricingEngineTest {
+
+    private final LocalDate date = LocalDate.of(2026, 10, 10);
+
+    private Order order(Tax tax, Product product, String area) {
+        Order order = new Order(1, "Ada Lovelace", tax, product, new BigDecimal(area), date);
+        order.setCostPerSquareFoot(product.getCostPerSquareFoot());
+        order.setLaborCostPerSquareFoot(product.getLaborCostPerSquareFoot());
+        return order;
+    }
+
+    private List<String> rows(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        return lines.subList(1, lines.size());
+    }
+
+    private static BigDecimal cents(BigDecimal amount) {
+        return amount.setScale(2, UP);
+    }
+
+    /**
+     * Tests that repricing every order in the data files gives the costs the
+     * files hold, once rounded to cents the way the files are written.
+     */
+    @Test
+    public void testMatchesOrderFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String folder : new String[] {"data/orders", "data-t/orders"}) {
+            try (Stream<Path> listing = Files.list(Path.of(folder))) {
+                listing.forEach(files::add);
+            }
+        }
+
+        int checked = 0;
+        for (Path file : files) {
+            for (String row : rows(file)) {
+                String[] fields = row.split(";");
+                Tax tax = new Tax(fields[2], fields[2], new BigDecimal(fields[3]));
+                Product product = new Product(fields[4], new BigDecimal(fields[6]), new BigDecimal(fields[7]));
+                Order order = order(tax, product, fields[5]);
+                PricingEngine.price(order);
+
+                assertEquals(new BigDecimal(fields[8]), cents(order.getMaterialCost()), row);
+                assertEquals(new BigDecimal(fields[9]), cents(order.getLaborCost()), row);
+                assertEquals(new BigDecimal(fields[10]), cents(order.getTax()), row);
+                assertEquals(new BigDecimal(fields[11]), cents(order.getTotalCost()), row);
+                checked++;
+            }
+        }
+        assertTrue(checked > 0);
+    }
+
+    /**
+     * Tests every state and product against the exact BigDecimal arithmetic
+     * the service used before, over a spread of areas, in cents.
+     */
+    @Test
+    public void testMatchesExactArithmetic() throws IOException {
+        BigDecimal hundred = new BigDecimal("100");
+        for (String taxRow : rows(Path.of("data/Taxes.txt"))) {
+            String[] taxFields = taxRow.split(";");
+            Tax tax = new Tax(taxFields[0], taxFields[1], new BigDecimal(taxFields[2]));
+            for (String productRow : rows(Path.of("data/Products.txt"))) {
+                String[] productFields = productRow.split(";");
+                Product product = new Product(productFields[0], new BigDecimal(productFields[1]),
+                        new BigDecimal(productFields[2]));
+                for (int hundredths = 10_000; hundredths < 100_000; hundredths += 37) {
+                    Order order = order(tax, product, BigDecimal.valueOf(hundredths, 2).toPlainString());
+                    PricingEngine.price(order);
+
+                    BigDecimal materialCost = order.getArea().multiply(product.getCostPerSquareFoot());
+                    BigDecimal laborCost = order.getArea().multiply(product.getLaborCostPerSquareFoot());
+                    BigDecimal exactTax = materialCost.add(laborCost).multiply(tax.getTaxRate()).divide(hundred);
+                    BigDecimal total = materialCost.add(laborCost).add(exactTax);
+
+                    assertEquals(0, materialCost.compareTo(order.getMaterialCost()));
+                    assertEquals(0, laborCost.compareTo(order.getLaborCost()));
+                    assertEquals(cents(exactTax), cents(order.getTax()));
+                    assertEquals(cents(total), cents(order.getTotalCost()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that the tax is rounded up to a ten-thousandth, and that an area
+     * with more decimals than the longs hold, or one too big for them, is
+     * priced in BigDecimal by the same rule, its total the sum of its rounded
+     * costs.
+     */
+    @Test
+    public void testRoundingAndFallback() {
+        Tax texas = new Tax("TX", "Texas", new BigDecimal("4.45"));
+        Product carpet = new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10"));
+
+        // (100.01 * 4.35) * 4.45 / 100 = 19.35943575
+        Order order = order(texas, carpet, "100.01");
+        PricingEngine.price(order);
+        assertEquals(new BigDecimal("19.3595"), order.getTax());
+        assertEquals(new BigDecimal("454.4030"), order.getTotalCost());
+
+        Order fine = order(texas, carpet, "100.005");
+        PricingEngine.price(fine);
+        assertEquals(new BigDecimal("225.0113"), fine.getMaterialCost());
+        assertEquals(new BigDecimal("210.0105"), fine.getLaborCost());
+
+        // the total adds up the rounded costs, as in longs, not the exact 454.39838...
+        Order odd = order(texas, carpet, "100.009");
+        PricingEngine.price(odd);
+        assertEquals(new BigDecimal("19.3593"), odd.getTax());
+        assertEquals(new BigDecimal("454.3985"), odd.getTotalCost());
+        assertEquals(odd.getMaterialCost().add(odd.getLaborCost()).add(odd.getTax()), odd.getTotalCost());
+
+        Order huge = order(texas, carpet, "9000000000000000");
+        PricingEngine.price(huge);
+        assertEquals(new BigDecimal("20250000000000000.0000"), huge.getMaterialCost());
+        assertEquals(0, new BigDecimal("40892175000000000").compareTo(huge.getTotalCost()));
+    }
+
+    /**
+     * Tests the long arithmetic on its own, including the overflow check.
+     */
+    @Test
+    public void testPriceInLongs() {
+        PricingEngine.Quote quote = new PricingEngine.Quote();
+        assertTrue(PricingEngine.price(10_300, 225, 210, 600, quote));
+        assertEquals(2_317_500, quote.getMaterialCost());
+        assertEquals(2_163_000, quote.getLaborCost());
+        assertEquals(268_830, quote.getTax());
+        assertEquals(4_749_330, quote.getTotalCost());
+
+        assertFalse(PricingEngine.price(Long.MAX_VALUE / 100, 225, 210, 600, quote));
+        assertEquals(4_749_330, quote.getTotalCost());
+    }
+}
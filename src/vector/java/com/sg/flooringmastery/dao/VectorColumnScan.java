@@ -0,0 +1,83 @@
+package com.sg.flooringmastery.dao;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import static com.sg.flooringmastery.dao.OrderColumns.AREA;
+import static com.sg.flooringmastery.dao.OrderColumns.LABOR_COST;
+import static com.sg.flooringmastery.dao.OrderColumns.MATERIAL_COST;
+import static com.sg.flooringmastery.dao.OrderColumns.TAX;
+import static com.sg.flooringmastery.dao.OrderColumns.TOTAL_COST;
+
+/**
+ * The scan done with the Vector API, as many rows at a time as the CPU's
+ * widest registers hold longs. The days are read as ints at half the width
+ * so they line up lane for lane with the amounts, compared against the
+ * range, and the resulting mask decides which lanes are added in. Only
+ * compiled by the vector profile, from src/vector/java, and only loaded
+ * through ColumnScan.best(), when the incubator module is present.
+ * Every vector is kept in a local of its own, an array of them would stop
+ * the JIT from keeping them in registers.
+ */
+final class VectorColumnScan implements ColumnScan {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+
+    private final ScalarColumnScan tail = new ScalarColumnScan();
+
+    @Override
+    public void scan(int[] days, long[][] amounts, int start, int end, int fromDay, int toDay, Totals totals) {
+        long[] area = amounts[AREA];
+        long[] materialCost = amounts[MATERIAL_COST];
+        long[] laborCost = amounts[LABOR_COST];
+        long[] tax = amounts[TAX];
+        long[] totalCost = amounts[TOTAL_COST];
+
+        IntVector from = IntVector.broadcast(INTS, fromDay);
+        IntVector to = IntVector.broadcast(INTS, toDay);
+        LongVector areaSum = LongVector.zero(LONGS);
+        LongVector materialSum = LongVector.zero(LONGS);
+        LongVector laborSum = LongVector.zero(LONGS);
+        LongVector taxSum = LongVector.zero(LONGS);
+        LongVector totalSum = LongVector.zero(LONGS);
+        LongVector smallest = LongVector.broadcast(LONGS, Long.MAX_VALUE);
+        LongVector largest = LongVector.broadcast(LONGS, Long.MIN_VALUE);
+        long orderCount = 0;
+
+        int step = LONGS.length();
+        int bound = start + LONGS.loopBound(end - start);
+        int row = start;
+        for (; row < bound; row += step) {
+            IntVector day = IntVector.fromArray(INTS, days, row);
+            VectorMask<Long> in = day.compare(VectorOperators.GE, from)
+                    .and(day.compare(VectorOperators.LE, to)).cast(LONGS);
+            orderCount += in.trueCount();
+            areaSum = areaSum.add(LongVector.fromArray(LONGS, area, row), in);
+            materialSum = materialSum.add(LongVector.fromArray(LONGS, materialCost, row), in);
+            laborSum = laborSum.add(LongVector.fromArray(LONGS, laborCost, row), in);
+            taxSum = taxSum.add(LongVector.fromArray(LONGS, tax, row), in);
+            LongVector total = LongVector.fromArray(LONGS, totalCost, row);
+            totalSum = totalSum.add(total, in);
+            smallest = smallest.lanewise(VectorOperators.MIN, total, in);
+            largest = largest.lanewise(VectorOperators.MAX, total, in);
+        }
+
+        totals.orderCount += orderCount;
+        totals.sums[AREA] += areaSum.reduceLanes(VectorOperators.ADD);
+        totals.sums[MATERIAL_COST] += materialSum.reduceLanes(VectorOperators.ADD);
+        totals.sums[LABOR_COST] += laborSum.reduceLanes(VectorOperators.ADD);
+        totals.sums[TAX] += taxSum.reduceLanes(VectorOperators.ADD);
+        totals.sums[TOTAL_COST] += totalSum.reduceLanes(VectorOperators.ADD);
+        totals.smallestTotal = Math.min(totals.smallestTotal, smallest.reduceLanes(VectorOperators.MIN));
+        totals.largestTotal = Math.max(totals.largestTotal, largest.reduceLanes(VectorOperators.MAX));
+
+        // the rows left over after the last full vector
+        tail.scan(days, amounts, row, end, fromDay, toDay, totals);
+    }
+}